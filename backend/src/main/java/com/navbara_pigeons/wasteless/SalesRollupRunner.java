@@ -0,0 +1,43 @@
+package com.navbara_pigeons.wasteless;
+
+import com.navbara_pigeons.wasteless.service.TransactionService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintenance commands for the daily sales rollups, run at startup when the application is given
+ * --rebuild-sales-rollups or --check-sales-rollups. A check after a rebuild confirms it.
+ */
+@Slf4j
+@Component
+public class SalesRollupRunner implements ApplicationRunner {
+
+  public static final String REBUILD_OPTION = "rebuild-sales-rollups";
+  public static final String CHECK_OPTION = "check-sales-rollups";
+
+  private final TransactionService transactionService;
+
+  @Autowired
+  public SalesRollupRunner(TransactionService transactionService) {
+    this.transactionService = transactionService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (args.containsOption(REBUILD_OPTION)) {
+      int rows = transactionService.rebuildSalesRollups();
+      log.info("REBUILT SALES ROLLUPS: " + rows + " BUSINESS DAYS");
+    }
+    if (args.containsOption(CHECK_OPTION)) {
+      List<String> inconsistencies = transactionService.checkSalesRollups();
+      for (String inconsistency : inconsistencies) {
+        log.error("SALES ROLLUP INCONSISTENT: " + inconsistency);
+      }
+      log.info("CHECKED SALES ROLLUPS: " + inconsistencies.size() + " INCONSISTENCIES");
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package com.navbara_pigeons.wasteless.analytics;
+
+import com.navbara_pigeons.wasteless.dao.TransactionDaoHibernate;
+import com.navbara_pigeons.wasteless.dto.SalesAnalyticsDto;
+import com.navbara_pigeons.wasteless.model.ProductSalesModel;
+import com.navbara_pigeons.wasteless.model.SalesAggregate;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Works out sales across many businesses in parallel. The businesses are split in half until each
+ * partition is small enough to query in one go, partitions are queried on a dedicated fork-join
+ * pool each in its own read-only transaction, and their per-product sales are merged on the way
+ * back up. Totals by business type and country and the top products are made from the merged
+ * product sales.
+ */
+@Slf4j
+@Component
+public class SalesAnalyzer {
+
+  private final TransactionDaoHibernate transactionDaoHibernate;
+  private final TransactionTemplate transactionTemplate;
+  private final ForkJoinPool pool;
+  private final int partitionSize;
+
+  /**
+   * SalesAnalyzer constructor that starts the pool.
+   *
+   * @param transactionDaoHibernate The TransactionDataAccessObject.
+   * @param transactionManager      Used to query each partition in its own transaction.
+   * @param parallelism             number of partitions queried at once
+   * @param partitionSize           most businesses queried together
+   */
+  @Autowired
+  public SalesAnalyzer(TransactionDaoHibernate transactionDaoHibernate,
+      PlatformTransactionManager transactionManager,
+      @Value("${analytics.parallelism:4}") int parallelism,
+      @Value("${analytics.partition_size:50}") int partitionSize) {
+    this.transactionDaoHibernate = transactionDaoHibernate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.pool = new ForkJoinPool(parallelism);
+    this.partitionSize = partitionSize;
+  }
+
+  /**
+   * Works out the sales of the given businesses in a date range
+   *
+   * @param businessIds   businesses to include
+   * @param startSaleDate earliest sale date
+   * @param endSaleDate   latest sale date
+   * @param top           number of products in each top list
+   * @return totals, breakdowns and top products
+   */
+  public SalesAnalyticsDto analyze(List<Long> businessIds, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate, int top) {
+    Map<Long, ProductSalesModel> products = businessIds.isEmpty() ? new HashMap<>()
+        : pool.invoke(new PartitionTask(businessIds, startSaleDate, endSaleDate));
+    return summarise(products, businessIds.size(), top);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    pool.shutdown();
+    if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.error("SALES ANALYZER SHUT DOWN WITH QUERIES STILL RUNNING");
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Adds one partition's product sales to another's
+   *
+   * @param into  sales to add to, keyed by product ID
+   * @param other sales to add
+   * @return the merged sales
+   */
+  static Map<Long, ProductSalesModel> merge(Map<Long, ProductSalesModel> into,
+      Map<Long, ProductSalesModel> other) {
+    other.forEach((productId, product) -> into.merge(productId, product, (existing, added) -> {
+      existing.getSales().merge(added.getSales());
+      return existing;
+    }));
+    return into;
+  }
+
+  /**
+   * Makes the totals, breakdowns and top products from merged product sales
+   *
+   * @param products      sales of each product, keyed by product ID
+   * @param businessCount number of businesses included
+   * @param top           number of products in each top list
+   * @return the analytics
+   */
+  static SalesAnalyticsDto summarise(Map<Long, ProductSalesModel> products, int businessCount,
+      int top) {
+    SalesAnalyticsDto analytics = new SalesAnalyticsDto();
+    analytics.setBusinessCount(businessCount);
+    for (ProductSalesModel product : products.values()) {
+      SalesAggregate sales = product.getSales();
+      analytics.getTotal().merge(sales);
+      analytics.getByBusinessType()
+          .computeIfAbsent(product.getBusinessType(), type -> new SalesAggregate()).merge(sales);
+      analytics.getByCountry()
+          .computeIfAbsent(product.getCountry(), country -> new SalesAggregate()).merge(sales);
+    }
+    // Ties are broken by product ID so the lists do not depend on the order partitions finished
+    Comparator<ProductSalesModel> byId = Comparator.comparing(ProductSalesModel::getProductId);
+    analytics.setTopProductsByRevenue(products.values().stream()
+        .sorted(Comparator.comparingDouble(
+            (ProductSalesModel product) -> product.getSales().getAmount()).reversed()
+            .thenComparing(byId))
+        .limit(top)
+        .collect(Collectors.toList()));
+    analytics.setFastestSellingProducts(products.values().stream()
+        .sorted(Comparator.comparingDouble(
+            (ProductSalesModel product) -> product.getSales().getAverageSellThroughHours())
+            .thenComparing(byId))
+        .limit(top)
+        .collect(Collectors.toList()));
+    return analytics;
+  }
+
+  private class PartitionTask extends RecursiveTask<Map<Long, ProductSalesModel>> {
+
+    private final List<Long> businessIds;
+    private final ZonedDateTime startSaleDate;
+    private final ZonedDateTime endSaleDate;
+
+    PartitionTask(List<Long> businessIds, ZonedDateTime startSaleDate,
+        ZonedDateTime endSaleDate) {
+      this.businessIds = businessIds;
+      this.startSaleDate = startSaleDate;
+      this.endSaleDate = endSaleDate;
+    }
+
+    @Override
+    protected Map<Long, ProductSalesModel> compute() {
+      if (businessIds.size() > partitionSize) {
+        int middle = businessIds.size() / 2;
+        PartitionTask left = new PartitionTask(businessIds.subList(0, middle), startSaleDate,
+            endSaleDate);
+        left.fork();
+        Map<Long, ProductSalesModel> right = new PartitionTask(
+            businessIds.subList(middle, businessIds.size()), startSaleDate, endSaleDate)
+            .compute();
+        return merge(left.join(), right);
+      }
+      List<ProductSalesModel> productSales = transactionTemplate.execute(transaction ->
+          transactionDaoHibernate.getProductSales(businessIds, startSaleDate, endSaleDate));
+      Map<Long, ProductSalesModel> products = new HashMap<>();
+      for (ProductSalesModel product : productSales) {
+        products.put(product.getProductId(), product);
+      }
+      return products;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.navbara_pigeons.wasteless.configuration;
+
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
+import com.navbara_pigeons.wasteless.search.SearchPlanCompiler;
+import com.navbara_pigeons.wasteless.security.BusinessAdminIndex;
+import com.navbara_pigeons.wasteless.security.PrincipalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically logs the hit and miss counts of the application's caches, so their effectiveness
+ * can be followed without attaching a debugger or a metrics backend.
+ */
+@Slf4j
+@Component
+public class CacheMetricsLogger {
+
+  private final SearchPlanCompiler searchPlanCompiler;
+  private final TotalCountCache totalCountCache;
+  private final MeteredCacheResolver referenceDataCacheResolver;
+  private final PrincipalCache principalCache;
+  private final BusinessAdminIndex businessAdminIndex;
+
+  @Autowired
+  public CacheMetricsLogger(SearchPlanCompiler searchPlanCompiler,
+      TotalCountCache totalCountCache, MeteredCacheResolver referenceDataCacheResolver,
+      PrincipalCache principalCache, BusinessAdminIndex businessAdminIndex) {
+    this.searchPlanCompiler = searchPlanCompiler;
+    this.totalCountCache = totalCountCache;
+    this.referenceDataCacheResolver = referenceDataCacheResolver;
+    this.principalCache = principalCache;
+    this.businessAdminIndex = businessAdminIndex;
+  }
+
+  /**
+   * Logs the hits and misses of every cache since startup, run periodically
+   */
+  @Scheduled(fixedDelayString = "${cache_metrics.log_interval:300000}",
+      initialDelayString = "${cache_metrics.log_interval:300000}")
+  public void logMetrics() {
+    log.info("CACHE METRICS (HITS/MISSES): SEARCH PLANS " + searchPlanCompiler.getHits() + "/"
+        + searchPlanCompiler.getMisses() + ", TOTAL COUNTS " + totalCountCache.getHits() + "/"
+        + totalCountCache.getMisses() + ", KEYWORDS "
+        + referenceDataCacheResolver.getHits(CachingConfig.KEYWORDS) + "/"
+        + referenceDataCacheResolver.getMisses(CachingConfig.KEYWORDS) + ", PRINCIPALS "
+        + principalCache.getHits() + "/" + principalCache.getMisses() + ", BUSINESS ADMINS "
+        + businessAdminIndex.getHits() + "/" + businessAdminIndex.getMisses());
+  }
+}
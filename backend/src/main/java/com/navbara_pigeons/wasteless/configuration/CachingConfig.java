@@ -0,0 +1,30 @@
+package com.navbara_pigeons.wasteless.configuration;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache tier for rarely changing reference data. The CacheManager is auto configured by Spring
+ * Boot from the spring.cache properties: an in memory ConcurrentMap cache by default, or any JCache
+ * (JSR-107) provider on the classpath with spring.cache.type=jcache.
+ */
+@Configuration
+@EnableCaching
+public class CachingConfig {
+
+  public static final String KEYWORDS = "keywords";
+
+  /**
+   * Resolves the caches used by the reference data DAOs, counting hits and misses and holding back
+   * writes and evictions until the surrounding transaction commits.
+   *
+   * @param cacheManager the auto configured cache manager
+   * @return the cache resolver
+   */
+  @Bean
+  public MeteredCacheResolver referenceDataCacheResolver(CacheManager cacheManager) {
+    return new MeteredCacheResolver(cacheManager);
+  }
+}
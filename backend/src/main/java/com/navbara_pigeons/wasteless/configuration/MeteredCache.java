@@ -0,0 +1,125 @@
+package com.navbara_pigeons.wasteless.configuration;
+
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.cache.Cache;
+
+/**
+ * Cache decorator counting the hits and misses of the lookups made on the cache. Writes and
+ * evictions are held back until the surrounding transaction commits, so values read or evicted in a
+ * transaction that rolls back never reach the cache. A value put after a miss is dropped if an
+ * eviction committed since the miss, as it may have been read before the evicting write.
+ */
+public class MeteredCache implements Cache {
+
+  private final Cache delegate;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  // Bumped by every eviction, both when it is made and when it commits
+  private final AtomicLong generation = new AtomicLong();
+  // The last key this thread missed and the generation at the time
+  private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
+
+  public MeteredCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return delegate.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    return record(key, delegate.get(key));
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    return record(key, delegate.get(key, type));
+  }
+
+  @Override
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    // The delegate only calls the loader on a miss
+    boolean[] loaded = {false};
+    T value = delegate.get(key, () -> {
+      loaded[0] = true;
+      return valueLoader.call();
+    });
+    (loaded[0] ? misses : hits).incrementAndGet();
+    return value;
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    Miss miss = lastMiss.get();
+    lastMiss.remove();
+    long readGeneration = miss != null && miss.key.equals(key) ? miss.generation
+        : generation.get();
+    TransactionHelper.afterCommit(() -> {
+      synchronized (generation) {
+        if (generation.get() == readGeneration) {
+          delegate.put(key, value);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void evict(Object key) {
+    generation.incrementAndGet();
+    TransactionHelper.afterCommit(() -> {
+      synchronized (generation) {
+        generation.incrementAndGet();
+        delegate.evict(key);
+      }
+    });
+  }
+
+  @Override
+  public void clear() {
+    generation.incrementAndGet();
+    TransactionHelper.afterCommit(() -> {
+      synchronized (generation) {
+        generation.incrementAndGet();
+        delegate.clear();
+      }
+    });
+  }
+
+  private <T> T record(Object key, T value) {
+    if (value == null) {
+      misses.incrementAndGet();
+      lastMiss.set(new Miss(key, generation.get()));
+    } else {
+      hits.incrementAndGet();
+    }
+    return value;
+  }
+
+  private static class Miss {
+
+    private final Object key;
+    private final long generation;
+
+    private Miss(Object key, long generation) {
+      this.key = key;
+      this.generation = generation;
+    }
+  }
+}
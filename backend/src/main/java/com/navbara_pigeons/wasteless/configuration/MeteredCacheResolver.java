@@ -0,0 +1,56 @@
+package com.navbara_pigeons.wasteless.configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+
+/**
+ * Cache resolver that wraps every cache of the cache manager in a MeteredCache, so hit and miss
+ * counts are kept whatever cache provider is configured.
+ */
+public class MeteredCacheResolver extends SimpleCacheResolver {
+
+  private final Map<String, MeteredCache> caches = new ConcurrentHashMap<>();
+
+  public MeteredCacheResolver(CacheManager cacheManager) {
+    super(cacheManager);
+  }
+
+  @Override
+  public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+    List<Cache> meteredCaches = new ArrayList<>();
+    for (Cache cache : super.resolveCaches(context)) {
+      meteredCaches.add(caches.computeIfAbsent(cache.getName(),
+          name -> new MeteredCache(cache)));
+    }
+    return meteredCaches;
+  }
+
+  /**
+   * Gets the number of lookups of a cache that found a value
+   *
+   * @param cacheName name of the cache
+   * @return hit count, 0 if the cache has not been used
+   */
+  public long getHits(String cacheName) {
+    MeteredCache cache = caches.get(cacheName);
+    return cache == null ? 0 : cache.getHits();
+  }
+
+  /**
+   * Gets the number of lookups of a cache that had to load the value
+   *
+   * @param cacheName name of the cache
+   * @return miss count, 0 if the cache has not been used
+   */
+  public long getMisses(String cacheName) {
+    MeteredCache cache = caches.get(cacheName);
+    return cache == null ? 0 : cache.getMisses();
+  }
+}
@@ -7,15 +7,20 @@ import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.BusinessRegistrationException;
 import com.navbara_pigeons.wasteless.exception.BusinessTypeException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
+import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSearchException;
 import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSectionException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InventoryRegistrationException;
+import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ListingValidationException;
 import com.navbara_pigeons.wasteless.exception.NotAcceptableException;
 import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ProductRegistrationException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
 import com.navbara_pigeons.wasteless.exception.UserAlreadyExistsException;
 import com.navbara_pigeons.wasteless.exception.UserAuthenticationException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
@@ -128,6 +133,28 @@ public class ControllerExceptionHandler {
     return new ResponseEntity<>(exc.getMessage(), HttpStatus.CONFLICT);
   }
 
+  @ExceptionHandler(PurchaseConflictException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<String> handlePurchaseConflictException(PurchaseConflictException exc) {
+    log.error("PURCHASE CONFLICT: 409 - " + exc.getMessage());
+    return new ResponseEntity<>(exc.getMessage(), HttpStatus.CONFLICT);
+  }
+
+  @ExceptionHandler(InvalidIdempotencyKeyException.class)
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public ResponseEntity<String> handleInvalidIdempotencyKeyException(
+      InvalidIdempotencyKeyException exc) {
+    log.error("INVALID IDEMPOTENCY KEY: 422 - " + exc.getMessage());
+    return new ResponseEntity<>(exc.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  @ExceptionHandler(InventoryUpdateException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<String> handleInventoryUpdateException(InventoryUpdateException exc) {
+    log.error("INVENTORY UPDATE CONFLICT: 409 - " + exc.getMessage());
+    return new ResponseEntity<>(exc.getMessage(), HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(NumberFormatException.class)
   @ResponseStatus(HttpStatus.NOT_ACCEPTABLE)
   public ResponseEntity<String> handleNumberFormatException(NumberFormatException exc) {
@@ -281,6 +308,22 @@ public class ControllerExceptionHandler {
     return new ResponseEntity<>(exc.getMessage(), HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(InvalidMarketListingSearchException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<String> handleInvalidMarketListingSearchException(
+      InvalidMarketListingSearchException exc) {
+    log.error("BAD REQUEST: 400 - " + exc.getMessage());
+    return new ResponseEntity<>(exc.getMessage(), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidSalesReportException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<String> handleInvalidSalesReportException(
+      InvalidSalesReportException exc) {
+    log.error("BAD REQUEST: 400 - " + exc.getMessage());
+    return new ResponseEntity<>(exc.getMessage(), HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(MissingServletRequestParameterException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   public ResponseEntity<String> handleMissingServletRequestParameterException(MissingServletRequestParameterException exc) {
@@ -2,22 +2,39 @@ package com.navbara_pigeons.wasteless.controller;
 
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ImageNotFoundException;
+import com.navbara_pigeons.wasteless.exception.ImageProcessingQueueFullException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.model.ImageFile;
 import com.navbara_pigeons.wasteless.service.ImageService;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import net.minidev.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -28,6 +45,12 @@ import org.springframework.web.server.ResponseStatusException;
 @RestController
 public class ImageController {
 
+  private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
   private final ImageService imageService;
 
   /**
@@ -40,32 +63,40 @@ public class ImageController {
   }
 
   /**
-   * Add image to business's product
+   * Add image to business's product. The image is processed in the background, its status is
+   * PROCESSING until it can be served.
    *
    * @param businessId id of the business
    * @param productId  id of the product
    * @param image      image to be added
-   * @return The URI for the relative image location
+   * @return The ID of the new image, with a 202 status
    */
   @PostMapping("/businesses/{businessId}/products/{productId}/images")
-  public ResponseEntity<String> uploadProductImage(
+  public ResponseEntity<JSONObject> uploadProductImage(
       @PathVariable long businessId,
       @PathVariable long productId,
       @RequestParam MultipartFile image)
       throws UserNotFoundException, BusinessNotFoundException, IOException, ProductNotFoundException {
     try {
-      imageService.uploadProductImage(businessId, productId, image);
+      long imageId = imageService.uploadProductImage(businessId, productId, image);
       log.info(
           "PRODUCT "
               + productId
-              + " SUCCESSFULLY UPLOADED IMAGE "
+              + " ACCEPTED IMAGE "
               + image.getOriginalFilename()
-              + " TO BUSINESS "
-              + businessId);
-      return new ResponseEntity<>(HttpStatus.CREATED);
+              + " FOR BUSINESS "
+              + businessId
+              + " AS IMAGE "
+              + imageId);
+      JSONObject response = new JSONObject();
+      response.put("imageId", imageId);
+      return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
     } catch (ImageNotFoundException exc) {
       log.error("NO IMAGE RECEIVED");
       throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "NO IMAGE RECEIVED");
+    } catch (ImageProcessingQueueFullException exc) {
+      log.error("IMAGE PROCESSING QUEUE FULL");
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, exc.getMessage());
     }
   }
 
@@ -139,4 +170,107 @@ public class ImageController {
       throw new ResponseStatusException(HttpStatus.valueOf(500), "Could not delete image");
     }
   }
+
+  /**
+   * Serve a content addressed product image, rendition or thumbnail. Originals are named after the
+   * hash of their content so they can be cached forever, renditions and thumbnails can be
+   * regenerated so clients must revalidate them.
+   *
+   * @param first    first two characters of the hash
+   * @param second   next two characters of the hash
+   * @param filename name of the file
+   * @param request  used for conditional and range requests
+   * @param response the image, or 304 when the client's copy is current
+   */
+  @GetMapping("/images/products/{first}/{second}/{filename:.+}")
+  public void getProductImage(@PathVariable String first, @PathVariable String second,
+      @PathVariable String filename, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    serveImageFile(first + "/" + second + "/" + filename, request, response);
+  }
+
+  /**
+   * Serve a product image uploaded before images were content addressed. These can change, so
+   * clients must revalidate them.
+   *
+   * @param filename name of the file
+   * @param request  used for conditional and range requests
+   * @param response the image, or 304 when the client's copy is current
+   */
+  @GetMapping("/images/products/{filename:.+}")
+  public void getLegacyProductImage(@PathVariable String filename, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+    serveImageFile(filename, request, response);
+  }
+
+  private void serveImageFile(String filename, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+    ImageFile imageFile;
+    try {
+      imageFile = imageService.getImageFile(filename);
+    } catch (ImageNotFoundException exc) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The image was not found");
+    }
+    long length = imageFile.getLength();
+    response.setHeader(HttpHeaders.CACHE_CONTROL,
+        imageFile.isImmutable() ? IMMUTABLE_CACHE_CONTROL : "no-cache");
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setContentType(MediaTypeFactory.getMediaType(filename)
+        .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+    // Sets the ETag, and answers 304 if it matches If-None-Match
+    if (new ServletWebRequest(request, response).checkNotModified(imageFile.getEtag())) {
+      return;
+    }
+
+    long start = 0;
+    long end = length - 1;
+    List<HttpRange> ranges = parseRanges(request, imageFile.getEtag());
+    // Multiple ranges are rare for images, the whole file is sent instead
+    if (ranges.size() == 1) {
+      start = ranges.get(0).getRangeStart(length);
+      end = ranges.get(0).getRangeEnd(length);
+      if (start >= length || start > end) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+    }
+    response.setContentLengthLong(end - start + 1);
+    if (HttpMethod.HEAD.matches(request.getMethod())) {
+      return;
+    }
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      // Tomcat sends the file from the kernel once the request returns
+      request.setAttribute(SENDFILE_FILENAME, imageFile.getFile().toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, end + 1);
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(imageFile.getFile(), StandardOpenOption.READ)) {
+      WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+      long position = start;
+      while (position <= end) {
+        position += channel.transferTo(position, end - position + 1, output);
+      }
+    }
+  }
+
+  /**
+   * Gets the ranges requested, ignoring them if the header is invalid or If-Range does not match
+   */
+  private static List<HttpRange> parseRanges(HttpServletRequest request, String etag) {
+    String range = request.getHeader(HttpHeaders.RANGE);
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (range == null || (ifRange != null && !ifRange.equals("\"" + etag + "\""))) {
+      return List.of();
+    }
+    try {
+      return HttpRange.parseRanges(range);
+    } catch (IllegalArgumentException exc) {
+      return List.of();
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package com.navbara_pigeons.wasteless.controller;
 
 import com.navbara_pigeons.wasteless.dto.CreateInventoryItemDto;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.InventorySortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
@@ -80,12 +81,17 @@ public class InventoryController {
       @Parameter(
           description = "Boolean value, whether the sort order should be in ascending order. Is not"
               + " required and defaults to True."
-      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending)
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
       throws UserNotFoundException, InsufficientPrivilegesException, InventoryItemNotFoundException,
       BusinessNotFoundException, InvalidAttributeValueException, InvalidPaginationInputException {
     log.info("RETRIEVED INVENTORY ITEMS FOR BUSINESS: " + id);
     return new ResponseEntity<>(
-        this.inventoryService.getInventory(id, pagStartIndex, pagEndIndex, sortBy, isAscending),
+        this.inventoryService.getInventory(id, pagStartIndex, pagEndIndex, sortBy, isAscending,
+            countMode),
         HttpStatus.OK);
   }
 
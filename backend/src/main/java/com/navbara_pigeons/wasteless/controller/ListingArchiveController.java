@@ -0,0 +1,74 @@
+package com.navbara_pigeons.wasteless.controller;
+
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
+import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.service.ListingArchiveService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This controller class provides the read only endpoints for listings that have been sold, closed
+ * or expired and moved to the listing archive.
+ */
+@RestController
+@Slf4j
+@RequestMapping("")
+@Tag(name = "Listing Archive Endpoint", description = "The API endpoint for a business's archived listings")
+public class ListingArchiveController {
+
+  private final ListingArchiveService listingArchiveService;
+
+  @Autowired
+  public ListingArchiveController(ListingArchiveService listingArchiveService) {
+    this.listingArchiveService = listingArchiveService;
+  }
+
+  /**
+   * This endpoint retrieves the archived listings of a business, most recently archived first.
+   *
+   * @param id            The ID of the business whose archived listings are to be displayed
+   * @param reason        Only return listings archived for this reason, can be null for all
+   * @param pagStartIndex The start index of the list to return, can be null. This index is
+   *                      inclusive.
+   * @param pagEndIndex   The stop index of the list to return, can be null. This index is
+   *                      inclusive.
+   * @return response A page of the business's archived listings and their total count
+   */
+  @GetMapping("/businesses/{id}/listings/archive")
+  @Operation(summary = "Show a businesses archived listings", description = "Return a paginated list of listings of a business that have been sold, closed or expired")
+  public ResponseEntity<Object> showArchivedListings(
+      @Parameter(
+          description = "The unique ID number of the business"
+      ) @PathVariable long id,
+      @Parameter(
+          description = "Only return listings archived for this reason, can be null for all"
+      ) @RequestParam(required = false) ListingArchiveReason reason,
+      @Parameter(
+          description = "The start index of the list to return, implemented for pagination, Can be "
+              + "Null. This index is inclusive."
+      ) @RequestParam(required = false) Integer pagStartIndex,
+      @Parameter(
+          description = "The stop index of the list to return, implemented for pagination, Can be "
+              + "Null. This index is inclusive."
+      ) @RequestParam(required = false) Integer pagEndIndex)
+      throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException,
+      InvalidPaginationInputException {
+    log.info("RETRIEVED ARCHIVED LISTINGS FOR BUSINESS: " + id);
+    return new ResponseEntity<>(
+        this.listingArchiveService.getArchivedListings(id, reason, pagStartIndex, pagEndIndex),
+        HttpStatus.OK);
+  }
+}
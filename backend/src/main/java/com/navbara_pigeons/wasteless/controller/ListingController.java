@@ -1,9 +1,12 @@
 package com.navbara_pigeons.wasteless.controller;
 
+import com.navbara_pigeons.wasteless.dto.CheckoutDto;
+import com.navbara_pigeons.wasteless.dto.CheckoutResultDto;
 import com.navbara_pigeons.wasteless.dto.CreateListingDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDto;
 import com.navbara_pigeons.wasteless.entity.BusinessType;
 import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.NutriScore;
@@ -11,11 +14,13 @@ import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
 import com.navbara_pigeons.wasteless.exception.BusinessAndListingMismatchException;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ListingValidationException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
 import com.navbara_pigeons.wasteless.service.ListingService;
@@ -39,6 +44,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -77,7 +83,11 @@ public class ListingController {
    * @param businessTypes A list of ENUMs to filter by business type.
    * @param minNutriScore The minimum (inclusive) Nutrition Score of the Listings
    * @param maxNutriScore The maximum (inclusive) Nutrition Score of the Listings
+   * @param cursor        Keyset pagination cursor, an empty string for the first page. The page
+   *                      size is then pagEndIndex - pagStartIndex + 1
+   * @param withFacets    Also return the listing counts of every filter value
    * @return ResponseEntity A HTTP response with listings
+   * @throws InvalidPaginationInputException Handled in ControllerExceptionHandler class.
    */
   @GetMapping("/listings/search")
   @Operation(summary = "Search through sales listings", description = "Search and filter all sales listings")
@@ -105,8 +115,11 @@ public class ListingController {
       @Parameter(description = "Is the product vegetarian") @RequestParam(required = false) Boolean isVegetarian,
       @Parameter(description = "Is the product gluten free") @RequestParam(required = false) Boolean isGlutenFree,
       @Parameter(description = "Is the product palm oil free") @RequestParam(required = false) Boolean isPalmOilFree,
-      @Parameter(description = "Is the dairy free") @RequestParam(required = false) Boolean isDairyFree
-  ) {
+      @Parameter(description = "Is the dairy free") @RequestParam(required = false) Boolean isDairyFree,
+      @Parameter(description = "Keyset pagination cursor returned as nextCursor by the previous page, empty for the first page") @RequestParam(required = false) String cursor,
+      @Parameter(description = "Also return the number of listings for every filter value") @RequestParam(required = false, defaultValue = "false") boolean withFacets,
+      @Parameter(description = "How the total count is worked out: EXACT (default), CACHED or HAS_NEXT") @RequestParam(required = false) CountMode countMode
+  ) throws InvalidPaginationInputException {
     log.info("GETTING LISTINGS FOR: SEARCH KEYS " + searchKeys + " - SEARCHPARAM " + searchParam
         + " - PAG START:END " + pagStartIndex + ":" + pagEndIndex + " - BUSINESSTYPES "
         + businessTypes + " - DATERANGE " + filterDates);
@@ -120,6 +133,9 @@ public class ListingController {
 
     params.setSearchKeys(searchKeys);
     params.setSearchParam(searchParam);
+    params.setCursor(cursor);
+    params.setWithFacets(withFacets);
+    params.setCountMode(countMode);
 
     params.setMinPrice(minPrice);
     params.setMaxPrice(maxPrice);
@@ -181,6 +197,7 @@ public class ListingController {
    *                      field.
    * @param isAscending   Boolean value, whether the sort order should be in ascending order. Is not
    *                      required and defaults to True.
+   * @param cursor        Keyset pagination cursor, an empty string for the first page. Can be Null.
    * @return A ResponseEntity with a list of listings.
    * @throws UserNotFoundException     Handled in ControllerExceptionHandler class.
    * @throws BusinessNotFoundException Handled in ControllerExceptionHandler class.
@@ -205,11 +222,20 @@ public class ListingController {
       @Parameter(
           description = "Boolean value, whether the sort order should be in ascending order. Is not"
               + " required and defaults to True."
-      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending)
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "Keyset pagination cursor returned as nextCursor by the previous page, "
+              + "empty for the first page. When given the start index is not used as an offset."
+      ) @RequestParam(required = false) String cursor,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
       throws UserNotFoundException, BusinessNotFoundException, InvalidPaginationInputException {
     log.info("GETTING LISTINGS FOR BUSINESS WITH ID " + id);
     return new ResponseEntity<>(
-        listingService.getListings(id, pagStartIndex, pagEndIndex, sortBy, isAscending),
+        listingService.getListings(id, pagStartIndex, pagEndIndex, sortBy, isAscending, cursor,
+            countMode),
         HttpStatus.OK);
   }
 
@@ -217,18 +243,42 @@ public class ListingController {
    * This controller endpoint is used for a user to purchase a listing from a business. The listing
    * is then removed and a transactional log is kept.
    *
-   * @param listingId The identifier of the listing to be purchased
+   * @param listingId      The identifier of the listing to be purchased
+   * @param idempotencyKey Optional key unique to this purchase, retrying with the same key
+   *                       returns the original transaction instead of purchasing again
    * @return The identifier of the stored transaction
    */
   @PostMapping("/businesses/{businessId}/listings/{listingId}/purchase")
   @Operation(summary = "Purchase a specific listing", description = "Purchase a specific listing, record the transaction and delete the purchased listing")
   public ResponseEntity<TransactionDto> purchaseListing(
       @Parameter(description = "The identifier of the business that the listing belongs to") @PathVariable long businessId,
-      @Parameter(description = "The identifier of the listing to be purchased") @PathVariable long listingId
+      @Parameter(description = "The identifier of the listing to be purchased") @PathVariable long listingId,
+      @Parameter(description = "Key unique to this purchase, a retry with the same key returns the original transaction") @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
   )
-      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException {
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException, InvalidIdempotencyKeyException, UserNotFoundException {
     log.info("PURCHASING LISTING WITH ID " + listingId);
-    return new ResponseEntity<>(listingService.purchaseListing(businessId, listingId),
+    return new ResponseEntity<>(
+        listingService.purchaseListing(businessId, listingId, idempotencyKey),
+        HttpStatus.OK);
+  }
+
+  /**
+   * This controller endpoint is used for a user to purchase many listings from a business at once.
+   * Listings that can't be purchased are skipped, the result of every listing is returned.
+   *
+   * @param businessId  The identifier of the business that the listings belong to
+   * @param checkoutDto The identifiers of the listings to be purchased
+   * @return The result of each listing, with the transaction of each one purchased
+   */
+  @PostMapping("/businesses/{businessId}/checkout")
+  @Operation(summary = "Purchase many listings", description = "Purchase many listings from a business in a single transaction, returning the result of each listing")
+  public ResponseEntity<CheckoutResultDto> checkout(
+      @Parameter(description = "The identifier of the business that the listings belong to") @PathVariable long businessId,
+      @RequestBody @Valid CheckoutDto checkoutDto
+  ) throws ListingValidationException, PurchaseConflictException {
+    log.info("CHECKING OUT " + checkoutDto.getListingIds().size() + " LISTINGS FROM BUSINESS "
+        + businessId);
+    return new ResponseEntity<>(listingService.checkout(businessId, checkoutDto.getListingIds()),
         HttpStatus.OK);
   }
 }
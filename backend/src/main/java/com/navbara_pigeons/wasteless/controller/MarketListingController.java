@@ -4,15 +4,19 @@ import com.navbara_pigeons.wasteless.dto.CreateMarketListingDto;
 import com.navbara_pigeons.wasteless.dto.FullMarketListingDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSearchException;
 import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSectionException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
 import com.navbara_pigeons.wasteless.service.MarketListingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import net.minidev.json.JSONObject;
@@ -94,12 +98,82 @@ public class MarketListingController {
       @Parameter(
           description = "Boolean value, whether the sort order should be in ascending order. Is not"
               + " required and defaults to True."
-      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending)
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
       throws InvalidPaginationInputException, InvalidMarketListingSectionException {
     log.info("GETTING CARDS FROM THE '" + section + "' SECTION");
     return new ResponseEntity<>(
         this.marketListingService
-            .getMarketListings(section, sortBy, pagStartIndex, pagEndIndex, isAscending),
+            .getMarketListings(section, sortBy, pagStartIndex, pagEndIndex, isAscending,
+                countMode),
+        HttpStatus.OK);
+  }
+
+  /**
+   * @param section          The section of the marketplace
+   * @param keywordIds       Only return cards with these keywords, can be null
+   * @param matchAllKeywords Whether cards need all of the keywords rather than any of them
+   * @param searchQuery      Words that must all be in the title or description, can be null
+   * @param pagStartIndex    The start index of the list to return, implemented for pagination,
+   *                         Can be Null. This index is inclusive.
+   * @param pagEndIndex      The stop index of the list to return, implemented for pagination, Can
+   *                         be Null. This index is inclusive.
+   * @param sortBy           Defines the field to be sorted, can be null.
+   * @param isAscending      Boolean value, whether the sort order should be in ascending order.
+   * @return List of all paginated/sorted market listings of the section matching the filters
+   */
+  @GetMapping("/cards/search")
+  @Operation(summary = "Search marketplace cards", description = "Return a paginated/sorted list of the marketplace cards of a section with any or all of the given keywords, and the given words in their title or description")
+  public ResponseEntity<PaginationDto<FullMarketListingDto>> searchMarketListings(
+      @Parameter(
+          description = "The section for which cards should be retrieved."
+      ) @RequestParam String section,
+      @Parameter(
+          description = "Only return cards with these keywords, at most "
+              + MarketListingService.MAX_SEARCH_KEYWORDS
+      ) @RequestParam(required = false) List<Long> keywordIds,
+      @Parameter(
+          description = "Whether cards need all of the keywords (AND) rather than any of them (OR)."
+              + " Defaults to False."
+      ) @RequestParam(required = false, defaultValue = "false") boolean matchAllKeywords,
+      @Parameter(
+          description = "Words that must all be in the title or description of the cards"
+      ) @RequestParam(required = false) String searchQuery,
+      @Parameter(
+          description = "The start index of the list to return, implemented for pagination, Can be "
+              + "Null. This index is inclusive."
+      ) @RequestParam(required = false) Integer pagStartIndex,
+      @Parameter(
+          description = "The stop index of the list to return, implemented for pagination, Can be "
+              + "Null. This index is inclusive."
+      ) @RequestParam(required = false) Integer pagEndIndex,
+      @Parameter(
+          description = "Defines the field to be sorted, can be null."
+      ) @RequestParam(required = false) MarketListingSortByOption sortBy,
+      @Parameter(
+          description = "Boolean value, whether the sort order should be in ascending order. Is not"
+              + " required and defaults to True."
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
+      throws InvalidPaginationInputException, InvalidMarketListingSectionException, InvalidMarketListingSearchException {
+    log.info("SEARCHING CARDS FROM THE '" + section + "' SECTION WITH KEYWORDS " + keywordIds
+        + " AND QUERY: " + searchQuery);
+    MarketListingsSearchParams params = new MarketListingsSearchParams(section);
+    params.setKeywordIds(keywordIds);
+    params.setMatchAllKeywords(matchAllKeywords);
+    params.setSearchQuery(searchQuery);
+    params.setPagStartIndex(pagStartIndex);
+    params.setPagEndIndex(pagEndIndex);
+    params.setSortBy(sortBy);
+    params.setAscending(isAscending);
+    params.setCountMode(countMode);
+    return new ResponseEntity<>(this.marketListingService.searchMarketListings(params),
         HttpStatus.OK);
   }
 }
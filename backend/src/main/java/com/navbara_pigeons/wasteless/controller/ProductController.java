@@ -2,6 +2,7 @@ package com.navbara_pigeons.wasteless.controller;
 
 import com.navbara_pigeons.wasteless.dto.CreateProductDto;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ProductSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
@@ -85,11 +86,16 @@ public class ProductController {
       @Parameter(
           description = "Boolean value, whether the sort order should be in ascending order. Is not"
               + " required and defaults to True."
-      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending)
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
       throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException, InvalidPaginationInputException {
     log.info("RETRIEVED PRODUCTS FOR BUSINESS: " + id);
     return new ResponseEntity<>(
-        this.productService.getProducts(id, pagStartIndex, pagEndIndex, sortBy, isAscending),
+        this.productService.getProducts(id, pagStartIndex, pagEndIndex, sortBy, isAscending,
+            countMode),
         HttpStatus.OK);
   }
 
@@ -1,24 +1,35 @@
 package com.navbara_pigeons.wasteless.controller;
 
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 /** This controller class provides the endpoints for viewing business transactions histories */
 @RestController
@@ -28,6 +39,9 @@ import java.time.ZonedDateTime;
     name = "Transaction History Endpoint",
     description = "The API endpoint for viewing a business's transaction history")
 public class TransactionController {
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_TOP_PRODUCTS = 100;
+
   TransactionService transactionService;
 
   /**
@@ -45,19 +59,19 @@ public class TransactionController {
    *
    * @param startDate start date. May be null
    * @param endDate end date. May be null
+   * @param zone time zone the dates are in
    * @return pair of dates transformed so that: - Start date set to minimum date if not given, and
    *     time to start of day - End date set to the current date if not given - End time is
-   *     transformed to last second - Times are in UTC time as that is what is used elsewhere in the
-   *     backend. There is no concept of a local timezone for businesses or users so it makes the
+   *     transformed to last second - Times are in the given zone, UTC unless the client asks for
+   *     another. There is no concept of a local timezone for businesses or users so it makes the
    *     most sense to just not send the time in the frontend
    */
   private Pair<ZonedDateTime, ZonedDateTime> transformDateRange(
-      LocalDate startDate, LocalDate endDate) {
+      LocalDate startDate, LocalDate endDate, ZoneId zone) {
     if (startDate == null) startDate = LocalDate.MIN;
-    if (endDate == null) endDate = LocalDate.now(ZoneOffset.UTC);
-    ZonedDateTime transformedStartDate = startDate.atStartOfDay(ZoneOffset.UTC);
-    ZonedDateTime transformedEndDate =
-        endDate.plusDays(1).atStartOfDay(ZoneOffset.UTC).minusSeconds(1);
+    if (endDate == null) endDate = LocalDate.now(zone);
+    ZonedDateTime transformedStartDate = startDate.atStartOfDay(zone);
+    ZonedDateTime transformedEndDate = endDate.plusDays(1).atStartOfDay(zone).minusSeconds(1);
     return Pair.of(transformedStartDate, transformedEndDate);
   }
 
@@ -83,13 +97,111 @@ public class TransactionController {
       @Parameter(
               description =
                   "Granularity to show the sales report")
-          @RequestParam(required = false, defaultValue = "DAY") TransactionGranularity transactionGranularity)
-      throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException {
-    Pair<ZonedDateTime, ZonedDateTime> dateRange = transformDateRange(startDate, endDate);
-    log.info("TRANSACTION HISTORY FOR BUSINESS " + id + " IN DATE RANGE " + startDate + " TO " + endDate + " WITH GRANULARITY " + transactionGranularity);
+          @RequestParam(required = false, defaultValue = "DAY") TransactionGranularity transactionGranularity,
+      @Parameter(
+              description =
+                  "IANA time zone the dates are in and sales are grouped by, e.g. Pacific/Auckland")
+          @RequestParam(required = false, defaultValue = "UTC") ZoneId timeZone,
+      @Parameter(description = "Include periods without any sales in the report")
+          @RequestParam(required = false, defaultValue = "false") boolean fillGaps)
+      throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException,
+      InvalidSalesReportException {
+    Pair<ZonedDateTime, ZonedDateTime> dateRange = transformDateRange(startDate, endDate, timeZone);
+    log.info("TRANSACTION HISTORY FOR BUSINESS " + id + " IN DATE RANGE " + startDate + " TO " + endDate + " (" + timeZone + ") WITH GRANULARITY " + transactionGranularity);
     return new ResponseEntity<>(
         transactionService.getTransactionData(
-            id, dateRange.getLeft(), dateRange.getRight(), transactionGranularity),
+            id, dateRange.getLeft(), dateRange.getRight(), transactionGranularity, fillGaps),
+        HttpStatus.OK);
+  }
+
+  @GetMapping("/transactions/analytics")
+  @Operation(
+      summary = "View sales across many businesses",
+      description =
+          "Return sales totals of many businesses by business type and country, with the top products by revenue and sell-through time. GAAs can view the whole marketplace")
+  public ResponseEntity<Object> viewSalesAnalytics(
+      @Parameter(
+              description =
+                  "The businesses to include. Defaults to the whole marketplace for GAAs, and the businesses the user administers otherwise")
+          @RequestParam(required = false)
+          List<Long> businessIds,
+      @Parameter(
+              description =
+                  "Start date of the sales. Time set to start of day in the UTC timezone")
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          @RequestParam(required = false)
+          LocalDate startDate,
+      @Parameter(
+              description =
+                  "End date of the sales. Time set to end of day in the UTC timezone")
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          @RequestParam(required = false)
+          LocalDate endDate,
+      @Parameter(description = "Number of products in each top list, at most " + MAX_TOP_PRODUCTS)
+          @RequestParam(required = false, defaultValue = "10") int top)
+      throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException {
+    Pair<ZonedDateTime, ZonedDateTime> dateRange =
+        transformDateRange(startDate, endDate, ZoneOffset.UTC);
+    log.info("SALES ANALYTICS FOR BUSINESSES " + (businessIds == null ? "ALL" : businessIds) + " IN DATE RANGE " + startDate + " TO " + endDate);
+    return new ResponseEntity<>(
+        transactionService.getSalesAnalytics(businessIds, dateRange.getLeft(),
+            dateRange.getRight(), Math.max(1, Math.min(top, MAX_TOP_PRODUCTS))),
         HttpStatus.OK);
   }
+
+  @GetMapping("/businesses/{id}/transactions/export")
+  @Operation(
+      summary = "Export a business's transactions",
+      description =
+          "Stream every transaction of a business in a given date range as CSV or NDJSON, gzipped if the client accepts it")
+  public void exportTransactionHistory(
+      @Parameter(description = "The unique ID number of the business") @PathVariable long id,
+      @Parameter(
+              description =
+                  "Start date of the export. Time set to start of day in the UTC timezone")
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          @RequestParam(required = false)
+          LocalDate startDate,
+      @Parameter(
+              description =
+                  "End date of the export. Time set to end of day in the UTC timezone")
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          @RequestParam(required = false)
+          LocalDate endDate,
+      @Parameter(description = "Format of the export")
+          @RequestParam(required = false, defaultValue = "CSV") TransactionExportFormat format,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws UserNotFoundException, InsufficientPrivilegesException, BusinessNotFoundException {
+    Pair<ZonedDateTime, ZonedDateTime> dateRange =
+        transformDateRange(startDate, endDate, ZoneOffset.UTC);
+    log.info("TRANSACTION EXPORT FOR BUSINESS " + id + " IN DATE RANGE " + startDate + " TO " + endDate + " AS " + format);
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+    response.setContentType(format.getContentType());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"transactions-" + id + "." + format.getExtension() + "\"");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    try {
+      OutputStream output = gzip
+          ? new GZIPOutputStream(response.getOutputStream(), EXPORT_BUFFER_SIZE)
+          : response.getOutputStream();
+      transactionService.exportTransactions(id, dateRange.getLeft(), dateRange.getRight(), format,
+          output);
+      if (gzip) {
+        ((GZIPOutputStream) output).finish();
+      }
+    } catch (UserNotFoundException | InsufficientPrivilegesException | BusinessNotFoundException exc) {
+      // Nothing has been sent yet, so the error response can replace the export's headers
+      response.reset();
+      throw exc;
+    } catch (IOException exc) {
+      // Usually the client disconnected, the response can not be changed now
+      log.error("TRANSACTION EXPORT FOR BUSINESS " + id + " ENDED EARLY: " + exc.getMessage());
+    }
+  }
 }
@@ -4,6 +4,7 @@ import com.navbara_pigeons.wasteless.dto.BasicUserDto;
 import com.navbara_pigeons.wasteless.dto.CreateUserDto;
 import com.navbara_pigeons.wasteless.dto.FullUserDto;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.AddressValidationException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
@@ -141,10 +142,15 @@ public class UserController {
       @Parameter(
           description = "Boolean value, whether the sort order should be in ascending order. Is not"
               + " required and defaults to True."
-      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending)
+      ) @RequestParam(required = false, defaultValue = "true") boolean isAscending,
+      @Parameter(
+          description = "How the total count is worked out: EXACT (default), CACHED for a recent "
+              + "count that may be slightly stale, or HAS_NEXT for no total count, only hasNext"
+      ) @RequestParam(required = false) CountMode countMode)
       throws InvalidAttributeValueException, InvalidPaginationInputException {
     return new ResponseEntity<>(
-        this.userService.searchUsers(searchQuery, pagStartIndex, pagEndIndex, sortBy, isAscending),
+        this.userService
+            .searchUsers(searchQuery, pagStartIndex, pagEndIndex, sortBy, isAscending, countMode),
         HttpStatus.OK);
   }
 
@@ -2,6 +2,7 @@ package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.entity.Business;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
+import java.util.List;
 
 public interface BusinessDao {
 
@@ -9,4 +10,6 @@ public interface BusinessDao {
 
   Business getBusinessById(long id) throws BusinessNotFoundException;
 
+  List<Long> getAdministeredBusinessIds(long userId);
+
 }
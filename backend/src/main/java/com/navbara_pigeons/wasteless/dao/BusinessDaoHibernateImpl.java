@@ -2,6 +2,8 @@ package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.entity.Business;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.persistence.EntityManager;
 import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +55,27 @@ public class BusinessDaoHibernateImpl implements BusinessDao {
     return business;
   }
 
+  /**
+   * Gets the IDs of the businesses a user is a primary or regular administrator of. Both queries
+   * are answered from indexes, so no Business or User entities are loaded.
+   *
+   * @param userId ID of the user
+   * @return IDs of the administered businesses, the primary ones may be repeated
+   */
+  @Override
+  public List<Long> getAdministeredBusinessIds(long userId) {
+    Session currentSession = getSession();
+    List<Long> businessIds = new ArrayList<>(currentSession.createQuery(
+        "SELECT b.id FROM User u JOIN u.businesses b WHERE u.id = :userId", Long.class)
+        .setParameter("userId", userId)
+        .getResultList());
+    businessIds.addAll(currentSession.createQuery(
+        "SELECT b.id FROM Business b WHERE b.primaryAdministratorId = :userId", Long.class)
+        .setParameter("userId", userId)
+        .getResultList());
+    return businessIds;
+  }
+
   /**
    * Get the entity manager session
    *
@@ -80,8 +80,8 @@ public class InventoryQueryBuilder {
 
     TypedQuery<InventoryItem> typedQuery = currentSession.createQuery(criteriaQuery);
     typedQuery.setFirstResult(pagBuilder.getPagStartIndex());
-    if (pagBuilder.getPagEndIndex() != null) {
-      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1);
+    if (pagBuilder.getFetchSize() != null) {
+      typedQuery.setMaxResults(pagBuilder.getFetchSize());
     }
     return typedQuery;
   }
@@ -1,11 +1,13 @@
 package com.navbara_pigeons.wasteless.dao.HibernateQueryBuilders;
 
+import com.navbara_pigeons.wasteless.dao.specifications.ListingSpecifications;
 import com.navbara_pigeons.wasteless.entity.Business;
 import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import com.navbara_pigeons.wasteless.helper.ListingCursor;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -13,6 +15,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
@@ -43,7 +46,8 @@ public class ListingQueryBuilder {
 
   /**
    * Create a query to return a list of paginated and sorted Listings that match the search
-   * criteria.
+   * criteria. When the pagination builder holds a cursor, keyset pagination is used instead of an
+   * offset and one extra listing is fetched so the caller knows whether there is a next page.
    *
    * @param currentSession The Session
    * @param business       The business to query for the listings
@@ -61,7 +65,8 @@ public class ListingQueryBuilder {
     Root<Listing> listing = criteriaQuery.from(Listing.class);
     Join<Listing, InventoryItem> inventoryItem = listing.join("inventoryItem");
     Join<InventoryItem, Product> product = inventoryItem.join("product");
-    criteriaQuery.where(criteriaBuilder.equal(inventoryItem.get("business"), business));
+    Predicate businessPredicate = criteriaBuilder.equal(inventoryItem.get("business"), business);
+    criteriaQuery.where(businessPredicate);
 
     // Sorting query
     Path<Object> path;
@@ -84,11 +89,47 @@ public class ListingQueryBuilder {
         pagBuilder.isSortAscending() ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path);
     criteriaQuery.orderBy(order);
 
+    // Keyset pagination
+    if (pagBuilder.getCursor() != null) {
+      return listKeysetPaginatedBusinessListings(currentSession, criteriaQuery, listing, path,
+          businessPredicate, pagBuilder);
+    }
+
     // Pagination
     TypedQuery<Listing> typedQuery = currentSession.createQuery(criteriaQuery);
     typedQuery.setFirstResult(pagBuilder.getPagStartIndex());
+    if (pagBuilder.getFetchSize() != null) {
+      typedQuery.setMaxResults(pagBuilder.getFetchSize());
+    }
+    return typedQuery;
+  }
+
+  /**
+   * Adds the keyset pagination predicate and the id tie breaker to a sorted business listings
+   * query.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static TypedQuery<Listing> listKeysetPaginatedBusinessListings(Session currentSession,
+      CriteriaQuery<Listing> criteriaQuery, Root<Listing> listing, Path<Object> path,
+      Predicate businessPredicate, PaginationBuilder pagBuilder)
+      throws InvalidPaginationInputException {
+    CriteriaBuilder criteriaBuilder = currentSession.getCriteriaBuilder();
+    ListingCursor cursor = ListingCursor.decode(pagBuilder.getCursor(),
+        (ListingSortByOption) pagBuilder.getSortField(), pagBuilder.isSortAscending());
+    if (!cursor.isFirstPage()) {
+      criteriaQuery.where(businessPredicate,
+          ListingSpecifications.isAfterCursor(criteriaBuilder, (Path) path, listing.get("id"),
+              cursor));
+    }
+    if (pagBuilder.isSortAscending()) {
+      criteriaQuery.orderBy(criteriaBuilder.asc(path), criteriaBuilder.asc(listing.get("id")));
+    } else {
+      criteriaQuery.orderBy(criteriaBuilder.desc(path), criteriaBuilder.desc(listing.get("id")));
+    }
+
+    TypedQuery<Listing> typedQuery = currentSession.createQuery(criteriaQuery);
     if (pagBuilder.getPagEndIndex() != null) {
-      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1);
+      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 2);
     }
     return typedQuery;
   }
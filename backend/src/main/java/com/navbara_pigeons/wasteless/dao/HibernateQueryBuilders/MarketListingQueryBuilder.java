@@ -2,16 +2,24 @@ package com.navbara_pigeons.wasteless.dao.HibernateQueryBuilders;
 
 import com.navbara_pigeons.wasteless.entity.Address;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
+import com.navbara_pigeons.wasteless.entity.MarketListingKeyword;
 import com.navbara_pigeons.wasteless.entity.User;
 import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.AbstractQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
@@ -24,15 +32,17 @@ public class MarketListingQueryBuilder {
    * Create a query for retrieving the total count of the clients query
    *
    * @param currentSession The Session
-   * @param section        The section of the marketplace to query
+   * @param params         The section of the marketplace and filters to query
+   * @param now            Only cards whose display period ends after this are counted
    * @return A Query for retrieving the total count (Long) of the clients query
    */
   public static Query<Long> createTotalMarketListingsCountQuery(
-      Session currentSession, String section) {
+      Session currentSession, MarketListingsSearchParams params, ZonedDateTime now) {
     CriteriaBuilder criteriaBuilder = currentSession.getCriteriaBuilder();
     CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
     Root<MarketListing> marketListing = countQuery.from(MarketListing.class);
-    countQuery.where(criteriaBuilder.equal(marketListing.get("section"), section));
+    countQuery.where(
+        makePredicates(criteriaBuilder, countQuery, marketListing, params, now));
     countQuery.select(criteriaBuilder.count(marketListing));
 
     return currentSession.createQuery(countQuery);
@@ -43,12 +53,14 @@ public class MarketListingQueryBuilder {
    * criteria.
    *
    * @param currentSession The Session
-   * @param section        The section of the marketplace to query
+   * @param params         The section of the marketplace and filters to query
+   * @param now            Only cards whose display period ends after this are returned
    * @param pagBuilder     The pagination builder that holds all the clients pagination values
    * @return A Query that returns a list of paginated and sorted Market Listings
    */
   public static TypedQuery<MarketListing> listPaginatedAndSortedMarketListings(
-      Session currentSession, String section, PaginationBuilder pagBuilder) {
+      Session currentSession, MarketListingsSearchParams params, ZonedDateTime now,
+      PaginationBuilder pagBuilder) {
     // Setup
     CriteriaBuilder criteriaBuilder = currentSession.getCriteriaBuilder();
     CriteriaQuery<MarketListing> criteriaQuery = criteriaBuilder.createQuery(MarketListing.class);
@@ -56,7 +68,7 @@ public class MarketListingQueryBuilder {
     Root<MarketListing> root = criteriaQuery.from(MarketListing.class);
     Join<MarketListing, User> user = root.join("creator");
     Join<User, Address> address = user.join("homeAddress");
-    criteriaQuery.where(criteriaBuilder.equal(root.get("section"), section));
+    criteriaQuery.where(makePredicates(criteriaBuilder, criteriaQuery, root, params, now));
 
     // Sorting query
     Path<Object> path;
@@ -80,9 +92,68 @@ public class MarketListingQueryBuilder {
 
     TypedQuery<MarketListing> typedQuery = currentSession.createQuery(criteriaQuery);
     typedQuery.setFirstResult(pagBuilder.getPagStartIndex());
-    if (pagBuilder.getPagEndIndex() != null) {
-      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1);
+    if (pagBuilder.getFetchSize() != null) {
+      typedQuery.setMaxResults(pagBuilder.getFetchSize());
     }
     return typedQuery;
   }
-}
\ No newline at end of file
+
+  /**
+   * Makes the predicates cards must match. Keywords are matched with a subquery on the
+   * MARKETLISTING_KEYWORD (KEYWORD_ID, MARKETLISTING_ID) index, so the keyword sets are
+   * intersected there before any card is loaded, without joining and de-duplicating cards.
+   *
+   * @param criteriaBuilder The CriteriaBuilder
+   * @param query           The query the predicates are for
+   * @param root            The cards being queried
+   * @param params          The section and filters
+   * @param now             Only cards whose display period ends after this match
+   * @return The predicates, all of which must match
+   */
+  private static Predicate[] makePredicates(CriteriaBuilder criteriaBuilder,
+      AbstractQuery<?> query, Root<MarketListing> root, MarketListingsSearchParams params,
+      ZonedDateTime now) {
+    List<Predicate> predicates = new ArrayList<>();
+    // Expired cards are hidden until they are removed, section and end both use the same index
+    predicates.add(criteriaBuilder.equal(root.get("section"), params.getSection()));
+    predicates.add(criteriaBuilder.greaterThan(root.<ZonedDateTime>get("displayPeriodEnd"), now));
+
+    List<Long> keywordIds = params.getKeywordIds();
+    if (keywordIds != null && !keywordIds.isEmpty()) {
+      Subquery<Long> tagged = query.subquery(Long.class);
+      Root<MarketListingKeyword> marketListingKeyword = tagged.from(MarketListingKeyword.class);
+      tagged.select(marketListingKeyword.get("marketListingId"))
+          .where(marketListingKeyword.get("keywordId").in(keywordIds));
+      if (params.isMatchAllKeywords() && keywordIds.size() > 1) {
+        // Each (card, keyword) pair is unique, so a card with every keyword has one row for each
+        tagged.groupBy(marketListingKeyword.get("marketListingId"))
+            .having(criteriaBuilder.equal(criteriaBuilder.count(marketListingKeyword),
+                (long) keywordIds.size()));
+      }
+      predicates.add(root.get("id").in(tagged));
+    }
+
+    String searchQuery = params.getSearchQuery();
+    if (searchQuery != null && !searchQuery.isBlank()) {
+      for (String token : searchQuery.trim().toLowerCase().split("\\s+")) {
+        String pattern = containing(token);
+        predicates.add(criteriaBuilder.or(
+            criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), pattern),
+            criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), pattern)));
+      }
+    }
+    return predicates.toArray(new Predicate[0]);
+  }
+
+  /**
+   * Makes a LIKE pattern matching text that contains the token. Wildcards in the token are escaped
+   * with a backslash, MariaDB's default LIKE escape character, so they only match themselves.
+   *
+   * @param token A word of the search query
+   * @return The pattern
+   */
+  private static String containing(String token) {
+    String escaped = token.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    return "%" + escaped + "%";
+  }
+}
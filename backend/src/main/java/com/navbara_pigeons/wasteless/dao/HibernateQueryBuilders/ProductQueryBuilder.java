@@ -60,8 +60,8 @@ public class ProductQueryBuilder {
             .createQuery(HQL, Product.class)
             .setParameter("business_id", business.getId());
     typedQuery.setFirstResult(pagBuilder.getPagStartIndex());
-    if (pagBuilder.getPagEndIndex() != null) {
-      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1);
+    if (pagBuilder.getFetchSize() != null) {
+      typedQuery.setMaxResults(pagBuilder.getFetchSize());
     }
     return typedQuery;
   }
@@ -139,8 +139,8 @@ public class UserQueryBuilder {
     // Paginating query
     TypedQuery<User> typedQuery = currentSession.createQuery(criteriaQuery);
     typedQuery.setFirstResult(pagBuilder.getPagStartIndex());
-    if (pagBuilder.getPagEndIndex() != null) {
-      typedQuery.setMaxResults(pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1);
+    if (pagBuilder.getFetchSize() != null) {
+      typedQuery.setMaxResults(pagBuilder.getFetchSize());
     }
     return typedQuery;
   }
@@ -0,0 +1,10 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import com.navbara_pigeons.wasteless.entity.IdempotencyRecord;
+import java.time.ZonedDateTime;
+import org.springframework.data.repository.CrudRepository;
+
+public interface IdempotencyRecordDao extends CrudRepository<IdempotencyRecord, String> {
+
+  long deleteByExpiresBefore(ZonedDateTime time);
+}
@@ -1,17 +1,41 @@
 package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface ImageDao {
 
-  void saveProductImageToMachine(MultipartFile image, String filename) throws IOException;
+  Path saveProductImageToTempFile(MultipartFile image, MessageDigest digest) throws IOException;
+
+  void moveProductImageIntoPlace(Path tempFile, String filename) throws IOException;
+
+  void deleteTempFile(Path tempFile);
+
+  void saveProductImageToMachine(byte[] image, String filename) throws IOException;
 
   void saveProductImageToDb(Image image);
 
+  boolean updateImageStatus(long imageId, ImageStatus status);
+
+  long countImageReferences(String path);
+
+  List<Image> getAllImages();
+
   void deleteImage(Image image);
 
   void deleteProductImageFromMachine(String filename) throws IOException;
 
+  boolean productImageExistsOnMachine(String filename);
+
+  Path getPathToProduct(String filename);
+
+  byte[] readProductImageFromMachine(String filename) throws IOException;
+
+  void moveProductImageOnMachine(String source, String destination) throws IOException;
+
 }
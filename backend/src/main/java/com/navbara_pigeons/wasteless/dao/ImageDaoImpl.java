@@ -1,12 +1,21 @@
 package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.List;
 import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,9 +25,13 @@ import org.springframework.web.multipart.MultipartFile;
 /**
  * A Data Access Object so handle Images on the machine.
  */
+@Slf4j
 @Repository
 public class ImageDaoImpl implements ImageDao {
 
+  private static final String TEMP_DIRECTORY = ".upload-tmp";
+  private static final long TRANSFER_SIZE = 64 * 1024;
+
   public final String productsDirectory = "products"; // products stored in storagePath/products/
   private final EntityManager entityManager;
   @Value("${user_generated_images_directory}")
@@ -40,28 +53,188 @@ public class ImageDaoImpl implements ImageDao {
     currentSession.saveOrUpdate(image);
   }
 
+  /**
+   * Count the images that use the given file and have not failed processing. The file is only
+   * stored once however many images use it.
+   *
+   * @param path The path of the original image file
+   * @return the number of images using the file
+   */
+  @Override
+  public long countImageReferences(String path) {
+    Session currentSession = getSession();
+    return currentSession.createQuery(
+        "SELECT COUNT(i) FROM Image i WHERE i.path = :path AND i.status <> :failed", Long.class)
+        .setParameter("path", path)
+        .setParameter("failed", ImageStatus.FAILED)
+        .getSingleResult();
+  }
+
+  /**
+   * Get every image in the Db
+   *
+   * @return all images
+   */
+  @Override
+  public List<Image> getAllImages() {
+    Session currentSession = getSession();
+    return currentSession.createQuery("FROM Image", Image.class).getResultList();
+  }
+
+  /**
+   * Update the processing status of an image without loading it
+   *
+   * @param imageId The ID of the image
+   * @param status  The new status
+   * @return false if the image no longer exists
+   */
+  @Override
+  public boolean updateImageStatus(long imageId, ImageStatus status) {
+    Session currentSession = getSession();
+    return currentSession.createQuery("UPDATE Image SET status = :status WHERE id = :id")
+        .setParameter("status", status)
+        .setParameter("id", imageId)
+        .executeUpdate() > 0;
+  }
+
   /**
    * Given filename of product, returns path to file
    *
    * @param filename name of product image file
    * @return normalized path
    */
+  @Override
   public Path getPathToProduct(String filename) {
     Path destination = Paths.get(storagePath, filename);
     return destination.normalize();
   }
 
   /**
-   * Save a product image to the machines local storage
+   * Stream an uploaded product image to a temporary file next to the product images, without
+   * holding the whole upload in memory. The upload is hashed as it is copied.
+   *
+   * @param image  The uploaded image
+   * @param digest Updated with the contents of the upload
+   * @return the temporary file, to be moved into place or deleted by the caller
+   * @throws IOException Exception if reading the upload or writing the file fails
+   */
+  @Override
+  public Path saveProductImageToTempFile(MultipartFile image, MessageDigest digest)
+      throws IOException {
+    Path tempFile = createTempFile();
+    try (ReadableByteChannel source = Channels
+        .newChannel(new DigestInputStream(image.getInputStream(), digest));
+        FileChannel destination = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+      long position = 0;
+      long transferred;
+      while ((transferred = destination.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+        position += transferred;
+      }
+    } catch (IOException exc) {
+      deleteTempFile(tempFile);
+      throw exc;
+    }
+    return tempFile;
+  }
+
+  /**
+   * Atomically move a temporary file to a product image's filename, so the image is never seen
+   * half written.
    *
-   * @param image    The image to be saved
+   * @param tempFile The temporary file
    * @param filename The filename to save the image under
-   * @throws IOException Exception if saving to the machine fails
+   * @throws IOException Exception if moving the file fails
    */
   @Override
-  public void saveProductImageToMachine(MultipartFile image, String filename) throws IOException {
+  public void moveProductImageIntoPlace(Path tempFile, String filename) throws IOException {
     Path destination = getPathToProduct(filename);
-    Files.copy(image.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
+    Files.createDirectories(destination.getParent());
+    Files.move(tempFile, destination, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Delete a temporary file if it still exists
+   *
+   * @param tempFile The temporary file
+   */
+  @Override
+  public void deleteTempFile(Path tempFile) {
+    try {
+      Files.deleteIfExists(tempFile);
+    } catch (IOException exc) {
+      log.error("FAILED TO DELETE TEMPORARY FILE " + tempFile + ": " + exc.getMessage());
+    }
+  }
+
+  /**
+   * Save an already encoded product image to the machines local storage
+   *
+   * @param image    The encoded image bytes
+   * @param filename The filename to save the image under
+   * @throws IOException Exception if saving to the machine fails
+   */
+  @Override
+  public void saveProductImageToMachine(byte[] image, String filename) throws IOException {
+    Path tempFile = createTempFile();
+    try {
+      Files.write(tempFile, image);
+      moveProductImageIntoPlace(tempFile, filename);
+    } catch (IOException exc) {
+      deleteTempFile(tempFile);
+      throw exc;
+    }
+  }
+
+  /**
+   * Temporary files are made in the storage directory so they can be renamed into place
+   */
+  private Path createTempFile() throws IOException {
+    Path tempDirectory = Paths.get(storagePath, TEMP_DIRECTORY).normalize();
+    Files.createDirectories(tempDirectory);
+    return Files.createTempFile(tempDirectory, "upload-", ".tmp");
+  }
+
+  /**
+   * Check if a product image is on the machines local storage
+   *
+   * @param filename The filename of the image
+   * @return true if the file exists
+   */
+  @Override
+  public boolean productImageExistsOnMachine(String filename) {
+    return Files.exists(getPathToProduct(filename));
+  }
+
+  /**
+   * Read a product image from the machines local storage
+   *
+   * @param filename The filename of the image
+   * @return the file's contents
+   * @throws IOException Exception if reading the file fails
+   */
+  @Override
+  public byte[] readProductImageFromMachine(String filename) throws IOException {
+    return Files.readAllBytes(getPathToProduct(filename));
+  }
+
+  /**
+   * Move a product image on the machines local storage. If the destination already exists it is
+   * kept and the source is deleted, as both have the same content in the image store.
+   *
+   * @param source      The current filename of the image
+   * @param destination The new filename of the image
+   * @throws IOException Exception if moving the file fails
+   */
+  @Override
+  public void moveProductImageOnMachine(String source, String destination) throws IOException {
+    Path sourcePath = getPathToProduct(source);
+    Path destinationPath = getPathToProduct(destination);
+    if (Files.exists(destinationPath)) {
+      Files.delete(sourcePath);
+      return;
+    }
+    Files.createDirectories(destinationPath.getParent());
+    Files.move(sourcePath, destinationPath, StandardCopyOption.ATOMIC_MOVE);
   }
 
   /**
@@ -5,6 +5,7 @@ import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.data.util.Pair;
 
@@ -17,5 +18,12 @@ public interface InventoryDao {
 
   void deleteInventoryItem(InventoryItem inventoryItem);
 
+  boolean removeQuantity(InventoryItem inventoryItem, long quantity);
+
+  List<Pair<LocalDate, Long>> getExpiredInventoryItemKeys(LocalDate expiredBefore,
+      Pair<LocalDate, Long> after, int limit);
+
+  int deleteInventoryItems(List<Long> inventoryItemIds);
+
   InventoryItem getInventoryItemById(Long id) throws InventoryItemNotFoundException;
 }
@@ -6,6 +6,9 @@ import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -18,14 +21,18 @@ import org.springframework.stereotype.Service;
 public class InventoryDaoHibernateImpl implements InventoryDao {
 
   private final EntityManager entityManager;
+  private final TotalCountCache totalCountCache;
 
   /**
    * Constructor to initiate properties for the DAO class.
    *
-   * @param entityManager Passed in entity used to interact with the persistence context.
+   * @param entityManager   Passed in entity used to interact with the persistence context.
+   * @param totalCountCache Works out the total counts of paginated queries
    */
-  public InventoryDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public InventoryDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Autowired TotalCountCache totalCountCache) {
     this.entityManager = entityManager;
+    this.totalCountCache = totalCountCache;
   }
 
   /**
@@ -45,9 +52,10 @@ public class InventoryDaoHibernateImpl implements InventoryDao {
     TypedQuery<InventoryItem> query =
         InventoryQueryBuilder.listPaginatedAndSortedBusinessInventory(
             currentSession, business, pagBuilder);
-    Long totalCount =
-        InventoryQueryBuilder.createTotalInventoryCountQuery(currentSession, business)
-            .getSingleResult();
+    Long totalCount = totalCountCache.getTotalCount(TotalCountCache.INVENTORY,
+        "business=" + business.getId(), pagBuilder.getCountMode(),
+        () -> InventoryQueryBuilder.createTotalInventoryCountQuery(currentSession, business)
+            .getSingleResult());
     return Pair.of(query.getResultList(), totalCount);
   }
 
@@ -60,6 +68,9 @@ public class InventoryDaoHibernateImpl implements InventoryDao {
   public void saveInventoryItem(InventoryItem inventory) {
     Session currentSession = getSession();
     currentSession.saveOrUpdate(inventory);
+    // Listings removed from the item are deleted with it, and listing searches filter on the item
+    totalCountCache.invalidate(TotalCountCache.INVENTORY);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
   }
 
 
@@ -71,6 +82,85 @@ public class InventoryDaoHibernateImpl implements InventoryDao {
   public void deleteInventoryItem(InventoryItem inventoryItem) {
     Session currentSession = getSession();
     currentSession.delete(inventoryItem);
+    // Listings of the item are deleted with it
+    totalCountCache.invalidate(TotalCountCache.INVENTORY);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
+  }
+
+  /**
+   * Removes quantity from an inventory item in a single conditional update, so concurrent
+   * purchases can never take it below zero. The item is refreshed afterwards so its quantity and
+   * version match the row.
+   *
+   * @param inventoryItem inventory item to remove from
+   * @param quantity      quantity to remove
+   * @return false if there was not enough quantity left, in which case nothing is changed
+   */
+  @Override
+  public boolean removeQuantity(InventoryItem inventoryItem, long quantity) {
+    int updated = entityManager.createQuery(
+            "UPDATE InventoryItem i SET i.quantity = i.quantity - :quantity, "
+                + "i.version = i.version + 1 WHERE i.id = :id AND i.quantity >= :quantity")
+        .setParameter("quantity", quantity)
+        .setParameter("id", inventoryItem.getId())
+        .executeUpdate();
+    if (updated == 0) {
+      return false;
+    }
+    entityManager.refresh(inventoryItem);
+    return true;
+  }
+
+  /**
+   * Gets the expiry date and ID of inventory items that expired before the given day, in
+   * (expires, ID) order starting after the given key, so the (EXPIRES, ID) index is scanned one
+   * batch at a time.
+   *
+   * @param expiredBefore items expiring before this day have expired
+   * @param after         key of the last item of the previous batch, null for the first batch
+   * @param limit         maximum number of keys to get
+   * @return the expiry date and ID of each expired item
+   */
+  @Override
+  public List<Pair<LocalDate, Long>> getExpiredInventoryItemKeys(LocalDate expiredBefore,
+      Pair<LocalDate, Long> after, int limit) {
+    String afterKey = after == null ? ""
+        : "AND (i.expires > :afterExpires OR (i.expires = :afterExpires AND i.id > :afterId)) ";
+    TypedQuery<Object[]> query = entityManager.createQuery(
+            "SELECT i.expires, i.id FROM InventoryItem i WHERE i.expires < :expiredBefore "
+                + afterKey + "ORDER BY i.expires, i.id", Object[].class)
+        .setParameter("expiredBefore", expiredBefore)
+        .setMaxResults(limit);
+    if (after != null) {
+      query.setParameter("afterExpires", after.getFirst())
+          .setParameter("afterId", after.getSecond());
+    }
+    List<Pair<LocalDate, Long>> keys = new ArrayList<>();
+    for (Object[] row : query.getResultList()) {
+      keys.add(Pair.of((LocalDate) row[0], (Long) row[1]));
+    }
+    return keys;
+  }
+
+  /**
+   * Deletes inventory items with a single statement, without loading them. Their listings must
+   * already be deleted.
+   *
+   * @param inventoryItemIds identifiers of the inventory items
+   * @return the number of inventory items deleted
+   */
+  @Override
+  public int deleteInventoryItems(List<Long> inventoryItemIds) {
+    if (inventoryItemIds.isEmpty()) {
+      return 0;
+    }
+    int deleted = entityManager.createQuery(
+            "DELETE FROM InventoryItem i WHERE i.id IN :inventoryItemIds")
+        .setParameter("inventoryItemIds", inventoryItemIds)
+        .executeUpdate();
+    totalCountCache.invalidate(TotalCountCache.INVENTORY);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
+    return deleted;
   }
 
   /**
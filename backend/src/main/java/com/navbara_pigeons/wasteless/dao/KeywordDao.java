@@ -1,9 +1,41 @@
 package com.navbara_pigeons.wasteless.dao;
 
+import com.navbara_pigeons.wasteless.configuration.CachingConfig;
 import com.navbara_pigeons.wasteless.entity.Keyword;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.repository.CrudRepository;
 
+/**
+ * Keywords are reference data read on every keyword list request, so the full list is cached and
+ * dropped whenever a keyword is written. The cached keywords are detached, anything attaching
+ * keywords to an entity must load them with findAllById instead.
+ */
+@CacheConfig(cacheNames = CachingConfig.KEYWORDS, cacheResolver = "referenceDataCacheResolver")
 public interface KeywordDao extends CrudRepository<Keyword, Long> {
 
+  @Override
+  @Cacheable(key = "'all'")
+  Iterable<Keyword> findAll();
 
+  @Override
+  @CacheEvict(allEntries = true)
+  <S extends Keyword> S save(S keyword);
+
+  @Override
+  @CacheEvict(allEntries = true)
+  <S extends Keyword> Iterable<S> saveAll(Iterable<S> keywords);
+
+  @Override
+  @CacheEvict(allEntries = true)
+  void deleteById(Long id);
+
+  @Override
+  @CacheEvict(allEntries = true)
+  void delete(Keyword keyword);
+
+  @Override
+  @CacheEvict(allEntries = true)
+  void deleteAll();
 }
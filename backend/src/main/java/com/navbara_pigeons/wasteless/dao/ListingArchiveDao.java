@@ -0,0 +1,18 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.util.Pair;
+
+public interface ListingArchiveDao {
+
+  int archiveListings(Collection<Long> listingIds, ListingArchiveReason reason);
+
+  int archiveListingsOfInventoryItems(Collection<Long> inventoryItemIds,
+      ListingArchiveReason reason);
+
+  Pair<List<ListingArchive>, Long> getArchivedListings(long businessId,
+      ListingArchiveReason reason, int offset, int limit);
+}
@@ -0,0 +1,108 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ListingArchiveDaoHibernateImpl implements ListingArchiveDao {
+
+  // Copies listings with their product and business into the archive in one statement. A listing
+  // that is already archived, e.g. the one just sold when its item sells out, is left as it is
+  private static final String ARCHIVE_LISTINGS =
+      "INSERT INTO listing_archive (ID, INVENTORY_ITEM_ID, BUSINESS_ID, BUSINESS_NAME, PRODUCT_ID, "
+          + "PRODUCT_NAME, MANUFACTURER, QUANTITY, PRICE, MORE_INFO, CREATED, CLOSES, EXPIRES, "
+          + "ARCHIVED, REASON) "
+          + "SELECT l.ID, l.INVENTORY_ITEM_ID, i.BUSINESS_ID, b.NAME, i.PRODUCT_ID, p.NAME, "
+          + "p.MANUFACTURER, l.QUANTITY, l.PRICE, l.MORE_INFO, l.CREATED, l.CLOSES, i.EXPIRES, "
+          + ":archived, :reason "
+          + "FROM listing l JOIN inventory_item i ON i.ID = l.INVENTORY_ITEM_ID "
+          + "JOIN product p ON p.ID = i.PRODUCT_ID JOIN business b ON b.ID = i.BUSINESS_ID "
+          + "WHERE %s "
+          + "ON DUPLICATE KEY UPDATE ID = listing_archive.ID";
+
+  private final EntityManager entityManager;
+
+  public ListingArchiveDaoHibernateImpl(@Autowired EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Copies listings into the archive. This must run before the listings are deleted, the deletes
+   * are then free to go ahead.
+   *
+   * @param listingIds identifiers of the listings
+   * @param reason     why the listings are being archived
+   * @return the number of listings archived
+   */
+  @Override
+  public int archiveListings(Collection<Long> listingIds, ListingArchiveReason reason) {
+    if (listingIds.isEmpty()) {
+      return 0;
+    }
+    return entityManager.createNativeQuery(String.format(ARCHIVE_LISTINGS, "l.ID IN (:ids)"))
+        .setParameter("ids", listingIds)
+        .setParameter("archived", ZonedDateTime.now())
+        .setParameter("reason", reason.name())
+        .executeUpdate();
+  }
+
+  /**
+   * Copies every listing of the given inventory items into the archive, before the items are
+   * deleted.
+   *
+   * @param inventoryItemIds identifiers of the inventory items
+   * @param reason           why the listings are being archived
+   * @return the number of listings archived
+   */
+  @Override
+  public int archiveListingsOfInventoryItems(Collection<Long> inventoryItemIds,
+      ListingArchiveReason reason) {
+    if (inventoryItemIds.isEmpty()) {
+      return 0;
+    }
+    return entityManager
+        .createNativeQuery(String.format(ARCHIVE_LISTINGS, "l.INVENTORY_ITEM_ID IN (:ids)"))
+        .setParameter("ids", inventoryItemIds)
+        .setParameter("archived", ZonedDateTime.now())
+        .setParameter("reason", reason.name())
+        .executeUpdate();
+  }
+
+  /**
+   * Gets a page of a business's archived listings, most recently archived first
+   *
+   * @param businessId the business the listings belonged to
+   * @param reason     only get listings archived for this reason, null for all
+   * @param offset     index of the first listing to get
+   * @param limit      maximum number of listings to get
+   * @return the page of archived listings and the total count
+   */
+  @Override
+  public Pair<List<ListingArchive>, Long> getArchivedListings(long businessId,
+      ListingArchiveReason reason, int offset, int limit) {
+    String where = "WHERE a.businessId = :businessId"
+        + (reason == null ? "" : " AND a.reason = :reason");
+    TypedQuery<ListingArchive> query = entityManager.createQuery(
+            "SELECT a FROM ListingArchive a " + where + " ORDER BY a.archived DESC, a.id DESC",
+            ListingArchive.class)
+        .setParameter("businessId", businessId)
+        .setFirstResult(offset)
+        .setMaxResults(limit);
+    TypedQuery<Long> countQuery = entityManager.createQuery(
+            "SELECT COUNT(a) FROM ListingArchive a " + where, Long.class)
+        .setParameter("businessId", businessId);
+    if (reason != null) {
+      query.setParameter("reason", reason);
+      countQuery.setParameter("reason", reason);
+    }
+    return Pair.of(query.getResultList(), countQuery.getSingleResult());
+  }
+}
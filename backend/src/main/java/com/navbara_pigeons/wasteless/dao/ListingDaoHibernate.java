@@ -5,7 +5,13 @@ import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.search.ListingFacetGroup;
+import com.navbara_pigeons.wasteless.search.ListingSearchDocument;
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Pair;
 
 public interface ListingDaoHibernate {
@@ -19,4 +25,22 @@ public interface ListingDaoHibernate {
 
   Listing getListing(long listingId) throws ListingNotFoundException;
 
+  List<Listing> lockListingsForPurchase(Collection<Long> listingIds);
+
+  List<Pair<ZonedDateTime, Long>> getClosedListingKeys(ZonedDateTime closedBefore,
+      Pair<ZonedDateTime, Long> after, int limit);
+
+  List<Long> getListingIdsOfInventoryItems(List<Long> inventoryItemIds);
+
+  int deleteListings(List<Long> listingIds);
+
+  List<ListingSearchDocument> getListingSearchDocuments();
+
+  List<Listing> findAllWithLimit(Specification<Listing> specification, Sort sort, int limit);
+
+  List<Listing> findAllWithLimit(Specification<Listing> specification, Sort sort, long offset,
+      int limit);
+
+  List<ListingFacetGroup> getListingFacetGroups(Specification<Listing> specification);
+
 }
@@ -2,14 +2,31 @@ package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.dao.HibernateQueryBuilders.ListingQueryBuilder;
 import com.navbara_pigeons.wasteless.entity.Business;
+import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
+import com.navbara_pigeons.wasteless.search.ListingFacetGroup;
+import com.navbara_pigeons.wasteless.search.ListingSearchDocument;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
 import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Repository;
 
@@ -17,14 +34,18 @@ import org.springframework.stereotype.Repository;
 public class ListingDaoHibernateImpl implements ListingDaoHibernate {
 
   private final EntityManager entityManager;
+  private final TotalCountCache totalCountCache;
 
   /**
    * Constructor to initiate properties for the DAO class.
    *
-   * @param entityManager Passed in entity used to interact with the persistence context.
+   * @param entityManager   Passed in entity used to interact with the persistence context.
+   * @param totalCountCache Works out the total counts of paginated queries
    */
-  public ListingDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public ListingDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Autowired TotalCountCache totalCountCache) {
     this.entityManager = entityManager;
+    this.totalCountCache = totalCountCache;
   }
 
   /**
@@ -60,9 +81,10 @@ public class ListingDaoHibernateImpl implements ListingDaoHibernate {
     List<Listing> serverResult =
         ListingQueryBuilder.listPaginatedAndSortedBusinessListings(
             currentSession, business, pagBuilder).getResultList();
-    Long totalCount =
-        ListingQueryBuilder.createTotalListingsCountQuery(currentSession, business)
-            .getSingleResult();
+    Long totalCount = totalCountCache.getTotalCount(TotalCountCache.LISTINGS,
+        "business=" + business.getId(), pagBuilder.getCountMode(),
+        () -> ListingQueryBuilder.createTotalListingsCountQuery(currentSession, business)
+            .getSingleResult());
 
     return Pair.of(serverResult, totalCount);
   }
@@ -76,6 +98,7 @@ public class ListingDaoHibernateImpl implements ListingDaoHibernate {
   public void saveListing(Listing listing) {
     Session currentSession = getSession();
     currentSession.saveOrUpdate(listing);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
   }
 
   
@@ -89,8 +112,184 @@ public class ListingDaoHibernateImpl implements ListingDaoHibernate {
     Session currentSession = getSession();
     Listing listing = currentSession.load(Listing.class, listingId);
     currentSession.delete(listing);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
   }
 
+  /**
+   * Gets listings being purchased together, locking them and their inventory items until the
+   * current transaction ends. Inventory items are locked first and both are locked in ID order,
+   * the same order single purchases update them in, so concurrent checkouts of overlapping carts
+   * wait for each other instead of deadlocking.
+   *
+   * @param listingIds identifiers of the listings, ones that don't exist are left out
+   * @return the listings that exist, in ID order
+   */
+  @Override
+  public List<Listing> lockListingsForPurchase(Collection<Long> listingIds) {
+    entityManager.createQuery(
+            "SELECT i FROM InventoryItem i WHERE i.id IN "
+                + "(SELECT l.inventoryItem.id FROM Listing l WHERE l.id IN :listingIds) "
+                + "ORDER BY i.id", InventoryItem.class)
+        .setParameter("listingIds", listingIds)
+        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+        .getResultList();
+    return entityManager.createQuery(
+            "SELECT l FROM Listing l WHERE l.id IN :listingIds ORDER BY l.id", Listing.class)
+        .setParameter("listingIds", listingIds)
+        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+        .getResultList();
+  }
+
+  /**
+   * Gets the closes date and ID of listings that closed before the given time, in (closes, ID)
+   * order starting after the given key, so the (CLOSES, ID) index is scanned one batch at a time
+   * without skipping rows that were left in place.
+   *
+   * @param closedBefore listings closing before this have closed
+   * @param after        key of the last listing of the previous batch, null for the first batch
+   * @param limit        maximum number of keys to get
+   * @return the closes date and ID of each closed listing
+   */
+  @Override
+  public List<Pair<ZonedDateTime, Long>> getClosedListingKeys(ZonedDateTime closedBefore,
+      Pair<ZonedDateTime, Long> after, int limit) {
+    String afterKey = after == null ? ""
+        : "AND (l.closes > :afterCloses OR (l.closes = :afterCloses AND l.id > :afterId)) ";
+    TypedQuery<Object[]> query = entityManager.createQuery(
+            "SELECT l.closes, l.id FROM Listing l WHERE l.closes < :closedBefore " + afterKey
+                + "ORDER BY l.closes, l.id", Object[].class)
+        .setParameter("closedBefore", closedBefore)
+        .setMaxResults(limit);
+    if (after != null) {
+      query.setParameter("afterCloses", after.getFirst()).setParameter("afterId", after.getSecond());
+    }
+    List<Pair<ZonedDateTime, Long>> keys = new ArrayList<>();
+    for (Object[] row : query.getResultList()) {
+      keys.add(Pair.of((ZonedDateTime) row[0], (Long) row[1]));
+    }
+    return keys;
+  }
+
+  /**
+   * Gets the IDs of every listing of the given inventory items
+   *
+   * @param inventoryItemIds identifiers of the inventory items
+   * @return the listing IDs
+   */
+  @Override
+  public List<Long> getListingIdsOfInventoryItems(List<Long> inventoryItemIds) {
+    return entityManager.createQuery(
+            "SELECT l.id FROM Listing l WHERE l.inventoryItem.id IN :inventoryItemIds", Long.class)
+        .setParameter("inventoryItemIds", inventoryItemIds)
+        .getResultList();
+  }
+
+  /**
+   * Deletes listings with a single statement, without loading them. Listings already in the
+   * persistence context are not removed from it.
+   *
+   * @param listingIds identifiers of the listings
+   * @return the number of listings deleted
+   */
+  @Override
+  public int deleteListings(List<Long> listingIds) {
+    if (listingIds.isEmpty()) {
+      return 0;
+    }
+    int deleted = entityManager.createQuery("DELETE FROM Listing l WHERE l.id IN :listingIds")
+        .setParameter("listingIds", listingIds)
+        .executeUpdate();
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
+    return deleted;
+  }
+
+  /**
+   * Gets the searchable text of every listing in a single query, used to build the in memory
+   * listing search index. The address is inner joined like in the database listing search, so
+   * both leave out listings of businesses without an address.
+   *
+   * @return one search document per listing
+   */
+  @Override
+  public List<ListingSearchDocument> getListingSearchDocuments() {
+    Session currentSession = getSession();
+    return currentSession.createQuery(
+        "SELECT new com.navbara_pigeons.wasteless.search.ListingSearchDocument("
+            + "l.id, p.id, p.name, b.name, a.city, a.country) "
+            + "FROM Listing l JOIN l.inventoryItem i JOIN i.product p JOIN i.business b "
+            + "JOIN b.address a", ListingSearchDocument.class)
+        .getResultList();
+  }
+
+  /**
+   * Get the first listings matching a specification, without the count query that
+   * findAll(Specification, Pageable) runs. Used for keyset pagination where the seek predicate is
+   * part of the specification.
+   *
+   * @param specification The search criteria
+   * @param sort          The order of the listings
+   * @param limit         The maximum number of listings to return
+   * @return The matching listings in order
+   */
+  @Override
+  public List<Listing> findAllWithLimit(Specification<Listing> specification, Sort sort,
+      int limit) {
+    return findAllWithLimit(specification, sort, 0, limit);
+  }
+
+  /**
+   * Get a page of listings matching a specification, without the count query that
+   * findAll(Specification, Pageable) runs. Used when the client did not ask for an exact count.
+   *
+   * @param specification The search criteria
+   * @param sort          The order of the listings
+   * @param offset        The number of listings to skip
+   * @param limit         The maximum number of listings to return
+   * @return The matching listings in order
+   */
+  @Override
+  public List<Listing> findAllWithLimit(Specification<Listing> specification, Sort sort,
+      long offset, int limit) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Listing> criteriaQuery = criteriaBuilder.createQuery(Listing.class);
+    Root<Listing> root = criteriaQuery.from(Listing.class);
+    criteriaQuery.select(root)
+        .where(specification.toPredicate(root, criteriaQuery, criteriaBuilder))
+        .orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+    return entityManager.createQuery(criteriaQuery).setFirstResult(Math.toIntExact(offset))
+        .setMaxResults(limit).getResultList();
+  }
+
+  /**
+   * Counts the listings matching a specification grouped by every facet dimension (business type,
+   * nutrition and diet fields) in a single aggregate query.
+   *
+   * @param specification The search criteria
+   * @return One row per distinct combination of facet values with its listing count
+   */
+  @Override
+  public List<ListingFacetGroup> getListingFacetGroups(Specification<Listing> specification) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<ListingFacetGroup> criteriaQuery = criteriaBuilder
+        .createQuery(ListingFacetGroup.class);
+    Root<Listing> root = criteriaQuery.from(Listing.class);
+    Join<Listing, InventoryItem> inventoryItem = root.join("inventoryItem");
+    Join<InventoryItem, ?> product = inventoryItem.join("product");
+    Join<InventoryItem, ?> business = inventoryItem.join("business");
+    Expression<?>[] groups = {business.get("businessType"), product.get("nutriScore"),
+        product.get("novaGroup"), product.get("fat"), product.get("saturatedFat"),
+        product.get("sugars"), product.get("salt"), product.get("isVegan"),
+        product.get("isVegetarian"), product.get("isGlutenFree"), product.get("isPalmOilFree"),
+        product.get("isDairyFree")};
+    Expression<?>[] selections = new Expression<?>[groups.length + 1];
+    System.arraycopy(groups, 0, selections, 0, groups.length);
+    selections[groups.length] = criteriaBuilder.count(root);
+
+    criteriaQuery.select(criteriaBuilder.construct(ListingFacetGroup.class, selections))
+        .where(specification.toPredicate(root, criteriaQuery, criteriaBuilder))
+        .groupBy(groups);
+    return entityManager.createQuery(criteriaQuery).getResultList();
+  }
 
   /**
    * Get the entity manager session
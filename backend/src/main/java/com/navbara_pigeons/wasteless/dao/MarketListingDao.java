@@ -3,6 +3,8 @@ package com.navbara_pigeons.wasteless.dao;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
+import java.time.ZonedDateTime;
 import java.util.List;
 import org.springframework.data.util.Pair;
 
@@ -12,4 +14,13 @@ public interface MarketListingDao {
 
   Pair<List<MarketListing>, Long> getMarketListing(String section, PaginationBuilder pagBuilder)
       throws InvalidPaginationInputException;
+
+  Pair<List<MarketListing>, Long> searchMarketListings(MarketListingsSearchParams params,
+      PaginationBuilder pagBuilder);
+
+  List<Pair<ZonedDateTime, Long>> getMarketListingKeysEndingBy(String section,
+      ZonedDateTime endingAfter, ZonedDateTime endingBy, Pair<ZonedDateTime, Long> after,
+      int limit);
+
+  int deleteMarketListings(List<Long> marketListingIds);
 }
@@ -4,8 +4,13 @@ import com.navbara_pigeons.wasteless.dao.HibernateQueryBuilders.MarketListingQue
 import com.navbara_pigeons.wasteless.entity.MarketListing;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.util.Pair;
@@ -15,9 +20,12 @@ import org.springframework.stereotype.Repository;
 public class MarketListingDaoHibernateImpl implements MarketListingDao {
 
   private final EntityManager entityManager;
+  private final TotalCountCache totalCountCache;
 
-  public MarketListingDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public MarketListingDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Autowired TotalCountCache totalCountCache) {
     this.entityManager = entityManager;
+    this.totalCountCache = totalCountCache;
   }
 
   /**
@@ -29,10 +37,12 @@ public class MarketListingDaoHibernateImpl implements MarketListingDao {
   public void saveMarketListing(MarketListing marketListing) {
     Session currentSession = getSession();
     currentSession.saveOrUpdate(marketListing);
+    totalCountCache.invalidate(TotalCountCache.MARKET_LISTINGS);
   }
 
   /**
-   * Retrieves a list of market listings from a section.
+   * Retrieves a list of the active market listings from a section, those whose display period
+   * hasn't ended.
    *
    * @param section
    * @param pagBuilder
@@ -42,16 +52,100 @@ public class MarketListingDaoHibernateImpl implements MarketListingDao {
   @Override
   public Pair<List<MarketListing>, Long> getMarketListing(
       String section, PaginationBuilder pagBuilder) throws InvalidPaginationInputException {
+    return searchMarketListings(new MarketListingsSearchParams(section), pagBuilder);
+  }
+
+  /**
+   * Retrieves a list of the active market listings from a section that match the keyword and text
+   * filters.
+   *
+   * @param params     The section of the marketplace and filters
+   * @param pagBuilder The pagination builder that holds all the clients pagination values
+   * @return The page of cards and the total count of matching cards
+   */
+  @Override
+  public Pair<List<MarketListing>, Long> searchMarketListings(MarketListingsSearchParams params,
+      PaginationBuilder pagBuilder) {
     Session currentSession = getSession();
+    ZonedDateTime now = ZonedDateTime.now();
     List<MarketListing> serverResults =
         MarketListingQueryBuilder.listPaginatedAndSortedMarketListings(
-            currentSession, section, pagBuilder)
+            currentSession, params, now, pagBuilder)
             .getResultList();
-    Long totalCountOfSection =
-        MarketListingQueryBuilder.createTotalMarketListingsCountQuery(currentSession, section)
-            .getSingleResult();
+    Long totalCount = totalCountCache.getTotalCount(TotalCountCache.MARKET_LISTINGS,
+        "section=" + params.getSection() + "&keywordIds=" + params.getKeywordIds()
+            + "&matchAllKeywords=" + params.isMatchAllKeywords()
+            + "&searchQuery=" + params.getSearchQuery(),
+        pagBuilder.getCountMode(),
+        () -> MarketListingQueryBuilder
+            .createTotalMarketListingsCountQuery(currentSession, params, now)
+            .getSingleResult());
+
+    return Pair.of(serverResults, totalCount);
+  }
+
+  /**
+   * Gets the display period end and ID of the cards in a section whose display period ends in the
+   * given range, in (display period end, ID) order starting after the given key, so the (SECTION,
+   * DISPLAY_PERIOD_END) index is scanned one batch at a time.
+   *
+   * @param section     the section of the marketplace
+   * @param endingAfter only cards ending after this, null for no lower bound
+   * @param endingBy    only cards ending at or before this
+   * @param after       key of the last card of the previous batch, null for the first batch
+   * @param limit       maximum number of keys to get
+   * @return the display period end and ID of each card
+   */
+  @Override
+  public List<Pair<ZonedDateTime, Long>> getMarketListingKeysEndingBy(String section,
+      ZonedDateTime endingAfter, ZonedDateTime endingBy, Pair<ZonedDateTime, Long> after,
+      int limit) {
+    String lowerBound = endingAfter == null ? "" : "AND m.displayPeriodEnd > :endingAfter ";
+    String afterKey = after == null ? ""
+        : "AND (m.displayPeriodEnd > :afterEnd "
+            + "OR (m.displayPeriodEnd = :afterEnd AND m.id > :afterId)) ";
+    TypedQuery<Object[]> query = entityManager.createQuery(
+            "SELECT m.displayPeriodEnd, m.id FROM MarketListing m WHERE m.section = :section "
+                + "AND m.displayPeriodEnd <= :endingBy " + lowerBound + afterKey
+                + "ORDER BY m.displayPeriodEnd, m.id", Object[].class)
+        .setParameter("section", section)
+        .setParameter("endingBy", endingBy)
+        .setMaxResults(limit);
+    if (endingAfter != null) {
+      query.setParameter("endingAfter", endingAfter);
+    }
+    if (after != null) {
+      query.setParameter("afterEnd", after.getFirst()).setParameter("afterId", after.getSecond());
+    }
+    List<Pair<ZonedDateTime, Long>> keys = new ArrayList<>();
+    for (Object[] row : query.getResultList()) {
+      keys.add(Pair.of((ZonedDateTime) row[0], (Long) row[1]));
+    }
+    return keys;
+  }
 
-    return Pair.of(serverResults, totalCountOfSection);
+  /**
+   * Deletes cards and their keywords with a single statement each, without loading them.
+   *
+   * @param marketListingIds identifiers of the cards
+   * @return the number of cards deleted
+   */
+  @Override
+  public int deleteMarketListings(List<Long> marketListingIds) {
+    if (marketListingIds.isEmpty()) {
+      return 0;
+    }
+    entityManager.createNativeQuery(
+            "DELETE FROM marketlisting_keyword WHERE MARKETLISTING_ID IN (:ids)")
+        .setParameter("ids", marketListingIds)
+        .executeUpdate();
+    int deleted = entityManager.createQuery("DELETE FROM MarketListing m WHERE m.id IN :ids")
+        .setParameter("ids", marketListingIds)
+        .executeUpdate();
+    // Counts are only dropped once the transaction commits, so a count taken before the delete
+    // is visible is not kept
+    totalCountCache.invalidate(TotalCountCache.MARKET_LISTINGS);
+    return deleted;
   }
 
   /**
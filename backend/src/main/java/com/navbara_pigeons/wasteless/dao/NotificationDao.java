@@ -0,0 +1,9 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import com.navbara_pigeons.wasteless.enums.NotificationType;
+import java.util.Collection;
+
+public interface NotificationDao {
+
+  int queueMarketListingNotifications(Collection<Long> marketListingIds, NotificationType type);
+}
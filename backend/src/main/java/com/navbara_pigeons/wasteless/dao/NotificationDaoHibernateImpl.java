@@ -0,0 +1,48 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import com.navbara_pigeons.wasteless.enums.NotificationType;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class NotificationDaoHibernateImpl implements NotificationDao {
+
+  // Queues a notification to the creator of each card in one statement. A card that already has a
+  // notification of the type, e.g. one warned about by an earlier run, is left as it is
+  private static final String QUEUE_MARKET_LISTING_NOTIFICATIONS =
+      "INSERT INTO notification (USER_ID, TYPE, MARKETLISTING_ID, TITLE, DISPLAY_PERIOD_END, "
+          + "CREATED) "
+          + "SELECT m.CREATOR_ID, :type, m.ID, m.TITLE, m.DISPLAY_PERIOD_END, :created "
+          + "FROM marketlisting m WHERE m.ID IN (:ids) "
+          + "ON DUPLICATE KEY UPDATE ID = notification.ID";
+
+  private final EntityManager entityManager;
+
+  public NotificationDaoHibernateImpl(@Autowired EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Queues a notification to the creator of each of the given cards. This must run before the
+   * cards are deleted.
+   *
+   * @param marketListingIds identifiers of the cards
+   * @param type             what the notifications are about
+   * @return the number of rows inserted or matched by the statement
+   */
+  @Override
+  public int queueMarketListingNotifications(Collection<Long> marketListingIds,
+      NotificationType type) {
+    if (marketListingIds.isEmpty()) {
+      return 0;
+    }
+    return entityManager.createNativeQuery(QUEUE_MARKET_LISTING_NOTIFICATIONS)
+        .setParameter("ids", marketListingIds)
+        .setParameter("type", type.name())
+        .setParameter("created", ZonedDateTime.now())
+        .executeUpdate();
+  }
+}
@@ -5,6 +5,7 @@ import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.search.ProductAttributes;
 import java.util.List;
 import org.springframework.data.util.Pair;
 
@@ -17,4 +18,6 @@ public interface ProductDao {
 
   Pair<List<Product>, Long> getProducts(Business business, PaginationBuilder pagBuilder)
       throws InvalidPaginationInputException;
+
+  List<ProductAttributes> getProductAttributes();
 }
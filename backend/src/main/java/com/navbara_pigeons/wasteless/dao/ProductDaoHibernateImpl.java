@@ -6,6 +6,8 @@ import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
+import com.navbara_pigeons.wasteless.search.ProductAttributes;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -22,14 +24,18 @@ import org.springframework.stereotype.Repository;
 public class ProductDaoHibernateImpl implements ProductDao {
 
   private final EntityManager entityManager;
+  private final TotalCountCache totalCountCache;
 
   /**
    * Constructor to initiate properties for the DAO class.
    *
-   * @param entityManager Passed in entity used to interact with the persistence context.
+   * @param entityManager   Passed in entity used to interact with the persistence context.
+   * @param totalCountCache Works out the total counts of paginated queries
    */
-  public ProductDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public ProductDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Autowired TotalCountCache totalCountCache) {
     this.entityManager = entityManager;
+    this.totalCountCache = totalCountCache;
   }
 
   /**
@@ -48,9 +54,10 @@ public class ProductDaoHibernateImpl implements ProductDao {
     Session currentSession = getSession();
     TypedQuery<Product> query = ProductQueryBuilder
         .listPaginatedAndSortedBusinessProducts(currentSession, business, pagBuilder);
-    Long businessProductsCount =
-        ProductQueryBuilder.createTotalProductsCountQuery(currentSession, business)
-            .getSingleResult();
+    Long businessProductsCount = totalCountCache.getTotalCount(TotalCountCache.PRODUCTS,
+        "business=" + business.getId(), pagBuilder.getCountMode(),
+        () -> ProductQueryBuilder.createTotalProductsCountQuery(currentSession, business)
+            .getSingleResult());
     return Pair.of(query.getResultList(), businessProductsCount);
   }
 
@@ -63,6 +70,10 @@ public class ProductDaoHibernateImpl implements ProductDao {
   public void saveProduct(Product product) {
     Session currentSession = getSession();
     currentSession.saveOrUpdate(product);
+    // Inventory and listing searches filter on the product
+    totalCountCache.invalidate(TotalCountCache.PRODUCTS);
+    totalCountCache.invalidate(TotalCountCache.INVENTORY);
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
   }
 
   /**
@@ -82,6 +93,23 @@ public class ProductDaoHibernateImpl implements ProductDao {
     return product;
   }
 
+  /**
+   * Gets the filterable attributes of every product, without loading the product entities. Used to
+   * build the product attribute index.
+   *
+   * @return The attributes of every product
+   */
+  @Override
+  public List<ProductAttributes> getProductAttributes() {
+    Session currentSession = getSession();
+    return currentSession.createQuery(
+        "SELECT new com.navbara_pigeons.wasteless.search.ProductAttributes("
+            + "p.id, p.nutriScore, p.novaGroup, p.fat, p.saturatedFat, p.sugars, p.salt, "
+            + "p.isVegan, p.isVegetarian, p.isGlutenFree, p.isPalmOilFree, p.isDairyFree) "
+            + "FROM Product p", ProductAttributes.class)
+        .getResultList();
+  }
+
   /**
    * Get the entity manager session
    *
@@ -1,11 +1,35 @@
 package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
+import com.navbara_pigeons.wasteless.entity.Transaction;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
+import com.navbara_pigeons.wasteless.helper.TransactionExportWriter;
+import com.navbara_pigeons.wasteless.model.ProductSalesModel;
+import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 public interface TransactionDaoHibernate {
 
   TransactionDataDto getTransactionData(Long businessId, ZonedDateTime startSaleDate, ZonedDateTime endSaleDate,
-      TransactionGranularity granularity);
+      TransactionGranularity granularity, boolean fillGaps) throws InvalidSalesReportException;
+
+  void addToSalesRollup(Transaction transaction);
+
+  void addToSalesRollup(List<Transaction> transactions);
+
+  void saveTransactions(List<Transaction> transactions);
+
+  int rebuildSalesRollups();
+
+  List<String> findSalesRollupInconsistencies();
+
+  List<ProductSalesModel> getProductSales(List<Long> businessIds, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate);
+
+  List<Long> getBusinessIdsWithSales();
+
+  void exportTransactions(Long businessId, ZonedDateTime startSaleDate, ZonedDateTime endSaleDate,
+      TransactionExportWriter writer) throws IOException;
 }
@@ -1,87 +1,348 @@
 package com.navbara_pigeons.wasteless.dao;
 
 import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
+import com.navbara_pigeons.wasteless.entity.SalesRollup;
+import com.navbara_pigeons.wasteless.entity.Transaction;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
-import com.navbara_pigeons.wasteless.model.TransactionReportModel;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
+import com.navbara_pigeons.wasteless.helper.SalesPeriods;
+import com.navbara_pigeons.wasteless.helper.SalesReportBuilder;
+import com.navbara_pigeons.wasteless.helper.TransactionExportWriter;
+import com.navbara_pigeons.wasteless.model.ProductSalesModel;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.persistence.EntityManager;
-import javax.persistence.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class TransactionDaoHibernateImpl implements TransactionDaoHibernate {
 
+  // Sums of doubles can differ in the last places depending on the order they are added in
+  private static final double AMOUNT_TOLERANCE = 0.005;
+
+  private static final int SCROLL_FETCH_SIZE = 500;
+
   private final EntityManager entityManager;
+  private final int maxReportPeriods;
 
-  public TransactionDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public TransactionDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Value("${transactions.max_report_periods:3660}") int maxReportPeriods) {
     this.entityManager = entityManager;
+    this.maxReportPeriods = maxReportPeriods;
   }
 
   /**
-   * Queries all transactions from business with given id in date range and groups by granularity
+   * Gets the sales of the business with given id in the date range, grouped by granularity in the
+   * time zone of the range's start. When that zone's days are the server's the daily sales rollup
+   * is read, otherwise the transactions in the range are scanned once in sale date order, which the
+   * business and sale date index serves without sorting.
    *
    * @param businessId    Business to group by
-   * @param startSaleDate Earliest date to query by
+   * @param startSaleDate Earliest date to query by, its zone is the zone of the report
    * @param endSaleDate   Latest date to query by
    * @param granularity   Granularity to group by
+   * @param fillGaps      Include periods without sales
    * @return a result list of transaction data
+   * @throws InvalidSalesReportException when the report would have more periods than allowed
    */
   @Override
   public TransactionDataDto getTransactionData(Long businessId, ZonedDateTime startSaleDate,
-      ZonedDateTime endSaleDate, TransactionGranularity granularity) {
-
-    String grouping = "t.saleDate";
-    if (granularity == TransactionGranularity.DAY) {
-      grouping = "YEAR(t.saleDate), MONTH(t.saleDate), WEEK(t.saleDate), DAY(t.saleDate)";
-    } else if (granularity == TransactionGranularity.WEEK) {
-      grouping = "YEAR(t.saleDate), MONTH(t.saleDate), WEEK(t.saleDate)";
-    } else if (granularity == TransactionGranularity.MONTH) {
-      grouping = "YEAR(t.saleDate), MONTH(t.saleDate)";
-    } else if (granularity == TransactionGranularity.YEAR) {
-      grouping = "YEAR(t.saleDate)";
+      ZonedDateTime endSaleDate, TransactionGranularity granularity, boolean fillGaps)
+      throws InvalidSalesReportException {
+    SalesReportBuilder report = new SalesReportBuilder(startSaleDate, endSaleDate, granularity,
+        fillGaps);
+    // A report without a start date is filled from its first sale, so is only checked once read
+    checkPeriodCount(report);
+    ZoneId zone = startSaleDate.getZone();
+    ZonedDateTime start = SalesPeriods.isUnbounded(startSaleDate)
+        ? SalesPeriods.EARLIEST_DAY.atStartOfDay(zone) : startSaleDate;
+
+    if (SalesPeriods.matchesRollupDays(zone)) {
+      List<SalesRollup> rollups = entityManager.createQuery(
+              "FROM SalesRollup r WHERE r.businessId = :businessId "
+                  + "AND r.saleDay BETWEEN :startDay AND :endDay ORDER BY r.saleDay",
+              SalesRollup.class)
+          .setParameter("businessId", businessId)
+          .setParameter("startDay", SalesPeriods.dayOf(start))
+          .setParameter("endDay", SalesPeriods.dayOf(endSaleDate))
+          .getResultList();
+      for (SalesRollup rollup : rollups) {
+        report.add(rollup.getSaleDay().atStartOfDay(zone), rollup.getTransactionCount(),
+            rollup.getAmount());
+      }
+      checkPeriodCount(report);
+      return report.build();
     }
 
-    Query transactionQueries = entityManager.createQuery(
-            "SELECT t.saleDate, count(t), sum(t.amount) from Transaction t WHERE t.businessId = :businessId and t.saleDate between :startDate and :endDate GROUP BY "
-                + grouping)
-        .setParameter("startDate", startSaleDate)
+    Session session = entityManager.unwrap(Session.class);
+    try (ScrollableResults results = session.createQuery(
+            "SELECT t.saleDate, t.amount FROM Transaction t WHERE t.businessId = :businessId "
+                + "AND t.saleDate BETWEEN :startDate AND :endDate ORDER BY t.saleDate")
+        .setParameter("businessId", businessId)
+        .setParameter("startDate", start)
         .setParameter("endDate", endSaleDate)
-        .setParameter("businessId", businessId);
+        .setFetchSize(SCROLL_FETCH_SIZE)
+        .setReadOnly(true)
+        .scroll(ScrollMode.FORWARD_ONLY)) {
+      while (results.next()) {
+        report.add((ZonedDateTime) results.get(0), 1, (Double) results.get(1));
+      }
+    }
+    checkPeriodCount(report);
+    return report.build();
+  }
 
-    Query totalsQuery = entityManager.createQuery(
-            "SELECT count(t), sum(t.amount) from Transaction t WHERE t.businessId = :businessId and t.saleDate between :startDate and :endDate")
-        .setParameter("startDate", startSaleDate)
-        .setParameter("endDate", endSaleDate)
-        .setParameter("businessId", businessId);
+  private void checkPeriodCount(SalesReportBuilder report) throws InvalidSalesReportException {
+    if (report.periodCount() > maxReportPeriods) {
+      throw new InvalidSalesReportException("A sales report can have at most " + maxReportPeriods
+          + " periods, use a shorter date range or a longer granularity");
+    }
+  }
 
-    // Elements 0, 1, 2 and 3 have date, transactionCount and amount in them respectively
-    List results = transactionQueries.getResultList();
-    // Elements 0 and 1 have totalTransactionCount and amount in them respectively
-    List totals = totalsQuery.getResultList();
+  /**
+   * Adds a saved transaction to its business's sales rollup for the day. An existing row is
+   * incremented in place so concurrent sales on the same day are all counted.
+   *
+   * @param transaction the saved transaction
+   */
+  @Override
+  public void addToSalesRollup(Transaction transaction) {
+    addToSalesRollup(transaction.getBusinessId(), SalesPeriods.dayOf(transaction.getSaleDate()), 1,
+        transaction.getAmount());
+  }
 
-    // If no transactions were found, return empty TransactionDataDto
-    if (results.isEmpty() || totals.isEmpty()) {
-      return new TransactionDataDto(new ArrayList<>(), 0.00, 0);
+  /**
+   * Adds saved transactions to the sales rollups, with one update per business and day rather
+   * than one per transaction.
+   *
+   * @param transactions the saved transactions
+   */
+  @Override
+  public void addToSalesRollup(List<Transaction> transactions) {
+    Map<SalesRollup.Key, SalesRollup> rollups = new LinkedHashMap<>();
+    for (Transaction transaction : transactions) {
+      LocalDate saleDay = SalesPeriods.dayOf(transaction.getSaleDate());
+      SalesRollup rollup = rollups.computeIfAbsent(
+          new SalesRollup.Key(transaction.getBusinessId(), saleDay),
+          key -> new SalesRollup(key.getBusinessId(), key.getSaleDay(), 0L, 0.0));
+      rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+      rollup.setAmount(rollup.getAmount() + transaction.getAmount());
     }
-    List<TransactionReportModel> transactionReportModels = new ArrayList<>();
-    for (Object result : results) {
+    for (SalesRollup rollup : rollups.values()) {
+      addToSalesRollup(rollup.getBusinessId(), rollup.getSaleDay(), rollup.getTransactionCount(),
+          rollup.getAmount());
+    }
+  }
+
+  private void addToSalesRollup(Long businessId, LocalDate saleDay, long count, Double amount) {
+    entityManager.createNativeQuery(
+            "INSERT INTO sales_rollup (BUSINESS_ID, SALE_DAY, TRANSACTION_COUNT, AMOUNT) "
+                + "VALUES (:businessId, :saleDay, :count, :amount) "
+                + "ON DUPLICATE KEY UPDATE "
+                + "TRANSACTION_COUNT = TRANSACTION_COUNT + VALUES(TRANSACTION_COUNT), "
+                + "AMOUNT = AMOUNT + VALUES(AMOUNT)")
+        .setParameter("businessId", businessId)
+        .setParameter("saleDay", saleDay)
+        .setParameter("count", count)
+        .setParameter("amount", amount)
+        .executeUpdate();
+  }
+
+  /**
+   * Inserts new transactions with a single JDBC batch, as transactions use IDENTITY IDs which
+   * Hibernate can't batch. The generated IDs are set on the transactions, they are not attached to
+   * the persistence context.
+   *
+   * @param transactions the transactions to insert
+   */
+  @Override
+  public void saveTransactions(List<Transaction> transactions) {
+    entityManager.unwrap(Session.class).doWork(connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(
+          "INSERT INTO transaction (SALE_DATE, LISTING_DATE, PRODUCT_ID, BUSINESS_ID, AMOUNT) "
+              + "VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+        for (Transaction transaction : transactions) {
+          // Stored the same way Hibernate stores ZonedDateTime, at the instant in the server zone
+          statement.setTimestamp(1, Timestamp.from(transaction.getSaleDate().toInstant()));
+          statement.setTimestamp(2, Timestamp.from(transaction.getListingDate().toInstant()));
+          statement.setLong(3, transaction.getProduct().getId());
+          statement.setLong(4, transaction.getBusinessId());
+          statement.setDouble(5, transaction.getAmount());
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+          for (Transaction transaction : transactions) {
+            if (!keys.next()) {
+              throw new SQLException("Missing generated ID for batched transaction");
+            }
+            transaction.setId(keys.getLong(1));
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Replaces every sales rollup with one recalculated from the transactions
+   *
+   * @return the number of rollup rows written
+   */
+  @Override
+  public int rebuildSalesRollups() {
+    entityManager.createNativeQuery("DELETE FROM sales_rollup").executeUpdate();
+    return entityManager.createNativeQuery(
+            "INSERT INTO sales_rollup (BUSINESS_ID, SALE_DAY, TRANSACTION_COUNT, AMOUNT) "
+                + "SELECT BUSINESS_ID, DATE(SALE_DATE), COUNT(*), SUM(AMOUNT) FROM transaction "
+                + "GROUP BY BUSINESS_ID, DATE(SALE_DATE)")
+        .executeUpdate();
+  }
+
+  /**
+   * Compares every sales rollup with the transactions it should be made from
+   *
+   * @return a description of each business and day where they differ, empty if none do
+   */
+  @Override
+  public List<String> findSalesRollupInconsistencies() {
+    Map<String, Object[]> expected = byBusinessAndDay(entityManager.createNativeQuery(
+            "SELECT BUSINESS_ID, DATE(SALE_DATE), COUNT(*), SUM(AMOUNT) FROM transaction "
+                + "GROUP BY BUSINESS_ID, DATE(SALE_DATE)")
+        .getResultList());
+    Map<String, Object[]> actual = byBusinessAndDay(entityManager.createNativeQuery(
+            "SELECT BUSINESS_ID, SALE_DAY, TRANSACTION_COUNT, AMOUNT FROM sales_rollup")
+        .getResultList());
+
+    List<String> inconsistencies = new ArrayList<>();
+    for (Map.Entry<String, Object[]> entry : expected.entrySet()) {
+      Object[] rollup = actual.remove(entry.getKey());
+      Object[] transactions = entry.getValue();
+      if (rollup == null || !sameSales(transactions, rollup)) {
+        inconsistencies.add(String.format("Business/day %s: transactions %s x %s, rollup %s",
+            entry.getKey(), transactions[2], transactions[3],
+            rollup == null ? "missing" : rollup[2] + " x " + rollup[3]));
+      }
+    }
+    for (Map.Entry<String, Object[]> entry : actual.entrySet()) {
+      inconsistencies.add(String.format("Business/day %s: no transactions, rollup %s x %s",
+          entry.getKey(), entry.getValue()[2], entry.getValue()[3]));
+    }
+    return inconsistencies;
+  }
+
+  /**
+   * Gets the sales of every product of the given businesses in the date range, with the time each
+   * sold item was listed for. Each row is one product, so sales of different groups of businesses
+   * can be merged.
+   *
+   * @param businessIds   Businesses whose sales are read
+   * @param startSaleDate Earliest sale date
+   * @param endSaleDate   Latest sale date
+   * @return the sales of each product that sold in the range
+   */
+  @Override
+  public List<ProductSalesModel> getProductSales(List<Long> businessIds,
+      ZonedDateTime startSaleDate, ZonedDateTime endSaleDate) {
+    // A sale recorded before its listing counts as selling straight away
+    List<?> rows = entityManager.createNativeQuery(
+            "SELECT t.PRODUCT_ID, p.NAME, t.BUSINESS_ID, b.BUSINESS_TYPE, a.COUNTRY, COUNT(*), "
+                + "SUM(t.AMOUNT), "
+                + "SUM(GREATEST(TIMESTAMPDIFF(SECOND, t.LISTING_DATE, t.SALE_DATE), 0)) "
+                + "FROM transaction t JOIN product p ON p.ID = t.PRODUCT_ID "
+                + "JOIN business b ON b.ID = t.BUSINESS_ID JOIN address a ON a.ID = b.ADDRESS_ID "
+                + "WHERE t.BUSINESS_ID IN (:businessIds) "
+                + "AND t.SALE_DATE BETWEEN :startDate AND :endDate "
+                + "GROUP BY t.PRODUCT_ID, p.NAME, t.BUSINESS_ID, b.BUSINESS_TYPE, a.COUNTRY")
+        .setParameter("businessIds", businessIds)
+        .setParameter("startDate", SalesPeriods.isUnbounded(startSaleDate)
+            ? SalesPeriods.EARLIEST_DAY.atStartOfDay(startSaleDate.getZone()) : startSaleDate)
+        .setParameter("endDate", endSaleDate)
+        .getResultList();
+    List<ProductSalesModel> productSales = new ArrayList<>();
+    for (Object result : rows) {
       Object[] row = (Object[]) result;
-      ZonedDateTime date = ZonedDateTime.parse(row[0].toString());
-      Integer transactionCount = Integer.parseInt(row[1].toString());
-      Double amount = Double.valueOf(row[2].toString());
+      ProductSalesModel product = new ProductSalesModel(((Number) row[0]).longValue(),
+          (String) row[1], ((Number) row[2]).longValue(), (String) row[3], (String) row[4]);
+      product.getSales().add(((Number) row[5]).longValue(), ((Number) row[6]).doubleValue(),
+          ((Number) row[7]).longValue());
+      productSales.add(product);
+    }
+    return productSales;
+  }
+
+  /**
+   * Gets the IDs of every business that has made a sale, from the sales rollup
+   *
+   * @return IDs of the businesses
+   */
+  @Override
+  public List<Long> getBusinessIdsWithSales() {
+    return entityManager.createQuery(
+            "SELECT DISTINCT r.businessId FROM SalesRollup r ORDER BY r.businessId", Long.class)
+        .getResultList();
+  }
 
-      TransactionReportModel transactionReportModel = new TransactionReportModel(date,
-          transactionCount, amount);
-      transactionReportModels.add(transactionReportModel);
+  /**
+   * Writes the transactions of a business in a date range, oldest first. Rows are scrolled forward
+   * only and fetched in batches, so memory use does not depend on how many there are.
+   *
+   * @param businessId    Business whose transactions are exported
+   * @param startSaleDate Earliest date to export, before any sale when none was given
+   * @param endSaleDate   Latest date to export
+   * @param writer        Where each row is written
+   * @throws IOException when the writer fails, e.g. the client disconnected
+   */
+  @Override
+  public void exportTransactions(Long businessId, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate, TransactionExportWriter writer) throws IOException {
+    Session session = entityManager.unwrap(Session.class);
+    try (ScrollableResults results = session.createQuery(
+            "SELECT t.id, t.saleDate, t.listingDate, p.id, p.name, t.amount FROM Transaction t "
+                + "JOIN t.product p WHERE t.businessId = :businessId "
+                + "AND t.saleDate BETWEEN :startDate AND :endDate ORDER BY t.saleDate, t.id")
+        .setParameter("businessId", businessId)
+        .setParameter("startDate", SalesPeriods.isUnbounded(startSaleDate)
+            ? SalesPeriods.EARLIEST_DAY.atStartOfDay(startSaleDate.getZone()) : startSaleDate)
+        .setParameter("endDate", endSaleDate)
+        .setFetchSize(SCROLL_FETCH_SIZE)
+        .setReadOnly(true)
+        .scroll(ScrollMode.FORWARD_ONLY)) {
+      while (results.next()) {
+        writer.writeRow(results.get());
+      }
     }
+    writer.flush();
+  }
 
-    Object[] totalsRow = (Object[]) totals.get(0);
-    Integer totalTransactionCount = Integer.parseInt(totalsRow[0].toString());
-    Double totalAmount = Double.valueOf(totalsRow[1].toString());
+  private static Map<String, Object[]> byBusinessAndDay(List<?> rows) {
+    Map<String, Object[]> byKey = new HashMap<>();
+    for (Object result : rows) {
+      Object[] row = (Object[]) result;
+      byKey.put(row[0] + "/" + row[1], row);
+    }
+    return byKey;
+  }
 
-    return new TransactionDataDto(transactionReportModels, totalAmount, totalTransactionCount);
+  private static boolean sameSales(Object[] transactions, Object[] rollup) {
+    return ((Number) transactions[2]).longValue() == ((Number) rollup[2]).longValue()
+        && Math.abs(((Number) transactions[3]).doubleValue() - ((Number) rollup[3]).doubleValue())
+        < AMOUNT_TOLERANCE;
   }
 }
@@ -6,10 +6,12 @@ import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
 import java.util.ArrayList;
 import java.util.List;
 import javax.management.InvalidAttributeValueException;
 import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaQuery;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,14 +26,18 @@ import org.springframework.stereotype.Repository;
 public class UserDaoHibernateImpl implements UserDao {
 
   private final EntityManager entityManager;
+  private final TotalCountCache totalCountCache;
 
   /**
    * Constructor to initiate properties for the DAO class.
    *
-   * @param entityManager Passed in entity used to interact with the persistence context.
+   * @param entityManager   Passed in entity used to interact with the persistence context.
+   * @param totalCountCache Works out the total counts of paginated queries
    */
-  public UserDaoHibernateImpl(@Autowired EntityManager entityManager) {
+  public UserDaoHibernateImpl(@Autowired EntityManager entityManager,
+      @Autowired TotalCountCache totalCountCache) {
     this.entityManager = entityManager;
+    this.totalCountCache = totalCountCache;
   }
 
   /**
@@ -43,6 +49,7 @@ public class UserDaoHibernateImpl implements UserDao {
   public void saveUser(User user) {
     Session currentSession = getSession();
     currentSession.saveOrUpdate(user);
+    totalCountCache.invalidate(TotalCountCache.USERS);
   }
 
   /**
@@ -136,9 +143,11 @@ public class UserDaoHibernateImpl implements UserDao {
     Session currentSession = getSession();
     List<User> serverResults = UserQueryBuilder
         .listPaginatedAndSortedUsers(currentSession, searchQuery, pagBuilder).getResultList();
-    Long totalCountOfQuery = entityManager.createQuery(
-        UserQueryBuilder.createTotalUserCountQuery(currentSession, searchQuery))
-        .getSingleResult();
+    CriteriaQuery<Long> countQuery =
+        UserQueryBuilder.createTotalUserCountQuery(currentSession, searchQuery);
+    Long totalCountOfQuery = totalCountCache.getTotalCount(TotalCountCache.USERS,
+        searchQuery.strip(), pagBuilder.getCountMode(),
+        () -> entityManager.createQuery(countQuery).getSingleResult());
 
     return Pair.of(serverResults, totalCountOfQuery);
   }
@@ -10,16 +10,24 @@ import com.navbara_pigeons.wasteless.entity.BusinessType;
 import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import com.navbara_pigeons.wasteless.helper.ListingCursor;
 import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import com.navbara_pigeons.wasteless.search.SearchPlan;
+import com.navbara_pigeons.wasteless.search.SearchTerm;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 
 @Slf4j
@@ -36,6 +44,59 @@ public class ListingSpecifications {
    */
 
   public static Specification<Listing> meetsSearchCriteria(ListingsSearchParams params) {
+    return meetsSearchCriteria(params,
+        SearchPlan.parse(params.getSearchParam(), params.getSearchKeys()), null);
+  }
+
+  /**
+   * Same as meetsSearchCriteria(params), but using an already compiled search plan. When the plan
+   * has already been resolved by the listing search index the text predicates are replaced by a
+   * primary key lookup.
+   *
+   * @param params     search query and other request parameters
+   * @param plan       compiled search string of the params
+   * @param listingIds ids of the listings matching the search string, or null to match the search
+   *                   string in the database
+   */
+  public static Specification<Listing> meetsSearchCriteria(ListingsSearchParams params,
+      SearchPlan plan, Set<Long> listingIds) {
+    return meetsSearchCriteria(params, plan, listingIds, true, true);
+  }
+
+  /**
+   * Same as meetsSearchCriteria(params, plan, listingIds), optionally leaving out the product
+   * nutrition and diet filters. Those can be left out when the listing ids have already been
+   * narrowed down by the product attribute index.
+   *
+   * @param params             search query and other request parameters
+   * @param plan               compiled search string of the params
+   * @param listingIds         ids of the listings matching the search string, or null to match the
+   *                           search string in the database
+   * @param withProductFilters whether to apply the product filters in the database
+   */
+  public static Specification<Listing> meetsSearchCriteria(ListingsSearchParams params,
+      SearchPlan plan, Set<Long> listingIds, boolean withProductFilters) {
+    return meetsSearchCriteria(params, plan, listingIds, true, withProductFilters);
+  }
+
+  /**
+   * Search string, price and closing date criteria only, leaving out the filters that facet counts
+   * are returned for (business type, nutrition and diet filters). Used by the facet count query,
+   * which applies those filters itself so each facet can ignore its own filter.
+   *
+   * @param params     search query and other request parameters
+   * @param plan       compiled search string of the params
+   * @param listingIds ids of the listings matching the search string, or null to match the search
+   *                   string in the database
+   */
+  public static Specification<Listing> meetsFacetBaseCriteria(ListingsSearchParams params,
+      SearchPlan plan, Set<Long> listingIds) {
+    return meetsSearchCriteria(params, plan, listingIds, false, false);
+  }
+
+  private static Specification<Listing> meetsSearchCriteria(ListingsSearchParams params,
+      SearchPlan plan, Set<Long> listingIds, boolean withFacetFilters,
+      boolean withProductFilters) {
     return (root, query, criteriaBuilder) -> {
 
       Join<Listing, InventoryItem> inventoryItemJoin = root.join("inventoryItem");
@@ -44,55 +105,104 @@ public class ListingSpecifications {
       Join<Address, Business> addressBusinessJoin = businessInventoryItemJoin.join("address");
 
       ArrayList<Predicate> predicates = new ArrayList<>();
-      Iterator<String> tokenIterator = SpecificationHelper.tokenize(params.getSearchParam())
-          .iterator();
-      while (tokenIterator.hasNext()) {
-        String currentToken = tokenIterator.next();
-        // First Query token
-        if (predicates.isEmpty()) {
-          if (SpecificationHelper.isFullMatching(currentToken)) {
-            predicates.add(getListingFullMatch(params, currentToken.replace("\"", ""),
-                productInventoryItemJoin, businessInventoryItemJoin, addressBusinessJoin,
-                criteriaBuilder));
-          } else {
-            predicates.add(getListingPartialMatch(params, currentToken, productInventoryItemJoin,
-                businessInventoryItemJoin, addressBusinessJoin, criteriaBuilder));
-          }
-          // Check if OR Operator
-        } else if (currentToken.toUpperCase().matches("OR")
-            && tokenIterator.hasNext()) {
-          String nextToken = tokenIterator.next();
-          Predicate lastPredicate = predicates.remove(predicates.size() - 1);
-          if (SpecificationHelper.isFullMatching(nextToken)) {
-            predicates.add(criteriaBuilder.or(lastPredicate,
-                getListingFullMatch(params, nextToken.replace("\"", ""), productInventoryItemJoin,
-                    businessInventoryItemJoin, addressBusinessJoin, criteriaBuilder)));
-          } else {
-            predicates.add(criteriaBuilder.or(lastPredicate,
-                getListingPartialMatch(params, nextToken, productInventoryItemJoin,
-                    businessInventoryItemJoin, addressBusinessJoin, criteriaBuilder)));
-          }
-          // Check if AND Operator
-        } else if (currentToken.toUpperCase().matches("AND") && tokenIterator.hasNext()) {
-          String nextToken = tokenIterator.next();
-          if (SpecificationHelper.isFullMatching(nextToken)) {
-            predicates.add(
-                getListingFullMatch(params, nextToken.replace("\"", ""), productInventoryItemJoin,
-                    businessInventoryItemJoin, addressBusinessJoin, criteriaBuilder));
-          } else {
-            predicates.add(getListingPartialMatch(params, nextToken, productInventoryItemJoin,
-                businessInventoryItemJoin, addressBusinessJoin, criteriaBuilder));
+      if (listingIds != null) {
+        predicates.add(root.get("id").in(listingIds));
+      } else {
+        // Clauses are AND'ed together, the terms of a clause are OR'ed together. Tokens end up as
+        // bound parameters, so queries of the same shape share Hibernate's query plan.
+        for (List<SearchTerm> clause : plan.getClauses()) {
+          ArrayList<Predicate> termPredicates = new ArrayList<>();
+          for (SearchTerm term : clause) {
+            if (term.isFullMatch()) {
+              termPredicates.add(getListingFullMatch(params, term.getValue(),
+                  productInventoryItemJoin, businessInventoryItemJoin, addressBusinessJoin,
+                  criteriaBuilder));
+            } else {
+              termPredicates.add(getListingPartialMatch(params, term.getValue(),
+                  productInventoryItemJoin, businessInventoryItemJoin, addressBusinessJoin,
+                  criteriaBuilder));
+            }
           }
-        } else {
-          log.error("Malformed Search Query");
+          predicates.add(
+              criteriaBuilder.or(termPredicates.toArray(new Predicate[termPredicates.size()])));
         }
       }
-      predicates.add(getListingFilterMatch(params, root, businessInventoryItemJoin,
-          productInventoryItemJoin, criteriaBuilder));
+      predicates.add(getListingFilterMatch(params, root, criteriaBuilder));
+      if (withFacetFilters) {
+        predicates.add(getListingFacetFilterMatch(params, businessInventoryItemJoin,
+            productInventoryItemJoin, criteriaBuilder, withProductFilters));
+      }
       return criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()]));
     };
   }
 
+  /**
+   * Keyset pagination predicate for listing search, matching the listings that come after the
+   * cursor when ordered by keysetSort
+   *
+   * @param cursor cursor of the previous page
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public static Specification<Listing> isAfterCursor(ListingCursor cursor) {
+    return (root, query, criteriaBuilder) -> {
+      if (cursor.isFirstPage()) {
+        return criteriaBuilder.and();
+      }
+      Path<?> sortKey = root;
+      for (String property : cursor.getSortBy().getKeyPath().split("\\.")) {
+        sortKey = sortKey.get(property);
+      }
+      return isAfterCursor(criteriaBuilder, (Path) sortKey, root.get("id"), cursor);
+    };
+  }
+
+  /**
+   * Builds the (sortKey, id) > (lastSortKey, lastId) predicate, or less than when sorting in
+   * descending order. Row value comparisons are not supported by the Criteria API so it is
+   * expanded to sortKey > ? OR (sortKey = ? AND id > ?), which MariaDB still resolves as an index
+   * range. MariaDB sorts NULLs first in ascending order and last in descending order, and the
+   * predicate follows that.
+   *
+   * @param criteriaBuilder to build the predicates
+   * @param sortKey         expression the listings are sorted by
+   * @param id              listing id, used as the tie breaker
+   * @param cursor          cursor of the previous page, must not be the first page cursor
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public static Predicate isAfterCursor(CriteriaBuilder criteriaBuilder,
+      Expression<? extends Comparable> sortKey, Expression<Long> id, ListingCursor cursor) {
+    Comparable lastSortValue = cursor.getLastSortValue();
+    if (cursor.isAscending()) {
+      Predicate afterId = criteriaBuilder.greaterThan(id, cursor.getLastId());
+      if (lastSortValue == null) {
+        return criteriaBuilder.or(criteriaBuilder.and(criteriaBuilder.isNull(sortKey), afterId),
+            criteriaBuilder.isNotNull(sortKey));
+      }
+      return criteriaBuilder.or(criteriaBuilder.greaterThan(sortKey, lastSortValue),
+          criteriaBuilder.and(criteriaBuilder.equal(sortKey, lastSortValue), afterId));
+    } else {
+      Predicate beforeId = criteriaBuilder.lessThan(id, cursor.getLastId());
+      if (lastSortValue == null) {
+        return criteriaBuilder.and(criteriaBuilder.isNull(sortKey), beforeId);
+      }
+      return criteriaBuilder.or(criteriaBuilder.lessThan(sortKey, lastSortValue),
+          criteriaBuilder.and(criteriaBuilder.equal(sortKey, lastSortValue), beforeId),
+          criteriaBuilder.isNull(sortKey));
+    }
+  }
+
+  /**
+   * Order used by keyset pagination, the sort key followed by the listing id so that every
+   * listing has a unique position
+   *
+   * @param sortBy      sort option
+   * @param isAscending sort direction
+   */
+  public static Sort keysetSort(ListingSortByOption sortBy, boolean isAscending) {
+    Direction direction = isAscending ? Direction.ASC : Direction.DESC;
+    return Sort.by(direction, sortBy.getKeyPath()).and(Sort.by(direction, "id"));
+  }
+
   /**
    * Method to check whether an of the values in the database partially matches the search criteria
    * sent by the user
@@ -165,16 +275,14 @@ public class ListingSpecifications {
   }
 
   /**
-   * Method to create filters for the listings
+   * Method to create the price and closing date filters for the listings
    *
-   * @param params                    search query and other request parameters
-   * @param root                      the root table
-   * @param businessInventoryItemJoin join inventoryitem table with business table
-   * @param criteriaBuilder           to build the predicates
+   * @param params          search query and other request parameters
+   * @param root            the root table
+   * @param criteriaBuilder to build the predicates
    */
   private static Predicate getListingFilterMatch(ListingsSearchParams params, Root<Listing> root,
-      Join<Business, InventoryItem> businessInventoryItemJoin,
-      Join<Product, InventoryItem> productInventoryItemJoin, CriteriaBuilder criteriaBuilder) {
+      CriteriaBuilder criteriaBuilder) {
     ArrayList<Predicate> predicates = new ArrayList<>();
     // if min price included by the user
     if (params.getMinPrice() != null) {
@@ -206,6 +314,23 @@ public class ListingSpecifications {
           .getFilterDates().get(1));
 
     }
+    return criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()]));
+  }
+
+  /**
+   * Method to create the business type, nutrition and diet filters for the listings
+   *
+   * @param params                    search query and other request parameters
+   * @param businessInventoryItemJoin join inventoryitem table with business table
+   * @param productInventoryItemJoin  join inventoryitem table with product table
+   * @param criteriaBuilder           to build the predicates
+   * @param withProductFilters        whether to include the product nutrition and diet filters
+   */
+  private static Predicate getListingFacetFilterMatch(ListingsSearchParams params,
+      Join<Business, InventoryItem> businessInventoryItemJoin,
+      Join<Product, InventoryItem> productInventoryItemJoin, CriteriaBuilder criteriaBuilder,
+      boolean withProductFilters) {
+    ArrayList<Predicate> predicates = new ArrayList<>();
     // if business types are included by the user
     if (params.getBusinessTypes() != null) {
       ArrayList<Predicate> businessTypePredicates = new ArrayList<>();
@@ -217,6 +342,9 @@ public class ListingSpecifications {
       predicates.add(criteriaBuilder
           .or(businessTypePredicates.toArray(new Predicate[businessTypePredicates.size()])));
     }
+    if (!withProductFilters) {
+      return criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()]));
+    }
 
     addNutritionLevelPredicate(productInventoryItemJoin, criteriaBuilder, predicates,
         params.getFat(), "fat");
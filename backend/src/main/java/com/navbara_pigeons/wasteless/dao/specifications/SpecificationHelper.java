@@ -6,9 +6,13 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SpecificationHelper {
+    // Compiled once, these are used for every search request
+    private static final Pattern FULL_MATCH_PATTERN = Pattern.compile("\"\\S*.+?\"");
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("(\"[^\"]+\")|([^\"\\s]+)");
+
     // matches characters between quotes.
     public static boolean isFullMatching(String token) {
-        return token.matches("\"\\S*.+?\"");
+        return FULL_MATCH_PATTERN.matcher(token).matches();
     }
 
     /**
@@ -23,7 +27,7 @@ public class SpecificationHelper {
 
         searchQuery = searchQuery.strip();
         // Matches words
-        Matcher matcher = Pattern.compile("(\"[^\"]+\")|([^\"\\s]+)").matcher(searchQuery);
+        Matcher matcher = TOKEN_PATTERN.matcher(searchQuery);
         while (matcher.find()) {
             tokens.add(matcher.group(0));
         }
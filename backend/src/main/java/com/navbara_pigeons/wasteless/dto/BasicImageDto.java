@@ -1,6 +1,9 @@
 package com.navbara_pigeons.wasteless.dto;
 
 import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
+import java.util.Map;
+import java.util.TreeMap;
 import lombok.Data;
 
 
@@ -13,6 +16,9 @@ public class BasicImageDto {
   private long id;
   private String filename;
   private String thumbnailFilename;
+  private ImageStatus status;
+  // Rendition size to filename, smallest first
+  private Map<Integer, String> renditions = new TreeMap<>();
 
   /**
    * Constructor for creating Image DTO from Image entity. (needs a public path prefix)
@@ -24,6 +30,10 @@ public class BasicImageDto {
     this.id = image.getId();
     this.filename = publicPathPrefix + image.getPath().substring(1);
     this.thumbnailFilename = publicPathPrefix + image.getThumbnailPath().substring(1);
+    this.status = image.getStatus();
+    for (int size : image.getRenditionSizes()) {
+      this.renditions.put(size, publicPathPrefix + image.getRenditionPath(size).substring(1));
+    }
   }
 
   public BasicImageDto() {
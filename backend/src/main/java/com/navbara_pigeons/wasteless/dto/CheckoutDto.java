@@ -0,0 +1,16 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import java.util.List;
+import javax.validation.constraints.NotEmpty;
+import lombok.Data;
+
+@Data
+public class CheckoutDto {
+
+  @NotEmpty(message = "A checkout must have at least one listing")
+  private List<Long> listingIds;
+
+  public CheckoutDto() {
+
+  }
+}
@@ -0,0 +1,23 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import com.navbara_pigeons.wasteless.enums.CheckoutItemStatus;
+import lombok.Data;
+
+@Data
+public class CheckoutItemDto {
+
+  private Long listingId;
+  private CheckoutItemStatus status;
+  // Only set when the listing was purchased
+  private TransactionDto transaction;
+
+  public CheckoutItemDto(Long listingId, CheckoutItemStatus status, TransactionDto transaction) {
+    this.listingId = listingId;
+    this.status = status;
+    this.transaction = transaction;
+  }
+
+  public CheckoutItemDto() {
+
+  }
+}
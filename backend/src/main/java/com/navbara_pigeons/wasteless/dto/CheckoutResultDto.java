@@ -0,0 +1,33 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import com.navbara_pigeons.wasteless.enums.CheckoutItemStatus;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class CheckoutResultDto {
+
+  // One per listing in the order they were given, duplicates removed
+  private List<CheckoutItemDto> items;
+  private long purchasedCount;
+  private double total;
+
+  /**
+   * Constructor to create a Checkout Result DTO, totalling the purchased items
+   *
+   * @param items the result of each listing
+   */
+  public CheckoutResultDto(List<CheckoutItemDto> items) {
+    this.items = items;
+    for (CheckoutItemDto item : items) {
+      if (item.getStatus() == CheckoutItemStatus.PURCHASED) {
+        purchasedCount++;
+        total += item.getTransaction().getAmount();
+      }
+    }
+  }
+
+  public CheckoutResultDto() {
+
+  }
+}
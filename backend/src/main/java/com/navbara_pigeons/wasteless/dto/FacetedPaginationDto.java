@@ -0,0 +1,21 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * PaginationDto that also carries the facet counts of the query
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class FacetedPaginationDto<T> extends PaginationDto<T> {
+
+  private ListingFacetsDto facets;
+
+  public FacetedPaginationDto(PaginationDto<T> page, ListingFacetsDto facets) {
+    super(page.getResults(), page.getTotalCount());
+    setNextCursor(page.getNextCursor());
+    setHasNext(page.getHasNext());
+    this.facets = facets;
+  }
+}
@@ -0,0 +1,54 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import lombok.Data;
+
+@Data
+public class ListingArchiveDto {
+
+  private Long id;
+  private Long inventoryItemId;
+  private Long businessId;
+  private String businessName;
+  private Long productId;
+  private String productName;
+  private String manufacturer;
+  private long quantity;
+  private Double price;
+  private String moreInfo;
+  private ZonedDateTime created;
+  private ZonedDateTime closes;
+  private LocalDate expires;
+  private ZonedDateTime archived;
+  private ListingArchiveReason reason;
+
+  /**
+   * Constructor to create an archived listing DTO
+   *
+   * @param listingArchive the archived listing
+   */
+  public ListingArchiveDto(ListingArchive listingArchive) {
+    this.id = listingArchive.getId();
+    this.inventoryItemId = listingArchive.getInventoryItemId();
+    this.businessId = listingArchive.getBusinessId();
+    this.businessName = listingArchive.getBusinessName();
+    this.productId = listingArchive.getProductId();
+    this.productName = listingArchive.getProductName();
+    this.manufacturer = listingArchive.getManufacturer();
+    this.quantity = listingArchive.getQuantity();
+    this.price = listingArchive.getPrice();
+    this.moreInfo = listingArchive.getMoreInfo();
+    this.created = listingArchive.getCreated();
+    this.closes = listingArchive.getCloses();
+    this.expires = listingArchive.getExpires();
+    this.archived = listingArchive.getArchived();
+    this.reason = listingArchive.getReason();
+  }
+
+  public ListingArchiveDto() {
+
+  }
+}
@@ -0,0 +1,31 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import com.navbara_pigeons.wasteless.entity.BusinessType;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Data;
+
+/**
+ * Listing counts for every value of every filter in ListingsSearchParams. Each facet is counted
+ * with all the other filters applied but not its own, so a count is the number of results the
+ * user would get by selecting that value.
+ */
+@Data
+public class ListingFacetsDto {
+
+  private Map<BusinessType, Long> businessTypes = new EnumMap<>(BusinessType.class);
+  private Map<NutriScore, Long> nutriScore = new EnumMap<>(NutriScore.class);
+  private Map<Integer, Long> novaGroup = new TreeMap<>();
+  private Map<NutritionFactsLevel, Long> fat = new EnumMap<>(NutritionFactsLevel.class);
+  private Map<NutritionFactsLevel, Long> saturatedFat = new EnumMap<>(NutritionFactsLevel.class);
+  private Map<NutritionFactsLevel, Long> sugars = new EnumMap<>(NutritionFactsLevel.class);
+  private Map<NutritionFactsLevel, Long> salt = new EnumMap<>(NutritionFactsLevel.class);
+  private Map<Boolean, Long> isVegan = new TreeMap<>();
+  private Map<Boolean, Long> isVegetarian = new TreeMap<>();
+  private Map<Boolean, Long> isGlutenFree = new TreeMap<>();
+  private Map<Boolean, Long> isPalmOilFree = new TreeMap<>();
+  private Map<Boolean, Long> isDairyFree = new TreeMap<>();
+}
@@ -8,6 +8,10 @@ public class PaginationDto<T> {
 
   private List<T> results;
   private Long totalCount;
+  // Only set when keyset pagination is used and there is a next page
+  private String nextCursor;
+  // Null when the client didn't ask for it, totalCount is null in HAS_NEXT count mode
+  private Boolean hasNext;
 
   public PaginationDto(List<T> results, Long totalCount) {
     this.results = results;
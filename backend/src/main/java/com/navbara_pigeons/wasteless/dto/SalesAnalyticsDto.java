@@ -0,0 +1,24 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import com.navbara_pigeons.wasteless.model.ProductSalesModel;
+import com.navbara_pigeons.wasteless.model.SalesAggregate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Data;
+
+/**
+ * A DTO containing sales across many businesses, broken down by business type and country, with
+ * the products that made the most and sold the fastest
+ */
+@Data
+public class SalesAnalyticsDto {
+
+  private Integer businessCount;
+  private SalesAggregate total = new SalesAggregate();
+  private Map<String, SalesAggregate> byBusinessType = new TreeMap<>();
+  private Map<String, SalesAggregate> byCountry = new TreeMap<>();
+  private List<ProductSalesModel> topProductsByRevenue = new ArrayList<>();
+  private List<ProductSalesModel> fastestSellingProducts = new ArrayList<>();
+}
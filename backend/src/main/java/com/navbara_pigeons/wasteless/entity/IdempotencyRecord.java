@@ -0,0 +1,45 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import java.time.ZonedDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+/**
+ * The transaction a purchase with an Idempotency-Key made, so a retry of the purchase can be
+ * answered with the same transaction after a restart or by another instance.
+ */
+@Data
+@Entity
+@Table(name = "IDEMPOTENCY_RECORD")
+public class IdempotencyRecord {
+
+  // The user's ID and the key they sent, keys are only unique per user
+  @Id
+  @Column(name = "IDEMPOTENCY_KEY")
+  private String key;
+
+  // The business and listing that were purchased, a key can't be reused for another purchase
+  @Column(name = "REQUEST")
+  private String request;
+
+  @Column(name = "TRANSACTION_ID")
+  private Long transactionId;
+
+  @Column(name = "EXPIRES")
+  private ZonedDateTime expires;
+
+  public IdempotencyRecord(String key, String request, Long transactionId,
+      ZonedDateTime expires) {
+    this.key = key;
+    this.request = request;
+    this.transactionId = transactionId;
+    this.expires = expires;
+  }
+
+  public IdempotencyRecord() {
+
+  }
+}
@@ -1,9 +1,15 @@
 package com.navbara_pigeons.wasteless.entity;
 
 import com.navbara_pigeons.wasteless.dto.BasicImageDto;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -26,6 +32,15 @@ public class Image {
   @Column(name = "THUMBNAIL_FILENAME")
   private String thumbnailPath;
 
+  @Column(name = "STATUS")
+  @Enumerated(EnumType.STRING)
+  private ImageStatus status = ImageStatus.READY;
+
+  // Square sizes the image was rendered at, in ascending order
+  @Column(name = "RENDITION_SIZES")
+  @Convert(converter = IntegerListConverter.class)
+  private List<Integer> renditionSizes = new ArrayList<>();
+
   /**
    * Constructor for the image entity
    *
@@ -42,6 +57,38 @@ public class Image {
     this.id = image.getId();
     this.path = image.getFilename();
     this.thumbnailPath = image.getThumbnailFilename();
+    if (image.getStatus() != null) {
+      this.status = image.getStatus();
+    }
+    if (image.getRenditions() != null) {
+      this.renditionSizes = new ArrayList<>(image.getRenditions().keySet());
+    }
+  }
+
+  /**
+   * Gets the path of the image rendered at the given square size
+   *
+   * @param size width and height of the rendition
+   * @return path of the rendition, next to the original
+   */
+  public String getRenditionPath(int size) {
+    int extensionStart = path.lastIndexOf('.');
+    return path.substring(0, extensionStart) + "_" + size + path.substring(extensionStart);
+  }
+
+  /**
+   * Gets the paths of every file stored for this image
+   *
+   * @return the original, thumbnail and rendition paths
+   */
+  public List<String> getFilePaths() {
+    List<String> filePaths = new ArrayList<>();
+    filePaths.add(path);
+    filePaths.add(thumbnailPath);
+    for (int size : renditionSizes) {
+      filePaths.add(getRenditionPath(size));
+    }
+    return filePaths;
   }
 
   /**
@@ -0,0 +1,33 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a short list of integers in a single comma separated column, e.g. "64,150,300".
+ */
+@Converter
+public class IntegerListConverter implements AttributeConverter<List<Integer>, String> {
+
+  @Override
+  public String convertToDatabaseColumn(List<Integer> values) {
+    if (values == null) {
+      return "";
+    }
+    return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+  }
+
+  @Override
+  public List<Integer> convertToEntityAttribute(String column) {
+    List<Integer> values = new ArrayList<>();
+    if (column == null || column.isBlank()) {
+      return values;
+    }
+    Arrays.stream(column.split(",")).map(String::strip).map(Integer::valueOf).forEach(values::add);
+    return values;
+  }
+}
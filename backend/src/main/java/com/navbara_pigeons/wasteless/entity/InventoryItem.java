@@ -18,6 +18,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import lombok.Data;
@@ -66,14 +67,20 @@ public class InventoryItem {
   @Column(name = "BEST_BEFORE")
   private LocalDate bestBefore;
 
+  @JsonIgnore
+  @Version
+  @Column(name = "VERSION")
+  private long version;
+
+  // Not refreshed with the item, a purchase refreshes the item after taking quantity from it and
+  // must keep the version of the listing it read
   @JsonIgnore
   @OneToMany(
       fetch = FetchType.LAZY,
       cascade = {
           CascadeType.DETACH,
           CascadeType.MERGE,
-          CascadeType.PERSIST,
-          CascadeType.REFRESH
+          CascadeType.PERSIST
       },
       orphanRemoval = true,
       mappedBy = "inventoryItem"
@@ -1,5 +1,6 @@
 package com.navbara_pigeons.wasteless.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.navbara_pigeons.wasteless.dto.CreateListingDto;
 import java.time.ZonedDateTime;
 import javax.persistence.CascadeType;
@@ -12,6 +13,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import lombok.Data;
@@ -57,6 +59,13 @@ public class Listing {
   @Column(name = "CLOSES")
   private ZonedDateTime closes;
 
+  // Incremented on every update, so a purchase of a listing that changed or sold since it was
+  // read fails instead of selling it twice
+  @JsonIgnore
+  @Version
+  @Column(name = "VERSION")
+  private long version;
+
   public Listing(CreateListingDto createListingDto) {
     this.quantity = createListingDto.getQuantity();
     this.price = createListingDto.getPrice();
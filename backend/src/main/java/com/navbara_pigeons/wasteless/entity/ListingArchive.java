@@ -0,0 +1,75 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+/**
+ * A listing that has been sold or closed, moved out of the LISTING table so searches only scan
+ * live listings. The product and business are copied onto the row as they were when the listing
+ * was archived, so the history doesn't change or break when they are edited or removed.
+ */
+@Data
+@Entity
+@Table(name = "LISTING_ARCHIVE")
+public class ListingArchive {
+
+  // The ID the listing had while it was live
+  @Id
+  @Column(name = "ID")
+  private Long id;
+
+  @Column(name = "INVENTORY_ITEM_ID")
+  private Long inventoryItemId;
+
+  @Column(name = "BUSINESS_ID")
+  private Long businessId;
+
+  @Column(name = "BUSINESS_NAME")
+  private String businessName;
+
+  @Column(name = "PRODUCT_ID")
+  private Long productId;
+
+  @Column(name = "PRODUCT_NAME")
+  private String productName;
+
+  @Column(name = "MANUFACTURER")
+  private String manufacturer;
+
+  @Column(name = "QUANTITY")
+  private long quantity;
+
+  @Column(name = "PRICE")
+  private Double price;
+
+  @Column(name = "MORE_INFO")
+  private String moreInfo;
+
+  @Column(name = "CREATED")
+  private ZonedDateTime created;
+
+  @Column(name = "CLOSES")
+  private ZonedDateTime closes;
+
+  @Column(name = "EXPIRES")
+  private LocalDate expires;
+
+  @Column(name = "ARCHIVED")
+  private ZonedDateTime archived;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "REASON")
+  private ListingArchiveReason reason;
+
+  public ListingArchive() {
+
+  }
+}
@@ -0,0 +1,42 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Read only mapping of the MARKETLISTING_KEYWORD join table, which is written through
+ * MarketListing.keywords. Card searches use it to find cards by keyword on the (KEYWORD_ID,
+ * MARKETLISTING_ID) index without joining the card and keyword tables.
+ */
+@Data
+@Entity
+@Immutable
+@IdClass(MarketListingKeyword.Key.class)
+@Table(name = "MARKETLISTING_KEYWORD")
+public class MarketListingKeyword {
+
+  @Id
+  @Column(name = "MARKETLISTING_ID")
+  private Long marketListingId;
+
+  @Id
+  @Column(name = "KEYWORD_ID")
+  private Long keywordId;
+
+  public MarketListingKeyword() {
+
+  }
+
+  @Data
+  public static class Key implements Serializable {
+
+    private Long marketListingId;
+    private Long keywordId;
+  }
+}
@@ -0,0 +1,51 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import com.navbara_pigeons.wasteless.enums.NotificationType;
+import java.time.ZonedDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+/**
+ * A notification queued for a user. The card's title and display period end are copied onto the
+ * row, so the notification still makes sense after the card is removed.
+ */
+@Data
+@Entity
+@Table(name = "NOTIFICATION")
+public class Notification {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "ID")
+  private Long id;
+
+  @Column(name = "USER_ID")
+  private Long userId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "TYPE")
+  private NotificationType type;
+
+  @Column(name = "MARKETLISTING_ID")
+  private Long marketListingId;
+
+  @Column(name = "TITLE")
+  private String title;
+
+  @Column(name = "DISPLAY_PERIOD_END")
+  private ZonedDateTime displayPeriodEnd;
+
+  @Column(name = "CREATED")
+  private ZonedDateTime created;
+
+  public Notification() {
+
+  }
+}
@@ -0,0 +1,58 @@
+package com.navbara_pigeons.wasteless.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number and value of a business's sales on one day, kept up to date as transactions are
+ * saved so sales reports do not have to group every transaction.
+ */
+@Data
+@Entity
+@Table(name = "SALES_ROLLUP")
+@IdClass(SalesRollup.Key.class)
+public class SalesRollup {
+
+  @Id
+  @Column(name = "BUSINESS_ID")
+  private Long businessId;
+
+  // The day of the sale in the server's time zone, which is how SALE_DATE is stored
+  @Id
+  @Column(name = "SALE_DAY")
+  private LocalDate saleDay;
+
+  @Column(name = "TRANSACTION_COUNT")
+  private Long transactionCount;
+
+  @Column(name = "AMOUNT")
+  private Double amount;
+
+  public SalesRollup(Long businessId, LocalDate saleDay, Long transactionCount, Double amount) {
+    this.businessId = businessId;
+    this.saleDay = saleDay;
+    this.transactionCount = transactionCount;
+    this.amount = amount;
+  }
+
+  public SalesRollup() {
+
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private Long businessId;
+    private LocalDate saleDay;
+  }
+}
@@ -0,0 +1,14 @@
+package com.navbara_pigeons.wasteless.enums;
+
+/**
+ * What happened to one listing of a checkout.
+ */
+public enum CheckoutItemStatus {
+  PURCHASED,
+  // The listing does not exist, e.g. it was bought by someone else first
+  NOT_FOUND,
+  // The listing belongs to a different business than the checkout
+  BUSINESS_MISMATCH,
+  // The inventory item does not have enough left, possibly after earlier listings in the checkout
+  INSUFFICIENT_QUANTITY
+}
@@ -0,0 +1,13 @@
+package com.navbara_pigeons.wasteless.enums;
+
+/**
+ * How the total count of a paginated query is worked out.
+ */
+public enum CountMode {
+  // Run a COUNT query on every request
+  EXACT,
+  // Reuse the count of an identical query for a short while, until the entity is written to
+  CACHED,
+  // No total count, only fetch one row more than the page size to know if there is a next page
+  HAS_NEXT
+}
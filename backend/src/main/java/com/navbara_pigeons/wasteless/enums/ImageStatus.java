@@ -0,0 +1,13 @@
+package com.navbara_pigeons.wasteless.enums;
+
+/**
+ * Where an uploaded image is in the background processing pipeline.
+ */
+public enum ImageStatus {
+  // Accepted, the image and its thumbnail are not on disk yet
+  PROCESSING,
+  // The image and its thumbnail can be served
+  READY,
+  // The image could not be decoded or written
+  FAILED
+}
@@ -0,0 +1,15 @@
+package com.navbara_pigeons.wasteless.enums;
+
+/**
+ * Why a listing was moved to the listing archive.
+ */
+public enum ListingArchiveReason {
+  // The listing was purchased
+  SOLD,
+  // Another listing of the same inventory item was purchased and took the last of its quantity
+  SOLD_OUT,
+  // The listing closed without being purchased
+  CLOSED,
+  // The inventory item of the listing expired
+  EXPIRED
+}
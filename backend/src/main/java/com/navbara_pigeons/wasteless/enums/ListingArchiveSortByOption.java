@@ -0,0 +1,15 @@
+package com.navbara_pigeons.wasteless.enums;
+
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+
+/**
+ * Archived listings are always returned most recently archived first
+ */
+public enum ListingArchiveSortByOption implements SortByOption {
+  archived;
+
+  @Override
+  public Class<?> getEntity() {
+    return ListingArchive.class;
+  }
+}
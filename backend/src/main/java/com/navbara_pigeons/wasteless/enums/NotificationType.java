@@ -0,0 +1,11 @@
+package com.navbara_pigeons.wasteless.enums;
+
+/**
+ * What a notification queued for a user is about.
+ */
+public enum NotificationType {
+  // A card of the user will reach the end of its display period soon
+  MARKET_LISTING_EXPIRING,
+  // A card of the user reached the end of its display period and was removed
+  MARKET_LISTING_EXPIRED
+}
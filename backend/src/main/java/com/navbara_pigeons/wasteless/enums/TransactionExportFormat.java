@@ -0,0 +1,22 @@
+package com.navbara_pigeons.wasteless.enums;
+
+import lombok.Getter;
+
+/**
+ * Formats a business's transactions can be exported in.
+ */
+@Getter
+public enum TransactionExportFormat {
+  // Comma separated values with a header row, for spreadsheets
+  CSV("text/csv", "csv"),
+  // One JSON object per line
+  NDJSON("application/x-ndjson", "ndjson");
+
+  private final String contentType;
+  private final String extension;
+
+  TransactionExportFormat(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+}
@@ -0,0 +1,13 @@
+package com.navbara_pigeons.wasteless.exception;
+
+public class ImageProcessingQueueFullException extends Exception {
+
+  public ImageProcessingQueueFullException() {
+    super();
+  }
+
+  public ImageProcessingQueueFullException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,13 @@
+package com.navbara_pigeons.wasteless.exception;
+
+public class InvalidIdempotencyKeyException extends Exception {
+
+  public InvalidIdempotencyKeyException() {
+    super();
+  }
+
+  public InvalidIdempotencyKeyException(String message) {
+    super(message);
+  }
+
+}
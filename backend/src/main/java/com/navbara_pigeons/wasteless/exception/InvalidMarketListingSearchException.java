@@ -0,0 +1,12 @@
+package com.navbara_pigeons.wasteless.exception;
+
+public class InvalidMarketListingSearchException extends Exception {
+
+  public InvalidMarketListingSearchException() {
+    super();
+  }
+
+  public InvalidMarketListingSearchException(String message) {
+    super(message);
+  }
+}
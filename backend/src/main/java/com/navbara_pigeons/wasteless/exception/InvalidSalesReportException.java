@@ -0,0 +1,12 @@
+package com.navbara_pigeons.wasteless.exception;
+
+public class InvalidSalesReportException extends Exception {
+
+  public InvalidSalesReportException() {
+    super();
+  }
+
+  public InvalidSalesReportException(String message) {
+    super(message);
+  }
+}
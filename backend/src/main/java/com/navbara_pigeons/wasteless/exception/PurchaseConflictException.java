@@ -0,0 +1,13 @@
+package com.navbara_pigeons.wasteless.exception;
+
+public class PurchaseConflictException extends Exception {
+
+  public PurchaseConflictException() {
+    super();
+  }
+
+  public PurchaseConflictException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,248 @@
+package com.navbara_pigeons.wasteless.expiry;
+
+import com.navbara_pigeons.wasteless.dao.InventoryDao;
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
+import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.search.ListingSearchIndex;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves listings that have closed to the listing archive, and deletes inventory items that have
+ * expired after archiving their listings, so they stop taking up space in searches and inventory
+ * pages. Rows are found in (date, ID) order on the CLOSES and EXPIRES indexes and moved in small
+ * batches, each in its own transaction, so a sweep never holds locks on many rows at once. A run
+ * stops after a maximum number of batches and the next run carries on. In dry run mode the rows
+ * are only counted. As it deletes data the sweeper only exists when expiry_sweeper.enabled is set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "expiry_sweeper.enabled", havingValue = "true")
+public class ExpirySweeper {
+
+  private final ListingDao listingDao;
+  private final InventoryDao inventoryDao;
+  private final ListingArchiveDao listingArchiveDao;
+  private final ListingSearchIndex listingSearchIndex;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxBatches;
+  private final boolean dryRun;
+  private final AtomicLong listingsSwept = new AtomicLong();
+  private final AtomicLong inventoryItemsSwept = new AtomicLong();
+  private final AtomicLong sweeps = new AtomicLong();
+  private final AtomicLong sweepNanos = new AtomicLong();
+  private volatile SweepResult lastSweep;
+
+  /**
+   * ExpirySweeper constructor.
+   *
+   * @param listingDao         The ListingDataAccessObject.
+   * @param inventoryDao       The InventoryDataAccessObject.
+   * @param listingArchiveDao  Swept listings are archived to it
+   * @param listingSearchIndex Swept listings are removed from it
+   * @param transactionManager Used to run each batch in its own transaction
+   * @param batchSize          number of rows found and deleted per transaction
+   * @param maxBatches         maximum number of batches of each kind of row per sweep
+   * @param dryRun             only count the rows that would be swept
+   */
+  @Autowired
+  public ExpirySweeper(ListingDao listingDao, InventoryDao inventoryDao,
+      ListingArchiveDao listingArchiveDao, ListingSearchIndex listingSearchIndex,
+      PlatformTransactionManager transactionManager,
+      @Value("${expiry_sweeper.batch_size:500}") int batchSize,
+      @Value("${expiry_sweeper.max_batches:100}") int maxBatches,
+      @Value("${expiry_sweeper.dry_run:false}") boolean dryRun) {
+    this.listingDao = listingDao;
+    this.inventoryDao = inventoryDao;
+    this.listingArchiveDao = listingArchiveDao;
+    this.listingSearchIndex = listingSearchIndex;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.dryRun = dryRun;
+  }
+
+  /**
+   * Sweeps closed listings and expired inventory items, run periodically
+   *
+   * @return what was swept, or would have been in dry run mode
+   */
+  @Scheduled(fixedDelayString = "${expiry_sweeper.interval:3600000}",
+      initialDelayString = "${expiry_sweeper.initial_delay:60000}")
+  public SweepResult sweep() {
+    long start = System.nanoTime();
+    // Anything closing or expiring while the sweep runs is left for the next one
+    ZonedDateTime now = ZonedDateTime.now();
+    long listings = sweepClosedListings(now);
+    long inventoryItems = sweepExpiredInventoryItems(now.toLocalDate());
+    long nanos = System.nanoTime() - start;
+
+    SweepResult result = new SweepResult(listings, inventoryItems, nanos / 1_000_000, dryRun);
+    lastSweep = result;
+    sweeps.incrementAndGet();
+    sweepNanos.addAndGet(nanos);
+    if (dryRun) {
+      log.info("EXPIRY SWEEP DRY RUN: WOULD ARCHIVE " + listings + " LISTINGS AND "
+          + inventoryItems + " INVENTORY ITEMS, TOOK " + result.getMillis() + "MS");
+    } else {
+      listingsSwept.addAndGet(listings);
+      inventoryItemsSwept.addAndGet(inventoryItems);
+      log.info("EXPIRY SWEEP ARCHIVED " + listings + " LISTINGS AND " + inventoryItems
+          + " INVENTORY ITEMS, TOOK " + result.getMillis() + "MS");
+    }
+    return result;
+  }
+
+  private long sweepClosedListings(ZonedDateTime now) {
+    long swept = 0;
+    Pair<ZonedDateTime, Long> after = null;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      Pair<ZonedDateTime, Long> from = after;
+      List<Pair<ZonedDateTime, Long>> keys = transactionTemplate.execute(transaction -> {
+        List<Pair<ZonedDateTime, Long>> found = listingDao
+            .getClosedListingKeys(now, from, batchSize);
+        if (!dryRun && !found.isEmpty()) {
+          listingArchiveDao.archiveListings(secondOf(found), ListingArchiveReason.CLOSED);
+          listingDao.deleteListings(secondOf(found));
+        }
+        return found;
+      });
+      if (keys == null || keys.isEmpty()) {
+        break;
+      }
+      if (!dryRun) {
+        listingSearchIndex.remove(secondOf(keys));
+      }
+      swept += keys.size();
+      after = keys.get(keys.size() - 1);
+      if (keys.size() < batchSize) {
+        break;
+      }
+    }
+    return swept;
+  }
+
+  private long sweepExpiredInventoryItems(LocalDate today) {
+    long swept = 0;
+    Pair<LocalDate, Long> after = null;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      Pair<LocalDate, Long> from = after;
+      List<Long> listingIds = new ArrayList<>();
+      List<Pair<LocalDate, Long>> keys = transactionTemplate.execute(transaction -> {
+        List<Pair<LocalDate, Long>> found = inventoryDao
+            .getExpiredInventoryItemKeys(today, from, batchSize);
+        if (!dryRun && !found.isEmpty()) {
+          List<Long> inventoryItemIds = secondOf(found);
+          listingIds.addAll(listingDao.getListingIdsOfInventoryItems(inventoryItemIds));
+          listingArchiveDao.archiveListings(listingIds, ListingArchiveReason.EXPIRED);
+          listingDao.deleteListings(listingIds);
+          inventoryDao.deleteInventoryItems(inventoryItemIds);
+        }
+        return found;
+      });
+      if (keys == null || keys.isEmpty()) {
+        break;
+      }
+      listingSearchIndex.remove(listingIds);
+      swept += keys.size();
+      after = keys.get(keys.size() - 1);
+      if (keys.size() < batchSize) {
+        break;
+      }
+    }
+    return swept;
+  }
+
+  private static <T> List<Long> secondOf(List<Pair<T, Long>> keys) {
+    List<Long> ids = new ArrayList<>(keys.size());
+    for (Pair<T, Long> key : keys) {
+      ids.add(key.getSecond());
+    }
+    return ids;
+  }
+
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+  /**
+   * Number of closed listings archived since startup, not counting dry runs
+   */
+  public long getListingsSwept() {
+    return listingsSwept.get();
+  }
+
+  /**
+   * Number of expired inventory items deleted since startup, not counting dry runs
+   */
+  public long getInventoryItemsSwept() {
+    return inventoryItemsSwept.get();
+  }
+
+  public long getSweeps() {
+    return sweeps.get();
+  }
+
+  /**
+   * Average time taken by a sweep, including dry runs
+   */
+  public double getAverageSweepMillis() {
+    long count = sweeps.get();
+    return count == 0 ? 0 : sweepNanos.get() / 1_000_000.0 / count;
+  }
+
+  /**
+   * The result of the most recent sweep, null before the first one
+   */
+  public SweepResult getLastSweep() {
+    return lastSweep;
+  }
+
+  /**
+   * The number of rows one sweep deleted, or would have deleted in dry run mode
+   */
+  public static class SweepResult {
+
+    private final long listings;
+    private final long inventoryItems;
+    private final long millis;
+    private final boolean dryRun;
+
+    public SweepResult(long listings, long inventoryItems, long millis, boolean dryRun) {
+      this.listings = listings;
+      this.inventoryItems = inventoryItems;
+      this.millis = millis;
+      this.dryRun = dryRun;
+    }
+
+    public long getListings() {
+      return listings;
+    }
+
+    public long getInventoryItems() {
+      return inventoryItems;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+
+    public boolean isDryRun() {
+      return dryRun;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package com.navbara_pigeons.wasteless.expiry;
+
+import com.navbara_pigeons.wasteless.dao.MarketListingDao;
+import com.navbara_pigeons.wasteless.dao.NotificationDao;
+import com.navbara_pigeons.wasteless.enums.MarketplaceSection;
+import com.navbara_pigeons.wasteless.enums.NotificationType;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Warns the creators of cards whose display period is about to end, and removes cards whose display
+ * period has ended after notifying their creators. Expired cards are already hidden from the
+ * marketplace, removing them keeps the sections small. Cards are found in (display period end, ID)
+ * order on the (SECTION, DISPLAY_PERIOD_END) index, one section at a time, and handled in small
+ * batches each in its own transaction. A card is only warned about once however many runs see it.
+ * As it deletes cards the sweeper only exists when market_listing_expiry.enabled is set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "market_listing_expiry.enabled", havingValue = "true")
+public class MarketListingExpirySweeper {
+
+  private final MarketListingDao marketListingDao;
+  private final NotificationDao notificationDao;
+  private final TransactionTemplate transactionTemplate;
+  private final long warningPeriod;
+  private final int batchSize;
+  private final int maxBatches;
+  private final AtomicLong cardsWarned = new AtomicLong();
+  private final AtomicLong cardsRemoved = new AtomicLong();
+  private final AtomicLong sweeps = new AtomicLong();
+  private volatile SweepResult lastSweep;
+
+  /**
+   * MarketListingExpirySweeper constructor.
+   *
+   * @param marketListingDao   The MarketListingDataAccessObject.
+   * @param notificationDao    Expiry notifications are queued with it
+   * @param transactionManager Used to run each batch in its own transaction
+   * @param warningPeriod      how long before a card's display period ends its creator is warned,
+   *                           in milliseconds
+   * @param batchSize          number of cards found and handled per transaction
+   * @param maxBatches         maximum number of batches of each kind per section per sweep
+   */
+  @Autowired
+  public MarketListingExpirySweeper(MarketListingDao marketListingDao,
+      NotificationDao notificationDao, PlatformTransactionManager transactionManager,
+      @Value("${market_listing_expiry.warning_period:86400000}") long warningPeriod,
+      @Value("${market_listing_expiry.batch_size:500}") int batchSize,
+      @Value("${market_listing_expiry.max_batches:100}") int maxBatches) {
+    this.marketListingDao = marketListingDao;
+    this.notificationDao = notificationDao;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.warningPeriod = warningPeriod;
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+  }
+
+  /**
+   * Warns about cards that are about to expire and removes expired ones, run periodically
+   *
+   * @return the number of cards warned about and removed
+   */
+  @Scheduled(fixedDelayString = "${market_listing_expiry.interval:3600000}",
+      initialDelayString = "${market_listing_expiry.initial_delay:60000}")
+  public SweepResult sweep() {
+    long start = System.nanoTime();
+    ZonedDateTime now = ZonedDateTime.now();
+    ZonedDateTime warnBy = now.plus(warningPeriod, ChronoUnit.MILLIS);
+    long warned = 0;
+    long removed = 0;
+    for (MarketplaceSection section : MarketplaceSection.values()) {
+      warned += sweepSection(section.name(), now, warnBy, false);
+      removed += sweepSection(section.name(), null, now, true);
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    SweepResult result = new SweepResult(warned, removed, millis);
+    lastSweep = result;
+    sweeps.incrementAndGet();
+    cardsWarned.addAndGet(warned);
+    cardsRemoved.addAndGet(removed);
+    log.info("CARD EXPIRY SWEEP WARNED ABOUT " + warned + " CARDS AND REMOVED " + removed
+        + " CARDS, TOOK " + millis + "MS");
+    return result;
+  }
+
+  private long sweepSection(String section, ZonedDateTime endingAfter, ZonedDateTime endingBy,
+      boolean remove) {
+    long swept = 0;
+    Pair<ZonedDateTime, Long> after = null;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      Pair<ZonedDateTime, Long> from = after;
+      List<Pair<ZonedDateTime, Long>> keys = transactionTemplate.execute(transaction -> {
+        List<Pair<ZonedDateTime, Long>> found = marketListingDao
+            .getMarketListingKeysEndingBy(section, endingAfter, endingBy, from, batchSize);
+        if (!found.isEmpty()) {
+          List<Long> ids = idsOf(found);
+          if (remove) {
+            notificationDao.queueMarketListingNotifications(ids,
+                NotificationType.MARKET_LISTING_EXPIRED);
+            marketListingDao.deleteMarketListings(ids);
+          } else {
+            notificationDao.queueMarketListingNotifications(ids,
+                NotificationType.MARKET_LISTING_EXPIRING);
+          }
+        }
+        return found;
+      });
+      if (keys == null || keys.isEmpty()) {
+        break;
+      }
+      swept += keys.size();
+      after = keys.get(keys.size() - 1);
+      if (keys.size() < batchSize) {
+        break;
+      }
+    }
+    return swept;
+  }
+
+  private static List<Long> idsOf(List<Pair<ZonedDateTime, Long>> keys) {
+    List<Long> ids = new ArrayList<>(keys.size());
+    for (Pair<ZonedDateTime, Long> key : keys) {
+      ids.add(key.getSecond());
+    }
+    return ids;
+  }
+
+  /**
+   * Number of cards whose creators have been warned since startup, including cards already warned
+   * about by an earlier sweep
+   */
+  public long getCardsWarned() {
+    return cardsWarned.get();
+  }
+
+  /**
+   * Number of expired cards removed since startup
+   */
+  public long getCardsRemoved() {
+    return cardsRemoved.get();
+  }
+
+  public long getSweeps() {
+    return sweeps.get();
+  }
+
+  /**
+   * The result of the most recent sweep, null before the first one
+   */
+  public SweepResult getLastSweep() {
+    return lastSweep;
+  }
+
+  /**
+   * The number of cards one sweep warned about and removed
+   */
+  public static class SweepResult {
+
+    private final long warned;
+    private final long removed;
+    private final long millis;
+
+    public SweepResult(long warned, long removed, long millis) {
+      this.warned = warned;
+      this.removed = removed;
+      this.millis = millis;
+    }
+
+    public long getWarned() {
+      return warned;
+    }
+
+    public long getRemoved() {
+      return removed;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+}
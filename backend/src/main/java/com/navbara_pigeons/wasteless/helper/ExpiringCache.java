@@ -0,0 +1,111 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small in-memory cache of loaded values that are reused for a limited time. A value is only kept
+ * if no invalidation happened while it was being loaded, as it may have been read before the
+ * invalidating write was visible. When full the whole cache is dropped rather than tracking usage.
+ * Null values are never kept.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final long ttl;
+  private final int maxEntries;
+
+  /**
+   * ExpiringCache constructor.
+   *
+   * @param ttl        how long a value is reused for, in milliseconds, Long.MAX_VALUE to keep
+   *                   values until they are invalidated
+   * @param maxEntries maximum number of values kept
+   */
+  public ExpiringCache(long ttl, int maxEntries) {
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the value of a key, loading it when it is not cached or has expired.
+   *
+   * @param key    the key
+   * @param loader loads the value of the key
+   * @param <E>    exception thrown by the loader
+   * @return the value
+   * @throws E the loader failed, nothing is cached
+   */
+  public <E extends Exception> V get(K key, Loader<K, V, E> loader) throws E {
+    long now = System.currentTimeMillis();
+    Entry<V> entry = entries.get(key);
+    if (entry != null && now - entry.loaded < ttl) {
+      hits.incrementAndGet();
+      return entry.value;
+    }
+    misses.incrementAndGet();
+
+    long loadGeneration = generation.get();
+    V value = loader.load(key);
+    if (entries.size() >= maxEntries) {
+      entries.clear();
+    }
+    if (value != null && generation.get() == loadGeneration) {
+      entries.put(key, new Entry<>(value, now));
+    }
+    return value;
+  }
+
+  /**
+   * Drops the value of a key, and stops values being loaded at the same time from being kept.
+   *
+   * @param key the key
+   */
+  public void invalidate(K key) {
+    generation.incrementAndGet();
+    entries.remove(key);
+  }
+
+  /**
+   * Drops every value, and stops values being loaded at the same time from being kept.
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Loads the value of a key that is not cached
+   */
+  @FunctionalInterface
+  public interface Loader<K, V, E extends Exception> {
+
+    V load(K key) throws E;
+  }
+
+  private static class Entry<V> {
+
+    private final V value;
+    private final long loaded;
+
+    private Entry(V value, long loaded) {
+      this.value = value;
+      this.loaded = loaded;
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.dao.IdempotencyRecordDao;
+import com.navbara_pigeons.wasteless.dao.TransactionDao;
+import com.navbara_pigeons.wasteless.dto.TransactionDto;
+import com.navbara_pigeons.wasteless.entity.IdempotencyRecord;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Remembers the result of purchases made with an Idempotency-Key so a client retrying a purchase
+ * gets the original transaction back instead of buying again. The first request with a key claims
+ * it, a retry arriving while the original is still running waits for its result. Only successful
+ * purchases are remembered, when the original fails the key is released and a retry runs again.
+ * Results are kept in memory for a limited time and number of keys, and optionally in the
+ * IDEMPOTENCY_RECORD table so they survive restarts. A stored result is written in the purchase's
+ * own transaction, so it exists exactly when the purchase committed. Keys are only claimed within
+ * this instance: other instances see a stored result once the purchase has completed, but can run
+ * a purchase with the same key while the original is still running.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  public static final int MAX_KEY_LENGTH = 100;
+
+  private final IdempotencyRecordDao idempotencyRecordDao;
+  private final TransactionDao transactionDao;
+  private final TransactionTemplate transactionTemplate;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong replays = new AtomicLong();
+  private final long ttl;
+  private final int maxEntries;
+  private final long waitTimeout;
+  private final boolean persistent;
+
+  /**
+   * IdempotencyStore constructor that sets up the store.
+   *
+   * @param idempotencyRecordDao Stores results when the store is persistent
+   * @param transactionDao       Loads the transactions of stored results
+   * @param transactionManager   Used to read and purge stored results outside of a purchase
+   * @param ttl                  how long a result is kept for, in milliseconds
+   * @param maxEntries           maximum number of results kept in memory
+   * @param waitTimeout          how long a retry waits for the original purchase, in milliseconds
+   * @param persistent           also keep results in the database
+   */
+  @Autowired
+  public IdempotencyStore(IdempotencyRecordDao idempotencyRecordDao,
+      TransactionDao transactionDao, PlatformTransactionManager transactionManager,
+      @Value("${purchase.idempotency.ttl:86400000}") long ttl,
+      @Value("${purchase.idempotency.max_entries:10000}") int maxEntries,
+      @Value("${purchase.idempotency.wait_timeout:10000}") long waitTimeout,
+      @Value("${purchase.idempotency.persistent:false}") boolean persistent) {
+    this.idempotencyRecordDao = idempotencyRecordDao;
+    this.transactionDao = transactionDao;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+    this.waitTimeout = waitTimeout;
+    this.persistent = persistent;
+  }
+
+  /**
+   * Claims a key for a request, or gets the result of the request that already used it.
+   *
+   * @param key     the key, already scoped to the user that sent it
+   * @param request identifies what is being done with the key, e.g. the listing being purchased
+   * @return a claim that the caller must complete or release, or a replay of the earlier result
+   * @throws InvalidIdempotencyKeyException when the key was used for a different request
+   * @throws PurchaseConflictException      when the original request is still running after
+   *                                        waiting for it
+   */
+  public Claim claim(String key, String request)
+      throws InvalidIdempotencyKeyException, PurchaseConflictException {
+    long deadline = System.currentTimeMillis() + waitTimeout;
+    while (true) {
+      long now = System.currentTimeMillis();
+      Entry entry = new Entry(request, now + ttl);
+      Entry existing = entries.putIfAbsent(key, entry);
+      if (existing == null) {
+        evictIfFull(now);
+        TransactionDto stored;
+        try {
+          stored = persistent ? findStoredResult(key, request) : null;
+        } catch (InvalidIdempotencyKeyException | RuntimeException exc) {
+          release(key, entry);
+          throw exc;
+        }
+        if (stored != null) {
+          entry.result.complete(stored);
+          replays.incrementAndGet();
+          return new Claim(stored);
+        }
+        return new Claim(key, entry);
+      }
+
+      if (existing.expires <= now) {
+        entries.remove(key, existing);
+        continue;
+      }
+      if (!existing.request.equals(request)) {
+        throw new InvalidIdempotencyKeyException(
+            "Idempotency-Key has already been used for a different purchase");
+      }
+      try {
+        TransactionDto result = existing.result
+            .get(Math.max(deadline - now, 0), TimeUnit.MILLISECONDS);
+        replays.incrementAndGet();
+        return new Claim(result);
+      } catch (CancellationException | ExecutionException exc) {
+        // The original failed and released the key, this request gets to try instead
+        entries.remove(key, existing);
+      } catch (TimeoutException exc) {
+        throw new PurchaseConflictException(
+            "A purchase with this Idempotency-Key is still being processed, please try again");
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new PurchaseConflictException(
+            "A purchase with this Idempotency-Key is still being processed, please try again");
+      }
+    }
+  }
+
+  /**
+   * Drops expired results, run periodically so keys that are never retried don't linger.
+   */
+  @Scheduled(fixedDelayString = "${purchase.idempotency.purge_interval:600000}",
+      initialDelayString = "${purchase.idempotency.purge_interval:600000}")
+  public void purgeExpired() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> entry.expires <= now && entry.result.isDone());
+    if (persistent) {
+      Long purged = transactionTemplate.execute(transaction -> idempotencyRecordDao
+          .deleteByExpiresBefore(toDateTime(now)));
+      log.info("PURGED " + purged + " EXPIRED IDEMPOTENCY KEYS");
+    }
+  }
+
+  /**
+   * Number of keys currently held in memory
+   */
+  public int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Number of requests answered with an earlier result
+   */
+  public long getReplays() {
+    return replays.get();
+  }
+
+  private void evictIfFull(long now) {
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+    entries.values().removeIf(entry -> entry.expires <= now && entry.result.isDone());
+    if (entries.size() > maxEntries) {
+      // Still full of live keys, forget finished results but never ones still being worked out
+      log.info("IDEMPOTENCY STORE FULL, DROPPING COMPLETED KEYS");
+      entries.values().removeIf(entry -> entry.result.isDone());
+    }
+  }
+
+  private TransactionDto findStoredResult(String key, String request)
+      throws InvalidIdempotencyKeyException {
+    IdempotencyRecord record = transactionTemplate
+        .execute(transaction -> idempotencyRecordDao.findById(key).orElse(null));
+    if (record == null || !record.getExpires().isAfter(ZonedDateTime.now())) {
+      return null;
+    }
+    if (!record.getRequest().equals(request)) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key has already been used for a different purchase");
+    }
+    return transactionTemplate.execute(transaction -> transactionDao
+        .findById(record.getTransactionId()).map(TransactionDto::new).orElse(null));
+  }
+
+  private void store(String key, Entry entry, long transactionId) {
+    if (persistent) {
+      idempotencyRecordDao.save(new IdempotencyRecord(key, entry.request, transactionId,
+          toDateTime(entry.expires)));
+    }
+  }
+
+  private void release(String key, Entry entry) {
+    entries.remove(key, entry);
+    entry.result.cancel(false);
+  }
+
+  private static ZonedDateTime toDateTime(long millis) {
+    return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault());
+  }
+
+  /**
+   * The outcome of claiming a key. Either a replay of an earlier result, or a claim on the key that
+   * must be completed with the result or released if the request fails.
+   */
+  public class Claim {
+
+    private final String key;
+    private final Entry entry;
+    private final TransactionDto replay;
+
+    private Claim(String key, Entry entry) {
+      this.key = key;
+      this.entry = entry;
+      this.replay = null;
+    }
+
+    private Claim(TransactionDto replay) {
+      this.key = null;
+      this.entry = null;
+      this.replay = replay;
+    }
+
+    /**
+     * The result of the request that already used the key, null if this request claimed it
+     */
+    public TransactionDto getReplay() {
+      return replay;
+    }
+
+    /**
+     * Stores the result of the request that claimed the key when the store is persistent. Must be
+     * called inside the purchase's transaction before it commits, so the stored result commits or
+     * rolls back with the purchase.
+     *
+     * @param transactionId id of the transaction made
+     */
+    public void record(long transactionId) {
+      if (entry != null) {
+        store(key, entry, transactionId);
+      }
+    }
+
+    /**
+     * Remembers the result of the request that claimed the key once its purchase has committed
+     *
+     * @param result the transaction made
+     */
+    public void complete(TransactionDto result) {
+      if (entry != null) {
+        entry.result.complete(result);
+      }
+    }
+
+    /**
+     * Releases the key after the request that claimed it failed, so it can be tried again
+     */
+    public void release() {
+      if (entry != null && !entry.result.isDone()) {
+        IdempotencyStore.this.release(key, entry);
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final String request;
+    private final long expires;
+    private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+    private Entry(String request, long expires) {
+      this.request = request;
+      this.expires = expires;
+    }
+  }
+}
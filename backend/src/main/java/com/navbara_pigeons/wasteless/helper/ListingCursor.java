@@ -0,0 +1,138 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import lombok.Getter;
+
+/**
+ * Opaque cursor used for keyset (seek) pagination of listings. It records the sort key and the id
+ * of the last listing on a page, so the next page can be fetched with a (sortKey, id) > (?, ?)
+ * predicate instead of an OFFSET that makes the database walk every earlier row.
+ * <p>
+ * The cursor is handed to clients as a URL safe base64 string and is bound to the sort option and
+ * direction it was created for.
+ */
+@Getter
+public class ListingCursor {
+
+  private static final String SEPARATOR = "|";
+
+  private final ListingSortByOption sortBy;
+  private final boolean ascending;
+  private final Long lastId;
+  private final Comparable<?> lastSortValue;
+
+  private ListingCursor(ListingSortByOption sortBy, boolean ascending, Long lastId,
+      Comparable<?> lastSortValue) {
+    this.sortBy = sortBy;
+    this.ascending = ascending;
+    this.lastId = lastId;
+    this.lastSortValue = lastSortValue;
+  }
+
+  /**
+   * Creates the cursor pointing just after the given listing.
+   *
+   * @param listing   last listing of the current page
+   * @param sortBy    sort option of the current page
+   * @param ascending sort direction of the current page
+   * @return cursor for the next page
+   */
+  public static ListingCursor after(Listing listing, ListingSortByOption sortBy,
+      boolean ascending) {
+    return new ListingCursor(sortBy, ascending, listing.getId(), getSortValue(listing, sortBy));
+  }
+
+  /**
+   * Decodes a cursor string sent by a client. An empty string is the cursor of the first page.
+   *
+   * @param cursor    cursor string as returned in a previous PaginationDto
+   * @param sortBy    sort option of the request
+   * @param ascending sort direction of the request
+   * @return the decoded cursor
+   * @throws InvalidPaginationInputException when the cursor is malformed or was created for a
+   *                                         different sort option or direction
+   */
+  public static ListingCursor decode(String cursor, ListingSortByOption sortBy, boolean ascending)
+      throws InvalidPaginationInputException {
+    if (cursor.isEmpty()) {
+      return new ListingCursor(sortBy, ascending, null, null);
+    }
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+          .split("\\" + SEPARATOR, 4);
+    } catch (IllegalArgumentException exc) {
+      throw new InvalidPaginationInputException("The pagination cursor is malformed");
+    }
+    if (parts.length < 3 || !parts[0].equals(sortBy.name())
+        || !parts[1].equals(ascending ? "A" : "D")) {
+      throw new InvalidPaginationInputException(
+          "The pagination cursor does not match the requested sort order");
+    }
+    try {
+      Long lastId = Long.parseLong(parts[2]);
+      Comparable<?> lastSortValue = parts.length == 4 ? parseSortValue(parts[3], sortBy) : null;
+      return new ListingCursor(sortBy, ascending, lastId, lastSortValue);
+    } catch (NumberFormatException | DateTimeParseException exc) {
+      throw new InvalidPaginationInputException("The pagination cursor is malformed");
+    }
+  }
+
+  /**
+   * Encodes the cursor to the opaque string handed to clients.
+   *
+   * @return URL safe base64 string
+   */
+  public String encode() {
+    String raw = sortBy.name() + SEPARATOR + (ascending ? "A" : "D") + SEPARATOR + lastId
+        + (lastSortValue == null ? "" : SEPARATOR + lastSortValue);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return true when this is the cursor of the first page, so no seek predicate is needed
+   */
+  public boolean isFirstPage() {
+    return lastId == null;
+  }
+
+  private static Comparable<?> getSortValue(Listing listing, ListingSortByOption sortBy) {
+    switch (sortBy) {
+      case QUANTITY:
+        return listing.getQuantity();
+      case PRICE:
+        return listing.getPrice();
+      case CREATED:
+        return listing.getCreated();
+      case CLOSES:
+        return listing.getCloses();
+      case CITY:
+        return listing.getInventoryItem().getBusiness().getAddress().getCity();
+      case NAME:
+        return listing.getInventoryItem().getProduct().getName();
+      default:
+        throw new IllegalStateException("Unexpected value: " + sortBy);
+    }
+  }
+
+  private static Comparable<?> parseSortValue(String value, ListingSortByOption sortBy) {
+    switch (sortBy) {
+      case QUANTITY:
+        return Long.parseLong(value);
+      case PRICE:
+        return Double.parseDouble(value);
+      case CREATED:
+      case CLOSES:
+        return ZonedDateTime.parse(value);
+      default:
+        return value;
+    }
+  }
+}
@@ -1,18 +1,26 @@
 package com.navbara_pigeons.wasteless.helper;
 
+import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
 import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.InventorySortByOption;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveSortByOption;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.ProductSortByOption;
 import com.navbara_pigeons.wasteless.enums.SortByOption;
 import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 import lombok.Getter;
+import org.springframework.data.util.Pair;
 
 /**
  * A class that conveniently holds all of the needed information in order to paginate and sort a
@@ -30,6 +38,8 @@ public class PaginationBuilder {
   private Integer pagEndIndex;
   private SortByOption sortField;
   private boolean sortAscending = true;
+  private String cursor;
+  private CountMode countMode = CountMode.EXACT;
 
   /**
    * Pagination Builder Constructor, sets the entity and parses the default sort field
@@ -79,7 +89,7 @@ public class PaginationBuilder {
     if (pagStartIndex != null) {
       if (pagStartIndex < 0) {
         throw new InvalidPaginationInputException(
-            "The pagination start index must be greater than zero");
+            "The pagination start index must not be negative");
       }
       if (this.pagEndIndex != null && pagStartIndex > this.pagEndIndex) {
         throw new InvalidPaginationInputException(
@@ -121,6 +131,78 @@ public class PaginationBuilder {
     return this;
   }
 
+  /**
+   * Switch to keyset pagination, continuing after the given cursor. The start index is then no
+   * longer used as an offset, only the page size (endIndex - startIndex + 1) is kept.
+   *
+   * @param cursor Opaque cursor returned with the previous page, an empty string for the first
+   *               page or null to keep using offset pagination
+   * @return The Pagination Builder Object, used for chaining methods
+   */
+  public PaginationBuilder withCursor(String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
+  /**
+   * Set how the total count is worked out.
+   *
+   * @param countMode The count mode, null keeps the exact count
+   * @return The Pagination Builder Object, used for chaining methods
+   */
+  public PaginationBuilder withCountMode(CountMode countMode) {
+    if (countMode != null) {
+      this.countMode = countMode;
+    }
+    return this;
+  }
+
+  /**
+   * The number of rows the query should fetch. In HAS_NEXT mode this is one more than the page
+   * size, the extra row tells whether there is a next page.
+   *
+   * @return The maximum number of results of the query, null when there is no end index
+   */
+  public Integer getFetchSize() {
+    if (pagEndIndex == null) {
+      return null;
+    }
+    int pageSize = pagEndIndex - pagStartIndex + 1;
+    return countMode == CountMode.HAS_NEXT ? pageSize + 1 : pageSize;
+  }
+
+  /**
+   * Builds the client response from the rows and total count returned by a DAO, trimming the extra
+   * row fetched in HAS_NEXT mode.
+   *
+   * @param rowsAndTotalCount The rows of the page and the total count, which may be NOT_COUNTED
+   * @param mapper            Converts an entity to the DTO returned to the client
+   * @return The page of DTOs, the total count (if counted) and whether there is a next page
+   */
+  public <E, T> PaginationDto<T> toPaginationDto(Pair<List<E>, Long> rowsAndTotalCount,
+      Function<E, T> mapper) {
+    List<E> rows = rowsAndTotalCount.getFirst();
+    Long totalCount = TotalCountCache.toClientCount(rowsAndTotalCount.getSecond());
+    boolean hasNext;
+    if (countMode == CountMode.HAS_NEXT) {
+      int pageSize = pagEndIndex == null ? rows.size() : pagEndIndex - pagStartIndex + 1;
+      hasNext = rows.size() > pageSize;
+      if (hasNext) {
+        rows = rows.subList(0, pageSize);
+      }
+    } else {
+      hasNext = totalCount != null && pagStartIndex + rows.size() < totalCount;
+    }
+
+    List<T> results = new ArrayList<>();
+    for (E row : rows) {
+      results.add(mapper.apply(row));
+    }
+    PaginationDto<T> paginationDto = new PaginationDto<>(results, totalCount);
+    paginationDto.setHasNext(hasNext);
+    return paginationDto;
+  }
+
   private SortByOption getDefaultSortByOption() throws InvalidPaginationInputException {
     SortByOption defaultSortByOption;
     // Switch statements apparently don't work for Class<?>
@@ -134,6 +216,8 @@ public class PaginationBuilder {
       defaultSortByOption = ListingSortByOption.CREATED;
     } else if (InventoryItem.class.equals(entity)) {
       defaultSortByOption = InventorySortByOption.quantity;
+    } else if (ListingArchive.class.equals(entity)) {
+      defaultSortByOption = ListingArchiveSortByOption.archived;
     } else {
       throw new InvalidPaginationInputException("Unknown entity used in Pagination Builder");
     }
@@ -0,0 +1,135 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Works out the periods of a sales report in the report's time zone, and the days sales are rolled
+ * up by. Sale dates are stored in the server's time zone, so rollup days are too. Weeks start on
+ * Sunday like the sales report on the frontend.
+ */
+public class SalesPeriods {
+
+  // The earliest DATE MariaDB supports, reports with no start date start at LocalDate.MIN
+  public static final LocalDate EARLIEST_DAY = LocalDate.of(1000, 1, 1);
+
+  private SalesPeriods() {
+  }
+
+  /**
+   * Gets the day a sale is rolled up under
+   *
+   * @param saleDate date and time of the sale
+   * @return the day in the server's time zone
+   */
+  public static LocalDate dayOf(ZonedDateTime saleDate) {
+    return saleDate.withZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+  }
+
+  /**
+   * Tests if rollup days are the same as days in the given time zone
+   *
+   * @param zone time zone of a report
+   * @return true if the zone has the same rules as the server's
+   */
+  public static boolean matchesRollupDays(ZoneId zone) {
+    return zone.getRules().equals(ZoneId.systemDefault().getRules());
+  }
+
+  /**
+   * Tests if a report starts before any sale can have happened
+   *
+   * @param start start of the report
+   * @return true when no start date was given
+   */
+  public static boolean isUnbounded(ZonedDateTime start) {
+    return start.getYear() < EARLIEST_DAY.getYear();
+  }
+
+  /**
+   * Gets the start of the report period a time is in, in the time's zone
+   *
+   * @param time        the time
+   * @param granularity length of the report periods
+   * @return midnight at the start of the period's first day
+   */
+  public static ZonedDateTime periodStart(ZonedDateTime time, TransactionGranularity granularity) {
+    LocalDate day = time.toLocalDate();
+    switch (granularity) {
+      case WEEK:
+        day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+        break;
+      case MONTH:
+        day = day.withDayOfMonth(1);
+        break;
+      case YEAR:
+        day = day.withDayOfYear(1);
+        break;
+      default:
+        break;
+    }
+    // Not always 00:00, some zones skip midnight for daylight saving
+    return day.atStartOfDay(time.getZone());
+  }
+
+  /**
+   * Gets the start of the period after the given one
+   *
+   * @param periodStart start of a report period
+   * @param granularity length of the report periods
+   * @return start of the next period
+   */
+  public static ZonedDateTime nextPeriodStart(ZonedDateTime periodStart,
+      TransactionGranularity granularity) {
+    LocalDate day = periodStart.toLocalDate();
+    switch (granularity) {
+      case WEEK:
+        day = day.plusWeeks(1);
+        break;
+      case MONTH:
+        day = day.plusMonths(1);
+        break;
+      case YEAR:
+        day = day.plusYears(1);
+        break;
+      default:
+        day = day.plusDays(1);
+        break;
+    }
+    return day.atStartOfDay(periodStart.getZone());
+  }
+
+  /**
+   * Counts the report periods from the one a time is in to the one another time is in, without
+   * going through them
+   *
+   * @param from        time in the first period, its zone is the zone of the report
+   * @param to          time in the last period
+   * @param granularity length of the report periods
+   * @return number of periods, 0 when to is before from
+   */
+  public static long countPeriods(ZonedDateTime from, ZonedDateTime to,
+      TransactionGranularity granularity) {
+    LocalDate first = periodStart(from, granularity).toLocalDate();
+    LocalDate last = periodStart(to.withZoneSameInstant(from.getZone()), granularity)
+        .toLocalDate();
+    if (last.isBefore(first)) {
+      return 0;
+    }
+    switch (granularity) {
+      case WEEK:
+        return ChronoUnit.WEEKS.between(first, last) + 1;
+      case MONTH:
+        return ChronoUnit.MONTHS.between(first, last) + 1;
+      case YEAR:
+        return ChronoUnit.YEARS.between(first, last) + 1;
+      default:
+        return ChronoUnit.DAYS.between(first, last) + 1;
+    }
+  }
+}
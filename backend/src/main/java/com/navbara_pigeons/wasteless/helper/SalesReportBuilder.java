@@ -0,0 +1,99 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
+import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
+import com.navbara_pigeons.wasteless.model.TransactionReportModel;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * Folds sales into the periods of a sales report in a single pass, in whatever order they come.
+ * Periods are worked out in the time zone of the report's start, and the first period is cut
+ * short to start with the report. Periods without sales can be filled in so the report is a
+ * complete series.
+ */
+public class SalesReportBuilder {
+
+  private final ZonedDateTime start;
+  private final ZonedDateTime end;
+  private final TransactionGranularity granularity;
+  private final boolean fillGaps;
+  private final TreeMap<ZonedDateTime, TransactionReportModel> periods = new TreeMap<>();
+
+  /**
+   * Creates an empty report
+   *
+   * @param start       start of the report, its zone is the zone of the report
+   * @param end         end of the report
+   * @param granularity length of the report periods
+   * @param fillGaps    include periods without any sales
+   */
+  public SalesReportBuilder(ZonedDateTime start, ZonedDateTime end,
+      TransactionGranularity granularity, boolean fillGaps) {
+    this.start = start;
+    this.end = end;
+    this.granularity = granularity;
+    this.fillGaps = fillGaps;
+  }
+
+  /**
+   * Adds sales to the period they were made in
+   *
+   * @param time   when the sales were made, or the start of the day they were made on
+   * @param count  number of sales
+   * @param amount total value of the sales
+   */
+  public void add(ZonedDateTime time, long count, double amount) {
+    TransactionReportModel model = period(
+        SalesPeriods.periodStart(time.withZoneSameInstant(start.getZone()), granularity));
+    model.setTransactionCount(model.getTransactionCount() + (int) count);
+    model.setAmount(model.getAmount() + amount);
+  }
+
+  /**
+   * Counts the periods the built report will have, without building it
+   *
+   * @return number of periods
+   */
+  public long periodCount() {
+    if (!fillGaps || (SalesPeriods.isUnbounded(start) && periods.isEmpty())) {
+      return periods.size();
+    }
+    return SalesPeriods.countPeriods(fillFrom(), end, granularity);
+  }
+
+  /**
+   * Builds the report, in order of period
+   *
+   * @return the report's periods and totals
+   */
+  public TransactionDataDto build() {
+    // A report with no start date is filled from its first sale
+    if (fillGaps && !(SalesPeriods.isUnbounded(start) && periods.isEmpty())) {
+      for (ZonedDateTime period = fillFrom(); !period.isAfter(end);
+          period = SalesPeriods.nextPeriodStart(period, granularity)) {
+        period(period);
+      }
+    }
+    // Totalled from the periods so the totals are exactly their sum
+    int totalTransactionCount = 0;
+    double totalAmount = 0;
+    for (TransactionReportModel model : periods.values()) {
+      totalTransactionCount += model.getTransactionCount();
+      totalAmount += model.getAmount();
+    }
+    return new TransactionDataDto(new ArrayList<>(periods.values()), totalAmount,
+        totalTransactionCount);
+  }
+
+  private ZonedDateTime fillFrom() {
+    return SalesPeriods.isUnbounded(start) ? periods.firstKey()
+        : SalesPeriods.periodStart(start, granularity);
+  }
+
+  private TransactionReportModel period(ZonedDateTime periodStart) {
+    return periods.computeIfAbsent(periodStart, key ->
+        new TransactionReportModel(key.isBefore(start) ? start : key, 0, 0.0));
+  }
+}
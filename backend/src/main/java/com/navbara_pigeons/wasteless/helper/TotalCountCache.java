@@ -0,0 +1,101 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.enums.CountMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Works out the total counts of paginated queries according to the CountMode the client asked for.
+ * Cached counts are kept per region (one per paginated entity) and query signature for a short
+ * time, and a whole region is dropped whenever that entity is written to.
+ */
+@Slf4j
+@Component
+public class TotalCountCache {
+
+  public static final String LISTINGS = "listings";
+  public static final String PRODUCTS = "products";
+  public static final String INVENTORY = "inventory";
+  public static final String USERS = "users";
+  public static final String MARKET_LISTINGS = "marketListings";
+  // Total count of a query in HAS_NEXT mode, DAOs return counts in a Pair which can't hold null
+  public static final long NOT_COUNTED = -1;
+
+  private final Map<String, ExpiringCache<String, Long>> regions = new ConcurrentHashMap<>();
+  private final long ttl;
+  private final int maxEntries;
+
+  /**
+   * TotalCountCache constructor that sets up the cache.
+   *
+   * @param ttl        how long a count is reused for, in milliseconds
+   * @param maxEntries maximum number of counts kept per region
+   */
+  public TotalCountCache(@Value("${pagination.count_cache_ttl:30000}") long ttl,
+      @Value("${pagination.count_cache_max_entries:1000}") int maxEntries) {
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the total count of a query.
+   *
+   * @param region     the paginated entity, one of the region constants
+   * @param signature  identifies the query within the region, everything but the pagination and
+   *                   sorting
+   * @param countMode  how the count should be worked out, null for an exact count
+   * @param countQuery runs the COUNT query
+   * @return the total count, or NOT_COUNTED when the client only asked whether there is a next
+   * page
+   */
+  public Long getTotalCount(String region, String signature, CountMode countMode,
+      Supplier<Long> countQuery) {
+    if (countMode == null || countMode == CountMode.EXACT) {
+      return countQuery.get();
+    }
+    if (countMode == CountMode.HAS_NEXT) {
+      return NOT_COUNTED;
+    }
+
+    // Counts of a region are dropped when it is written to, a count taken while the write was
+    // committing is not kept
+    return regions.computeIfAbsent(region, key -> new ExpiringCache<>(ttl, maxEntries))
+        .get(signature, key -> countQuery.get());
+  }
+
+  /**
+   * Converts a total count to what is returned to the client.
+   *
+   * @param totalCount total count returned by getTotalCount
+   * @return the total count, or null when it was not counted
+   */
+  public static Long toClientCount(Long totalCount) {
+    return totalCount == null || totalCount == NOT_COUNTED ? null : totalCount;
+  }
+
+  /**
+   * Drops every cached count of a region once the current transaction commits.
+   *
+   * @param region the entity that was written to
+   */
+  public void invalidate(String region) {
+    TransactionHelper.afterCommit(() -> {
+      ExpiringCache<String, Long> counts = regions.get(region);
+      if (counts != null) {
+        counts.invalidateAll();
+      }
+    });
+  }
+
+  public long getHits() {
+    return regions.values().stream().mapToLong(ExpiringCache::getHits).sum();
+  }
+
+  public long getMisses() {
+    return regions.values().stream().mapToLong(ExpiringCache::getMisses).sum();
+  }
+}
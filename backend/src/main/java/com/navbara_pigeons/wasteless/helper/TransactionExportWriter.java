@@ -0,0 +1,135 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes exported transactions one row at a time, so an export of any size only holds one row in
+ * memory. Rows are the id, sale date, listing date, product id, product name and amount.
+ */
+public abstract class TransactionExportWriter {
+
+  private static final String[] COLUMNS = {"id", "saleDate", "listingDate", "productId",
+      "productName", "amount"};
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  protected final Writer writer;
+
+  private TransactionExportWriter(OutputStream output) {
+    this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+        BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a writer for the given format. The output is not closed by the writer.
+   *
+   * @param format the export format
+   * @param output where the export is written
+   * @return the writer
+   * @throws IOException when the output can not be written to
+   */
+  public static TransactionExportWriter create(TransactionExportFormat format, OutputStream output)
+      throws IOException {
+    return format == TransactionExportFormat.NDJSON ? new Ndjson(output) : new Csv(output);
+  }
+
+  /**
+   * Writes one transaction
+   *
+   * @param row the transaction's columns
+   * @throws IOException when the output can not be written to, e.g. the client disconnected
+   */
+  public abstract void writeRow(Object[] row) throws IOException;
+
+  /**
+   * Writes anything still buffered
+   *
+   * @throws IOException when the output can not be written to
+   */
+  public void flush() throws IOException {
+    writer.flush();
+  }
+
+  private static String format(Object value) {
+    if (value instanceof ZonedDateTime) {
+      return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((ZonedDateTime) value);
+    }
+    return value == null ? "" : value.toString();
+  }
+
+  private static class Csv extends TransactionExportWriter {
+
+    Csv(OutputStream output) throws IOException {
+      super(output);
+      writer.write(String.join(",", COLUMNS));
+      writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(Object[] row) throws IOException {
+      for (int i = 0; i < row.length; i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writer.write(row[i] instanceof String ? escape((String) row[i]) : format(row[i]));
+      }
+      writer.write("\r\n");
+    }
+
+    private static String escape(String value) {
+      // Stop spreadsheets running product names as formulas
+      if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+        value = "'" + value;
+      }
+      if (value.contains(",") || value.contains("\"") || value.contains("\n")
+          || value.contains("\r")) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+      }
+      return value;
+    }
+  }
+
+  private static class Ndjson extends TransactionExportWriter {
+
+    private final JsonGenerator generator;
+
+    Ndjson(OutputStream output) throws IOException {
+      super(output);
+      generator = new JsonFactory().createGenerator(writer);
+      generator.setRootValueSeparator(null);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeRow(Object[] row) throws IOException {
+      generator.writeStartObject();
+      for (int i = 0; i < row.length; i++) {
+        if (row[i] instanceof Number) {
+          generator.writeFieldName(COLUMNS[i]);
+          generator.writeNumber(row[i].toString());
+        } else if (row[i] == null) {
+          generator.writeNullField(COLUMNS[i]);
+        } else {
+          generator.writeStringField(COLUMNS[i], format(row[i]));
+        }
+      }
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+      generator.flush();
+      super.flush();
+    }
+  }
+}
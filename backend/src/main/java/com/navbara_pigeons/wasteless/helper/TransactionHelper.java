@@ -0,0 +1,52 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for running code around the current transaction
+ */
+public class TransactionHelper {
+
+  private TransactionHelper() {
+  }
+
+  /**
+   * Runs the given action once the current transaction commits, and not at all if it rolls back.
+   * In-memory indexes and caches use this so they never expose changes that were not persisted.
+   * Outside of a transaction the action is run straight away.
+   *
+   * @param action action to run
+   */
+  public static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  /**
+   * Runs the given action if the current transaction rolls back, used to release anything that
+   * was reserved for an afterCommit action. Outside of a transaction nothing is run.
+   *
+   * @param action action to run
+   */
+  public static void afterRollback(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            action.run();
+          }
+        }
+      });
+    }
+  }
+}
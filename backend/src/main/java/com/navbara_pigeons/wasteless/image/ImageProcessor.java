@@ -0,0 +1,235 @@
+package com.navbara_pigeons.wasteless.image;
+
+import com.navbara_pigeons.wasteless.dao.ImageDao;
+import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
+import com.navbara_pigeons.wasteless.exception.ImageProcessingQueueFullException;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes uploaded product images, their renditions and thumbnails to disk on a bounded pool of
+ * worker threads, so uploads do not hold a request thread or database transaction while images are
+ * decoded and encoded. Images are PROCESSING until their files are written, then READY or FAILED.
+ * When every worker is busy and the queue is full new uploads are turned away.
+ */
+@Slf4j
+@Component
+public class ImageProcessor {
+
+  private final ImageDao imageDao;
+  private final ImageStore imageStore;
+  private final TransactionTemplate transactionTemplate;
+  private final ThreadPoolExecutor executor;
+  // Reserved by an upload before its transaction commits, released once its image is processed
+  private final Semaphore slots;
+  private final int thumbnailSize;
+  private final List<Integer> renditionSizes;
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong processingNanos = new AtomicLong();
+
+  /**
+   * ImageProcessor constructor that starts the worker threads.
+   *
+   * @param imageDao           The ImageDataAccessObject.
+   * @param imageStore         Where the image files are stored.
+   * @param transactionManager Used to update image statuses from the worker threads.
+   * @param threads            number of worker threads
+   * @param queueCapacity      number of images that can wait for a worker
+   * @param thumbnailSize      width and height of thumbnails
+   * @param renditionSizes     square sizes every image is rendered at, the thumbnail size is always
+   *                           included
+   */
+  @Autowired
+  public ImageProcessor(ImageDao imageDao, ImageStore imageStore,
+      PlatformTransactionManager transactionManager,
+      @Value("${image.processing.threads:2}") int threads,
+      @Value("${image.processing.queue_capacity:50}") int queueCapacity,
+      @Value("${image.processing.thumbnail_size:300}") int thumbnailSize,
+      @Value("${image.processing.rendition_sizes:64,150,300,800}") int[] renditionSizes) {
+    this.imageDao = imageDao;
+    this.imageStore = imageStore;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), new CustomizableThreadFactory("image-processor-"));
+    this.slots = new Semaphore(threads + queueCapacity);
+    this.thumbnailSize = thumbnailSize;
+    TreeSet<Integer> sizes = new TreeSet<>();
+    for (int size : renditionSizes) {
+      sizes.add(size);
+    }
+    sizes.add(thumbnailSize);
+    this.renditionSizes = List.copyOf(sizes);
+  }
+
+  /**
+   * Square sizes every image is rendered at, in ascending order
+   */
+  public List<Integer> getRenditionSizes() {
+    return renditionSizes;
+  }
+
+  /**
+   * Queues an image to be written once the current transaction commits. The image must already be
+   * saved with the PROCESSING status and this processor's rendition sizes. Once queued the
+   * processor owns the uploaded temporary file, it is moved into place or deleted.
+   *
+   * @param image     the saved image
+   * @param original  temporary file holding the upload
+   * @param extension file extension of the upload
+   * @throws ImageProcessingQueueFullException when there are already too many images waiting
+   */
+  public void submit(Image image, Path original, String extension)
+      throws ImageProcessingQueueFullException {
+    if (!slots.tryAcquire()) {
+      throw new ImageProcessingQueueFullException(
+          "Too many images are being processed, please try again shortly");
+    }
+    long imageId = image.getId();
+    String path = image.getPath();
+    String thumbnailPath = image.getThumbnailPath();
+    Map<Integer, String> renditionPaths = new TreeMap<>();
+    for (int size : image.getRenditionSizes()) {
+      renditionPaths.put(size, image.getRenditionPath(size));
+    }
+    TransactionHelper.afterRollback(slots::release);
+    TransactionHelper.afterCommit(() -> executor.execute(() -> {
+      try {
+        process(imageId, path, thumbnailPath, renditionPaths, original, extension);
+      } finally {
+        slots.release();
+      }
+    }));
+  }
+
+  /**
+   * Number of images waiting for a worker
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Number of images being processed right now
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Average time taken to process an image, including failed ones
+   */
+  public double getAverageProcessingMillis() {
+    long count = processed.get() + failed.get();
+    return count == 0 ? 0 : processingNanos.get() / 1_000_000.0 / count;
+  }
+
+  /**
+   * Logs the queue depth, worker usage and processing counts, run periodically
+   */
+  @Scheduled(fixedDelayString = "${image.processing.metrics_interval:300000}",
+      initialDelayString = "${image.processing.metrics_interval:300000}")
+  public void logMetrics() {
+    log.info("IMAGE PROCESSOR HAS " + getQueueDepth() + " IMAGES QUEUED AND " + getActiveCount()
+        + " PROCESSING, " + getProcessed() + " PROCESSED AND " + getFailed()
+        + " FAILED SINCE STARTUP, AVERAGE " + String.format("%.1f", getAverageProcessingMillis())
+        + "MS PER IMAGE");
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.error("IMAGE PROCESSOR SHUT DOWN WITH " + getQueueDepth() + " IMAGES STILL QUEUED");
+      executor.shutdownNow();
+    }
+  }
+
+  private void process(long imageId, String path, String thumbnailPath,
+      Map<Integer, String> renditionPaths, Path original, String extension) {
+    long start = System.nanoTime();
+    List<String> files = new ArrayList<>(renditionPaths.values());
+    files.add(path);
+    files.add(thumbnailPath);
+    ImageStatus status;
+    try {
+      synchronized (imageStore.lockFor(path)) {
+        // The same content may already be stored for another image
+        if (!imageStore.hasFiles(files)) {
+          writeFiles(path, thumbnailPath, renditionPaths, original, extension);
+        }
+      }
+      status = ImageStatus.READY;
+    } catch (IOException | RuntimeException exc) {
+      log.error("FAILED TO PROCESS IMAGE " + imageId + ": " + exc.getMessage());
+      status = ImageStatus.FAILED;
+    } finally {
+      // Already moved into place unless the content was stored before or processing failed
+      imageDao.deleteTempFile(original);
+    }
+
+    ImageStatus newStatus = status;
+    Boolean updated = transactionTemplate
+        .execute(transaction -> imageDao.updateImageStatus(imageId, newStatus));
+    if (newStatus == ImageStatus.FAILED || !Boolean.TRUE.equals(updated)) {
+      // Failed, or the image was deleted while it was processing
+      imageStore.deleteIfUnreferenced(path, files);
+    }
+
+    processingNanos.addAndGet(System.nanoTime() - start);
+    if (newStatus == ImageStatus.READY) {
+      processed.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+  }
+
+  private void writeFiles(String path, String thumbnailPath, Map<Integer, String> renditionPaths,
+      Path original, String extension) throws IOException {
+    // Decoded once, every rendition is scaled from the same square crop
+    TreeSet<Integer> sizes = new TreeSet<>(renditionPaths.keySet());
+    sizes.add(thumbnailSize);
+    Map<Integer, BufferedImage> renditions = ImageTransforms
+        .renditions(ImageTransforms.cropToSquare(ImageTransforms.decode(original)), sizes);
+    for (int size : sizes) {
+      byte[] rendition = ImageTransforms.encode(renditions.get(size), extension);
+      if (renditionPaths.containsKey(size)) {
+        imageDao.saveProductImageToMachine(rendition, renditionPaths.get(size));
+      }
+      if (size == thumbnailSize) {
+        imageDao.saveProductImageToMachine(rendition, thumbnailPath);
+      }
+    }
+    imageDao.moveProductImageIntoPlace(original, path);
+  }
+}
@@ -0,0 +1,225 @@
+package com.navbara_pigeons.wasteless.image;
+
+import com.navbara_pigeons.wasteless.dao.ImageDao;
+import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.exception.ImageNotFoundException;
+import com.navbara_pigeons.wasteless.helper.ExpiringCache;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import com.navbara_pigeons.wasteless.model.ImageFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Content addressed storage for product image files. An image is stored under the SHA-256 of its
+ * contents in directories named after the first two pairs of hash characters, e.g.
+ * ab/cd/abcd....png, so the same photo uploaded again shares the files already stored. Every Image
+ * row using a file is a reference to it, and the files are only deleted once the last reference is
+ * gone. Writing and deleting the files of a hash is done holding that hash's lock. Renditions and
+ * thumbnails are rewritten in place when they are regenerated, so unlike originals they are served
+ * with an ETag hashed from their own content.
+ */
+@Component
+public class ImageStore {
+
+  private static final Pattern STORED_FILENAME = Pattern.compile(
+      "[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.\\w+$");
+  // Files that can be served: content addressed, or uploaded before the image store. Renditions
+  // and thumbnails have a suffix
+  private static final Pattern SERVABLE_FILENAME = Pattern.compile(
+      "(?:[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})|I[0-9a-f-]{36})(_thumbnail|_\\d{1,4})?"
+          + "\\.(?i:jpe?g|png|gif)");
+  private static final int LOCK_STRIPES = 64;
+  private static final int MAX_CONTENT_ETAGS = 10_000;
+
+  private final ImageDao imageDao;
+  private final TransactionTemplate transactionTemplate;
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  // Keyed by filename, size and modification time, so a rewritten file is hashed again
+  private final ExpiringCache<String, String> contentEtags =
+      new ExpiringCache<>(Long.MAX_VALUE, MAX_CONTENT_ETAGS);
+  private final String imagePrefix;
+
+  /**
+   * ImageStore constructor.
+   *
+   * @param imageDao           The ImageDataAccessObject.
+   * @param transactionManager Used to count references once a deleting transaction commits.
+   * @param imagePrefix        Directory product images are stored in
+   */
+  @Autowired
+  public ImageStore(ImageDao imageDao, PlatformTransactionManager transactionManager,
+      @Value("${image.products.prefix}") String imagePrefix) {
+    this.imageDao = imageDao;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.imagePrefix = imagePrefix;
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * Creates an Image for an upload, with paths derived from its contents
+   *
+   * @param hash      SHA-256 of the uploaded file, see newDigest
+   * @param extension file extension of the upload
+   * @return a new Image, not yet saved
+   */
+  public Image newImage(String hash, String extension) {
+    String filename = imagePrefix + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    Image image = new Image();
+    image.setPath(filename + "." + extension);
+    image.setThumbnailPath(filename + "_thumbnail." + extension);
+    return image;
+  }
+
+  /**
+   * Tests if an image's path is already content addressed
+   *
+   * @param path the path of an original image file
+   * @return false for images uploaded before the image store
+   */
+  public static boolean isStored(String path) {
+    return STORED_FILENAME.matcher(path).find();
+  }
+
+  /**
+   * Gets the lock that must be held while writing or deleting the files of the given image path
+   *
+   * @param path the path of an original image file
+   * @return the lock for the path
+   */
+  public Object lockFor(String path) {
+    return locks[Math.floorMod(path.hashCode(), LOCK_STRIPES)];
+  }
+
+  /**
+   * Tests if every file of an image is on disk, e.g. because the same content was uploaded before
+   *
+   * @param filePaths the files of the image
+   * @return true when there is nothing left to write
+   */
+  public boolean hasFiles(List<String> filePaths) {
+    return filePaths.stream().allMatch(imageDao::productImageExistsOnMachine);
+  }
+
+  /**
+   * Drops a reference to an image's files once the current transaction commits, deleting them if
+   * no other image uses them.
+   *
+   * @param image the image that was deleted or failed processing
+   */
+  public void release(Image image) {
+    String path = image.getPath();
+    List<String> filePaths = image.getFilePaths();
+    TransactionHelper.afterCommit(() -> deleteIfUnreferenced(path, filePaths));
+  }
+
+  /**
+   * Deletes an image's files straight away if no image uses them.
+   *
+   * @param path      the path of the original image file
+   * @param filePaths the files of the image
+   */
+  public void deleteIfUnreferenced(String path, List<String> filePaths) {
+    synchronized (lockFor(path)) {
+      Long references = transactionTemplate
+          .execute(transaction -> imageDao.countImageReferences(path));
+      if (references != null && references > 0) {
+        return;
+      }
+      for (String filePath : filePaths) {
+        try {
+          imageDao.deleteProductImageFromMachine(filePath);
+        } catch (IOException exc) {
+          // The file was never written
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets a product image file to serve
+   *
+   * @param filename the path of the file under the product image prefix
+   * @return the file with its ETag
+   * @throws ImageNotFoundException when the filename is not an image file or does not exist
+   * @throws IOException            when the file can not be read
+   */
+  public ImageFile getImageFile(String filename) throws ImageNotFoundException, IOException {
+    Matcher matcher = SERVABLE_FILENAME.matcher(filename);
+    if (!matcher.matches() || !imageDao.productImageExistsOnMachine(imagePrefix + filename)) {
+      throw new ImageNotFoundException();
+    }
+    Path file = imageDao.getPathToProduct(imagePrefix + filename);
+    long size = Files.size(file);
+    if (matcher.group(1) != null && matcher.group(2) == null) {
+      // The filename is the hash of the original, so is a strong ETag for it
+      return new ImageFile(file, size, matcher.group(1), true);
+    }
+    // Renditions can be regenerated and legacy images replaced under the same name
+    String key = filename + ":" + size + ":" + Files.getLastModifiedTime(file).toMillis();
+    return new ImageFile(file, size, contentEtags.get(key, ignored -> hashFile(file)), false);
+  }
+
+  private static String hashFile(Path file) throws IOException {
+    MessageDigest digest = newDigest();
+    try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+      input.transferTo(OutputStream.nullOutputStream());
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Gets the SHA-256 of the given content as lowercase hex
+   *
+   * @param content the content to hash
+   * @return 64 hex characters
+   */
+  public static String hash(byte[] content) {
+    return toHex(newDigest().digest(content));
+  }
+
+  /**
+   * Creates a digest for hashing content as it is streamed
+   *
+   * @return a SHA-256 digest
+   */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exc) {
+      // Every Java platform has to support SHA-256
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * Formats a digest as lowercase hex
+   *
+   * @param digest the result of MessageDigest.digest
+   * @return two hex characters per byte
+   */
+  public static String toHex(byte[] digest) {
+    StringBuilder hex = new StringBuilder(digest.length * 2);
+    for (byte b : digest) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
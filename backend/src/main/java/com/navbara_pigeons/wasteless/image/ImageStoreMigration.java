@@ -0,0 +1,92 @@
+package com.navbara_pigeons.wasteless.image;
+
+import com.navbara_pigeons.wasteless.dao.ImageDao;
+import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
+import java.io.IOException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves images uploaded before the ImageStore into it when the application is started with
+ * --migrate-image-store. Each image's files are renamed to the hash of the original, duplicate
+ * files are deleted as they are moved, and the image's paths are updated. Images that are already
+ * stored are skipped so it is safe to run more than once.
+ */
+@Slf4j
+@Component
+public class ImageStoreMigration implements ApplicationRunner {
+
+  public static final String OPTION = "migrate-image-store";
+
+  private final ImageDao imageDao;
+  private final ImageStore imageStore;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public ImageStoreMigration(ImageDao imageDao, ImageStore imageStore,
+      PlatformTransactionManager transactionManager) {
+    this.imageDao = imageDao;
+    this.imageStore = imageStore;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (args.containsOption(OPTION)) {
+      migrate();
+    }
+  }
+
+  /**
+   * Moves every image that is not yet content addressed into the image store
+   */
+  public void migrate() {
+    List<Image> images = transactionTemplate.execute(transaction -> imageDao.getAllImages());
+    int migrated = 0;
+    int skipped = 0;
+    for (Image image : images) {
+      if (ImageStore.isStored(image.getPath()) || image.getStatus() != ImageStatus.READY) {
+        continue;
+      }
+      try {
+        migrate(image);
+        migrated++;
+      } catch (IOException | RuntimeException exc) {
+        log.error("FAILED TO MIGRATE IMAGE " + image.getId() + ": " + exc.getMessage());
+        skipped++;
+      }
+    }
+    log.info("MIGRATED " + migrated + " IMAGES TO THE IMAGE STORE, " + skipped + " SKIPPED");
+  }
+
+  private void migrate(Image image) throws IOException {
+    if (!imageDao.productImageExistsOnMachine(image.getPath())) {
+      throw new IOException("Original file " + image.getPath() + " is missing");
+    }
+    String extension = image.getPath().substring(image.getPath().lastIndexOf('.') + 1);
+    Image stored = imageStore.newImage(
+        ImageStore.hash(imageDao.readProductImageFromMachine(image.getPath())), extension);
+    stored.setRenditionSizes(image.getRenditionSizes());
+    List<String> sources = image.getFilePaths();
+    List<String> destinations = stored.getFilePaths();
+
+    synchronized (imageStore.lockFor(stored.getPath())) {
+      for (int i = 0; i < sources.size(); i++) {
+        // Thumbnails and renditions can be missing if an earlier upload partly failed
+        if (imageDao.productImageExistsOnMachine(sources.get(i))) {
+          imageDao.moveProductImageOnMachine(sources.get(i), destinations.get(i));
+        }
+      }
+      image.setPath(stored.getPath());
+      image.setThumbnailPath(stored.getThumbnailPath());
+      transactionTemplate.executeWithoutResult(transaction -> imageDao.saveProductImageToDb(image));
+    }
+  }
+}
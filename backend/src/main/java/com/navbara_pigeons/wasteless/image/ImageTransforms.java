@@ -0,0 +1,144 @@
+package com.navbara_pigeons.wasteless.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.imageio.ImageIO;
+
+/**
+ * Decoding, cropping, resizing and encoding of uploaded images. Everything works on a decoded
+ * BufferedImage so an upload is only decoded once however many outputs are made from it.
+ */
+public class ImageTransforms {
+
+  private ImageTransforms() {
+  }
+
+  /**
+   * Decodes an uploaded image
+   *
+   * @param image the encoded image
+   * @return the decoded image
+   * @throws IOException when the bytes are not an image ImageIO can read
+   */
+  public static BufferedImage decode(byte[] image) throws IOException {
+    BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(image));
+    if (decoded == null) {
+      throw new IOException("Unsupported image format");
+    }
+    return decoded;
+  }
+
+  /**
+   * Decodes an uploaded image from a file, reading it as it is decoded
+   *
+   * @param image the encoded image file
+   * @return the decoded image
+   * @throws IOException when the file is not an image ImageIO can read
+   */
+  public static BufferedImage decode(Path image) throws IOException {
+    BufferedImage decoded = ImageIO.read(image.toFile());
+    if (decoded == null) {
+      throw new IOException("Unsupported image format");
+    }
+    return decoded;
+  }
+
+  /**
+   * Encodes an image in the format of the given file extension
+   *
+   * @param image     the image to encode
+   * @param extension the file extension, e.g. png
+   * @return the encoded image
+   * @throws IOException when there is no encoder for the extension
+   */
+  public static byte[] encode(BufferedImage image, String extension) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (!ImageIO.write(image, extension, out)) {
+      throw new IOException("No encoder for " + extension + " images");
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Crops the middle square out of an image. The returned image shares the original's pixels.
+   *
+   * @param image the image to crop
+   * @return the image itself if already square, otherwise its middle square
+   */
+  public static BufferedImage cropToSquare(BufferedImage image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    if (height == width) {
+      return image;
+    }
+    int squareSize = Math.min(height, width);
+    return image.getSubimage(
+        width / 2 - squareSize / 2, // x coordinate of the upper-left corner
+        height / 2 - squareSize / 2, // y coordinate of the upper-left corner
+        squareSize,
+        squareSize
+    );
+  }
+
+  /**
+   * Renders a square image at each of the given sizes. The largest rendition is made first and
+   * each smaller one is scaled from the one before it, so the full size image is only read once.
+   * Sizes larger than the image are rendered at the image's own size.
+   *
+   * @param image a square image
+   * @param sizes widths and heights of the renditions
+   * @return the renditions by requested size
+   */
+  public static Map<Integer, BufferedImage> renditions(BufferedImage image,
+      Collection<Integer> sizes) {
+    TreeMap<Integer, BufferedImage> renditions = new TreeMap<>();
+    BufferedImage source = image;
+    for (int size : new TreeSet<>(sizes).descendingSet()) {
+      source = resize(source, size);
+      renditions.put(size, source);
+    }
+    return renditions;
+  }
+
+  /**
+   * Resizes a square image to the given size, dropping any transparency. Large reductions are done
+   * in steps that at most halve the image, which keeps bilinear interpolation sharp without the
+   * cost of area averaging. Images are never enlarged, upscaling only makes a bigger blurry file.
+   *
+   * @param image the square image to resize
+   * @param size  width and height of the resized image
+   * @return the resized image, no larger than the original
+   */
+  public static BufferedImage resize(BufferedImage image, int size) {
+    int target = Math.min(size, image.getWidth());
+    BufferedImage resized = image;
+    int current = image.getWidth();
+    do {
+      current = Math.max(current / 2, target);
+      resized = scale(resized, current);
+    } while (current > target);
+    return resized;
+  }
+
+  private static BufferedImage scale(BufferedImage image, int size) {
+    BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+          RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.drawImage(image, 0, 0, size, size, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
+  }
+}
@@ -0,0 +1,20 @@
+package com.navbara_pigeons.wasteless.model;
+
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A product image file on disk that can be served, along with what is needed to cache it.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageFile {
+
+  private final Path file;
+  private final long length;
+  // Strong ETag, unquoted
+  private final String etag;
+  // Content addressed originals never change so can be cached forever
+  private final boolean immutable;
+}
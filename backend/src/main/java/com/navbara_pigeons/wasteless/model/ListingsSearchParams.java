@@ -1,6 +1,7 @@
 package com.navbara_pigeons.wasteless.model;
 
 import com.navbara_pigeons.wasteless.entity.BusinessType;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.NutriScore;
@@ -29,6 +30,12 @@ public class ListingsSearchParams {
   private boolean isAscending;
   private List<ListingSearchKeys> searchKeys;
   private String searchParam;
+  // Keyset pagination cursor, null when offset pagination is used
+  private String cursor;
+  // Also return the counts of every filter value
+  private boolean withFacets;
+  // How the total count is worked out, null for an exact count
+  private CountMode countMode;
 
   // Product Detail Params
   private Double minPrice;
@@ -71,6 +78,22 @@ public class ListingsSearchParams {
     }
   }
 
+  /**
+   * Identifies the set of listings matched by these params, leaving out the pagination and sorting
+   * params. Searches with the same signature have the same total count.
+   *
+   * @return the signature used to cache the total count of the search
+   */
+  public String getCountSignature() {
+    return String.join("|", String.valueOf(searchKeys), String.valueOf(searchParam).strip(),
+        String.valueOf(minPrice), String.valueOf(maxPrice), String.valueOf(filterDates),
+        String.valueOf(businessTypes), String.valueOf(minNutriScore),
+        String.valueOf(maxNutriScore), String.valueOf(minNovaGroup), String.valueOf(maxNovaGroup),
+        String.valueOf(fat), String.valueOf(saturatedFat), String.valueOf(sugars),
+        String.valueOf(salt), String.valueOf(isVegan), String.valueOf(isVegetarian),
+        String.valueOf(isGlutenFree), String.valueOf(isPalmOilFree), String.valueOf(isDairyFree));
+  }
+
   /**
    * setting default value for page start index if given null, acts as a setter otherwise
    *
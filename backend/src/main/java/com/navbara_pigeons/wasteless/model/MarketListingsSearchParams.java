@@ -0,0 +1,42 @@
+package com.navbara_pigeons.wasteless.model;
+
+import com.navbara_pigeons.wasteless.enums.CountMode;
+import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * This model class maps to the request parameters sent to the /cards/search endpoint.
+ */
+@Data
+public class MarketListingsSearchParams {
+
+  // Searching Params
+  private String section;
+  // Cards must have at least one of the keywords, or all of them when matchAllKeywords is set
+  private List<Long> keywordIds;
+  private boolean matchAllKeywords;
+  // Every word must be in the title or description
+  private String searchQuery;
+
+  // Pagination & Sorting Params
+  private Integer pagStartIndex;
+  private Integer pagEndIndex;
+  private MarketListingSortByOption sortBy;
+  private boolean isAscending;
+  // How the total count is worked out, null for an exact count
+  private CountMode countMode;
+
+  public MarketListingsSearchParams() {
+
+  }
+
+  /**
+   * Search params that only filter by section
+   *
+   * @param section the section of the marketplace
+   */
+  public MarketListingsSearchParams(String section) {
+    this.section = section;
+  }
+}
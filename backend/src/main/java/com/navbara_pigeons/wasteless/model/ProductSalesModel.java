@@ -0,0 +1,26 @@
+package com.navbara_pigeons.wasteless.model;
+
+import lombok.Data;
+
+/**
+ * Sales of one product, with the type and country of the business selling it
+ */
+@Data
+public class ProductSalesModel {
+
+  private Long productId;
+  private String productName;
+  private Long businessId;
+  private String businessType;
+  private String country;
+  private SalesAggregate sales = new SalesAggregate();
+
+  public ProductSalesModel(Long productId, String productName, Long businessId,
+      String businessType, String country) {
+    this.productId = productId;
+    this.productName = productName;
+    this.businessId = businessId;
+    this.businessType = businessType;
+    this.country = country;
+  }
+}
@@ -0,0 +1,47 @@
+package com.navbara_pigeons.wasteless.model;
+
+import lombok.Data;
+
+/**
+ * Sales totals that can be added to and merged, so totals worked out separately for groups of
+ * businesses can be combined.
+ */
+@Data
+public class SalesAggregate {
+
+  private long transactionCount;
+  private double amount;
+  // Total time between each item being listed and sold
+  private long sellThroughSeconds;
+
+  /**
+   * Adds sales to the totals
+   *
+   * @param transactionCount   number of sales
+   * @param amount             total value of the sales
+   * @param sellThroughSeconds total time the sold items were listed for
+   */
+  public void add(long transactionCount, double amount, long sellThroughSeconds) {
+    this.transactionCount += transactionCount;
+    this.amount += amount;
+    this.sellThroughSeconds += sellThroughSeconds;
+  }
+
+  /**
+   * Adds another aggregate's totals to this one
+   *
+   * @param other the totals to add
+   * @return this aggregate
+   */
+  public SalesAggregate merge(SalesAggregate other) {
+    add(other.transactionCount, other.amount, other.sellThroughSeconds);
+    return this;
+  }
+
+  /**
+   * Average time an item was listed before it sold
+   */
+  public double getAverageSellThroughHours() {
+    return transactionCount == 0 ? 0 : sellThroughSeconds / 3600.0 / transactionCount;
+  }
+}
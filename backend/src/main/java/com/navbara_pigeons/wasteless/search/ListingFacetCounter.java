@@ -0,0 +1,118 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.dto.ListingFacetsDto;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the rows of the grouped facet count query into per facet counts. The query only applies
+ * the search string, price and date filters, the facet filters are checked here so that every
+ * facet can be counted with all filters but its own (multi select faceting) from the same rows.
+ */
+public class ListingFacetCounter {
+
+  private ListingFacetCounter() {
+  }
+
+  /**
+   * Counts the facets of a listing search
+   *
+   * @param groups rows of the facet count query
+   * @param params search params holding the facet filters
+   * @return listing counts for every value of every facet
+   */
+  public static ListingFacetsDto count(List<ListingFacetGroup> groups,
+      ListingsSearchParams params) {
+    ListingFacetsDto facets = new ListingFacetsDto();
+    for (ListingFacetGroup group : groups) {
+      boolean businessType = matchesBusinessType(group, params);
+      boolean nutriScore = matchesNutriScore(group, params);
+      boolean novaGroup = matchesNovaGroup(group, params);
+      boolean fat = matchesAny(params.getFat(), group.getFat());
+      boolean saturatedFat = matchesAny(params.getSaturatedFat(), group.getSaturatedFat());
+      boolean sugars = matchesAny(params.getSugars(), group.getSugars());
+      boolean salt = matchesAny(params.getSalt(), group.getSalt());
+      boolean vegan = matchesFlag(params.getIsVegan(), group.getIsVegan());
+      boolean vegetarian = matchesFlag(params.getIsVegetarian(), group.getIsVegetarian());
+      boolean glutenFree = matchesFlag(params.getIsGlutenFree(), group.getIsGlutenFree());
+      boolean palmOilFree = matchesFlag(params.getIsPalmOilFree(), group.getIsPalmOilFree());
+      boolean dairyFree = matchesFlag(params.getIsDairyFree(), group.getIsDairyFree());
+
+      boolean[] matches = {businessType, nutriScore, novaGroup, fat, saturatedFat, sugars, salt,
+          vegan, vegetarian, glutenFree, palmOilFree, dairyFree};
+      int failed = 0;
+      int failedIndex = -1;
+      for (int i = 0; i < matches.length; i++) {
+        if (!matches[i]) {
+          failed++;
+          failedIndex = i;
+        }
+      }
+      // A group failing two or more filters cannot show up in any facet
+      if (failed > 1) {
+        continue;
+      }
+
+      long count = group.getCount();
+      addIfCounted(facets.getBusinessTypes(), group.getBusinessType(), count, failedIndex, 0);
+      addIfCounted(facets.getNutriScore(), group.getNutriScore(), count, failedIndex, 1);
+      addIfCounted(facets.getNovaGroup(), group.getNovaGroup(), count, failedIndex, 2);
+      addIfCounted(facets.getFat(), group.getFat(), count, failedIndex, 3);
+      addIfCounted(facets.getSaturatedFat(), group.getSaturatedFat(), count, failedIndex, 4);
+      addIfCounted(facets.getSugars(), group.getSugars(), count, failedIndex, 5);
+      addIfCounted(facets.getSalt(), group.getSalt(), count, failedIndex, 6);
+      addIfCounted(facets.getIsVegan(), group.getIsVegan(), count, failedIndex, 7);
+      addIfCounted(facets.getIsVegetarian(), group.getIsVegetarian(), count, failedIndex, 8);
+      addIfCounted(facets.getIsGlutenFree(), group.getIsGlutenFree(), count, failedIndex, 9);
+      addIfCounted(facets.getIsPalmOilFree(), group.getIsPalmOilFree(), count, failedIndex, 10);
+      addIfCounted(facets.getIsDairyFree(), group.getIsDairyFree(), count, failedIndex, 11);
+    }
+    return facets;
+  }
+
+  /**
+   * A group is counted towards a facet when it passes every other filter, that is when it passes
+   * all filters or the only filter it fails is the facet's own one.
+   */
+  private static <K> void addIfCounted(Map<K, Long> facet, K value, long count, int failedIndex,
+      int facetIndex) {
+    if (value != null && (failedIndex == -1 || failedIndex == facetIndex)) {
+      facet.merge(value, count, Long::sum);
+    }
+  }
+
+  private static boolean matchesBusinessType(ListingFacetGroup group,
+      ListingsSearchParams params) {
+    return params.getBusinessTypes() == null
+        || params.getBusinessTypes().contains(group.getBusinessType());
+  }
+
+  private static boolean matchesNutriScore(ListingFacetGroup group, ListingsSearchParams params) {
+    if (params.getMinNutriScore() == null && params.getMaxNutriScore() == null) {
+      return true;
+    }
+    return group.getNutriScore() != null
+        && (params.getMinNutriScore() == null
+        || group.getNutriScore().compareTo(params.getMinNutriScore()) >= 0)
+        && (params.getMaxNutriScore() == null
+        || group.getNutriScore().compareTo(params.getMaxNutriScore()) <= 0);
+  }
+
+  private static boolean matchesNovaGroup(ListingFacetGroup group, ListingsSearchParams params) {
+    if (params.getMinNovaGroup() == null && params.getMaxNovaGroup() == null) {
+      return true;
+    }
+    return group.getNovaGroup() != null
+        && (params.getMinNovaGroup() == null || group.getNovaGroup() >= params.getMinNovaGroup())
+        && (params.getMaxNovaGroup() == null || group.getNovaGroup() <= params.getMaxNovaGroup());
+  }
+
+  private static <T> boolean matchesAny(List<T> allowed, T value) {
+    return allowed == null || allowed.contains(value);
+  }
+
+  private static boolean matchesFlag(Boolean wanted, Boolean value) {
+    return wanted == null || wanted.equals(value);
+  }
+}
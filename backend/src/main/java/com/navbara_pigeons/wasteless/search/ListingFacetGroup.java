@@ -0,0 +1,31 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.entity.BusinessType;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of the facet count query: the number of listings sharing the same value for every
+ * facet dimension. Listings are grouped by all dimensions at once so a single query is enough to
+ * work out the counts of every facet.
+ */
+@Data
+@AllArgsConstructor
+public class ListingFacetGroup {
+
+  private BusinessType businessType;
+  private NutriScore nutriScore;
+  private Integer novaGroup;
+  private NutritionFactsLevel fat;
+  private NutritionFactsLevel saturatedFat;
+  private NutritionFactsLevel sugars;
+  private NutritionFactsLevel salt;
+  private Boolean isVegan;
+  private Boolean isVegetarian;
+  private Boolean isGlutenFree;
+  private Boolean isPalmOilFree;
+  private Boolean isDairyFree;
+  private Long count;
+}
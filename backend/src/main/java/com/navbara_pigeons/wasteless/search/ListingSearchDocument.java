@@ -0,0 +1,51 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.entity.Address;
+import com.navbara_pigeons.wasteless.entity.Business;
+import com.navbara_pigeons.wasteless.entity.Listing;
+import lombok.Data;
+
+/**
+ * The searchable text of a single listing, as held by the ListingSearchIndex. Only the fields that
+ * can be targeted by a ListingSearchKeys value are kept.
+ */
+@Data
+public class ListingSearchDocument {
+
+  private long listingId;
+  private long productId;
+  private String productName;
+  private String businessName;
+  private String city;
+  private String country;
+
+  /**
+   * Constructor used by the HQL constructor expression when the index is (re)built from the
+   * database.
+   */
+  public ListingSearchDocument(long listingId, long productId, String productName,
+      String businessName, String city, String country) {
+    this.listingId = listingId;
+    this.productId = productId;
+    this.productName = productName;
+    this.businessName = businessName;
+    this.city = city;
+    this.country = country;
+  }
+
+  /**
+   * Builds the document for a listing that is already attached to its inventory item.
+   *
+   * @param listing the listing to index
+   */
+  public ListingSearchDocument(Listing listing) {
+    Business business = listing.getInventoryItem().getBusiness();
+    Address address = business.getAddress();
+    this.listingId = listing.getId();
+    this.productId = listing.getInventoryItem().getProduct().getId();
+    this.productName = listing.getInventoryItem().getProduct().getName();
+    this.businessName = business.getName();
+    this.city = address == null ? null : address.getCity();
+    this.country = address == null ? null : address.getCountry();
+  }
+}
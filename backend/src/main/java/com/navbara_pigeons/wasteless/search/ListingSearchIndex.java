@@ -0,0 +1,300 @@
+package com.navbara_pigeons.wasteless.search;
+
+import static com.navbara_pigeons.wasteless.enums.ListingSearchKeys.ADDRESS;
+import static com.navbara_pigeons.wasteless.enums.ListingSearchKeys.BUSINESS_NAME;
+import static com.navbara_pigeons.wasteless.enums.ListingSearchKeys.PRODUCT_NAME;
+
+import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In memory inverted index over the text fields that /listings/search can match against (product
+ * name, business name, city and country). Compiled search plans (AND, OR and quoted full matches)
+ * are resolved against the posting lists here so the database only has to hydrate a page of known
+ * listing ids instead of running LIKE '%token%' scans over four joined tables.
+ * <p>
+ * The index is built once the application is ready, kept up to date as listings are added, deleted
+ * or sold, and periodically rebuilt to pick up any changes made outside of the listing service.
+ */
+@Slf4j
+@Component
+public class ListingSearchIndex {
+
+  private final ListingDao listingDao;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Snapshot snapshot = new Snapshot();
+  // Changes committed while a rebuild is reading the database, replayed onto the new snapshot
+  private List<Consumer<Snapshot>> changesDuringRebuild;
+  private volatile boolean ready = false;
+
+  // Above this many matches an IN (...) clause stops being cheaper than the LIKE scan
+  @Value("${listing_search.max_candidate_ids:10000}")
+  private int maxCandidateIds = 10000;
+
+  /**
+   * ListingSearchIndex constructor that takes autowired parameters and sets up the index for
+   * loading listings from the database.
+   */
+  @Autowired
+  public ListingSearchIndex(ListingDao listingDao) {
+    this.listingDao = listingDao;
+  }
+
+  /**
+   * Loads every listing from the database into a fresh index and swaps it in. Runs when the
+   * application starts and then on a fixed delay as a safety net against missed updates.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${listing_search.rebuild_interval:3600000}",
+      initialDelayString = "${listing_search.rebuild_interval:3600000}")
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    long start = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      changesDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    Snapshot newSnapshot = new Snapshot();
+    List<ListingSearchDocument> documents;
+    try {
+      documents = listingDao.getListingSearchDocuments();
+      for (ListingSearchDocument document : documents) {
+        newSnapshot.add(document);
+      }
+    } catch (RuntimeException exc) {
+      lock.writeLock().lock();
+      try {
+        changesDuringRebuild = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw exc;
+    }
+
+    lock.writeLock().lock();
+    try {
+      // The read may have missed some of these, they are applied in order so replaying one it did
+      // see is harmless
+      for (Consumer<Snapshot> change : changesDuringRebuild) {
+        change.accept(newSnapshot);
+      }
+      changesDuringRebuild = null;
+      snapshot = newSnapshot;
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("LISTING SEARCH INDEX BUILT WITH " + documents.size() + " LISTINGS IN "
+        + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  /**
+   * Adds (or replaces) a listing in the index once the current transaction commits. Like the
+   * database search, listings of businesses without an address are left out.
+   *
+   * @param listing listing attached to its inventory item, product and business
+   */
+  public void index(Listing listing) {
+    if (listing.getInventoryItem().getBusiness().getAddress() == null) {
+      remove(List.of(listing.getId()));
+      return;
+    }
+    ListingSearchDocument document = new ListingSearchDocument(listing);
+    TransactionHelper.afterCommit(() -> apply(current -> current.add(document)));
+  }
+
+  /**
+   * Removes listings from the index once the current transaction commits.
+   *
+   * @param listingIds ids of the removed listings
+   */
+  public void remove(Collection<Long> listingIds) {
+    List<Long> ids = new ArrayList<>(listingIds);
+    TransactionHelper.afterCommit(() -> apply(current -> {
+      for (Long id : ids) {
+        current.remove(id);
+      }
+    }));
+  }
+
+  /**
+   * Applies a committed change to the index, and records it for the rebuild in progress if there
+   * is one so the change isn't lost when its snapshot is swapped in.
+   */
+  private void apply(Consumer<Snapshot> change) {
+    lock.writeLock().lock();
+    try {
+      change.accept(snapshot);
+      if (changesDuringRebuild != null) {
+        changesDuringRebuild.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Resolves a compiled search plan against the index.
+   *
+   * @param plan compiled search string and search keys
+   * @return the ids of every listing matching the search string, or empty when the index cannot
+   * answer the query (not built yet, no search string, or too many matches to be worth it) and the
+   * caller should fall back to the database
+   */
+  public Optional<Set<Long>> findMatchingListingIds(SearchPlan plan) {
+    return findMatchingListingIds(plan, null);
+  }
+
+  /**
+   * Resolves a compiled search plan and a set of matching products against the index.
+   *
+   * @param plan     compiled search string and search keys
+   * @param products ids of the products passing the product filters, as resolved by the
+   *                 ProductAttributeIndex, or null when no product filter is applied
+   * @return the ids of every listing matching the search string and sold for one of the products,
+   * or empty when the index cannot answer the query (not built yet, nothing to resolve, or too many
+   * matches to be worth it) and the caller should fall back to the database
+   */
+  public Optional<Set<Long>> findMatchingListingIds(SearchPlan plan, BitSet products) {
+    if (!ready || (plan.isEmpty() && products == null)) {
+      return Optional.empty();
+    }
+
+    lock.readLock().lock();
+    try {
+      Set<Long> result = null;
+      for (List<SearchTerm> clause : plan.getClauses()) {
+        Set<Long> clauseMatches = new HashSet<>();
+        for (SearchTerm term : clause) {
+          clauseMatches.addAll(match(plan.getSearchKeys(), term));
+        }
+        if (result == null) {
+          result = clauseMatches;
+        } else {
+          result.retainAll(clauseMatches);
+        }
+      }
+      if (products != null) {
+        result = snapshot.filterByProducts(result, products);
+      }
+      if (result.size() > maxCandidateIds) {
+        return Optional.empty();
+      }
+      return Optional.of(result);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Matches a single term against every field selected by the search keys.
+   */
+  private Set<Long> match(List<ListingSearchKeys> searchKeys, SearchTerm term) {
+    Set<Long> matches = new HashSet<>();
+    if (searchKeys.contains(PRODUCT_NAME)) {
+      matches.addAll(match(snapshot.productNames, term));
+    }
+    if (searchKeys.contains(BUSINESS_NAME)) {
+      matches.addAll(match(snapshot.businessNames, term));
+    }
+    if (searchKeys.contains(ADDRESS)) {
+      matches.addAll(match(snapshot.cities, term));
+      matches.addAll(match(snapshot.countries, term));
+    }
+    return matches;
+  }
+
+  private static Set<Long> match(NgramIndex field, SearchTerm term) {
+    return term.isFullMatch() ? field.equalTo(term.getValue()) : field.containing(term.getValue());
+  }
+
+  /**
+   * Everything the index holds, swapped as a whole when the index is rebuilt
+   */
+  private static class Snapshot {
+
+    private final NgramIndex productNames = new NgramIndex();
+    private final NgramIndex businessNames = new NgramIndex();
+    private final NgramIndex cities = new NgramIndex();
+    private final NgramIndex countries = new NgramIndex();
+    private final Map<Long, Long> productIdByListing = new HashMap<>();
+    private final Map<Long, Set<Long>> listingsByProduct = new HashMap<>();
+
+    private void add(ListingSearchDocument document) {
+      long listingId = document.getListingId();
+      remove(listingId);
+      productNames.add(listingId, document.getProductName());
+      businessNames.add(listingId, document.getBusinessName());
+      cities.add(listingId, document.getCity());
+      countries.add(listingId, document.getCountry());
+      productIdByListing.put(listingId, document.getProductId());
+      listingsByProduct.computeIfAbsent(document.getProductId(), key -> new HashSet<>())
+          .add(listingId);
+    }
+
+    private void remove(long listingId) {
+      productNames.remove(listingId);
+      businessNames.remove(listingId);
+      cities.remove(listingId);
+      countries.remove(listingId);
+      Long productId = productIdByListing.remove(listingId);
+      if (productId != null) {
+        Set<Long> listings = listingsByProduct.get(productId);
+        listings.remove(listingId);
+        if (listings.isEmpty()) {
+          listingsByProduct.remove(productId);
+        }
+      }
+    }
+
+    /**
+     * Keeps the listings sold for one of the given products. When there are no listings to filter
+     * (no search string) the listings of every given product are returned.
+     */
+    private Set<Long> filterByProducts(Set<Long> listingIds, BitSet products) {
+      Set<Long> result = new HashSet<>();
+      if (listingIds == null) {
+        for (int productId = products.nextSetBit(0); productId >= 0;
+            productId = products.nextSetBit(productId + 1)) {
+          result.addAll(listingsByProduct.getOrDefault((long) productId, Collections.emptySet()));
+        }
+      } else {
+        for (Long listingId : listingIds) {
+          Long productId = productIdByListing.get(listingId);
+          if (productId != null && productId <= Integer.MAX_VALUE
+              && products.get(productId.intValue())) {
+            result.add(listingId);
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
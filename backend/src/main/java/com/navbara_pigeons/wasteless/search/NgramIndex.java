@@ -0,0 +1,153 @@
+package com.navbara_pigeons.wasteless.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of one text field. Every value is broken into overlapping n-grams (trigrams) and
+ * each n-gram maps to the posting list of listing ids whose value contains it. A substring lookup
+ * intersects the posting lists of the query's n-grams and then verifies the few remaining
+ * candidates against the stored value, which mirrors the semantics of SQL's LIKE '%token%'.
+ * <p>
+ * This class is not thread safe, the owning ListingSearchIndex guards access to it.
+ */
+public class NgramIndex {
+
+  static final int GRAM_LENGTH = 3;
+
+  private final Map<String, Set<Long>> postings = new HashMap<>();
+  private final Map<Long, String> values = new HashMap<>();
+
+  /**
+   * Lower cases a value the same way for indexing and querying. The database collation is case
+   * insensitive so the index has to be as well.
+   *
+   * @param value raw value, may be null
+   * @return normalised value, or null when given null
+   */
+  public static String normalise(String value) {
+    return value == null ? null : value.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Indexes a value for the given id, replacing any value previously indexed for it.
+   *
+   * @param id    listing id
+   * @param value field value, null values are not indexed
+   */
+  public void add(long id, String value) {
+    remove(id);
+    String normalised = normalise(value);
+    if (normalised == null) {
+      return;
+    }
+    values.put(id, normalised);
+    for (String gram : grams(normalised)) {
+      postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+    }
+  }
+
+  /**
+   * Removes the value indexed for the given id, if any.
+   *
+   * @param id listing id
+   */
+  public void remove(long id) {
+    String previous = values.remove(id);
+    if (previous == null) {
+      return;
+    }
+    for (String gram : grams(previous)) {
+      Set<Long> posting = postings.get(gram);
+      if (posting != null) {
+        posting.remove(id);
+        if (posting.isEmpty()) {
+          postings.remove(gram);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds every id whose value contains the token (LIKE '%token%').
+   *
+   * @param token search token
+   * @return matching ids
+   */
+  public Set<Long> containing(String token) {
+    String normalised = normalise(token);
+    Set<Long> matches = new HashSet<>();
+    for (long id : candidates(normalised)) {
+      if (values.get(id).contains(normalised)) {
+        matches.add(id);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Finds every id whose value is equal to the phrase, ignoring case (LIKE 'phrase').
+   *
+   * @param phrase search phrase
+   * @return matching ids
+   */
+  public Set<Long> equalTo(String phrase) {
+    String normalised = normalise(phrase);
+    Set<Long> matches = new HashSet<>();
+    for (long id : candidates(normalised)) {
+      if (values.get(id).equals(normalised)) {
+        matches.add(id);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * @return number of ids with an indexed value
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Intersects the posting lists of the query's n-grams, smallest first. Queries shorter than an
+   * n-gram cannot use the postings so every indexed id is a candidate.
+   */
+  private Set<Long> candidates(String query) {
+    if (query.length() < GRAM_LENGTH) {
+      return values.keySet();
+    }
+    Set<Long> result = null;
+    for (String gram : grams(query)) {
+      Set<Long> posting = postings.get(gram);
+      if (posting == null) {
+        return Collections.emptySet();
+      }
+      if (result == null) {
+        result = new HashSet<>(posting);
+      } else if (posting.size() < result.size()) {
+        Set<Long> smaller = new HashSet<>(posting);
+        smaller.retainAll(result);
+        result = smaller;
+      } else {
+        result.retainAll(posting);
+      }
+      if (result.isEmpty()) {
+        return result;
+      }
+    }
+    return result;
+  }
+
+  private static Set<String> grams(String value) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+      grams.add(value.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+}
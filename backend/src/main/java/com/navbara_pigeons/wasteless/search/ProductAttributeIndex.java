@@ -0,0 +1,288 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.dao.ProductDao;
+import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In memory bitmap index of the nutrition and diet attributes of every product. For each attribute
+ * and value there is a bitset with a bit set for every product id having that value, so the
+ * product side of the listing filters (diet flags, NutriScore and Nova group ranges, nutrition
+ * levels) is resolved with a few bitset ORs and ANDs instead of extra predicates on the big search
+ * join.
+ * <p>
+ * The index is built once the application is ready, kept in sync as products are created or
+ * updated, and periodically rebuilt along with the listing search index.
+ */
+@Slf4j
+@Component
+public class ProductAttributeIndex {
+
+  private static final Map<String, Function<ProductAttributes, Object>> ATTRIBUTES =
+      new HashMap<>();
+
+  static {
+    ATTRIBUTES.put("nutriScore", ProductAttributes::getNutriScore);
+    ATTRIBUTES.put("novaGroup", ProductAttributes::getNovaGroup);
+    ATTRIBUTES.put("fat", ProductAttributes::getFat);
+    ATTRIBUTES.put("saturatedFat", ProductAttributes::getSaturatedFat);
+    ATTRIBUTES.put("sugars", ProductAttributes::getSugars);
+    ATTRIBUTES.put("salt", ProductAttributes::getSalt);
+    ATTRIBUTES.put("isVegan", ProductAttributes::getIsVegan);
+    ATTRIBUTES.put("isVegetarian", ProductAttributes::getIsVegetarian);
+    ATTRIBUTES.put("isGlutenFree", ProductAttributes::getIsGlutenFree);
+    ATTRIBUTES.put("isPalmOilFree", ProductAttributes::getIsPalmOilFree);
+    ATTRIBUTES.put("isDairyFree", ProductAttributes::getIsDairyFree);
+  }
+
+  private final ProductDao productDao;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // attribute name -> attribute value -> products having that value
+  private Map<String, Map<Object, BitSet>> bitmaps = new HashMap<>();
+  // Products committed while a rebuild is reading the database, replayed onto the new index
+  private List<ProductAttributes> changesDuringRebuild;
+  private volatile boolean ready = false;
+
+  /**
+   * ProductAttributeIndex constructor that takes autowired parameters and sets up the index for
+   * loading products from the database.
+   */
+  @Autowired
+  public ProductAttributeIndex(ProductDao productDao) {
+    this.productDao = productDao;
+  }
+
+  /**
+   * Loads every product from the database into a fresh index and swaps it in.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${listing_search.rebuild_interval:3600000}",
+      initialDelayString = "${listing_search.rebuild_interval:3600000}")
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      changesDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    Map<String, Map<Object, BitSet>> newBitmaps = new HashMap<>();
+    List<ProductAttributes> products;
+    try {
+      products = productDao.getProductAttributes();
+      for (ProductAttributes product : products) {
+        if (isTooLarge(product)) {
+          stopRecordingChanges();
+          return;
+        }
+        add(newBitmaps, product);
+      }
+    } catch (RuntimeException exc) {
+      stopRecordingChanges();
+      throw exc;
+    }
+
+    lock.writeLock().lock();
+    try {
+      // The read may have seen some of these already, replaying the latest values is harmless
+      for (ProductAttributes product : changesDuringRebuild) {
+        if (isTooLarge(product)) {
+          changesDuringRebuild = null;
+          return;
+        }
+        add(newBitmaps, product);
+      }
+      changesDuringRebuild = null;
+      bitmaps = newBitmaps;
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("PRODUCT ATTRIBUTE INDEX BUILT WITH " + products.size() + " PRODUCTS");
+  }
+
+  /**
+   * Adds or updates a product in the index once the current transaction commits, and records it
+   * for the rebuild in progress if there is one so the change isn't lost when its index is swapped
+   * in.
+   *
+   * @param product the created or updated product
+   */
+  public void index(Product product) {
+    ProductAttributes attributes = new ProductAttributes(product);
+    TransactionHelper.afterCommit(() -> {
+      lock.writeLock().lock();
+      try {
+        if (changesDuringRebuild != null) {
+          changesDuringRebuild.add(attributes);
+        }
+        if (!isTooLarge(attributes)) {
+          add(bitmaps, attributes);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  private void stopRecordingChanges() {
+    lock.writeLock().lock();
+    try {
+      changesDuringRebuild = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Bitsets are int indexed, once a product id doesn't fit the index is turned off and the
+   * filtering is left to the database.
+   */
+  private boolean isTooLarge(ProductAttributes product) {
+    if (product.getProductId() <= Integer.MAX_VALUE) {
+      return false;
+    }
+    log.error("PRODUCT ID " + product.getProductId() + " TOO LARGE FOR ATTRIBUTE INDEX");
+    ready = false;
+    return true;
+  }
+
+  /**
+   * Resolves the product filters of a listing search.
+   *
+   * @param params search params
+   * @return a bitset of the ids of every product passing all the product filters, or empty when no
+   * product filter is used or the index is not built
+   */
+  public Optional<BitSet> findMatchingProducts(ListingsSearchParams params) {
+    Map<String, Collection<?>> filters = getFilters(params);
+    if (!ready || filters.isEmpty()) {
+      return Optional.empty();
+    }
+
+    lock.readLock().lock();
+    try {
+      BitSet result = null;
+      for (Map.Entry<String, Collection<?>> filter : filters.entrySet()) {
+        Map<Object, BitSet> values = bitmaps.getOrDefault(filter.getKey(),
+            Collections.emptyMap());
+        BitSet allowed = new BitSet();
+        for (Object value : filter.getValue()) {
+          BitSet products = values.get(value);
+          if (products != null) {
+            allowed.or(products);
+          }
+        }
+        if (result == null) {
+          result = allowed;
+        } else {
+          result.and(allowed);
+        }
+      }
+      return Optional.of(result);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Clears the product's previous bits and sets the bits of its current values.
+   */
+  private static void add(Map<String, Map<Object, BitSet>> bitmaps, ProductAttributes product) {
+    int productId = (int) product.getProductId();
+    for (Map<Object, BitSet> values : bitmaps.values()) {
+      for (BitSet products : values.values()) {
+        products.clear(productId);
+      }
+    }
+    for (Map.Entry<String, Function<ProductAttributes, Object>> attribute : ATTRIBUTES
+        .entrySet()) {
+      Object value = attribute.getValue().apply(product);
+      if (value != null) {
+        bitmaps.computeIfAbsent(attribute.getKey(), key -> new HashMap<>())
+            .computeIfAbsent(value, key -> new BitSet()).set(productId);
+      }
+    }
+  }
+
+  /**
+   * Converts the product filters of the params to the attribute values each filter allows. Ranges
+   * are expanded to the values they contain.
+   */
+  private Map<String, Collection<?>> getFilters(ListingsSearchParams params) {
+    Map<String, Collection<?>> filters = new HashMap<>();
+    if (params.getMinNutriScore() != null || params.getMaxNutriScore() != null) {
+      List<NutriScore> scores = new ArrayList<>();
+      for (NutriScore score : NutriScore.values()) {
+        if ((params.getMinNutriScore() == null || score.compareTo(params.getMinNutriScore()) >= 0)
+            && (params.getMaxNutriScore() == null
+            || score.compareTo(params.getMaxNutriScore()) <= 0)) {
+          scores.add(score);
+        }
+      }
+      filters.put("nutriScore", scores);
+    }
+    if (params.getMinNovaGroup() != null || params.getMaxNovaGroup() != null) {
+      List<Integer> groups = new ArrayList<>();
+      lock.readLock().lock();
+      try {
+        for (Object group : bitmaps.getOrDefault("novaGroup", Collections.emptyMap()).keySet()) {
+          int novaGroup = (Integer) group;
+          if ((params.getMinNovaGroup() == null || novaGroup >= params.getMinNovaGroup())
+              && (params.getMaxNovaGroup() == null || novaGroup <= params.getMaxNovaGroup())) {
+            groups.add(novaGroup);
+          }
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      filters.put("novaGroup", groups);
+    }
+    putIfSet(filters, "fat", params.getFat());
+    putIfSet(filters, "saturatedFat", params.getSaturatedFat());
+    putIfSet(filters, "sugars", params.getSugars());
+    putIfSet(filters, "salt", params.getSalt());
+    putIfSet(filters, "isVegan", params.getIsVegan());
+    putIfSet(filters, "isVegetarian", params.getIsVegetarian());
+    putIfSet(filters, "isGlutenFree", params.getIsGlutenFree());
+    putIfSet(filters, "isPalmOilFree", params.getIsPalmOilFree());
+    putIfSet(filters, "isDairyFree", params.getIsDairyFree());
+    return filters;
+  }
+
+  private static void putIfSet(Map<String, Collection<?>> filters, String attribute,
+      Collection<?> values) {
+    if (values != null) {
+      filters.put(attribute, values);
+    }
+  }
+
+  private static void putIfSet(Map<String, Collection<?>> filters, String attribute,
+      Boolean value) {
+    if (value != null) {
+      filters.put(attribute, Collections.singletonList(value));
+    }
+  }
+}
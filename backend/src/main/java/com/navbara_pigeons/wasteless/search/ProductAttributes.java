@@ -0,0 +1,41 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The low cardinality nutrition and diet attributes of a product, as held by the
+ * ProductAttributeIndex.
+ */
+@Data
+@AllArgsConstructor
+public class ProductAttributes {
+
+  private long productId;
+  private NutriScore nutriScore;
+  private Integer novaGroup;
+  private NutritionFactsLevel fat;
+  private NutritionFactsLevel saturatedFat;
+  private NutritionFactsLevel sugars;
+  private NutritionFactsLevel salt;
+  private Boolean isVegan;
+  private Boolean isVegetarian;
+  private Boolean isGlutenFree;
+  private Boolean isPalmOilFree;
+  private Boolean isDairyFree;
+
+  /**
+   * Copies the attributes of a product
+   *
+   * @param product product to index
+   */
+  public ProductAttributes(Product product) {
+    this(product.getId(), product.getNutriScore(), product.getNovaGroup(), product.getFat(),
+        product.getSaturatedFat(), product.getSugars(), product.getSalt(), product.getIsVegan(),
+        product.getIsVegetarian(), product.getIsGlutenFree(), product.getIsPalmOilFree(),
+        product.getIsDairyFree());
+  }
+}
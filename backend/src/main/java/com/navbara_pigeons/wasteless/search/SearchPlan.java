@@ -0,0 +1,78 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.dao.specifications.SpecificationHelper;
+import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parsed form of a listing search query. The query is a conjunction of clauses and every clause is
+ * a disjunction of terms, e.g. "milk OR cheese AND \"Countdown\"" is (milk OR cheese) AND
+ * "Countdown". Each term is matched against the fields selected by the search keys.
+ * <p>
+ * Plans are immutable so a compiled plan can be cached and shared between requests, see
+ * SearchPlanCompiler.
+ */
+@Slf4j
+@Getter
+public class SearchPlan {
+
+  private final List<List<SearchTerm>> clauses;
+  private final List<ListingSearchKeys> searchKeys;
+
+  private SearchPlan(List<List<SearchTerm>> clauses, List<ListingSearchKeys> searchKeys) {
+    this.clauses = clauses;
+    this.searchKeys = searchKeys;
+  }
+
+  /**
+   * Parses a search query. A token following OR is added to the previous clause, a token following
+   * AND starts a new clause and any other token after the first is ignored as malformed.
+   *
+   * @param searchQuery query to parse, may be null
+   * @param searchKeys  fields the terms are matched against
+   * @return the parsed plan
+   */
+  public static SearchPlan parse(String searchQuery, List<ListingSearchKeys> searchKeys) {
+    List<List<SearchTerm>> clauses = new ArrayList<>();
+    Iterator<String> tokenIterator = SpecificationHelper.tokenize(searchQuery).iterator();
+    while (tokenIterator.hasNext()) {
+      String currentToken = tokenIterator.next();
+      if (clauses.isEmpty()) {
+        clauses.add(new ArrayList<>(Collections.singletonList(toTerm(currentToken))));
+      } else if (currentToken.equalsIgnoreCase("OR") && tokenIterator.hasNext()) {
+        clauses.get(clauses.size() - 1).add(toTerm(tokenIterator.next()));
+      } else if (currentToken.equalsIgnoreCase("AND") && tokenIterator.hasNext()) {
+        clauses.add(new ArrayList<>(Collections.singletonList(toTerm(tokenIterator.next()))));
+      } else {
+        log.error("Malformed Search Query");
+      }
+    }
+
+    List<List<SearchTerm>> immutableClauses = new ArrayList<>();
+    for (List<SearchTerm> clause : clauses) {
+      immutableClauses.add(Collections.unmodifiableList(clause));
+    }
+    return new SearchPlan(Collections.unmodifiableList(immutableClauses),
+        searchKeys == null ? Collections.emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(searchKeys)));
+  }
+
+  /**
+   * @return true when the query has no terms, so every listing matches
+   */
+  public boolean isEmpty() {
+    return clauses.isEmpty();
+  }
+
+  private static SearchTerm toTerm(String token) {
+    if (SpecificationHelper.isFullMatching(token)) {
+      return new SearchTerm(token.replace("\"", ""), true);
+    }
+    return new SearchTerm(token, false);
+  }
+}
@@ -0,0 +1,96 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles listing search queries into SearchPlans and keeps the most recently used plans in a
+ * bounded LRU cache, so popular queries are only tokenized and parsed once.
+ */
+@Slf4j
+@Component
+public class SearchPlanCompiler {
+
+  private final Map<String, SearchPlan> cache;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * SearchPlanCompiler constructor that sets up the plan cache.
+   *
+   * @param cacheSize maximum number of plans kept in the cache
+   */
+  public SearchPlanCompiler(@Value("${listing_search.plan_cache_size:500}") int cacheSize) {
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, SearchPlan> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Gets the plan of the search string and search keys of the given params, compiling it when it
+   * is not cached yet.
+   *
+   * @param params search params
+   * @return the compiled plan
+   */
+  public SearchPlan compile(ListingsSearchParams params) {
+    String key = cacheKey(params);
+    synchronized (cache) {
+      SearchPlan plan = cache.get(key);
+      if (plan != null) {
+        hits.incrementAndGet();
+        return plan;
+      }
+    }
+    misses.incrementAndGet();
+    SearchPlan plan = SearchPlan.parse(params.getSearchParam(), params.getSearchKeys());
+    synchronized (cache) {
+      cache.put(key, plan);
+    }
+    return plan;
+  }
+
+  /**
+   * @return number of compilations answered from the cache
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of compilations that had to parse the query
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * The plan only depends on the query and on the fields it is matched against, so the key is the
+   * stripped query followed by the search keys. Whitespace inside the query is kept as it is
+   * significant within quoted terms.
+   */
+  private static String cacheKey(ListingsSearchParams params) {
+    StringBuilder key = new StringBuilder();
+    if (params.getSearchKeys() != null) {
+      for (ListingSearchKeys searchKey : ListingSearchKeys.values()) {
+        if (params.getSearchKeys().contains(searchKey)) {
+          key.append(searchKey.name()).append(',');
+        }
+      }
+    }
+    key.append('|');
+    if (params.getSearchParam() != null) {
+      key.append(params.getSearchParam().strip());
+    }
+    return key.toString();
+  }
+}
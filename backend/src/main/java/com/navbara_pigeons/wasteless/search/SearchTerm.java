@@ -0,0 +1,15 @@
+package com.navbara_pigeons.wasteless.search;
+
+import lombok.Data;
+
+/**
+ * A single token of a listing search query. Quoted tokens must match a whole field value, other
+ * tokens match anywhere inside a field value.
+ */
+@Data
+public class SearchTerm {
+
+  // Token with the quotes removed
+  private final String value;
+  private final boolean fullMatch;
+}
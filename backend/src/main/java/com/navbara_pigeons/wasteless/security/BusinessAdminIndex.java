@@ -0,0 +1,88 @@
+package com.navbara_pigeons.wasteless.security;
+
+import com.navbara_pigeons.wasteless.dao.BusinessDao;
+import com.navbara_pigeons.wasteless.helper.ExpiringCache;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers whether a user administers a business without loading Business or User entities. The
+ * IDs of the businesses each user administers are loaded on first use with an indexed query and
+ * kept as a sorted array, so later checks are a binary search in memory. Every change to a
+ * business's administrators must call invalidate.
+ */
+@Component
+public class BusinessAdminIndex {
+
+  private final BusinessDao businessDao;
+  private final ExpiringCache<Long, long[]> businessIdsByUser;
+
+  /**
+   * BusinessAdminIndex constructor that sets up the index.
+   *
+   * @param businessDao The BusinessDataAccessObject.
+   * @param maxUsers    maximum number of users whose businesses are kept in memory
+   */
+  @Autowired
+  public BusinessAdminIndex(BusinessDao businessDao,
+      @Value("${security.business_admin_index_max_users:10000}") int maxUsers) {
+    this.businessDao = businessDao;
+    // Kept until invalidated, every change to a business's administrators invalidates its users
+    this.businessIdsByUser = new ExpiringCache<>(Long.MAX_VALUE, maxUsers);
+  }
+
+  /**
+   * Tests if a user is the primary or a regular administrator of a business.
+   *
+   * @param userId     the user to test
+   * @param businessId the business to test against
+   * @return true if the user administers the business
+   */
+  public boolean isBusinessAdmin(long userId, long businessId) {
+    return Arrays.binarySearch(getBusinessIds(userId), businessId) >= 0;
+  }
+
+  /**
+   * Gets the IDs of the businesses a user is the primary or a regular administrator of.
+   *
+   * @param userId the user
+   * @return IDs of the businesses in ascending order
+   */
+  public List<Long> getAdministeredBusinessIds(long userId) {
+    return Arrays.stream(getBusinessIds(userId)).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Drops the businesses of a user whose administered businesses changed. It is dropped straight
+   * away so the current transaction reloads them, and again once it commits in case another
+   * request loaded them before the change was visible.
+   *
+   * @param userId the user that was added or removed as an administrator
+   */
+  public void invalidate(long userId) {
+    businessIdsByUser.invalidate(userId);
+    TransactionHelper.afterCommit(() -> businessIdsByUser.invalidate(userId));
+  }
+
+  public long getHits() {
+    return businessIdsByUser.getHits();
+  }
+
+  public long getMisses() {
+    return businessIdsByUser.getMisses();
+  }
+
+  private long[] getBusinessIds(long userId) {
+    return businessIdsByUser.get(userId,
+        key -> toSortedArray(businessDao.getAdministeredBusinessIds(key)));
+  }
+
+  private static long[] toSortedArray(List<Long> businessIds) {
+    return businessIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+  }
+}
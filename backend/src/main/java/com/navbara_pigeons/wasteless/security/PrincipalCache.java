@@ -0,0 +1,101 @@
+package com.navbara_pigeons.wasteless.security;
+
+import com.navbara_pigeons.wasteless.dao.UserDao;
+import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.helper.ExpiringCache;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Caches the authorisation details of logged in users so a request does not look the user up by
+ * email for every isBusinessAdmin check. A principal is kept on the current request, and across
+ * requests for a short time. Changes to a user's role must call invalidate, the businesses a user
+ * administers are kept by BusinessAdminIndex.
+ */
+@Component
+public class PrincipalCache {
+
+  private static final String REQUEST_ATTRIBUTE = PrincipalCache.class.getName() + ".";
+
+  private final UserDao userDao;
+  private final ExpiringCache<String, AuthenticatedPrincipal> principals;
+  // Principals found on the current request, the cache across requests counts its own hits
+  private final AtomicLong requestHits = new AtomicLong();
+
+  /**
+   * PrincipalCache constructor that sets up the cache.
+   *
+   * @param userDao    The UserDataAccessObject.
+   * @param ttl        how long a principal is reused across requests, in milliseconds
+   * @param maxEntries maximum number of principals kept across requests
+   */
+  @Autowired
+  public PrincipalCache(UserDao userDao,
+      @Value("${security.principal_cache_ttl:30000}") long ttl,
+      @Value("${security.principal_cache_max_entries:10000}") int maxEntries) {
+    this.userDao = userDao;
+    this.principals = new ExpiringCache<>(ttl, maxEntries);
+  }
+
+  /**
+   * Gets the principal of the user with the given email, loading it from the database if it is
+   * not cached.
+   *
+   * @param email email of the user
+   * @return the user's principal
+   * @throws UserNotFoundException The user does not exist
+   */
+  public AuthenticatedPrincipal getPrincipal(String email) throws UserNotFoundException {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null) {
+      Object principal = request
+          .getAttribute(REQUEST_ATTRIBUTE + email, RequestAttributes.SCOPE_REQUEST);
+      if (principal != null) {
+        requestHits.incrementAndGet();
+        return (AuthenticatedPrincipal) principal;
+      }
+    }
+
+    // A role change committing while the user is loaded may not be seen by the load, so the
+    // principal is then only used for this request
+    AuthenticatedPrincipal principal = principals.get(email, this::load);
+    if (request != null) {
+      request.setAttribute(REQUEST_ATTRIBUTE + email, principal, RequestAttributes.SCOPE_REQUEST);
+    }
+    return principal;
+  }
+
+  /**
+   * Drops the cached principal of a user whose role changed. The
+   * current request sees the change straight away, other requests once the transaction commits.
+   *
+   * @param email email of the user that changed
+   */
+  public void invalidate(String email) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null) {
+      request.removeAttribute(REQUEST_ATTRIBUTE + email, RequestAttributes.SCOPE_REQUEST);
+    }
+    TransactionHelper.afterCommit(() -> principals.invalidate(email));
+  }
+
+  public long getHits() {
+    return requestHits.get() + principals.getHits();
+  }
+
+  public long getMisses() {
+    return principals.getMisses();
+  }
+
+  private AuthenticatedPrincipal load(String email) throws UserNotFoundException {
+    User user = userDao.getUserByEmail(email);
+    return new AuthenticatedPrincipal(user.getId(), user.getEmail(), user.getRole());
+  }
+}
@@ -77,6 +77,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .antMatchers(HttpMethod.POST, "/businesses/{businessId}/products/{productId}/images")
         .authenticated()
         .antMatchers(HttpMethod.GET, "/users/{id}/images").permitAll()
+        .antMatchers(HttpMethod.GET, "/images/products/**").permitAll()
         .antMatchers(HttpMethod.POST, "/businesses/{id}/listings").authenticated()
         .antMatchers(HttpMethod.PUT, "/businesses/{businessId}/makeAdministrator").authenticated()
         .antMatchers(HttpMethod.GET, "/keywords").authenticated()
@@ -0,0 +1,21 @@
+package com.navbara_pigeons.wasteless.security.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The parts of the logged in user that authorisation checks need, small enough to be cached
+ * between requests without holding on to a User entity.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedPrincipal {
+
+  private final long userId;
+  private final String email;
+  private final String role;
+
+  public boolean isAdmin() {
+    return role != null && role.contains("ADMIN");
+  }
+}
@@ -7,6 +7,7 @@ import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.BusinessRegistrationException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import java.util.List;
 import net.minidev.json.JSONObject;
 
 public interface BusinessService {
@@ -18,6 +19,8 @@ public interface BusinessService {
 
   boolean isBusinessAdmin(long businessId) throws BusinessNotFoundException, UserNotFoundException;
 
+  List<Long> getAdministeredBusinessIds() throws UserNotFoundException;
+
   void addBusinessAdmin(long businessId, long userId)
       throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException;
 
@@ -10,10 +10,13 @@ import com.navbara_pigeons.wasteless.exception.BusinessRegistrationException;
 import com.navbara_pigeons.wasteless.exception.BusinessTypeException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.security.BusinessAdminIndex;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
 import com.navbara_pigeons.wasteless.validation.BusinessServiceValidation;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.List;
 import javax.transaction.Transactional;
 import net.minidev.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,20 +32,23 @@ public class BusinessServiceImpl implements BusinessService {
   private final BusinessDao businessDao;
   private final AddressService addressService;
   private final UserService userService;
+  private final BusinessAdminIndex businessAdminIndex;
 
   /**
    * BusinessServiceImplementation constructor that takes autowired parameters and sets up the
    * service for interacting with all business related services.
    *
-   * @param businessDao The BusinessDataAccessObject.
+   * @param businessDao        The BusinessDataAccessObject.
+   * @param businessAdminIndex Answers which businesses a user administers.
    */
   @Autowired
   public BusinessServiceImpl(BusinessDao businessDao, AddressService addressService,
-      @Lazy UserService userService) {
+      @Lazy UserService userService, BusinessAdminIndex businessAdminIndex) {
     // Using @Lazy to prevent Circular Dependencies
     this.businessDao = businessDao;
     this.addressService = addressService;
     this.userService = userService;
+    this.businessAdminIndex = businessAdminIndex;
   }
 
   /**
@@ -79,6 +85,7 @@ public class BusinessServiceImpl implements BusinessService {
     BusinessServiceValidation.validate(business, LocalDate.now());
     this.addressService.saveAddress(business.getAddress());
     this.businessDao.saveBusiness(business);
+    businessAdminIndex.invalidate(primaryAdministrator.getId());
 
     JSONObject response = new JSONObject();
     response.put("businessId", business.getId());
@@ -116,6 +123,7 @@ public class BusinessServiceImpl implements BusinessService {
     }
     business.addAdministrator(user);
     businessDao.saveBusiness(business);
+    businessAdminIndex.invalidate(user.getId());
   }
 
   /**
@@ -139,6 +147,7 @@ public class BusinessServiceImpl implements BusinessService {
     }
     business.removeAdministrator(user);
     businessDao.saveBusiness(business);
+    businessAdminIndex.invalidate(user.getId());
   }
 
   /**
@@ -152,20 +161,27 @@ public class BusinessServiceImpl implements BusinessService {
    */
   public boolean isBusinessAdmin(long businessId)
       throws BusinessNotFoundException, UserNotFoundException {
-    Business business = this.businessDao.getBusinessById(businessId);
-    User authUser = this.userService.getLoggedInUser();
-
-    if (business.getPrimaryAdministratorId() == authUser.getId()) {
+    AuthenticatedPrincipal authUser = this.userService.getLoggedInPrincipal();
+    if (businessAdminIndex.isBusinessAdmin(authUser.getUserId(), businessId)) {
       return true;
     }
-    for (User user : business.getAdministrators()) {
-      if (authUser.getId() == user.getId()) {
-        return true;
-      }
-    }
+    // Only load the business to throw when it does not exist
+    this.businessDao.getBusinessById(businessId);
     return false;
   }
 
+  /**
+   * Gets the IDs of the businesses the currently logged in user is an administrator of
+   *
+   * @return IDs of the businesses in ascending order
+   * @throws UserNotFoundException The user does not exist
+   */
+  @Override
+  public List<Long> getAdministeredBusinessIds() throws UserNotFoundException {
+    return businessAdminIndex
+        .getAdministeredBusinessIds(this.userService.getLoggedInPrincipal().getUserId());
+  }
+
   /**
    * This helper method tests if the currently logged in user is the primary administrator of the
    * business with the given ID
@@ -178,8 +194,8 @@ public class BusinessServiceImpl implements BusinessService {
   private boolean isBusinessPrimaryAdmin(long businessId)
       throws BusinessNotFoundException, UserNotFoundException {
     Business business = this.businessDao.getBusinessById(businessId);
-    User authUser = this.userService.getLoggedInUser();
+    AuthenticatedPrincipal authUser = this.userService.getLoggedInPrincipal();
 
-    return business.getPrimaryAdministratorId() == authUser.getId();
+    return business.getPrimaryAdministratorId() == authUser.getUserId();
   }
 }
@@ -4,22 +4,23 @@ import com.navbara_pigeons.wasteless.dao.ImageDao;
 import com.navbara_pigeons.wasteless.dao.UserDao;
 import com.navbara_pigeons.wasteless.entity.Image;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ImageNotFoundException;
+import com.navbara_pigeons.wasteless.exception.ImageProcessingQueueFullException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import com.navbara_pigeons.wasteless.helper.TransactionHelper;
+import com.navbara_pigeons.wasteless.image.ImageProcessor;
+import com.navbara_pigeons.wasteless.image.ImageStore;
+import com.navbara_pigeons.wasteless.model.ImageFile;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
-import javax.imageio.ImageIO;
 import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -33,39 +34,47 @@ public class ImageServiceImpl implements ImageService {
   private final BusinessService businessService;
   private final ProductService productService;
   private final UserService userService;
-  private final int THUMBNAIL_DIMENSIONS = 300;
-  @Value("${image.products.prefix}")
-  private String imagePrefix;
+  private final ImageProcessor imageProcessor;
+  private final ImageStore imageStore;
 
   @Autowired
   public ImageServiceImpl(UserDao userDao, ImageDao imageDao, BusinessService businessService,
-      ProductService productService, UserService userService) {
+      ProductService productService, UserService userService, ImageProcessor imageProcessor,
+      ImageStore imageStore) {
     this.userDao = userDao;
     this.imageDao = imageDao;
     this.businessService = businessService;
     this.productService = productService;
     this.userService = userService;
+    this.imageProcessor = imageProcessor;
+    this.imageStore = imageStore;
   }
 
   /**
-   * Upload an image to a businesses product
+   * Upload an image to a businesses product. The image is saved with the PROCESSING status and
+   * written to disk with its renditions and thumbnail in the background once the transaction
+   * commits. When the processing queue is full the transaction is rolled back, so no image is left
+   * PROCESSING without any files.
    *
    * @param businessId The identifier of a business
    * @param productId  The identifier of a product to add the image to
    * @param image      The image to be uploaded
-   * @throws UserNotFoundException     The users credentials could not be found from the JSessionID
-   * @throws BusinessNotFoundException When no business is found with the given id
-   * @throws ProductNotFoundException  When no product is found with the given id
-   * @throws IOException               When an IO error occurs (will return a 500 status error, this
-   *                                   is intended)
-   * @throws ImageNotFoundException    When a non image file or no file is received instead of an
-   *                                   image
+   * @return the ID of the new image
+   * @throws UserNotFoundException             The users credentials could not be found from the
+   *                                           JSessionID
+   * @throws BusinessNotFoundException         When no business is found with the given id
+   * @throws ProductNotFoundException          When no product is found with the given id
+   * @throws IOException                       When the upload can not be read (will return a 500
+   *                                           status error, this is intended)
+   * @throws ImageNotFoundException            When a non image file or no file is received
+   *                                           instead of an image
+   * @throws ImageProcessingQueueFullException When too many images are waiting to be processed
    */
-  @Transactional
+  @Transactional(rollbackOn = ImageProcessingQueueFullException.class)
   @Override
-  public void uploadProductImage(long businessId, long productId, MultipartFile image)
+  public long uploadProductImage(long businessId, long productId, MultipartFile image)
       throws UserNotFoundException, BusinessNotFoundException, ProductNotFoundException, IOException,
-      ImageNotFoundException {
+      ImageNotFoundException, ImageProcessingQueueFullException {
     if (!businessService.isBusinessAdmin(businessId) && !userService.isAdmin()) {
       throw new BadCredentialsException(
           "You must be an administrator of the business or a GAA to upload a product image");
@@ -85,20 +94,25 @@ public class ImageServiceImpl implements ImageService {
       throw new ImageNotFoundException();
     }
 
-    // Crop the image and then save it to the DB + Machine
-    MultipartFile imageThumbnail = cropImageToSquare(image, fileExtension, fileName);
-    imageThumbnail = createImageThumbnail(imageThumbnail, fileExtension);
-    Image imageEntity = new Image(imagePrefix, fileExtension);
     Product productEntity = productService.getProduct(productId);
-    productEntity.addProductImage(imageEntity);
 
-    imageDao.saveProductImageToMachine(image, imageEntity.getPath());
-    imageDao.saveProductImageToMachine(imageThumbnail, imageEntity.getThumbnailPath());
+    // Stream the upload to disk rather than reading it into memory, hashing it on the way
+    MessageDigest digest = ImageStore.newDigest();
+    Path upload = imageDao.saveProductImageToTempFile(image, digest);
+    TransactionHelper.afterRollback(() -> imageDao.deleteTempFile(upload));
+
+    // Save the image to the DB, the files are written by the image processor
+    Image imageEntity = imageStore.newImage(ImageStore.toHex(digest.digest()), fileExtension);
+    imageEntity.setStatus(ImageStatus.PROCESSING);
+    imageEntity.setRenditionSizes(new ArrayList<>(imageProcessor.getRenditionSizes()));
+    productEntity.addProductImage(imageEntity);
     imageDao.saveProductImageToDb(imageEntity);
+    imageProcessor.submit(imageEntity, upload, fileExtension);
 
     if (productEntity.getPrimaryProductImage() == null) {
       productEntity.setPrimaryProductImage(imageEntity);
     }
+    return imageEntity.getId();
   }
 
   /**
@@ -121,57 +135,6 @@ public class ImageServiceImpl implements ImageService {
     this.productService.saveProduct(productEntity);
   }
 
-  private MultipartFile createImageThumbnail(MultipartFile image, String extension)
-      throws IOException {
-    InputStream in = new ByteArrayInputStream(image.getBytes());
-    BufferedImage imageToResize = ImageIO.read(in);
-
-    int targetWidth = THUMBNAIL_DIMENSIONS;
-    int targetHeight = targetWidth;
-
-    java.awt.Image resultingImage = imageToResize.getScaledInstance(targetWidth, targetHeight,
-        java.awt.Image.SCALE_DEFAULT);
-    BufferedImage outputImage = new BufferedImage(targetWidth, targetHeight,
-        BufferedImage.TYPE_INT_RGB);
-    outputImage.getGraphics().drawImage(resultingImage, 0, 0, null);
-
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ImageIO.write(outputImage, extension, baos);
-
-    return new MockMultipartFile("image", baos.toByteArray());
-  }
-
-  private MultipartFile cropImageToSquare(MultipartFile image, String extension, String fileName)
-      throws IOException {
-    InputStream in = new ByteArrayInputStream(image.getBytes());
-    BufferedImage imageToCrop = ImageIO.read(in);
-
-    // Get the image dimensions
-    int height = imageToCrop.getHeight();
-    int width = imageToCrop.getWidth();
-
-    // The image is not already a square
-    if (height != width) {
-      // Compute the size of the square
-      int squareSize = (Math.min(height, width));
-
-      // Coordinates of the image's middle
-      int xc = width / 2;
-      int yc = height / 2;
-
-      // Crop the image
-      imageToCrop = imageToCrop.getSubimage(
-          xc - (squareSize / 2), // x coordinate of the upper-left corner
-          yc - (squareSize / 2), // y coordinate of the upper-left corner
-          squareSize,               // width
-          squareSize                // height
-      );
-    }
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ImageIO.write(imageToCrop, extension, baos);
-    return new MockMultipartFile(fileName, baos.toByteArray());
-  }
-
   /**
    * This service method deletes the product image associated with the business/product if the user
    * has the correct permissions.
@@ -202,7 +165,20 @@ public class ImageServiceImpl implements ImageService {
     product.deleteProductImage(imageId);
     this.productService.saveProduct(product);
     this.imageDao.deleteImage(image);
-    this.imageDao.deleteProductImageFromMachine(image.getPath());
-    this.imageDao.deleteProductImageFromMachine(image.getThumbnailPath());
+    // The files may be shared with other images, they are only deleted if this was the last
+    this.imageStore.release(image);
+  }
+
+  /**
+   * Gets a stored product image file so it can be served. Anyone can view product images.
+   *
+   * @param filename The path of the file under the product image prefix, e.g. ab/cd/abcd...png
+   * @return The file with its ETag
+   * @throws ImageNotFoundException Thrown if there is no such image file.
+   * @throws IOException            Thrown if the file can not be read.
+   */
+  @Override
+  public ImageFile getImageFile(String filename) throws ImageNotFoundException, IOException {
+    return imageStore.getImageFile(filename);
   }
 }
@@ -5,6 +5,7 @@ import com.navbara_pigeons.wasteless.dto.FullInventoryItemDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.InventorySortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
@@ -19,7 +20,8 @@ import javax.management.InvalidAttributeValueException;
 public interface InventoryService {
 
   PaginationDto<FullInventoryItemDto> getInventory(long businessId, Integer pagStartIndex,
-      Integer pagEndIndex, InventorySortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, InventorySortByOption sortBy, boolean isAscending,
+      CountMode countMode)
       throws BusinessNotFoundException, InsufficientPrivilegesException, UserNotFoundException, InventoryItemNotFoundException, InvalidAttributeValueException, InvalidPaginationInputException;
 
 
@@ -2,6 +2,7 @@ package com.navbara_pigeons.wasteless.service;
 
 import com.navbara_pigeons.wasteless.dao.BusinessDao;
 import com.navbara_pigeons.wasteless.dao.InventoryDao;
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
 import com.navbara_pigeons.wasteless.dto.CreateInventoryItemDto;
 import com.navbara_pigeons.wasteless.dto.FullInventoryItemDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
@@ -9,7 +10,9 @@ import com.navbara_pigeons.wasteless.entity.Business;
 import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.InventorySortByOption;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
@@ -20,7 +23,6 @@ import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
 import com.navbara_pigeons.wasteless.validation.InventoryServiceValidation;
-import java.util.ArrayList;
 import java.util.List;
 import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +43,7 @@ public class InventoryServiceImpl implements InventoryService {
   private final ProductService productService;
   private final ListingService listingService;
   private final InventoryDao inventoryDao;
+  private final ListingArchiveDao listingArchiveDao;
   @Value("${public_path_prefix}")
   private String publicPathPrefix;
 
@@ -51,7 +54,8 @@ public class InventoryServiceImpl implements InventoryService {
   @Autowired
   public InventoryServiceImpl(BusinessDao businessDao, UserService userService,
       BusinessService businessService, ProductService productService,
-      InventoryDao inventoryDao, @Lazy ListingService listingService) {
+      InventoryDao inventoryDao, @Lazy ListingService listingService,
+      ListingArchiveDao listingArchiveDao) {
     // Using @Lazy to prevent Circular Dependencies
     this.businessDao = businessDao;
     this.userService = userService;
@@ -59,6 +63,7 @@ public class InventoryServiceImpl implements InventoryService {
     this.productService = productService;
     this.inventoryDao = inventoryDao;
     this.listingService = listingService;
+    this.listingArchiveDao = listingArchiveDao;
   }
 
   /**
@@ -73,13 +78,15 @@ public class InventoryServiceImpl implements InventoryService {
    * @param sortBy        Defines the field to be sorted, can be null.
    * @param isAscending   Boolean value, whether the sort order should be in ascending order. Is not
    *                      required and defaults to True.
+   * @param countMode     How the total count is worked out, null for an exact count.
    * @return productCatalogue A List<Product> of products that are in the business product
    * catalogue.
    * @throws BusinessNotFoundException If the business is not listed in the database.
    */
   @Override
   public PaginationDto<FullInventoryItemDto> getInventory(long businessId, Integer pagStartIndex,
-                                                          Integer pagEndIndex, InventorySortByOption sortBy, boolean isAscending)
+                                                          Integer pagEndIndex, InventorySortByOption sortBy, boolean isAscending,
+                                                          CountMode countMode)
       throws BusinessNotFoundException, InsufficientPrivilegesException, UserNotFoundException, IllegalArgumentException, InvalidPaginationInputException {
 
     if (!this.userService.isAdmin() && !this.businessService.isBusinessAdmin(businessId)) {
@@ -92,16 +99,14 @@ public class InventoryServiceImpl implements InventoryService {
     PaginationBuilder pagBuilder = new PaginationBuilder(InventoryItem.class, sortBy);
     pagBuilder.withPagStartIndex(pagStartIndex)
         .withPagEndIndex(pagEndIndex)
-        .withSortAscending(isAscending);
+        .withSortAscending(isAscending)
+        .withCountMode(countMode);
 
     Pair<List<InventoryItem>, Long> dataAndTotalCount = inventoryDao
         .getInventoryItems(business, pagBuilder);
 
-    ArrayList<FullInventoryItemDto> inventory = new ArrayList<>();
-    for (InventoryItem inventoryItem : dataAndTotalCount.getFirst()) {
-      inventory.add(new FullInventoryItemDto(inventoryItem, publicPathPrefix));
-    }
-    return new PaginationDto<>(inventory, dataAndTotalCount.getSecond());
+    return pagBuilder.toPaginationDto(dataAndTotalCount,
+        inventoryItem -> new FullInventoryItemDto(inventoryItem, publicPathPrefix));
 
   }
 
@@ -182,7 +187,8 @@ public class InventoryServiceImpl implements InventoryService {
   /**
    * Updates the quantity of the inventory item. This is called when a listing has been purchased
    * and the inventory quantity needs to be updated. When the quantity of the inventory item reaches
-   * zero the inventory item and all of it's listings are deleted.
+   * zero the inventory item and all of it's listings are deleted. Deleted listings are archived
+   * first.
    *
    * @param businessId The id of the business
    * @param listing    The listing that has been purchased
@@ -193,14 +199,19 @@ public class InventoryServiceImpl implements InventoryService {
       throws InventoryUpdateException {
 
     InventoryItem inventoryItem = listing.getInventoryItem();
-    inventoryItem.removeQuantity(listing.getQuantity());
-
-    if (inventoryItem.getQuantity() < 0) {
+    if (!inventoryDao.removeQuantity(inventoryItem, listing.getQuantity())) {
       throw new InventoryUpdateException("Quantity cannot be less than 0");
-    } else if (inventoryItem.getQuantity() == 0) {
+    }
+    // Archived once the item is locked by the update above, archiving reads the item and would
+    // otherwise share its lock with concurrent purchases that then deadlock upgrading it
+    listingArchiveDao.archiveListings(List.of(listing.getId()), ListingArchiveReason.SOLD);
+
+    if (inventoryItem.getQuantity() == 0) {
+      // The purchased listing is archived as sold, the rest are archived as sold out
+      listingArchiveDao.archiveListingsOfInventoryItems(List.of(inventoryItem.getId()),
+          ListingArchiveReason.SOLD_OUT);
       this.deleteInventoryItem(inventoryItem);
     } else {
-      inventoryDao.saveInventoryItem(inventoryItem);
       listingService.deleteListing(listing.getId());
     }
   }
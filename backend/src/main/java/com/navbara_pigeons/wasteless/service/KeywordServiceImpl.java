@@ -18,7 +18,9 @@ public class KeywordServiceImpl implements KeywordService {
   }
 
   /**
-   * Retrieves keywords given a list of keywordIds.
+   * Retrieves keywords given a list of keywordIds, unknown ids are ignored. The keywords are read
+   * in the current transaction rather than from the cached list, as they are attached to cards
+   * being saved and cached keywords are detached entities.
    *
    * @param keywordIds
    * @return
@@ -26,6 +28,9 @@ public class KeywordServiceImpl implements KeywordService {
   @Override
   public List<Keyword> getKeywords(List<Long> keywordIds) {
     List<Keyword> keywords = new ArrayList<>();
+    if (keywordIds == null) {
+      return keywords;
+    }
     keywordDao.findAllById(keywordIds).forEach(keywords::add);
     return keywords;
   }
@@ -0,0 +1,16 @@
+package com.navbara_pigeons.wasteless.service;
+
+import com.navbara_pigeons.wasteless.dto.ListingArchiveDto;
+import com.navbara_pigeons.wasteless.dto.PaginationDto;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
+import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+
+public interface ListingArchiveService {
+
+  PaginationDto<ListingArchiveDto> getArchivedListings(long businessId,
+      ListingArchiveReason reason, Integer pagStartIndex, Integer pagEndIndex)
+      throws BusinessNotFoundException, UserNotFoundException, InsufficientPrivilegesException, InvalidPaginationInputException;
+}
@@ -0,0 +1,88 @@
+package com.navbara_pigeons.wasteless.service;
+
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
+import com.navbara_pigeons.wasteless.dto.ListingArchiveDto;
+import com.navbara_pigeons.wasteless.dto.PaginationDto;
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
+import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import javax.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read only access to listings that have been moved to the listing archive after selling,
+ * closing or expiring.
+ */
+@Service
+public class ListingArchiveServiceImpl implements ListingArchiveService {
+
+  private final ListingArchiveDao listingArchiveDao;
+  private final BusinessService businessService;
+  private final UserService userService;
+  private final int defaultPageSize;
+  private final int maxPageSize;
+
+  /**
+   * ListingArchiveServiceImpl constructor.
+   *
+   * @param listingArchiveDao The ListingArchiveDataAccessObject.
+   * @param businessService   The BusinessService.
+   * @param userService       The UserService.
+   * @param defaultPageSize   number of archived listings returned when no end index is given
+   * @param maxPageSize       maximum number of archived listings returned at once
+   */
+  @Autowired
+  public ListingArchiveServiceImpl(ListingArchiveDao listingArchiveDao,
+      BusinessService businessService, UserService userService,
+      @Value("${listing_archive.default_page_size:20}") int defaultPageSize,
+      @Value("${listing_archive.max_page_size:100}") int maxPageSize) {
+    this.listingArchiveDao = listingArchiveDao;
+    this.businessService = businessService;
+    this.userService = userService;
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * Gets a page of a business's archived listings, most recently archived first. Only admins of
+   * the business and GAAs can view them.
+   *
+   * @param businessId    The ID of the business the listings belonged to
+   * @param reason        Only get listings archived for this reason, can be null for all
+   * @param pagStartIndex The start index of the list to return, can be null. This index is
+   *                      inclusive.
+   * @param pagEndIndex   The stop index of the list to return, can be null. This index is
+   *                      inclusive.
+   * @return PaginationDto of archived listings and their total count
+   * @throws InsufficientPrivilegesException when the user can't view the business's archive
+   * @throws InvalidPaginationInputException when the indexes are invalid or the page too big
+   */
+  @Override
+  @Transactional
+  public PaginationDto<ListingArchiveDto> getArchivedListings(long businessId,
+      ListingArchiveReason reason, Integer pagStartIndex, Integer pagEndIndex)
+      throws BusinessNotFoundException, UserNotFoundException, InsufficientPrivilegesException, InvalidPaginationInputException {
+    if (!userService.isAdmin() && !businessService.isBusinessAdmin(businessId)) {
+      throw new InsufficientPrivilegesException(
+          "You are not permitted to view the archived listings of this business");
+    }
+
+    PaginationBuilder pagBuilder = new PaginationBuilder(ListingArchive.class, null)
+        .withPagStartIndex(pagStartIndex);
+    pagBuilder.withPagEndIndex(pagEndIndex == null
+        ? pagBuilder.getPagStartIndex() + defaultPageSize - 1 : pagEndIndex);
+    if (pagBuilder.getFetchSize() > maxPageSize) {
+      throw new InvalidPaginationInputException(
+          "At most " + maxPageSize + " archived listings can be returned at once");
+    }
+
+    return pagBuilder.toPaginationDto(listingArchiveDao.getArchivedListings(businessId, reason,
+        pagBuilder.getPagStartIndex(), pagBuilder.getFetchSize()), ListingArchiveDto::new);
+  }
+}
@@ -1,19 +1,23 @@
 package com.navbara_pigeons.wasteless.service;
 
+import com.navbara_pigeons.wasteless.dto.CheckoutResultDto;
 import com.navbara_pigeons.wasteless.dto.FullListingDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDto;
 import com.navbara_pigeons.wasteless.entity.BusinessType;
 import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessAndListingMismatchException;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ListingValidationException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 
 import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
@@ -28,14 +32,22 @@ public interface ListingService {
   Listing getListing(long listingId) throws ListingNotFoundException;
 
   PaginationDto<FullListingDto> getListings(long businessId, Integer pagStartIndex,
-      Integer pagEndIndex, ListingSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, ListingSortByOption sortBy, boolean isAscending, String cursor,
+      CountMode countMode)
       throws BusinessNotFoundException, UserNotFoundException, InvalidPaginationInputException;
 
-  PaginationDto<FullListingDto> searchListings(ListingsSearchParams params);
+  PaginationDto<FullListingDto> searchListings(ListingsSearchParams params)
+      throws InvalidPaginationInputException;
 
 
   void deleteListing(Long listingId);
 
   TransactionDto purchaseListing(long businessId, long listingId)
-      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException;
-}
\ No newline at end of file
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException;
+
+  TransactionDto purchaseListing(long businessId, long listingId, String idempotencyKey)
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException, InvalidIdempotencyKeyException, UserNotFoundException;
+
+  CheckoutResultDto checkout(long businessId, List<Long> listingIds)
+      throws ListingValidationException, PurchaseConflictException;
+}
@@ -1,43 +1,80 @@
 package com.navbara_pigeons.wasteless.service;
 
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
 import com.navbara_pigeons.wasteless.dao.ListingDao;
 import com.navbara_pigeons.wasteless.dao.specifications.ListingSpecifications;
+import com.navbara_pigeons.wasteless.dto.CheckoutItemDto;
+import com.navbara_pigeons.wasteless.dto.CheckoutResultDto;
+import com.navbara_pigeons.wasteless.dto.FacetedPaginationDto;
 import com.navbara_pigeons.wasteless.dto.FullListingDto;
+import com.navbara_pigeons.wasteless.dto.ListingFacetsDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDto;
 import com.navbara_pigeons.wasteless.entity.Business;
+import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Transaction;
+import com.navbara_pigeons.wasteless.enums.CheckoutItemStatus;
+import com.navbara_pigeons.wasteless.enums.CountMode;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessAndListingMismatchException;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.InventoryItemNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ListingValidationException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.helper.IdempotencyStore;
+import com.navbara_pigeons.wasteless.helper.ListingCursor;
 import com.navbara_pigeons.wasteless.helper.PageableBuilder;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
 import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import com.navbara_pigeons.wasteless.search.ListingFacetCounter;
+import com.navbara_pigeons.wasteless.search.ListingFacetGroup;
+import com.navbara_pigeons.wasteless.search.ListingSearchIndex;
+import com.navbara_pigeons.wasteless.search.ProductAttributeIndex;
+import com.navbara_pigeons.wasteless.search.SearchPlan;
+import com.navbara_pigeons.wasteless.search.SearchPlanCompiler;
 import com.navbara_pigeons.wasteless.validation.ListingServiceValidation;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.persistence.OptimisticLockException;
 import javax.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 
 /**
  * Class for dealing with all business logic to do with listings
  */
+@Slf4j
 @Service
 public class ListingServiceImpl implements ListingService {
 
@@ -46,8 +83,19 @@ public class ListingServiceImpl implements ListingService {
   private final ListingDao listingDao;
   private final InventoryService inventoryService;
   private final TransactionService transactionService;
+  private final ListingSearchIndex listingSearchIndex;
+  private final SearchPlanCompiler searchPlanCompiler;
+  private final ProductAttributeIndex productAttributeIndex;
+  private final TotalCountCache totalCountCache;
+  private final PlatformTransactionManager transactionManager;
+  private final IdempotencyStore idempotencyStore;
+  private final ListingArchiveDao listingArchiveDao;
   @Value("${public_path_prefix}")
   private String publicPathPrefix;
+  @Value("${purchase.max_attempts:3}")
+  private int maxPurchaseAttempts = 3;
+  @Value("${purchase.max_checkout_listings:50}")
+  private int maxCheckoutListings = 50;
 
   /**
    * ListingService constructor that takes autowired parameters and sets up the service for
@@ -56,12 +104,22 @@ public class ListingServiceImpl implements ListingService {
   @Autowired
   public ListingServiceImpl(UserService userService, BusinessService businessService,
       ListingDao listingDao, InventoryService inventoryService,
-      TransactionService transactionService) {
+      TransactionService transactionService, ListingSearchIndex listingSearchIndex,
+      SearchPlanCompiler searchPlanCompiler, ProductAttributeIndex productAttributeIndex,
+      TotalCountCache totalCountCache, PlatformTransactionManager transactionManager,
+      IdempotencyStore idempotencyStore, ListingArchiveDao listingArchiveDao) {
     this.userService = userService;
     this.businessService = businessService;
     this.listingDao = listingDao;
     this.inventoryService = inventoryService;
     this.transactionService = transactionService;
+    this.listingSearchIndex = listingSearchIndex;
+    this.searchPlanCompiler = searchPlanCompiler;
+    this.productAttributeIndex = productAttributeIndex;
+    this.totalCountCache = totalCountCache;
+    this.transactionManager = transactionManager;
+    this.idempotencyStore = idempotencyStore;
+    this.listingArchiveDao = listingArchiveDao;
   }
 
   /**
@@ -94,6 +152,7 @@ public class ListingServiceImpl implements ListingService {
 
     listing.setCreated(ZonedDateTime.now(ZoneOffset.UTC));
     listingDao.saveListing(listing);
+    listingSearchIndex.index(listing);
     return listing.getId();
   }
 
@@ -119,48 +178,190 @@ public class ListingServiceImpl implements ListingService {
    * @param sortBy        Defines the field to be sorted, can be null.
    * @param isAscending   Boolean value, whether the sort order should be in ascending order. Is not
    *                      required and defaults to True.
+   * @param cursor        Keyset pagination cursor from the previous page, an empty string for the
+   *                      first page. Null to use the start index as an offset.
+   * @param countMode     How the total count is worked out, null for an exact count.
    * @return listings in no guaranteed order
    * @throws BusinessNotFoundException
    * @throws UserNotFoundException
    */
   @Override
   public PaginationDto<FullListingDto> getListings(long businessId, Integer pagStartIndex,
-      Integer pagEndIndex, ListingSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, ListingSortByOption sortBy, boolean isAscending, String cursor,
+      CountMode countMode)
       throws BusinessNotFoundException, UserNotFoundException, InvalidPaginationInputException {
     Business business = businessService.getBusiness(businessId);
 
     PaginationBuilder pagBuilder = new PaginationBuilder(Listing.class, sortBy);
     pagBuilder.withPagStartIndex(pagStartIndex)
         .withPagEndIndex(pagEndIndex)
-        .withSortAscending(isAscending);
+        .withSortAscending(isAscending)
+        .withCursor(cursor)
+        .withCountMode(countMode);
 
     Pair<List<Listing>, Long> dataAndTotalCount = listingDao.getListings(business, pagBuilder);
 
-    ArrayList<FullListingDto> listings = new ArrayList<>();
-    for (Listing listing : dataAndTotalCount.getFirst()) {
-      listings.add(new FullListingDto(listing, publicPathPrefix));
+    if (cursor != null) {
+      Integer pageSize = pagBuilder.getPagEndIndex() == null ? null
+          : pagBuilder.getPagEndIndex() - pagBuilder.getPagStartIndex() + 1;
+      return toKeysetPaginationDto(dataAndTotalCount.getFirst(), dataAndTotalCount.getSecond(),
+          pageSize, (ListingSortByOption) pagBuilder.getSortField(), isAscending);
     }
 
-    return new PaginationDto<>(listings, dataAndTotalCount.getSecond());
+    return pagBuilder.toPaginationDto(dataAndTotalCount,
+        listing -> new FullListingDto(listing, publicPathPrefix));
   }
 
   /**
    * Search listings matching ListingSearchParams
    * @param params ListingSearchParams containing, searchParam, PagStartIndex, PagEndIndex, isAscending, and searchKeys
-   * @return PaginationDto of listings and total count of the returned listings
+   * @return PaginationDto of listings and total count of the returned listings, a
+   * FacetedPaginationDto when facet counts were requested
+   * @throws InvalidPaginationInputException when the keyset pagination cursor is invalid
    */
   @Override
   @Transactional
-  public PaginationDto<FullListingDto> searchListings(ListingsSearchParams params) {
+  public PaginationDto<FullListingDto> searchListings(ListingsSearchParams params)
+      throws InvalidPaginationInputException {
+    SearchPlan plan = searchPlanCompiler.compile(params);
+    // Resolve the search string and the product filters in memory when possible, the database then
+    // only applies the remaining filters and pages
+    BitSet products = productAttributeIndex.findMatchingProducts(params).orElse(null);
+    Set<Long> matchingIds = listingSearchIndex.findMatchingListingIds(plan, products)
+        .orElse(null);
+    Specification<Listing> specification = ListingSpecifications
+        .meetsSearchCriteria(params, plan, matchingIds, products == null || matchingIds == null);
+    PaginationDto<FullListingDto> page;
+    if (matchingIds != null && matchingIds.isEmpty()) {
+      page = new PaginationDto<>(new ArrayList<>(), 0L);
+      page.setHasNext(false);
+    } else if (params.getCursor() != null) {
+      page = searchListingsAfterCursor(params, specification);
+    } else if (params.getCountMode() != null && params.getCountMode() != CountMode.EXACT) {
+      page = searchListingsWithoutExactCount(params, specification);
+    } else {
+      ArrayList<FullListingDto> listings = new ArrayList<>();
+      Page<Listing> allListings = listingDao.findAll(specification,
+          new PageableBuilder(params.getPagStartIndex(), params.getPagEndIndex(),
+              params.getSortBy().getKeyPath(), params.isAscending()));
+      Long totalCount = allListings.getTotalElements();
+      for (Listing listing : allListings) {
+        listings.add(new FullListingDto(listing, this.publicPathPrefix));
+      }
+      page = new PaginationDto<>(listings, totalCount);
+      page.setHasNext(params.getPagStartIndex() + listings.size() < totalCount);
+    }
+
+    if (params.isWithFacets()) {
+      // Facets ignore their own filter, so only the search string can be resolved up front
+      Set<Long> textMatchingIds = products == null ? matchingIds
+          : listingSearchIndex.findMatchingListingIds(plan).orElse(null);
+      return new FacetedPaginationDto<>(page, countFacets(params, plan, textMatchingIds));
+    }
+    return page;
+  }
+
+  /**
+   * Counts the facets of a listing search with one grouped aggregate query
+   *
+   * @param params      search params
+   * @param plan        compiled search string of the params
+   * @param matchingIds ids resolved by the search index, or null to match the search string in SQL
+   * @return listing counts for every value of every filter
+   */
+  private ListingFacetsDto countFacets(ListingsSearchParams params, SearchPlan plan,
+      Set<Long> matchingIds) {
+    if (matchingIds != null && matchingIds.isEmpty()) {
+      return new ListingFacetsDto();
+    }
+    List<ListingFacetGroup> groups = listingDao.getListingFacetGroups(
+        ListingSpecifications.meetsFacetBaseCriteria(params, plan, matchingIds));
+    return ListingFacetCounter.count(groups, params);
+  }
+
+  /**
+   * Offset paginated search that does not run a COUNT query for every page. The count is taken
+   * from the total count cache (CACHED) or left out (HAS_NEXT), and one extra listing is fetched
+   * to know whether there is a next page.
+   *
+   * @param params        search params
+   * @param specification search criteria of the params
+   * @return PaginationDto of listings, the total count if counted and whether there is a next page
+   */
+  private PaginationDto<FullListingDto> searchListingsWithoutExactCount(
+      ListingsSearchParams params, Specification<Listing> specification) {
+    PageableBuilder pageable = new PageableBuilder(params.getPagStartIndex(),
+        params.getPagEndIndex(), params.getSortBy().getKeyPath(), params.isAscending());
+    int pageSize = pageable.getPageSize();
+    List<Listing> rows = listingDao.findAllWithLimit(specification, pageable.getSort(),
+        pageable.getOffset(), pageSize + 1);
+    boolean hasNext = rows.size() > pageSize;
+    if (hasNext) {
+      rows = rows.subList(0, pageSize);
+    }
+
     ArrayList<FullListingDto> listings = new ArrayList<>();
-    Page<Listing> allListings = listingDao.findAll(ListingSpecifications.meetsSearchCriteria(params),
-        new PageableBuilder(params.getPagStartIndex(), params.getPagEndIndex(), params.getSortBy().getKeyPath(),
-            params.isAscending()));
-    Long totalCount = allListings.getTotalElements();
-    for (Listing listing : allListings) {
+    for (Listing listing : rows) {
       listings.add(new FullListingDto(listing, this.publicPathPrefix));
     }
-    return new PaginationDto<>(listings, totalCount);
+    Long totalCount = totalCountCache.getTotalCount(TotalCountCache.LISTINGS,
+        params.getCountSignature(), params.getCountMode(), () -> listingDao.count(specification));
+    totalCount = TotalCountCache.toClientCount(totalCount);
+    PaginationDto<FullListingDto> page = new PaginationDto<>(listings, totalCount);
+    page.setHasNext(hasNext);
+    return page;
+  }
+
+  /**
+   * Keyset paginated version of searchListings, seeks past the cursor instead of skipping rows
+   *
+   * @param params        search params holding the cursor
+   * @param specification search criteria of the params
+   * @return PaginationDto of listings, total count and the cursor of the next page
+   * @throws InvalidPaginationInputException when the cursor is invalid
+   */
+  private PaginationDto<FullListingDto> searchListingsAfterCursor(ListingsSearchParams params,
+      Specification<Listing> specification) throws InvalidPaginationInputException {
+    ListingCursor cursor = ListingCursor.decode(params.getCursor(), params.getSortBy(),
+        params.isAscending());
+    int pageSize = params.getPagEndIndex() - params.getPagStartIndex() + 1;
+    Long totalCount = totalCountCache.getTotalCount(TotalCountCache.LISTINGS,
+        params.getCountSignature(), params.getCountMode(), () -> listingDao.count(specification));
+    totalCount = TotalCountCache.toClientCount(totalCount);
+    List<Listing> rows = listingDao.findAllWithLimit(
+        specification.and(ListingSpecifications.isAfterCursor(cursor)),
+        ListingSpecifications.keysetSort(params.getSortBy(), params.isAscending()), pageSize + 1);
+    return toKeysetPaginationDto(rows, totalCount, pageSize, params.getSortBy(),
+        params.isAscending());
+  }
+
+  /**
+   * Builds the response for a keyset paginated query. The query fetches one listing more than the
+   * page size, if it is there the page is trimmed and a cursor to the next page is returned.
+   *
+   * @param rows        listings returned by the query, in order
+   * @param totalCount  total count of listings matching the query
+   * @param pageSize    page size, or null when the page is unbounded
+   * @param sortBy      sort option of the query
+   * @param isAscending sort direction of the query
+   * @return PaginationDto with the next cursor set when there is a next page
+   */
+  private PaginationDto<FullListingDto> toKeysetPaginationDto(List<Listing> rows, Long totalCount,
+      Integer pageSize, ListingSortByOption sortBy, boolean isAscending) {
+    String nextCursor = null;
+    if (pageSize != null && rows.size() > pageSize) {
+      rows = rows.subList(0, pageSize);
+      nextCursor = ListingCursor.after(rows.get(rows.size() - 1), sortBy, isAscending).encode();
+    }
+    ArrayList<FullListingDto> listings = new ArrayList<>();
+    for (Listing listing : rows) {
+      listings.add(new FullListingDto(listing, publicPathPrefix));
+    }
+    PaginationDto<FullListingDto> paginationDto = new PaginationDto<>(listings,
+        TotalCountCache.toClientCount(totalCount));
+    paginationDto.setNextCursor(nextCursor);
+    paginationDto.setHasNext(nextCursor != null);
+    return paginationDto;
   }
 
 
@@ -173,27 +374,127 @@ public class ListingServiceImpl implements ListingService {
   @Transactional
   public void deleteListing(Long listingId) {
     this.listingDao.deleteListing(listingId);
+    listingSearchIndex.remove(Collections.singletonList(listingId));
   }
 
   /**
-   * Purchase a listing from a specific business then save purchase details in a transaction.
+   * Purchase a listing from a specific business then save purchase details in a transaction. Each
+   * attempt runs in its own transaction. The listing is deleted using the version it was read at
+   * and quantity is taken from its inventory item with a conditional update, so when two users buy
+   * the same listing at once only one succeeds. An attempt that conflicts with another change to
+   * the listing is retried a few times before giving up.
    *
    * @param businessId The identifier of the business that owns the listing.
    * @param listingId  The identifier of the listing to be purchased.
    * @return The identifier of the stored transaction
    * @throws InventoryItemNotFoundException      An associated inventory item could not be found
    * @throws BusinessNotFoundException           An associated business could not be found
-   * @throws InventoryUpdateException            The quantity of the inventory item reached bellow
-   *                                             zero. Invalid State.
+   * @throws InventoryUpdateException            The inventory item does not have enough quantity
+   *                                             left for the listing.
    * @throws BusinessAndListingMismatchException There is a mismatch between passed in businessId
    *                                             and the listing's businessId
+   * @throws PurchaseConflictException           The listing was bought by someone else first, or
+   *                                             kept changing while it was being bought
    */
   @Override
-  @Transactional
   public TransactionDto purchaseListing(long businessId, long listingId)
-      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException {
-    Listing listing = this.getListing(listingId);
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException {
+    return purchaseListingWithClaim(businessId, listingId, null);
+  }
+
+  /**
+   * Purchases a listing, storing the result for the idempotency key claim, if any, in the same
+   * transaction as the purchase.
+   */
+  private TransactionDto purchaseListingWithClaim(long businessId, long listingId,
+      IdempotencyStore.Claim claim)
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException {
+    for (int attempt = 1; ; attempt++) {
+      TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+      Transaction transaction;
+      List<Long> soldListingIds = new ArrayList<>();
+      try {
+        Listing listing = this.getListing(listingId);
+        transaction = purchase(businessId, listing);
+        // A sold out inventory item takes all of its listings with it
+        if (listing.getInventoryItem().getQuantity() == 0
+            && listing.getInventoryItem().getListings() != null) {
+          listing.getInventoryItem().getListings().forEach(sold -> soldListingIds.add(sold.getId()));
+        }
+        soldListingIds.add(listingId);
+        if (claim != null) {
+          // Stored with the purchase, so a retry after a crash never finds one without the other
+          claim.record(transaction.getId());
+        }
+        transactionManager.commit(status);
+      } catch (ListingNotFoundException exc) {
+        if (attempt > 1) {
+          throw new PurchaseConflictException("Listing " + listingId + " has already been purchased");
+        }
+        throw exc;
+      } catch (ConcurrencyFailureException | OptimisticLockException exc) {
+        if (attempt >= maxPurchaseAttempts) {
+          throw new PurchaseConflictException(
+              "Listing " + listingId + " changed while it was being purchased, please try again");
+        }
+        log.info("PURCHASE OF LISTING " + listingId + " CONFLICTED, RETRYING");
+        continue;
+      } finally {
+        if (!status.isCompleted()) {
+          transactionManager.rollback(status);
+        }
+      }
+
+      listingSearchIndex.remove(soldListingIds);
+      return new TransactionDto(transaction);
+    }
+  }
+
+  /**
+   * Purchase a listing like purchaseListing(businessId, listingId), but only once per idempotency
+   * key. A retry with the same key gets the transaction made by the first request, waiting for it
+   * if it is still running, so a client that timed out can safely send the purchase again.
+   *
+   * @param businessId     The identifier of the business that owns the listing.
+   * @param listingId      The identifier of the listing to be purchased.
+   * @param idempotencyKey Chosen by the client and unique to each purchase it makes, null to
+   *                       purchase without one
+   * @return The stored transaction, or the one made by the first request with the key
+   * @throws InvalidIdempotencyKeyException The key is too long, or was used to purchase another
+   *                                        listing
+   * @throws PurchaseConflictException      The listing was bought by someone else first, or the
+   *                                        first request with the key is still running
+   */
+  @Override
+  public TransactionDto purchaseListing(long businessId, long listingId, String idempotencyKey)
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException, ListingNotFoundException, PurchaseConflictException, InvalidIdempotencyKeyException, UserNotFoundException {
+    if (idempotencyKey == null) {
+      return purchaseListing(businessId, listingId);
+    }
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key must be between 1 and " + IdempotencyStore.MAX_KEY_LENGTH
+              + " characters");
+    }
 
+    // Keys are chosen by clients so are only unique per user
+    String key = userService.getLoggedInPrincipal().getUserId() + ":" + idempotencyKey;
+    IdempotencyStore.Claim claim = idempotencyStore.claim(key, businessId + "/" + listingId);
+    if (claim.getReplay() != null) {
+      log.info("REPLAYING PURCHASE OF LISTING " + listingId + " FOR A REPEATED IDEMPOTENCY KEY");
+      return claim.getReplay();
+    }
+    try {
+      TransactionDto transaction = purchaseListingWithClaim(businessId, listingId, claim);
+      claim.complete(transaction);
+      return transaction;
+    } finally {
+      claim.release();
+    }
+  }
+
+  private Transaction purchase(long businessId, Listing listing)
+      throws InventoryItemNotFoundException, BusinessNotFoundException, InventoryUpdateException, BusinessAndListingMismatchException {
     // Check if there is a mismatch between passed in businessId and the listing's businessId
     long listingsBusinessId = listing.getInventoryItem().getBusiness().getId();
     if (listingsBusinessId != businessId) {
@@ -202,14 +503,130 @@ public class ListingServiceImpl implements ListingService {
           businessId, listingsBusinessId));
     }
 
+    // Update inventory item quantity, archive and delete listing & delete inventory Item when
+    // quantity reaches zero
+    inventoryService.updateInventoryItemFromPurchase(businessId, listing);
+
     // Create and save a transaction
     Transaction transaction = new Transaction(ZonedDateTime.now(), listing.getCreated(),
         listing.getInventoryItem().getProduct(), businessId, listing.getPrice());
     transactionService.saveTransaction(transaction);
+    return transaction;
+  }
 
-    // Update inventory item quantity, delete listing & delete inventory Item when quantity reaches zero
-    inventoryService.updateInventoryItemFromPurchase(businessId, listing);
+  /**
+   * Purchases many listings from one business in a single transaction. The listings and their
+   * inventory items are locked up front, then bought in ID order with the transactions inserted in
+   * one batch, so a checkout costs a fixed number of queries plus a few batched statements rather
+   * than a full purchase per listing. Listings that can't be bought are skipped and reported, the
+   * rest are still purchased.
+   *
+   * @param businessId The identifier of the business that owns the listings.
+   * @param listingIds The identifiers of the listings to be purchased.
+   * @return The result of each listing
+   * @throws ListingValidationException There are no listings, or too many
+   * @throws PurchaseConflictException  The listings kept changing while they were being bought
+   */
+  @Override
+  public CheckoutResultDto checkout(long businessId, List<Long> listingIds)
+      throws ListingValidationException, PurchaseConflictException {
+    if (listingIds == null || listingIds.isEmpty() || listingIds.size() > maxCheckoutListings) {
+      throw new ListingValidationException(
+          "A checkout must have between 1 and " + maxCheckoutListings + " listings");
+    }
+    Set<Long> requested = new LinkedHashSet<>(listingIds);
+
+    for (int attempt = 1; ; attempt++) {
+      TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+      Map<Long, CheckoutItemDto> results;
+      List<Long> soldListingIds = new ArrayList<>();
+      try {
+        results = checkout(businessId, new TreeSet<>(requested), soldListingIds);
+        transactionManager.commit(status);
+      } catch (ConcurrencyFailureException | OptimisticLockException exc) {
+        if (attempt >= maxPurchaseAttempts) {
+          throw new PurchaseConflictException(
+              "Listings changed while they were being purchased, please try again");
+        }
+        log.info("CHECKOUT OF " + requested.size() + " LISTINGS CONFLICTED, RETRYING");
+        continue;
+      } finally {
+        if (!status.isCompleted()) {
+          transactionManager.rollback(status);
+        }
+      }
+
+      listingSearchIndex.remove(soldListingIds);
+      List<CheckoutItemDto> items = new ArrayList<>();
+      for (Long listingId : requested) {
+        items.add(results.get(listingId));
+      }
+      return new CheckoutResultDto(items);
+    }
+  }
+
+  private Map<Long, CheckoutItemDto> checkout(long businessId, Set<Long> listingIds,
+      List<Long> soldListingIds) {
+    Map<Long, CheckoutItemDto> results = new HashMap<>();
+    List<Listing> purchased = new ArrayList<>();
+    List<Transaction> transactions = new ArrayList<>();
+    ZonedDateTime now = ZonedDateTime.now();
+    for (Listing listing : listingDao.lockListingsForPurchase(listingIds)) {
+      InventoryItem inventoryItem = listing.getInventoryItem();
+      CheckoutItemStatus itemStatus = CheckoutItemStatus.PURCHASED;
+      if (inventoryItem.getBusiness().getId() != businessId) {
+        itemStatus = CheckoutItemStatus.BUSINESS_MISMATCH;
+      } else if (inventoryItem.getQuantity() < listing.getQuantity()) {
+        itemStatus = CheckoutItemStatus.INSUFFICIENT_QUANTITY;
+      }
+      if (itemStatus != CheckoutItemStatus.PURCHASED) {
+        results.put(listing.getId(), new CheckoutItemDto(listing.getId(), itemStatus, null));
+        continue;
+      }
+      // The item is locked, so its quantity can be taken from directly
+      inventoryItem.setQuantity(inventoryItem.getQuantity() - listing.getQuantity());
+      purchased.add(listing);
+      transactions.add(new Transaction(now, listing.getCreated(), inventoryItem.getProduct(),
+          businessId, listing.getPrice()));
+    }
+    for (Long listingId : listingIds) {
+      results.putIfAbsent(listingId,
+          new CheckoutItemDto(listingId, CheckoutItemStatus.NOT_FOUND, null));
+    }
+    if (purchased.isEmpty()) {
+      return results;
+    }
 
-    return new TransactionDto(transaction);
+    transactionService.saveTransactions(transactions);
+    // Entities hash by their fields, so sold out items are kept by ID
+    Map<Long, InventoryItem> soldOut = new LinkedHashMap<>();
+    List<Long> purchasedIds = new ArrayList<>();
+    for (int i = 0; i < purchased.size(); i++) {
+      Listing listing = purchased.get(i);
+      purchasedIds.add(listing.getId());
+      results.put(listing.getId(), new CheckoutItemDto(listing.getId(),
+          CheckoutItemStatus.PURCHASED, new TransactionDto(transactions.get(i))));
+      if (listing.getInventoryItem().getQuantity() == 0) {
+        soldOut.put(listing.getInventoryItem().getId(), listing.getInventoryItem());
+      }
+    }
+    listingArchiveDao.archiveListings(purchasedIds, ListingArchiveReason.SOLD);
+    listingArchiveDao.archiveListingsOfInventoryItems(soldOut.keySet(),
+        ListingArchiveReason.SOLD_OUT);
+
+    for (Listing listing : purchased) {
+      if (!soldOut.containsKey(listing.getInventoryItem().getId())) {
+        listingDao.deleteListing(listing.getId());
+        soldListingIds.add(listing.getId());
+      }
+    }
+    // A sold out inventory item takes all of its listings with it
+    for (InventoryItem inventoryItem : soldOut.values()) {
+      if (inventoryItem.getListings() != null) {
+        inventoryItem.getListings().forEach(sold -> soldListingIds.add(sold.getId()));
+      }
+      inventoryService.deleteInventoryItem(inventoryItem);
+    }
+    return results;
   }
-}
\ No newline at end of file
+}
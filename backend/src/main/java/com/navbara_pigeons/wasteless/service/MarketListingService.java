@@ -3,20 +3,29 @@ package com.navbara_pigeons.wasteless.service;
 import com.navbara_pigeons.wasteless.dto.FullMarketListingDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSearchException;
 import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSectionException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
 import java.util.List;
 
 public interface MarketListingService {
 
+  // Most keywords a card search can filter by at once
+  int MAX_SEARCH_KEYWORDS = 20;
+
   Long saveMarketListing(MarketListing marketListing, List<Long> keywordIds, Long creatorId)
       throws UserNotFoundException, InsufficientPrivilegesException;
 
   PaginationDto<FullMarketListingDto> getMarketListings(
       String section, MarketListingSortByOption sortBy, Integer pagStartIndex, Integer pagEndIndex,
-      boolean isAscending)
+      boolean isAscending, CountMode countMode)
       throws InvalidPaginationInputException, InvalidMarketListingSectionException;
+
+  PaginationDto<FullMarketListingDto> searchMarketListings(MarketListingsSearchParams params)
+      throws InvalidPaginationInputException, InvalidMarketListingSectionException, InvalidMarketListingSearchException;
 }
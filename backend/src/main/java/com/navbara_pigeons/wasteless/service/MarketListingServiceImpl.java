@@ -4,17 +4,21 @@ import com.navbara_pigeons.wasteless.dao.MarketListingDao;
 import com.navbara_pigeons.wasteless.dto.FullMarketListingDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.MarketListing;
-import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.MarketListingSortByOption;
 import com.navbara_pigeons.wasteless.enums.MarketplaceSection;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSearchException;
 import com.navbara_pigeons.wasteless.exception.InvalidMarketListingSectionException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.model.MarketListingsSearchParams;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,8 +44,8 @@ public class MarketListingServiceImpl implements MarketListingService {
   @Transactional
   public Long saveMarketListing(MarketListing marketListing, List<Long> keywordIds, Long creatorId)
       throws UserNotFoundException, InsufficientPrivilegesException {
-    User currentUser = userService.getLoggedInUser();
-    if (!userService.isAdmin() && currentUser.getId() != creatorId) {
+    AuthenticatedPrincipal currentUser = userService.getLoggedInPrincipal();
+    if (!userService.isAdmin() && currentUser.getUserId() != creatorId) {
       throw new InsufficientPrivilegesException(
           "Only a GAA can create a market listing as an other user.");
     }
@@ -57,7 +61,7 @@ public class MarketListingServiceImpl implements MarketListingService {
   @Transactional
   public PaginationDto<FullMarketListingDto> getMarketListings(String section,
       MarketListingSortByOption sortBy, Integer pagStartIndex, Integer pagEndIndex,
-      boolean isAscending)
+      boolean isAscending, CountMode countMode)
       throws InvalidPaginationInputException, InvalidMarketListingSectionException {
     try {
       MarketplaceSection.valueOf(section);
@@ -68,15 +72,51 @@ public class MarketListingServiceImpl implements MarketListingService {
     PaginationBuilder pagBuilder = new PaginationBuilder(MarketListing.class, sortBy);
     pagBuilder.withPagStartIndex(pagStartIndex)
         .withPagEndIndex(pagEndIndex)
-        .withSortAscending(isAscending);
+        .withSortAscending(isAscending)
+        .withCountMode(countMode);
 
     Pair<List<MarketListing>, Long> dataAndTotalCount = marketListingDao
         .getMarketListing(section, pagBuilder);
 
-    List<FullMarketListingDto> clientResults = new ArrayList<>();
-    for (MarketListing marketListing : dataAndTotalCount.getFirst()) {
-      clientResults.add(new FullMarketListingDto(marketListing));
+    return pagBuilder.toPaginationDto(dataAndTotalCount, FullMarketListingDto::new);
+  }
+
+  /**
+   * Searches the active cards of a section by keyword and by text in their title or description.
+   *
+   * @param params the section, filters, pagination and sorting
+   * @return PaginationDto of the matching cards and their total count
+   * @throws InvalidMarketListingSectionException when the section is invalid
+   * @throws InvalidMarketListingSearchException  when too many keywords are given
+   */
+  @Override
+  @Transactional
+  public PaginationDto<FullMarketListingDto> searchMarketListings(
+      MarketListingsSearchParams params)
+      throws InvalidPaginationInputException, InvalidMarketListingSectionException, InvalidMarketListingSearchException {
+    try {
+      MarketplaceSection.valueOf(params.getSection());
+    } catch (IllegalArgumentException | NullPointerException e) {
+      throw new InvalidMarketListingSectionException("Invalid section given");
+    }
+    if (params.getKeywordIds() != null) {
+      // Duplicates would stop a card with every keyword from matching all of them
+      params.setKeywordIds(new ArrayList<>(new LinkedHashSet<>(params.getKeywordIds())));
+      if (params.getKeywordIds().size() > MAX_SEARCH_KEYWORDS) {
+        throw new InvalidMarketListingSearchException(
+            "At most " + MAX_SEARCH_KEYWORDS + " keywords can be searched for at once");
+      }
     }
-    return new PaginationDto<>(clientResults, dataAndTotalCount.getSecond());
+
+    PaginationBuilder pagBuilder = new PaginationBuilder(MarketListing.class, params.getSortBy());
+    pagBuilder.withPagStartIndex(params.getPagStartIndex())
+        .withPagEndIndex(params.getPagEndIndex())
+        .withSortAscending(params.isAscending())
+        .withCountMode(params.getCountMode());
+
+    Pair<List<MarketListing>, Long> dataAndTotalCount = marketListingDao
+        .searchMarketListings(params, pagBuilder);
+
+    return pagBuilder.toPaginationDto(dataAndTotalCount, FullMarketListingDto::new);
   }
 }
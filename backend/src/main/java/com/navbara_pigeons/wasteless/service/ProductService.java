@@ -3,6 +3,7 @@ package com.navbara_pigeons.wasteless.service;
 import com.navbara_pigeons.wasteless.dto.BasicProductDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ProductSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
@@ -15,7 +16,7 @@ import net.minidev.json.JSONObject;
 public interface ProductService {
 
   PaginationDto<BasicProductDto> getProducts(long businessId, Integer pagStartIndex,
-      Integer pagEndIndex, ProductSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, ProductSortByOption sortBy, boolean isAscending, CountMode countMode)
       throws BusinessNotFoundException, InsufficientPrivilegesException, UserNotFoundException, InvalidPaginationInputException;
 
   JSONObject addProduct(long id, Product product)
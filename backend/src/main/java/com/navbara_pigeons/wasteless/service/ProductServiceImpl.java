@@ -7,6 +7,7 @@ import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.Business;
 import com.navbara_pigeons.wasteless.entity.Currency;
 import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ProductSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ForbiddenException;
@@ -16,9 +17,9 @@ import com.navbara_pigeons.wasteless.exception.ProductNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ProductRegistrationException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.search.ProductAttributeIndex;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import javax.transaction.Transactional;
 import net.minidev.json.JSONObject;
@@ -38,6 +39,7 @@ public class ProductServiceImpl implements ProductService {
   private final CountryDataFetcherService countryDataFetcherService;
   private final UserService userService;
   private final BusinessService businessService;
+  private final ProductAttributeIndex productAttributeIndex;
   @Value("${public_path_prefix}")
   private String publicPathPrefix;
 
@@ -51,12 +53,14 @@ public class ProductServiceImpl implements ProductService {
   @Autowired
   public ProductServiceImpl(BusinessDao businessDao, ProductDao productDao,
       UserService userService, BusinessService businessService,
-      CountryDataFetcherService countryDataFetcherService) {
+      CountryDataFetcherService countryDataFetcherService,
+      ProductAttributeIndex productAttributeIndex) {
     this.businessDao = businessDao;
     this.productDao = productDao;
     this.userService = userService;
     this.businessService = businessService;
     this.countryDataFetcherService = countryDataFetcherService;
+    this.productAttributeIndex = productAttributeIndex;
   }
 
   /**
@@ -71,11 +75,12 @@ public class ProductServiceImpl implements ProductService {
    * @param sortBy        Defines the field to be sorted, can be null.
    * @param isAscending   Boolean value, whether the sort order should be in ascending order. Is not
    *                      required and defaults to True.
+   * @param countMode     How the total count is worked out, null for an exact count.
    * @throws BusinessNotFoundException If the business is not listed in the database.
    */
   @Override
   public PaginationDto<BasicProductDto> getProducts(long businessId, Integer pagStartIndex,
-      Integer pagEndIndex, ProductSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, ProductSortByOption sortBy, boolean isAscending, CountMode countMode)
       throws BusinessNotFoundException, InsufficientPrivilegesException, UserNotFoundException, InvalidPaginationInputException {
     if (!this.userService.isAdmin() && !this.businessService.isBusinessAdmin(businessId)) {
       throw new InsufficientPrivilegesException(
@@ -86,15 +91,13 @@ public class ProductServiceImpl implements ProductService {
     PaginationBuilder pagBuilder = new PaginationBuilder(Product.class, sortBy);
     pagBuilder.withPagStartIndex(pagStartIndex)
         .withPagEndIndex(pagEndIndex)
-        .withSortAscending(isAscending);
+        .withSortAscending(isAscending)
+        .withCountMode(countMode);
 
     Pair<List<Product>, Long> dataAndTotalCount = productDao.getProducts(business, pagBuilder);
 
-    ArrayList<BasicProductDto> products = new ArrayList<>();
-    for (Product product : dataAndTotalCount.getFirst()) {
-      products.add(new BasicProductDto(product, publicPathPrefix));
-    }
-    return new PaginationDto<>(products, dataAndTotalCount.getSecond());
+    return pagBuilder.toPaginationDto(dataAndTotalCount,
+        product -> new BasicProductDto(product, publicPathPrefix));
   }
 
   /**
@@ -131,6 +134,7 @@ public class ProductServiceImpl implements ProductService {
 
     product.setCreated(ZonedDateTime.now(ZoneOffset.UTC));
     productDao.saveProduct(product);
+    productAttributeIndex.index(product);
 
     // add product to catalogue table
     business.addCatalogueProduct(product);
@@ -149,6 +153,7 @@ public class ProductServiceImpl implements ProductService {
   @Transactional
   public void saveProduct(Product product) {
     productDao.saveProduct(product);
+    productAttributeIndex.index(product);
   }
 
 }
@@ -1,18 +1,39 @@
 package com.navbara_pigeons.wasteless.service;
 
+import com.navbara_pigeons.wasteless.dto.SalesAnalyticsDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
 import com.navbara_pigeons.wasteless.entity.Transaction;
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 public interface TransactionService {
 
   void saveTransaction(Transaction transaction);
 
+  void saveTransactions(List<Transaction> transactions);
+
   TransactionDataDto getTransactionData(Long businessId, ZonedDateTime startSaleDate,
-      ZonedDateTime endSaleDate, TransactionGranularity granularity)
+      ZonedDateTime endSaleDate, TransactionGranularity granularity, boolean fillGaps)
+      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException,
+      InvalidSalesReportException;
+
+  SalesAnalyticsDto getSalesAnalytics(List<Long> businessIds, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate, int top)
       throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException;
+
+  void exportTransactions(Long businessId, ZonedDateTime startSaleDate, ZonedDateTime endSaleDate,
+      TransactionExportFormat format, OutputStream output)
+      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException, IOException;
+
+  int rebuildSalesRollups();
+
+  List<String> checkSalesRollups();
 }
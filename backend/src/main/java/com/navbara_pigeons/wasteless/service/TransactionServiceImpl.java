@@ -1,14 +1,24 @@
 package com.navbara_pigeons.wasteless.service;
 
+import com.navbara_pigeons.wasteless.analytics.SalesAnalyzer;
 import com.navbara_pigeons.wasteless.dao.TransactionDao;
 import com.navbara_pigeons.wasteless.dao.TransactionDaoHibernate;
+import com.navbara_pigeons.wasteless.dto.SalesAnalyticsDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
 import com.navbara_pigeons.wasteless.entity.Transaction;
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidSalesReportException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.helper.TransactionExportWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -22,31 +32,50 @@ public class TransactionServiceImpl implements TransactionService {
   TransactionDaoHibernate transactionDaoHibernate;
   BusinessService businessService;
   UserService userService;
+  SalesAnalyzer salesAnalyzer;
 
   /**
    * TransactionServiceImpl constructor that takes autowired parameters and sets up the service for
    * interacting with all transaction related services.
    *
    * @param transactionDao The Transaction Data Access Object.
+   * @param salesAnalyzer  Works out sales across many businesses.
    */
   @Autowired
   public TransactionServiceImpl(TransactionDao transactionDao,
       TransactionDaoHibernate transactionDaoHibernate, BusinessService businessService,
-      UserService userService) {
+      UserService userService, SalesAnalyzer salesAnalyzer) {
     this.transactionDao = transactionDao;
     this.transactionDaoHibernate = transactionDaoHibernate;
     this.businessService = businessService;
     this.userService = userService;
+    this.salesAnalyzer = salesAnalyzer;
   }
 
   /**
-   * Method to save a Transaction entity to the database.
+   * Method to save a Transaction entity to the database, and add it to the sales rollup that
+   * sales reports are made from.
    *
    * @param transaction Passed in Transaction model
    */
   @Override
+  @Transactional
   public void saveTransaction(Transaction transaction) {
     transactionDao.save(transaction);
+    transactionDaoHibernate.addToSalesRollup(transaction);
+  }
+
+  /**
+   * Saves many transactions at once, e.g. the purchases of a checkout. The transactions are
+   * inserted in one batch and each business's sales rollup is updated once per day.
+   *
+   * @param transactions the transactions to save, their IDs are set once saved
+   */
+  @Override
+  @Transactional
+  public void saveTransactions(List<Transaction> transactions) {
+    transactionDaoHibernate.saveTransactions(transactions);
+    transactionDaoHibernate.addToSalesRollup(transactions);
   }
 
   /**
@@ -56,16 +85,19 @@ public class TransactionServiceImpl implements TransactionService {
    * @param startSaleDate Start of date range to query by
    * @param endSaleDate   End of date range to query by
    * @param granularity   Granularity to group by dates
+   * @param fillGaps      Include periods without transactions
    * @return TransactionDataDto with transaction data
    * @throws UserNotFoundException           Thrown when user who made request is not found in db
    * @throws BusinessNotFoundException       Thrown businessId doesn't match any business
    * @throws InsufficientPrivilegesException Thrown when user does not have access to query these
    *                                         transactions
+   * @throws InvalidSalesReportException     Thrown when the report would have too many periods
    */
   @Override
   public TransactionDataDto getTransactionData(Long businessId, ZonedDateTime startSaleDate,
-      ZonedDateTime endSaleDate, TransactionGranularity granularity)
-      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException {
+      ZonedDateTime endSaleDate, TransactionGranularity granularity, boolean fillGaps)
+      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException,
+      InvalidSalesReportException {
     if (!businessService.isBusinessAdmin(businessId) && !userService.isAdmin()) {
       throw new InsufficientPrivilegesException(
           "User does not have permission to retrieve transactions from business with id "
@@ -73,6 +105,94 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     return this.transactionDaoHibernate.getTransactionData(businessId, startSaleDate, endSaleDate,
-        granularity);
+        granularity, fillGaps);
+  }
+
+  /**
+   * Works out the sales of many businesses. With no businesses given a GAA gets the whole
+   * marketplace and anyone else gets the businesses they administer.
+   *
+   * @param businessIds   Businesses to include, may be null
+   * @param startSaleDate Start of date range to query by
+   * @param endSaleDate   End of date range to query by
+   * @param top           Number of products in each top list
+   * @return SalesAnalyticsDto with totals, breakdowns and top products
+   * @throws UserNotFoundException           Thrown when user who made request is not found in db
+   * @throws BusinessNotFoundException       Thrown when a businessId doesn't match any business
+   * @throws InsufficientPrivilegesException Thrown when user does not have access to the sales of
+   *                                         one of the businesses
+   */
+  @Override
+  public SalesAnalyticsDto getSalesAnalytics(List<Long> businessIds, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate, int top)
+      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException {
+    boolean isAdmin = userService.isAdmin();
+    if (businessIds == null || businessIds.isEmpty()) {
+      businessIds = isAdmin ? transactionDaoHibernate.getBusinessIdsWithSales()
+          : businessService.getAdministeredBusinessIds();
+    } else if (!isAdmin) {
+      for (long businessId : businessIds) {
+        if (!businessService.isBusinessAdmin(businessId)) {
+          throw new InsufficientPrivilegesException(
+              "User does not have permission to retrieve transactions from business with id "
+                  + businessId);
+        }
+      }
+    }
+    List<Long> distinctIds = businessIds.stream().distinct().collect(Collectors.toList());
+    return salesAnalyzer.analyze(distinctIds, startSaleDate, endSaleDate, top);
+  }
+
+  /**
+   * Writes the transactions of a business in a date range to the given output, one row at a time.
+   * Nothing is written if the user can not view the business's transactions.
+   *
+   * @param businessId    Id of the business to export transactions from
+   * @param startSaleDate Start of date range to export
+   * @param endSaleDate   End of date range to export
+   * @param format        Format to write the transactions in
+   * @param output        Where the export is written, it is not closed
+   * @throws UserNotFoundException           Thrown when user who made request is not found in db
+   * @throws BusinessNotFoundException       Thrown businessId doesn't match any business
+   * @throws InsufficientPrivilegesException Thrown when user does not have access to export these
+   *                                         transactions
+   * @throws IOException                     Thrown when the output can not be written to
+   */
+  @Override
+  @Transactional
+  public void exportTransactions(Long businessId, ZonedDateTime startSaleDate,
+      ZonedDateTime endSaleDate, TransactionExportFormat format, OutputStream output)
+      throws UserNotFoundException, BusinessNotFoundException, InsufficientPrivilegesException, IOException {
+    if (!businessService.isBusinessAdmin(businessId) && !userService.isAdmin()) {
+      throw new InsufficientPrivilegesException(
+          "User does not have permission to export transactions from business with id "
+              + businessId);
+    }
+
+    transactionDaoHibernate.exportTransactions(businessId, startSaleDate, endSaleDate,
+        TransactionExportWriter.create(format, output));
+  }
+
+  /**
+   * Recalculates every business's daily sales rollup from its transactions, e.g. after
+   * transactions were changed outside the application.
+   *
+   * @return the number of rollup rows written
+   */
+  @Override
+  @Transactional
+  public int rebuildSalesRollups() {
+    return transactionDaoHibernate.rebuildSalesRollups();
+  }
+
+  /**
+   * Checks that the daily sales rollups match the transactions they are made from
+   *
+   * @return a description of each business and day that does not match, empty if all do
+   */
+  @Override
+  @Transactional
+  public List<String> checkSalesRollups() {
+    return transactionDaoHibernate.findSalesRollupInconsistencies();
   }
 }
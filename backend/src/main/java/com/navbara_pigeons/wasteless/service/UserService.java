@@ -3,6 +3,7 @@ package com.navbara_pigeons.wasteless.service;
 import com.navbara_pigeons.wasteless.dto.BasicUserDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.AddressValidationException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
@@ -11,6 +12,7 @@ import com.navbara_pigeons.wasteless.exception.UserAlreadyExistsException;
 import com.navbara_pigeons.wasteless.exception.UserAuthenticationException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserRegistrationException;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
 import com.navbara_pigeons.wasteless.security.model.UserCredentials;
 import javax.management.InvalidAttributeValueException;
 import net.minidev.json.JSONObject;
@@ -32,7 +34,7 @@ public interface UserService {
   void revokeAdmin(long id) throws UserNotFoundException, NotAcceptableException;
 
   PaginationDto<BasicUserDto> searchUsers(String searchQuery, Integer pagStartIndex,
-      Integer pagEndIndex, UserSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, UserSortByOption sortBy, boolean isAscending, CountMode countMode)
       throws InvalidAttributeValueException, InvalidPaginationInputException;
 
   void makeUserAdmin(long id) throws UserNotFoundException, BadCredentialsException;
@@ -44,4 +46,6 @@ public interface UserService {
   String getLoggedInUserEmail();
 
   User getLoggedInUser() throws UserNotFoundException;
+
+  AuthenticatedPrincipal getLoggedInPrincipal() throws UserNotFoundException;
 }
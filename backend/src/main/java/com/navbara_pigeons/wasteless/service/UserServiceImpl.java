@@ -5,6 +5,7 @@ import com.navbara_pigeons.wasteless.dao.UserDao;
 import com.navbara_pigeons.wasteless.dto.BasicUserDto;
 import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.AddressValidationException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
@@ -14,11 +15,12 @@ import com.navbara_pigeons.wasteless.exception.UserAuthenticationException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserRegistrationException;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.security.PrincipalCache;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
 import com.navbara_pigeons.wasteless.security.model.BasicUserDetails;
 import com.navbara_pigeons.wasteless.security.model.UserCredentials;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import javax.management.InvalidAttributeValueException;
 import javax.transaction.Transactional;
@@ -50,6 +52,7 @@ public class UserServiceImpl implements UserService {
   private final BCryptPasswordEncoder encoder;
   private final ObjectMapper objectMapper;
   private final BusinessService businessService;
+  private final PrincipalCache principalCache;
 
   @Value("${dgaa.user.email}")
   private String dgaaEmail;
@@ -63,17 +66,19 @@ public class UserServiceImpl implements UserService {
    * @param authenticationManagerBuilder The global AuthenticationManagerBuilder.
    * @param encoder                      Password encoder.
    * @param businessService
+   * @param principalCache               Caches the authorisation details of logged in users.
    */
   @Autowired
   public UserServiceImpl(UserDao userDao, AddressService addressService,
       AuthenticationManagerBuilder authenticationManagerBuilder, BCryptPasswordEncoder encoder,
-      ObjectMapper objectMapper, BusinessService businessService) {
+      ObjectMapper objectMapper, BusinessService businessService, PrincipalCache principalCache) {
     this.userDao = userDao;
     this.addressService = addressService;
     this.authenticationManagerBuilder = authenticationManagerBuilder;
     this.encoder = encoder;
     this.objectMapper = objectMapper;
     this.businessService = businessService;
+    this.principalCache = principalCache;
   }
 
   /**
@@ -184,6 +189,7 @@ public class UserServiceImpl implements UserService {
    * @param sortBy        Defines the field to be sorted, can be null.
    * @param isAscending   Boolean value, whether the sort order should be in ascending order. Is not
    *                      required and defaults to True.
+   * @param countMode     How the total count is worked out, null for an exact count.
    * @return A paginated/sorted list containing all the users whose names/nickname match the
    * username
    * @throws InvalidAttributeValueException
@@ -191,21 +197,18 @@ public class UserServiceImpl implements UserService {
   @Override
   @Transactional
   public PaginationDto<BasicUserDto> searchUsers(String searchQuery, Integer pagStartIndex,
-      Integer pagEndIndex, UserSortByOption sortBy, boolean isAscending)
+      Integer pagEndIndex, UserSortByOption sortBy, boolean isAscending, CountMode countMode)
       throws InvalidAttributeValueException, InvalidPaginationInputException {
 
     PaginationBuilder pagBuilder = new PaginationBuilder(User.class, sortBy);
     pagBuilder.withPagStartIndex(pagStartIndex)
         .withPagEndIndex(pagEndIndex)
-        .withSortAscending(isAscending);
+        .withSortAscending(isAscending)
+        .withCountMode(countMode);
 
     Pair<List<User>, Long> dataAndTotalCount = userDao.searchUsers(searchQuery, pagBuilder);
 
-    List<BasicUserDto> clientResults = new ArrayList<>();
-    for (User user : dataAndTotalCount.getFirst()) {
-      clientResults.add(new BasicUserDto(user));
-    }
-    return new PaginationDto<>(clientResults, dataAndTotalCount.getSecond());
+    return pagBuilder.toPaginationDto(dataAndTotalCount, BasicUserDto::new);
   }
 
   /**
@@ -227,6 +230,7 @@ public class UserServiceImpl implements UserService {
     // Add GAA role to user
     userToBeAdmin.makeAdmin();
     userDao.saveUser(userToBeAdmin);
+    principalCache.invalidate(userToBeAdmin.getEmail());
   }
 
   /**
@@ -254,6 +258,7 @@ public class UserServiceImpl implements UserService {
     user.revokeAdmin();
     // Update the database with the updated user
     userDao.saveUser(user);
+    principalCache.invalidate(user.getEmail());
     // Check if the revoked user is the current user
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     if (auth.getName().equalsIgnoreCase(user.getEmail())) {
@@ -320,4 +325,17 @@ public class UserServiceImpl implements UserService {
     return userDao.getUserByEmail(getLoggedInUserEmail());
   }
 
+  /**
+   * Gets the ID, email and role of the currently logged in user. Use this instead of
+   * getLoggedInUser when the User entity itself is not needed, as it is cached. The businesses the
+   * user administers are kept by BusinessAdminIndex.
+   *
+   * @return logged in user's principal
+   * @throws UserNotFoundException
+   */
+  @Override
+  public AuthenticatedPrincipal getLoggedInPrincipal() throws UserNotFoundException {
+    return principalCache.getPrincipal(getLoggedInUserEmail());
+  }
+
 }
@@ -1,5 +1,9 @@
 /* MAIN SCHEMA DEFINITION */
 
+DROP TABLE IF EXISTS idempotency_record CASCADE;
+DROP TABLE IF EXISTS notification CASCADE;
+DROP TABLE IF EXISTS listing_archive CASCADE;
+DROP TABLE IF EXISTS sales_rollup CASCADE;
 DROP TABLE IF EXISTS transaction CASCADE;
 DROP TABLE IF EXISTS marketlisting_keyword CASCADE;
 DROP TABLE IF EXISTS keyword CASCADE;
@@ -59,14 +63,18 @@ CREATE TABLE business
     CREATED                  DATETIME    NOT NULL,
     PRIMARY_ADMINISTRATOR_ID BIGINT      NOT NULL,
     ADDRESS_ID               BIGINT      NOT NULL,
-    CONSTRAINT business_address_fk FOREIGN KEY (ADDRESS_ID) REFERENCES address (ID)
+    CONSTRAINT business_address_fk FOREIGN KEY (ADDRESS_ID) REFERENCES address (ID),
+    INDEX business_primary_administrator_idx (PRIMARY_ADMINISTRATOR_ID)
 );
 
 CREATE TABLE image
 (
     ID                 BIGINT AUTO_INCREMENT PRIMARY KEY,
-    FILENAME           VARCHAR(100) NOT NULL,
-    THUMBNAIL_FILENAME VARCHAR(120) NOT NULL
+    FILENAME           VARCHAR(150) NOT NULL,
+    THUMBNAIL_FILENAME VARCHAR(170) NOT NULL,
+    STATUS             VARCHAR(20)  NOT NULL DEFAULT 'READY',
+    RENDITION_SIZES    VARCHAR(50)  NOT NULL DEFAULT '',
+    INDEX image_filename_idx (FILENAME)
 );
 
 CREATE TABLE product
@@ -142,11 +150,14 @@ CREATE TABLE inventory_item
     MANUFACTURED   DATE,
     SELL_BY        DATE,
     BEST_BEFORE    DATE,
+    VERSION        BIGINT NOT NULL DEFAULT 0,
 
     CONSTRAINT inventory_item_product_fk
         FOREIGN KEY (PRODUCT_ID) REFERENCES product (ID),
     CONSTRAINT inventory_item_business_fk
-        FOREIGN KEY (BUSINESS_ID) REFERENCES business (ID)
+        FOREIGN KEY (BUSINESS_ID) REFERENCES business (ID),
+    -- (expiry, ID) index scanned by the expiry sweeper
+    INDEX inventory_item_expires_id_idx (EXPIRES, ID)
 );
 
 
@@ -159,8 +170,35 @@ CREATE TABLE listing
     MORE_INFO         VARCHAR(50),
     CREATED           DATETIME,
     CLOSES            DATETIME,
+    VERSION           BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT inventory_item_fk
-        FOREIGN KEY (INVENTORY_ITEM_ID) REFERENCES inventory_item (ID)
+        FOREIGN KEY (INVENTORY_ITEM_ID) REFERENCES inventory_item (ID),
+    -- (sort key, ID) indexes used by keyset pagination
+    INDEX listing_created_id_idx (CREATED, ID),
+    INDEX listing_closes_id_idx (CLOSES, ID),
+    INDEX listing_price_id_idx (PRICE, ID)
+);
+
+-- Sold and closed listings, moved out of listing so searches only scan live ones. Products and
+-- businesses are copied in as they were, so there are no foreign keys
+CREATE TABLE listing_archive
+(
+    ID                BIGINT       PRIMARY KEY,
+    INVENTORY_ITEM_ID BIGINT       NOT NULL,
+    BUSINESS_ID       BIGINT       NOT NULL,
+    BUSINESS_NAME     VARCHAR(50)  NOT NULL,
+    PRODUCT_ID        BIGINT       NOT NULL,
+    PRODUCT_NAME      VARCHAR(100) NOT NULL,
+    MANUFACTURER      VARCHAR(100),
+    QUANTITY          BIGINT       NOT NULL,
+    PRICE             DOUBLE       NOT NULL,
+    MORE_INFO         VARCHAR(50),
+    CREATED           DATETIME,
+    CLOSES            DATETIME,
+    EXPIRES           DATE,
+    ARCHIVED          DATETIME     NOT NULL,
+    REASON            ENUM ('SOLD', 'SOLD_OUT', 'CLOSED', 'EXPIRED') NOT NULL,
+    INDEX listing_archive_business_archived_idx (BUSINESS_ID, ARCHIVED, ID)
 );
 
 CREATE TABLE marketlisting
@@ -169,10 +207,25 @@ CREATE TABLE marketlisting
     CREATOR_ID         BIGINT                               NOT NULL,
     SECTION            ENUM ('ForSale','Wanted','Exchange') NOT NULL,
     CREATED            DATETIME,
-    DISPLAY_PERIOD_END DATETIME,
+    DISPLAY_PERIOD_END DATETIME                             NOT NULL,
     TITLE              VARCHAR(50)                          NOT NULL,
     DESCRIPTION        VARCHAR(1000),
-    CONSTRAINT user_fk FOREIGN KEY (CREATOR_ID) REFERENCES user (ID)
+    CONSTRAINT user_fk FOREIGN KEY (CREATOR_ID) REFERENCES user (ID),
+    INDEX marketlisting_section_display_period_end_idx (SECTION, DISPLAY_PERIOD_END)
+);
+
+CREATE TABLE notification
+(
+    ID                 BIGINT AUTO_INCREMENT PRIMARY KEY,
+    USER_ID            BIGINT                                                   NOT NULL,
+    TYPE               ENUM ('MARKET_LISTING_EXPIRING', 'MARKET_LISTING_EXPIRED') NOT NULL,
+    MARKETLISTING_ID   BIGINT                                                   NOT NULL,
+    TITLE              VARCHAR(50)                                              NOT NULL,
+    DISPLAY_PERIOD_END DATETIME                                                 NOT NULL,
+    CREATED            DATETIME                                                 NOT NULL,
+    CONSTRAINT notification_user_fk FOREIGN KEY (USER_ID) REFERENCES user (ID),
+    CONSTRAINT notification_marketlisting_type_uk UNIQUE (MARKETLISTING_ID, TYPE),
+    INDEX notification_user_created_idx (USER_ID, CREATED)
 );
 
 CREATE TABLE keyword
@@ -191,7 +244,8 @@ CREATE TABLE marketlisting_keyword
     CONSTRAINT marketlisting_keyword_fk
         FOREIGN KEY (MARKETLISTING_ID) REFERENCES marketlisting (ID),
     CONSTRAINT keyword_marketlisting_fk
-        FOREIGN KEY (KEYWORD_ID) REFERENCES keyword (ID)
+        FOREIGN KEY (KEYWORD_ID) REFERENCES keyword (ID),
+    INDEX marketlisting_keyword_keyword_idx (KEYWORD_ID, MARKETLISTING_ID)
 );
 
 CREATE TABLE transaction
@@ -205,6 +259,29 @@ CREATE TABLE transaction
     CONSTRAINT TRANSACTION_PRODUCT_FK
         FOREIGN KEY (PRODUCT_ID) REFERENCES product (ID),
     CONSTRAINT TRANSACTION_BUSINESS_FK
+        FOREIGN KEY (BUSINESS_ID) REFERENCES business (ID),
+    INDEX transaction_business_sale_date_idx (BUSINESS_ID, SALE_DATE)
+);
+
+CREATE TABLE idempotency_record
+(
+    IDEMPOTENCY_KEY VARCHAR(150) PRIMARY KEY,
+    REQUEST         VARCHAR(50) NOT NULL,
+    TRANSACTION_ID  BIGINT      NOT NULL,
+    EXPIRES         DATETIME    NOT NULL,
+    CONSTRAINT IDEMPOTENCY_RECORD_TRANSACTION_FK
+        FOREIGN KEY (TRANSACTION_ID) REFERENCES transaction (ID),
+    INDEX idempotency_record_expires_idx (EXPIRES)
+);
+
+CREATE TABLE sales_rollup
+(
+    BUSINESS_ID       BIGINT NOT NULL,
+    SALE_DAY          DATE   NOT NULL,
+    TRANSACTION_COUNT BIGINT NOT NULL,
+    AMOUNT            DOUBLE NOT NULL,
+    PRIMARY KEY (BUSINESS_ID, SALE_DAY),
+    CONSTRAINT SALES_ROLLUP_BUSINESS_FK
         FOREIGN KEY (BUSINESS_ID) REFERENCES business (ID)
 );
 
@@ -879,117 +956,117 @@ VALUES (5001, 1001),
 
 INSERT INTO inventory_item (ID, PRODUCT_ID, BUSINESS_ID, QUANTITY, PRICE_PER_ITEM, TOTAL_PRICE,
                             EXPIRES, MANUFACTURED, SELL_BY, BEST_BEFORE)
-VALUES (5001, 5001, 1001, 20, 4.67, 90.00, '2021-08-16', '2021-08-06',
+VALUES (5001, 5001, 1001, 20, 4.67, 90.00, '2099-08-16', '2021-08-06',
         '2021-08-15', '2021-08-16'),
-       (5002, 5002, 1002, 30, 4.90, 130.00, '2021-08-20', '2021-08-07',
+       (5002, 5002, 1002, 30, 4.90, 130.00, '2099-08-20', '2021-08-07',
         '2021-08-19', '2021-08-20'),
-       (5003, 5003, 1001, 5, 2.80, 14.00, '2021-09-30', '2021-05-14',
+       (5003, 5003, 1001, 5, 2.80, 14.00, '2099-09-30', '2021-05-14',
         '2021-08-28', '2021-08-25'),
-       (5004, 5004, 1003, 10, 5.90, 55.00, '2021-08-16', '2021-08-13',
+       (5004, 5004, 1003, 10, 5.90, 55.00, '2099-08-16', '2021-08-13',
         '2021-08-15', '2021-08-16'),
-       (5005, 5005, 1001, 12, 3.40, 40.00, '2021-09-25', '2021-09-10',
+       (5005, 5005, 1001, 12, 3.40, 40.00, '2099-09-25', '2021-09-10',
         '2021-08-24', '2021-08-23'),
-       (5006, 5006, 1004, 24, 4.70, 112.00, '2021-08-29', '2021-09-22',
+       (5006, 5006, 1004, 24, 4.70, 112.00, '2099-08-29', '2021-09-22',
         '2021-08-28', '2021-08-27'),
-       (5007, 5007, 1005, 25, 3.99, 95.00, '2022-01-16', '2020-11-14',
+       (5007, 5007, 1005, 25, 3.99, 95.00, '2099-01-16', '2020-11-14',
         '2022-01-01', '2021-11-14'),
-       (5008, 5008, 1006, 5, 2.49, 12.00, '2021-10-01', '2021-07-03',
+       (5008, 5008, 1006, 5, 2.49, 12.00, '2099-10-01', '2021-07-03',
         '2021-09-20', '2021-09-20'),
-       (5009, 5009, 1007, 9, 4.20, 37.80, '2021-12-01', '2021-08-13',
+       (5009, 5009, 1007, 9, 4.20, 37.80, '2099-12-01', '2021-08-13',
         '2021-12-01', '2021-11-13'),
-       (5010, 5010, 1008, 40, 3.70, 148.00, '2021-10-01', '2021-09-29',
+       (5010, 5010, 1008, 40, 3.70, 148.00, '2099-10-01', '2021-09-29',
         '2021-10-01', '2021-10-01'),
-       (5011, 5011, 1009, 20, 3.55, 70.00, '2021-02-16', '2019-10-24',
+       (5011, 5011, 1009, 20, 3.55, 70.00, '2099-02-16', '2019-10-24',
         '2021-02-15', '2021-01-30'),
-       (5012, 5012, 1010, 13, 1.99, 25.00, '2021-10-05', '2021-09-08',
+       (5012, 5012, 1010, 13, 1.99, 25.00, '2099-10-05', '2021-09-08',
         '2021-10-04', '2021-10-02');
 
 -- Inserting listing data
 
 INSERT INTO listing (ID, INVENTORY_ITEM_ID, QUANTITY, PRICE, MORE_INFO, CREATED, CLOSES)
 VALUES (5001, 5001, 15, 79.99, 'Sinking Milk found after a diving expedition', '2021-05-16 21:16:17',
-        '2021-10-16 21:16:26'),
-       (5002, 5002, 18, 89.99, '100% antibiotic free, 50% worm-free', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5003, 5003, 5, 18.99, 'Just some milk', '2021-09-30 21:16:17', '2021-12-16 21:16:26'),
-       (5004, 5004, 10, 64.99, 'Because sweater milk is overrated', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5005, 5005, 11, 39.99, 'Almonds are secondhand but milk is still good', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5006, 5006, 22, 105.00, 'Pick up only, at business address', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5007, 5007, 24, 100.00, 'Delivery available, price negotiable', '2021-09-30 21:16:17', '2021-10-17 21:11:26'),
-       (5008, 5008, 4, 15.00, 'Accidentally added cocoa powder, still tastes good', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5009, 5009, 3, 13.00, 'Pick up only, at business address', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5010, 5010, 25, 99.99, 'Vampires complained, so batch on sale', '2021-09-30 21:16:17', '2021-10-17 21:16:26'),
-       (5011, 5011, 20, 75.00, 'Mis-ordered batch wanted Pop salt, Pickup only', '2021-09-30 21:16:17', '2021-10-16 21:16:26'),
-       (5012, 5012, 12, 24.00, null, '2021-09-30 21:16:17', '2021-12-16 21:16:26');
+        '2099-10-16 21:16:26'),
+       (5002, 5002, 18, 89.99, '100% antibiotic free, 50% worm-free', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5003, 5003, 5, 18.99, 'Just some milk', '2021-09-30 21:16:17', '2099-12-16 21:16:26'),
+       (5004, 5004, 10, 64.99, 'Because sweater milk is overrated', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5005, 5005, 11, 39.99, 'Almonds are secondhand but milk is still good', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5006, 5006, 22, 105.00, 'Pick up only, at business address', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5007, 5007, 24, 100.00, 'Delivery available, price negotiable', '2021-09-30 21:16:17', '2099-10-17 21:11:26'),
+       (5008, 5008, 4, 15.00, 'Accidentally added cocoa powder, still tastes good', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5009, 5009, 3, 13.00, 'Pick up only, at business address', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5010, 5010, 25, 99.99, 'Vampires complained, so batch on sale', '2021-09-30 21:16:17', '2099-10-17 21:16:26'),
+       (5011, 5011, 20, 75.00, 'Mis-ordered batch wanted Pop salt, Pickup only', '2021-09-30 21:16:17', '2099-10-16 21:16:26'),
+       (5012, 5012, 12, 24.00, null, '2021-09-30 21:16:17', '2099-12-16 21:16:26');
 
 INSERT INTO marketlisting (ID, CREATOR_ID, SECTION, CREATED, DISPLAY_PERIOD_END, TITLE, DESCRIPTION)
-VALUES (2501, 5001, 'ForSale', '2021-10-13 15:34:20', '2021-11-13 15:34:20', 'Shoddy web app',
+VALUES (2501, 5001, 'ForSale', '2021-10-13 15:34:20', '2099-11-13 15:34:20', 'Shoddy web app',
         'Wanting to sell Wasteless, no longer needed or wanted.'),
-       (2529, 5001, 'Wanted', '2021-10-13 15:34:20', '2021-11-13 15:34:20', 'Fresh motivation',
+       (2529, 5001, 'Wanted', '2021-10-13 15:34:20', '2099-11-13 15:34:20', 'Fresh motivation',
         'Will pay for motivation.'),
-       (2530, 5001, 'Exchange', '2021-10-13 15:34:20', '2021-11-13 15:34:20', 'Nothing for something',
+       (2530, 5001, 'Exchange', '2021-10-13 15:34:20', '2099-11-13 15:34:20', 'Nothing for something',
         'I will pay you in 100% nothing and I expect something good in return. No time wasters'),
 
-       (2502, 5002, 'Wanted', '2021-10-14 15:34:20', '2021-11-14 15:34:20', 'Pool Table',
+       (2502, 5002, 'Wanted', '2021-10-14 15:34:20', '2099-11-14 15:34:20', 'Pool Table',
         'Looking for a 7ft pool table with accessories.'),
-       (2503, 5002, 'ForSale', '2021-10-14 15:34:20', '2021-11-14 15:34:20', 'Al Merrick 5''9 Surfboard',
+       (2503, 5002, 'ForSale', '2021-10-14 15:34:20', '2099-11-14 15:34:20', 'Al Merrick 5''9 Surfboard',
         'Channel Islands Dumpster Diver Surfboard. 5''9 9 3/4 2 3/8. Surf including fins. I''am selling this awesome board because I don''t have enough experience to surf on the board..'),
-       (2504, 5002, 'Exchange', '2021-10-14 15:34:20', '2021-11-14 15:34:20', 'Toothpick for toothpaste',
+       (2504, 5002, 'Exchange', '2021-10-14 15:34:20', '2099-11-14 15:34:20', 'Toothpick for toothpaste',
         'I have this toothpick that i''m not really using, I just got a toothbrush and it feels like a waste when I dont have any toothpaste.'),
 
-       (2505, 5003, 'Wanted', '2021-10-12 15:34:20', '2021-11-12 15:34:20', 'RCA cable',
+       (2505, 5003, 'Wanted', '2021-10-12 15:34:20', '2099-11-12 15:34:20', 'RCA cable',
         'After a 2m+ cheap RCA cable.'),
-       (2506, 5003, 'ForSale', '2021-10-12 15:34:20', '2021-11-12 15:34:20', 'Recliner gaming chair',
+       (2506, 5003, 'ForSale', '2021-10-12 15:34:20', '2099-11-12 15:34:20', 'Recliner gaming chair',
         'Good condition, right arm lose, just needs to be fixed with screws.'),
-       (2507, 5003, 'Exchange', '2021-10-12 15:34:20', '2021-11-12 15:34:20', 'Pokemon cards',
+       (2507, 5003, 'Exchange', '2021-10-12 15:34:20', '2099-11-12 15:34:20', 'Pokemon cards',
         'I have the first 17 limited edition Pokemon cards and am getting sick of them. Looking to swap for a Yu Gi Oh set.'),
 
-       (2508, 5004, 'Wanted', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'Pennywise - IT Movie Memorabilia',
+       (2508, 5004, 'Wanted', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'Pennywise - IT Movie Memorabilia',
         'After a Pennywise costume for an upcoming party.'),
-       (2509, 5004, 'ForSale', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'O Scott World Hoodie',
+       (2509, 5004, 'ForSale', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'O Scott World Hoodie',
         'Hoodie with Matrix Print by O Scott World. Awesome local Designer! Size  M depending on desired fit. Inquire for measurements if needed'),
-       (2510, 5004, 'Exchange', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'Court Purple Sb Dunks',
+       (2510, 5004, 'Exchange', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'Court Purple Sb Dunks',
         'Looking to swap my dusty shoes for some less dusty ones.'),
 
-       (2511, 5005, 'Wanted', '2021-10-11 15:34:20', '2021-11-11 15:34:20', 'All Blacks flag',
+       (2511, 5005, 'Wanted', '2021-10-11 15:34:20', '2099-11-11 15:34:20', 'All Blacks flag',
         'Want a large All Blacks flag to hang on my flagpole outside. If anyone knows anyone who has or makes one please get in contact.'),
-       (2512, 5005, 'ForSale', '2021-10-11 15:34:20', '2021-11-11 15:34:20', 'Whitebait',
+       (2512, 5005, 'ForSale', '2021-10-11 15:34:20', '2099-11-11 15:34:20', 'Whitebait',
         'Whitebait fresh and frozen $40 pound, $20 half pound'),
-       (2513, 5005, 'Exchange', '2021-10-11 15:34:20', '2021-11-11 15:34:20', '2013 Mercedes A180',
+       (2513, 5005, 'Exchange', '2021-10-11 15:34:20', '2099-11-11 15:34:20', '2013 Mercedes A180',
         'Only considering swaps for a BMW, will pay extra.'),
 
-       (2514, 5006, 'Wanted', '2021-10-05 15:34:20', '2021-11-05 15:34:20', 'Bonsai tree',
+       (2514, 5006, 'Wanted', '2021-10-05 15:34:20', '2099-11-05 15:34:20', 'Bonsai tree',
         'Looking for a small Bonsai under $60.'),
-       (2515, 5006, 'ForSale', '2021-10-05 15:34:20', '2021-11-05 15:34:20', 'Red Bull energy drink 250ml x 3',
+       (2515, 5006, 'ForSale', '2021-10-05 15:34:20', '2099-11-05 15:34:20', 'Red Bull energy drink 250ml x 3',
         'Brand new.'),
-       (2516, 5006, 'Exchange', '2021-10-05 15:34:20', '2021-11-05 15:34:20', 'Bataleon "push" up 143cm snowboard',
+       (2516, 5006, 'Exchange', '2021-10-05 15:34:20', '2099-11-05 15:34:20', 'Bataleon "push" up 143cm snowboard',
         'Bataleon “push up” 143cm snowboard women’s in good condition used for less than 1 season. Accepting swaps for a surfboard'),
 
-       (2517, 5007, 'Wanted', '2021-09-25 15:34:20', '2021-10-25 15:34:20', 'Sunglasses',
+       (2517, 5007, 'Wanted', '2021-09-25 15:34:20', '2099-10-25 15:34:20', 'Sunglasses',
         'Hi all, I just gave birth to 7 kids and need size 0 sunnies for them all as we are about to go on a massive ski trip.'),
-       (2518, 5007, 'ForSale', '2021-09-25 15:34:20', '2021-10-25 15:34:20', 'Camelbak drink bottle',
+       (2518, 5007, 'ForSale', '2021-09-25 15:34:20', '2099-10-25 15:34:20', 'Camelbak drink bottle',
         'Fair used. $15 ONO'),
-       (2519, 5007, 'Exchange', '2021-09-25 15:34:20', '2021-10-25 15:34:20', 'PS4 for Xbox One',
+       (2519, 5007, 'Exchange', '2021-09-25 15:34:20', '2099-10-25 15:34:20', 'PS4 for Xbox One',
         'Just got a PS5 for myself and looking to trade my old PS4 for an Xbox One for my little brother.'),
 
-       (2520, 5008, 'Wanted', '2021-09-21 15:34:20', '2021-10-21 15:34:20', 'North face jacket',
+       (2520, 5008, 'Wanted', '2021-09-21 15:34:20', '2099-10-21 15:34:20', 'North face jacket',
         'Looking for a size M North face jacket or similar.'),
-       (2521, 5008, 'ForSale', '2021-09-21 15:34:20', '2021-10-21 15:34:20', 'Beginners plant pack, fresh cuttings',
+       (2521, 5008, 'ForSale', '2021-09-21 15:34:20', '2099-10-21 15:34:20', 'Beginners plant pack, fresh cuttings',
         '7 different cuttings all decent size in a pack, perfect for beginners. $15 and happy to drop off locally for a fee'),
-       (2522, 5008, 'Exchange', '2021-09-21 15:34:20', '2021-10-21 15:34:20', 'Free bike',
+       (2522, 5008, 'Exchange', '2021-09-21 15:34:20', '2099-10-21 15:34:20', 'Free bike',
         'I do not need anything in exchange but didn''t know where else to list this.'),
 
-       (2523, 5009, 'Wanted', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'Flatmate wanted',
+       (2523, 5009, 'Wanted', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'Flatmate wanted',
         'Hey all. I''m looking for someone to fill a room in this modern home with myself and a mate. $150 p/w or $220 for a couple (+ expenses). It''s located in Redwood off Grimseys Road (highway noise isn''t an issue) just down the road from Northlands mall, about 10-15 minutes drive from Uni. You would be living with a couple of easy going guys in their early 20''s that enjoy a few drinks and games in the weekend. One of us is a student and the other is a full time worker. Small pets negotiable - no dogs. Move in date ASAP'),
-       (2524, 5009, 'ForSale', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'Poker Chips',
+       (2524, 5009, 'ForSale', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'Poker Chips',
         'Poker Chips, PMO.'),
-       (2525, 5009, 'Exchange', '2021-10-01 15:34:20', '2021-11-01 15:34:20', 'Coffee table',
+       (2525, 5009, 'Exchange', '2021-10-01 15:34:20', '2099-11-01 15:34:20', 'Coffee table',
         'Looking to trade my bunnings coffee table ($688 RRP) for a nice dining table.'),
 
-       (2526, 5010, 'Wanted', '2021-10-11 15:34:20', '2021-11-11 15:34:20', 'FLATMATE WANTED',
+       (2526, 5010, 'Wanted', '2021-10-11 15:34:20', '2099-11-11 15:34:20', 'FLATMATE WANTED',
         'Kia Ora Team, Looking for someone to join me in a two bed two bath flat in the Soho apartment block. Key deets: Rent - $300/week, Expenses - $30/week, Double room - comes with your own ensuite, Super sunny and central!'),
-       (2527, 5010, 'ForSale', '2021-10-11 15:34:20', '2021-11-11 15:34:20', 'Fresh Fadez',
+       (2527, 5010, 'ForSale', '2021-10-11 15:34:20', '2099-11-11 15:34:20', 'Fresh Fadez',
         'I am an up and coming barber learning how to do sick fadez and lines. Will daps you right up on entry. $5'),
-       (2528, 5010, 'Exchange', '2021-10-11 15:34:20', '2021-11-11 15:34:20', 'Fake Rolex',
+       (2528, 5010, 'Exchange', '2021-10-11 15:34:20', '2099-11-11 15:34:20', 'Fake Rolex',
         'Accepting swaps for my fake rolex. Will consider fake Gucci/Louis Vuitton jacket.');
 
 
@@ -1165,6 +1242,11 @@ VALUES (5001, '2020-01-02 15:34:20', '2021-01-21 15:34:20', 5001, 1001, 5.25),
        (5143, '2021-10-15 15:34:20', '2021-03-19 15:34:20', 5002, 1002, 5.10),
        (5144, '2021-10-15 15:34:20', '2021-03-19 15:34:20', 5002, 1002, 12.10);
 
+INSERT INTO sales_rollup (BUSINESS_ID, SALE_DAY, TRANSACTION_COUNT, AMOUNT)
+SELECT BUSINESS_ID, DATE(SALE_DATE), COUNT(*), SUM(AMOUNT)
+FROM transaction
+GROUP BY BUSINESS_ID, DATE(SALE_DATE);
+
 #Sets closing of realistic data to some random timeafter the showcase.
 UPDATE listing SET CLOSES = FROM_UNIXTIME(UNIX_TIMESTAMP('2021-10-17 00:00:00') + FLOOR(RAND() * 1000000)) WHERE ID > 5000 AND ID <= 5012;
 
@@ -0,0 +1,93 @@
+package com.navbara_pigeons.wasteless.analytics;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.TransactionDaoHibernate;
+import com.navbara_pigeons.wasteless.dto.SalesAnalyticsDto;
+import com.navbara_pigeons.wasteless.model.ProductSalesModel;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class SalesAnalyzerTest {
+
+  private TransactionDaoHibernate transactionDaoHibernate;
+  private SalesAnalyzer salesAnalyzer;
+
+  @BeforeEach
+  void beforeEach() {
+    transactionDaoHibernate = mock(TransactionDaoHibernate.class);
+    salesAnalyzer = new SalesAnalyzer(transactionDaoHibernate,
+        mock(PlatformTransactionManager.class), 2, 2);
+    // Each business sells one product with the business's ID, which sold after ID hours
+    when(transactionDaoHibernate.getProductSales(anyList(), any(), any()))
+        .thenAnswer(invocation -> ((List<Long>) invocation.getArgument(0)).stream()
+            .map(businessId -> productSales(businessId, businessId % 2 == 0 ? "RETAIL" : "CHARITY",
+                businessId * 10.0, businessId * 3600))
+            .collect(Collectors.toList()));
+  }
+
+  @AfterEach
+  void afterEach() throws InterruptedException {
+    salesAnalyzer.shutdown();
+  }
+
+  @Test
+  void analyze_mergesEveryPartition() {
+    // Act
+    SalesAnalyticsDto analytics = salesAnalyzer.analyze(List.of(1L, 2L, 3L, 4L, 5L),
+        ZonedDateTime.now(), ZonedDateTime.now(), 2);
+
+    // Assert
+    verify(transactionDaoHibernate, times(3)).getProductSales(anyList(), any(), any());
+    Assertions.assertEquals(5, analytics.getTotal().getTransactionCount());
+    Assertions.assertEquals(150.0, analytics.getTotal().getAmount());
+    Assertions.assertEquals(3, analytics.getByBusinessType().get("CHARITY").getTransactionCount());
+    Assertions.assertEquals(60.0, analytics.getByBusinessType().get("RETAIL").getAmount());
+    Assertions.assertEquals(5, analytics.getByCountry().get("New Zealand").getTransactionCount());
+  }
+
+  @Test
+  void analyze_topProducts() {
+    // Act
+    SalesAnalyticsDto analytics = salesAnalyzer.analyze(List.of(1L, 2L, 3L, 4L, 5L),
+        ZonedDateTime.now(), ZonedDateTime.now(), 2);
+
+    // Assert
+    Assertions.assertEquals(List.of(5L, 4L), analytics.getTopProductsByRevenue().stream()
+        .map(ProductSalesModel::getProductId).collect(Collectors.toList()));
+    Assertions.assertEquals(List.of(1L, 2L), analytics.getFastestSellingProducts().stream()
+        .map(ProductSalesModel::getProductId).collect(Collectors.toList()));
+    Assertions.assertEquals(1.0,
+        analytics.getFastestSellingProducts().get(0).getSales().getAverageSellThroughHours());
+  }
+
+  @Test
+  void analyze_noBusinesses_expectEmpty() {
+    // Act
+    SalesAnalyticsDto analytics = salesAnalyzer.analyze(List.of(), ZonedDateTime.now(),
+        ZonedDateTime.now(), 10);
+
+    // Assert
+    Assertions.assertEquals(0, analytics.getTotal().getTransactionCount());
+    Assertions.assertTrue(analytics.getTopProductsByRevenue().isEmpty());
+  }
+
+  private static ProductSalesModel productSales(long businessId, String businessType,
+      double amount, long sellThroughSeconds) {
+    ProductSalesModel product = new ProductSalesModel(businessId, "Product " + businessId,
+        businessId, businessType, "New Zealand");
+    product.getSales().add(1, amount, sellThroughSeconds);
+    return product;
+  }
+}
@@ -0,0 +1,68 @@
+package com.navbara_pigeons.wasteless.configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+class MeteredCacheTest {
+
+  private MeteredCache meteredCache;
+
+  @BeforeEach
+  void beforeEach() {
+    meteredCache = new MeteredCache(new ConcurrentMapCache(CachingConfig.KEYWORDS));
+  }
+
+  @Test
+  void lookupsAreCounted() {
+    // Act
+    meteredCache.get("all");
+    meteredCache.put("all", "keywords");
+    meteredCache.get("all");
+    meteredCache.get("all", String.class);
+
+    // Assert
+    Assertions.assertEquals(2, meteredCache.getHits());
+    Assertions.assertEquals(1, meteredCache.getMisses());
+  }
+
+  @Test
+  void valueLoaderOnlyCountsMissWhenCalled() {
+    // Act
+    String first = meteredCache.get("all", () -> "keywords");
+    String second = meteredCache.get("all", () -> "reloaded");
+
+    // Assert
+    Assertions.assertEquals("keywords", first);
+    Assertions.assertEquals("keywords", second);
+    Assertions.assertEquals(1, meteredCache.getHits());
+    Assertions.assertEquals(1, meteredCache.getMisses());
+  }
+
+  @Test
+  void evictionClearsValue() {
+    // Arrange
+    meteredCache.put("all", "keywords");
+
+    // Act
+    meteredCache.clear();
+
+    // Assert
+    Assertions.assertNull(meteredCache.get("all"));
+  }
+
+  @Test
+  void valueReadBeforeEvictionIsNotKept() {
+    // Arrange
+    meteredCache.get("all");
+
+    // Act
+    // Another transaction's eviction commits between the miss and the put of what was read
+    meteredCache.clear();
+    meteredCache.put("all", "stale keywords");
+
+    // Assert
+    Assertions.assertNull(meteredCache.get("all"));
+  }
+}
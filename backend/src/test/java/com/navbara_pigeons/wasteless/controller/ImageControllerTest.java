@@ -0,0 +1,102 @@
+package com.navbara_pigeons.wasteless.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.navbara_pigeons.wasteless.exception.ImageNotFoundException;
+import com.navbara_pigeons.wasteless.image.ImageStore;
+import com.navbara_pigeons.wasteless.model.ImageFile;
+import com.navbara_pigeons.wasteless.service.ImageService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests serving image files without the application context, as the files are mocked
+ */
+class ImageControllerTest {
+
+  private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+  private static final String URL = "/images/products/2c/f2/" + HASH + ".png";
+  private static final String THUMBNAIL_ETAG = ImageStore.hash("0123456789".getBytes());
+
+  @TempDir
+  Path tempDirectory;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    Path file = Files.write(tempDirectory.resolve("image.png"), "0123456789".getBytes());
+    ImageService imageService = mock(ImageService.class);
+    when(imageService.getImageFile("2c/f2/" + HASH + ".png"))
+        .thenReturn(new ImageFile(file, 10, HASH, true));
+    when(imageService.getImageFile("2c/f2/" + HASH + "_thumbnail.png"))
+        .thenReturn(new ImageFile(file, 10, THUMBNAIL_ETAG, false));
+    when(imageService.getImageFile("2c/f2/missing.png")).thenThrow(new ImageNotFoundException());
+    mockMvc = MockMvcBuilders.standaloneSetup(new ImageController(imageService)).build();
+  }
+
+  @Test
+  void getProductImage_servesImmutableFile() throws Exception {
+    mockMvc.perform(get(URL))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes("0123456789".getBytes()))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"));
+  }
+
+  @Test
+  void getProductImage_thumbnailMustBeRevalidated() throws Exception {
+    mockMvc.perform(get("/images/products/2c/f2/" + HASH + "_thumbnail.png"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + THUMBNAIL_ETAG + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+  }
+
+  @Test
+  void getProductImage_matchingEtagIsNotModified() throws Exception {
+    mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().bytes(new byte[0]));
+  }
+
+  @Test
+  void getProductImage_servesRange() throws Exception {
+    mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5"))
+        .andExpect(status().isPartialContent())
+        .andExpect(content().bytes("2345".getBytes()))
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"));
+  }
+
+  @Test
+  void getProductImage_rangePastEndIsNotSatisfiable() throws Exception {
+    mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=20-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+  }
+
+  @Test
+  void getProductImage_staleIfRangeServesWholeFile() throws Exception {
+    mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5")
+        .header(HttpHeaders.IF_RANGE, "\"old\""))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes("0123456789".getBytes()));
+  }
+
+  @Test
+  void getProductImage_missingFileIsNotFound() throws Exception {
+    mockMvc.perform(get("/images/products/2c/f2/missing.png"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -1,6 +1,8 @@
 package com.navbara_pigeons.wasteless.controller;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import com.navbara_pigeons.wasteless.testprovider.ControllerTestProvider;
 import org.junit.jupiter.api.Test;
@@ -22,4 +24,63 @@ class MarketListingControllerTest extends ControllerTestProvider {
     mockMvc.perform(get("/cards?section=" + invalidSection)).andExpect(status().isBadRequest());
   }
 
+  @Test
+  @WithMockUser
+  void searchMarketListings_keywordsAndQuery() throws Exception {
+    mockMvc.perform(get("/cards/search?section=ForSale&keywordIds=1,2&matchAllKeywords=true"
+        + "&searchQuery=surfboard")).andExpect(status().isOk());
+  }
+
+  // The seed data tags Wanted cards 2505 and 2529 'Cheap' (101), and 2505 'Electronic' (102)
+  @Test
+  @WithMockUser
+  void searchMarketListings_anyKeyword() throws Exception {
+    mockMvc.perform(get("/cards/search?section=Wanted&keywordIds=101,102"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[*].id", containsInAnyOrder(2505, 2529)));
+  }
+
+  @Test
+  @WithMockUser
+  void searchMarketListings_allKeywords() throws Exception {
+    mockMvc.perform(get("/cards/search?section=Wanted&keywordIds=101,102&matchAllKeywords=true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[*].id", containsInAnyOrder(2505)));
+  }
+
+  @Test
+  @WithMockUser
+  void searchMarketListings_queryIsCaseInsensitive() throws Exception {
+    mockMvc.perform(get("/cards/search?section=Wanted&searchQuery=Flatmate"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[*].id", containsInAnyOrder(2523, 2526)));
+  }
+
+  @Test
+  @WithMockUser
+  void searchMarketListings_queryWildcardMatchesItself() throws Exception {
+    // Only 2530 mentions "100% nothing"
+    mockMvc.perform(get("/cards/search").param("section", "Exchange").param("searchQuery", "%"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[*].id", containsInAnyOrder(2530)));
+  }
+
+  @Test
+  @WithMockUser
+  void searchMarketListings_invalidSection() throws Exception {
+    mockMvc.perform(get("/cards/search?section=FakeSection&keywordIds=1"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser
+  void searchMarketListings_tooManyKeywords() throws Exception {
+    StringBuilder keywordIds = new StringBuilder("1");
+    for (int i = 2; i <= 21; i++) {
+      keywordIds.append(",").append(i);
+    }
+    mockMvc.perform(get("/cards/search?section=Wanted&keywordIds=" + keywordIds))
+        .andExpect(status().isBadRequest());
+  }
+
 }
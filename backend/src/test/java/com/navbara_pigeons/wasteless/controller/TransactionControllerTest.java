@@ -230,4 +230,34 @@ class TransactionControllerTest extends ControllerTestProvider {
     System.out.println(transactions);
     Assertions.assertEquals(2, transactions.size());
   }
+
+  @Test
+  @WithUserDetails(value = "dnb36@uclive.ac.nz")
+  void getTransactionHistory_fillGaps_expectEveryPeriod() throws Exception {
+    LocalDate startDate = LocalDate.parse("2021-02-21");
+    LocalDate   endDate = LocalDate.parse("2021-04-21");
+    String stringResponse = mockMvc.perform(
+        get("/businesses/" + BUSINESS_ID + "/transactions")
+            .param("startDate", startDate.toString())
+            .param("endDate", endDate.toString())
+            .param("transactionGranularity", TransactionGranularity.MONTH.toString())
+            .param("fillGaps", "true")
+    )
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    JsonNode response = objectMapper.readTree(stringResponse);
+    JsonNode transactions = response.get("transactions");
+    Assertions.assertEquals(3, transactions.size());
+  }
+
+  @Test
+  @WithUserDetails(value = "dnb36@uclive.ac.nz")
+  void getTransactionHistory_invalidTimeZone_expectBadRequest() throws Exception {
+    mockMvc.perform(
+        get("/businesses/" + BUSINESS_ID + "/transactions")
+            .param("timeZone", "Not/AZone")
+    )
+        .andExpect(status().isBadRequest());
+  }
 }
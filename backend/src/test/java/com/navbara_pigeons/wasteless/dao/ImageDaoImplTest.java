@@ -0,0 +1,61 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import static org.mockito.Mockito.mock;
+
+import com.navbara_pigeons.wasteless.image.ImageStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ImageDaoImplTest {
+
+  @TempDir
+  Path storageDirectory;
+
+  private ImageDaoImpl imageDao;
+
+  @BeforeEach
+  void beforeEach() {
+    imageDao = new ImageDaoImpl(mock(EntityManager.class));
+    ReflectionTestUtils.setField(imageDao, "storagePath", storageDirectory.toString());
+  }
+
+  @Test
+  void saveProductImageToTempFile_streamsAndHashesUpload() throws Exception {
+    // Arrange
+    byte[] content = new byte[1024 * 1024 + 7];
+    new Random(13).nextBytes(content);
+    MessageDigest digest = ImageStore.newDigest();
+
+    // Act
+    Path tempFile = imageDao
+        .saveProductImageToTempFile(new MockMultipartFile("a.png", content), digest);
+
+    // Assert
+    Assertions.assertArrayEquals(content, Files.readAllBytes(tempFile));
+    Assertions.assertEquals(ImageStore.hash(content), ImageStore.toHex(digest.digest()));
+  }
+
+  @Test
+  void moveProductImageIntoPlace_movesTempFile() throws Exception {
+    // Arrange
+    Path tempFile = imageDao.saveProductImageToTempFile(
+        new MockMultipartFile("a.png", "image".getBytes()), ImageStore.newDigest());
+
+    // Act
+    imageDao.moveProductImageIntoPlace(tempFile, "/products/ab/cd/abcd.png");
+
+    // Assert
+    Assertions.assertFalse(Files.exists(tempFile));
+    Assertions.assertArrayEquals("image".getBytes(),
+        imageDao.readProductImageFromMachine("/products/ab/cd/abcd.png"));
+  }
+}
@@ -0,0 +1,71 @@
+package com.navbara_pigeons.wasteless.dao;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.helper.SalesPeriods;
+import com.navbara_pigeons.wasteless.helper.TransactionExportWriter;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import javax.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TransactionDaoHibernateImplTest {
+
+  private static final ZonedDateTime END = ZonedDateTime.of(2021, 10, 1, 0, 0, 0, 0,
+      ZoneOffset.UTC);
+
+  private Query<?> query;
+  private TransactionExportWriter writer;
+  private TransactionDaoHibernateImpl transactionDao;
+
+  @BeforeEach
+  void beforeEach() {
+    EntityManager entityManager = mock(EntityManager.class);
+    Session session = mock(Session.class);
+    query = mock(Query.class, RETURNS_SELF);
+    ScrollableResults results = mock(ScrollableResults.class);
+    when(entityManager.unwrap(Session.class)).thenReturn(session);
+    when(session.createQuery(anyString())).thenAnswer(invocation -> query);
+    when(query.scroll(any(ScrollMode.class))).thenReturn(results);
+    writer = mock(TransactionExportWriter.class);
+    transactionDao = new TransactionDaoHibernateImpl(entityManager, 3660);
+  }
+
+  @Test
+  void exportTransactions_noStartDate_startsAtEarliestDay() throws Exception {
+    // Arrange
+    ZonedDateTime start = LocalDate.MIN.atStartOfDay(ZoneOffset.UTC);
+
+    // Act
+    transactionDao.exportTransactions(1L, start, END, writer);
+
+    // Assert
+    verify(query).setParameter("startDate",
+        SalesPeriods.EARLIEST_DAY.atStartOfDay(ZoneOffset.UTC));
+    verify(query).setParameter("endDate", END);
+    verify(writer).flush();
+  }
+
+  @Test
+  void exportTransactions_startDate_keepsStartDate() throws Exception {
+    // Arrange
+    ZonedDateTime start = END.minusMonths(1);
+
+    // Act
+    transactionDao.exportTransactions(1L, start, END, writer);
+
+    // Assert
+    verify(query).setParameter("startDate", start);
+  }
+}
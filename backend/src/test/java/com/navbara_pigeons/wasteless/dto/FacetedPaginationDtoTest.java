@@ -0,0 +1,27 @@
+package com.navbara_pigeons.wasteless.dto;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FacetedPaginationDtoTest {
+
+  @Test
+  void keepsPageFields() {
+    // Arrange
+    PaginationDto<String> page = new PaginationDto<>(List.of("a", "b"), null);
+    page.setNextCursor("cursor");
+    page.setHasNext(true);
+    ListingFacetsDto facets = new ListingFacetsDto();
+
+    // Act
+    FacetedPaginationDto<String> faceted = new FacetedPaginationDto<>(page, facets);
+
+    // Assert
+    Assertions.assertEquals(List.of("a", "b"), faceted.getResults());
+    Assertions.assertNull(faceted.getTotalCount());
+    Assertions.assertEquals("cursor", faceted.getNextCursor());
+    Assertions.assertTrue(faceted.getHasNext());
+    Assertions.assertSame(facets, faceted.getFacets());
+  }
+}
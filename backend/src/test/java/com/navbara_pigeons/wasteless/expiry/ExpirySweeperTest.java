@@ -0,0 +1,123 @@
+package com.navbara_pigeons.wasteless.expiry;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.InventoryDao;
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
+import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.search.ListingSearchIndex;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ExpirySweeperTest {
+
+  private static final ZonedDateTime CLOSED = ZonedDateTime.now().minusDays(3);
+  private static final LocalDate EXPIRED = LocalDate.now().minusDays(3);
+
+  private ListingDao listingDao;
+  private InventoryDao inventoryDao;
+  private ListingArchiveDao listingArchiveDao;
+  private ListingSearchIndex listingSearchIndex;
+
+  @BeforeEach
+  void beforeEach() {
+    listingDao = mock(ListingDao.class);
+    inventoryDao = mock(InventoryDao.class);
+    listingArchiveDao = mock(ListingArchiveDao.class);
+    listingSearchIndex = mock(ListingSearchIndex.class);
+  }
+
+  private ExpirySweeper makeSweeper(boolean dryRun) {
+    return new ExpirySweeper(listingDao, inventoryDao, listingArchiveDao, listingSearchIndex,
+        mock(PlatformTransactionManager.class), 2, 10, dryRun);
+  }
+
+  @Test
+  void sweep_deletesClosedListingsInBatches() {
+    // Arrange
+    when(listingDao.getClosedListingKeys(any(), isNull(), eq(2)))
+        .thenReturn(List.of(Pair.of(CLOSED, 1L), Pair.of(CLOSED, 2L)));
+    when(listingDao.getClosedListingKeys(any(), eq(Pair.of(CLOSED, 2L)), eq(2)))
+        .thenReturn(List.of(Pair.of(CLOSED, 3L)));
+
+    // Act
+    ExpirySweeper.SweepResult result = makeSweeper(false).sweep();
+
+    // Assert
+    Assertions.assertEquals(3, result.getListings());
+    verify(listingArchiveDao).archiveListings(List.of(1L, 2L), ListingArchiveReason.CLOSED);
+    verify(listingDao).deleteListings(List.of(1L, 2L));
+    verify(listingDao).deleteListings(List.of(3L));
+    verify(listingSearchIndex).remove(List.of(1L, 2L));
+    verify(listingSearchIndex).remove(List.of(3L));
+  }
+
+  @Test
+  void sweep_deletesExpiredInventoryItemsWithTheirListings() {
+    // Arrange
+    ExpirySweeper sweeper = makeSweeper(false);
+    when(inventoryDao.getExpiredInventoryItemKeys(any(), isNull(), eq(2)))
+        .thenReturn(List.of(Pair.of(EXPIRED, 5L)));
+    when(listingDao.getListingIdsOfInventoryItems(List.of(5L))).thenReturn(List.of(8L, 9L));
+
+    // Act
+    ExpirySweeper.SweepResult result = sweeper.sweep();
+
+    // Assert
+    Assertions.assertEquals(1, result.getInventoryItems());
+    Assertions.assertEquals(1, sweeper.getInventoryItemsSwept());
+    verify(listingArchiveDao).archiveListings(List.of(8L, 9L), ListingArchiveReason.EXPIRED);
+    verify(listingDao).deleteListings(List.of(8L, 9L));
+    verify(inventoryDao).deleteInventoryItems(List.of(5L));
+    verify(listingSearchIndex).remove(List.of(8L, 9L));
+  }
+
+  @Test
+  void sweep_dryRun_deletesNothing() {
+    // Arrange
+    ExpirySweeper sweeper = makeSweeper(true);
+    when(listingDao.getClosedListingKeys(any(), isNull(), eq(2)))
+        .thenReturn(List.of(Pair.of(CLOSED, 1L)));
+    when(inventoryDao.getExpiredInventoryItemKeys(any(), isNull(), eq(2)))
+        .thenReturn(List.of(Pair.of(EXPIRED, 5L)));
+
+    // Act
+    ExpirySweeper.SweepResult result = sweeper.sweep();
+
+    // Assert
+    Assertions.assertTrue(result.isDryRun());
+    Assertions.assertEquals(1, result.getListings());
+    Assertions.assertEquals(1, result.getInventoryItems());
+    Assertions.assertEquals(0, sweeper.getListingsSwept());
+    verify(listingArchiveDao, never()).archiveListings(any(), any());
+    verify(listingDao, never()).deleteListings(any());
+    verify(inventoryDao, never()).deleteInventoryItems(any());
+  }
+
+  @Test
+  void sweep_stopsAfterMaxBatches() {
+    // Arrange
+    when(listingDao.getClosedListingKeys(any(), any(), anyInt()))
+        .thenReturn(List.of(Pair.of(CLOSED, 1L), Pair.of(CLOSED, 2L)));
+
+    // Act
+    ExpirySweeper.SweepResult result = makeSweeper(false).sweep();
+
+    // Assert
+    Assertions.assertEquals(20, result.getListings());
+  }
+}
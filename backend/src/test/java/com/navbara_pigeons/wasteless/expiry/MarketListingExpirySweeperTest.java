@@ -0,0 +1,90 @@
+package com.navbara_pigeons.wasteless.expiry;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.MarketListingDao;
+import com.navbara_pigeons.wasteless.dao.NotificationDao;
+import com.navbara_pigeons.wasteless.enums.NotificationType;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class MarketListingExpirySweeperTest {
+
+  private static final ZonedDateTime ENDED = ZonedDateTime.now().minusDays(3);
+  private static final ZonedDateTime ENDING = ZonedDateTime.now().plusHours(3);
+
+  private MarketListingDao marketListingDao;
+  private NotificationDao notificationDao;
+  private MarketListingExpirySweeper sweeper;
+
+  @BeforeEach
+  void beforeEach() {
+    marketListingDao = mock(MarketListingDao.class);
+    notificationDao = mock(NotificationDao.class);
+    sweeper = new MarketListingExpirySweeper(marketListingDao, notificationDao,
+        mock(PlatformTransactionManager.class), 86400000, 2, 10);
+  }
+
+  @Test
+  void sweep_removesExpiredCardsInBatches() {
+    // Arrange
+    when(marketListingDao.getMarketListingKeysEndingBy(eq("ForSale"), isNull(), any(), isNull(),
+        eq(2))).thenReturn(List.of(Pair.of(ENDED, 1L), Pair.of(ENDED, 2L)));
+    when(marketListingDao.getMarketListingKeysEndingBy(eq("ForSale"), isNull(), any(),
+        eq(Pair.of(ENDED, 2L)), eq(2))).thenReturn(List.of(Pair.of(ENDED, 3L)));
+
+    // Act
+    MarketListingExpirySweeper.SweepResult result = sweeper.sweep();
+
+    // Assert
+    Assertions.assertEquals(3, result.getRemoved());
+    Assertions.assertEquals(3, sweeper.getCardsRemoved());
+    verify(notificationDao).queueMarketListingNotifications(List.of(1L, 2L),
+        NotificationType.MARKET_LISTING_EXPIRED);
+    verify(marketListingDao).deleteMarketListings(List.of(1L, 2L));
+    verify(marketListingDao).deleteMarketListings(List.of(3L));
+  }
+
+  @Test
+  void sweep_warnsAboutExpiringCardsWithoutRemovingThem() {
+    // Arrange
+    when(marketListingDao.getMarketListingKeysEndingBy(eq("Wanted"), notNull(), any(), isNull(),
+        eq(2))).thenReturn(List.of(Pair.of(ENDING, 5L)));
+
+    // Act
+    MarketListingExpirySweeper.SweepResult result = sweeper.sweep();
+
+    // Assert
+    Assertions.assertEquals(1, result.getWarned());
+    Assertions.assertEquals(0, result.getRemoved());
+    verify(notificationDao).queueMarketListingNotifications(List.of(5L),
+        NotificationType.MARKET_LISTING_EXPIRING);
+    verify(marketListingDao, never()).deleteMarketListings(any());
+  }
+
+  @Test
+  void sweep_stopsAfterMaxBatches() {
+    // Arrange
+    when(marketListingDao.getMarketListingKeysEndingBy(eq("Exchange"), isNull(), any(), any(),
+        anyInt())).thenReturn(List.of(Pair.of(ENDED, 1L), Pair.of(ENDED, 2L)));
+
+    // Act
+    MarketListingExpirySweeper.SweepResult result = sweeper.sweep();
+
+    // Assert
+    Assertions.assertEquals(20, result.getRemoved());
+  }
+}
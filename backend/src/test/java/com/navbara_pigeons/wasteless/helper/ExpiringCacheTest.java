@@ -0,0 +1,94 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  private AtomicLong loads;
+
+  @BeforeEach
+  void beforeEach() {
+    loads = new AtomicLong();
+  }
+
+  private Long load(String key) {
+    return loads.incrementAndGet();
+  }
+
+  @Test
+  void get_reusesValueWithinTtl() {
+    // Arrange
+    ExpiringCache<String, Long> cache = new ExpiringCache<>(60000, 10);
+
+    // Act
+    Long first = cache.get("a", this::load);
+    Long second = cache.get("a", this::load);
+
+    // Assert
+    Assertions.assertEquals(1L, first);
+    Assertions.assertEquals(1L, second);
+    Assertions.assertEquals(1, cache.getHits());
+    Assertions.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  void get_reloadsExpiredValue() {
+    // Arrange
+    ExpiringCache<String, Long> cache = new ExpiringCache<>(0, 10);
+
+    // Act
+    cache.get("a", this::load);
+    Long value = cache.get("a", this::load);
+
+    // Assert
+    Assertions.assertEquals(2L, value);
+  }
+
+  @Test
+  void get_dropsEverythingWhenFull() {
+    // Arrange
+    ExpiringCache<String, Long> cache = new ExpiringCache<>(60000, 1);
+    cache.get("a", this::load);
+
+    // Act
+    cache.get("b", this::load);
+    Long value = cache.get("a", this::load);
+
+    // Assert
+    Assertions.assertEquals(3L, value);
+  }
+
+  @Test
+  void get_doesNotKeepValueLoadedDuringInvalidation() {
+    // Arrange
+    ExpiringCache<String, Long> cache = new ExpiringCache<>(60000, 10);
+
+    // Act
+    cache.get("a", key -> {
+      cache.invalidate("b");
+      return load(key);
+    });
+    Long value = cache.get("a", this::load);
+
+    // Assert
+    Assertions.assertEquals(2L, value);
+  }
+
+  @Test
+  void get_doesNotKeepFailedLoad() {
+    // Arrange
+    ExpiringCache<String, Long> cache = new ExpiringCache<>(60000, 10);
+
+    // Act
+    Assertions.assertThrows(IllegalStateException.class, () -> cache.get("a", key -> {
+      throw new IllegalStateException();
+    }));
+    Long value = cache.get("a", this::load);
+
+    // Assert
+    Assertions.assertEquals(1L, value);
+  }
+}
@@ -0,0 +1,174 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.IdempotencyRecordDao;
+import com.navbara_pigeons.wasteless.dao.TransactionDao;
+import com.navbara_pigeons.wasteless.dto.TransactionDto;
+import com.navbara_pigeons.wasteless.entity.IdempotencyRecord;
+import com.navbara_pigeons.wasteless.entity.Transaction;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class IdempotencyStoreTest {
+
+  private IdempotencyRecordDao idempotencyRecordDao;
+  private TransactionDao transactionDao;
+
+  @BeforeEach
+  void beforeEach() {
+    idempotencyRecordDao = mock(IdempotencyRecordDao.class);
+    transactionDao = mock(TransactionDao.class);
+  }
+
+  private IdempotencyStore makeStore(long ttl, long waitTimeout, boolean persistent) {
+    return new IdempotencyStore(idempotencyRecordDao, transactionDao,
+        mock(PlatformTransactionManager.class), ttl, 10, waitTimeout, persistent);
+  }
+
+  private TransactionDto makeResult(long transactionId) {
+    TransactionDto result = new TransactionDto();
+    result.setTransactionId(transactionId);
+    return result;
+  }
+
+  @Test
+  void claim_retryReplaysResult() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, false);
+    IdempotencyStore.Claim claim = store.claim("1:key", "1/2");
+    claim.complete(makeResult(7));
+
+    // Act
+    IdempotencyStore.Claim retry = store.claim("1:key", "1/2");
+
+    // Assert
+    Assertions.assertNull(claim.getReplay());
+    Assertions.assertEquals(7, retry.getReplay().getTransactionId());
+    Assertions.assertEquals(1, store.getReplays());
+  }
+
+  @Test
+  void claim_differentRequest_expectInvalidKey() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, false);
+    store.claim("1:key", "1/2").complete(makeResult(7));
+
+    // Act & Assert
+    Assertions.assertThrows(InvalidIdempotencyKeyException.class,
+        () -> store.claim("1:key", "1/3"));
+  }
+
+  @Test
+  void claim_afterRelease_expectClaimedAgain() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, false);
+    store.claim("1:key", "1/2").release();
+
+    // Act
+    IdempotencyStore.Claim retry = store.claim("1:key", "1/2");
+
+    // Assert
+    Assertions.assertNull(retry.getReplay());
+  }
+
+  @Test
+  void claim_afterExpiry_expectClaimedAgain() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(0, 1000, false);
+    store.claim("1:key", "1/2").complete(makeResult(7));
+
+    // Act
+    IdempotencyStore.Claim retry = store.claim("1:key", "1/2");
+
+    // Assert
+    Assertions.assertNull(retry.getReplay());
+  }
+
+  @Test
+  void claim_whileOriginalRunning_waitsForResult() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 5000, false);
+    IdempotencyStore.Claim claim = store.claim("1:key", "1/2");
+    CompletableFuture<IdempotencyStore.Claim> retry = CompletableFuture.supplyAsync(() -> {
+      try {
+        return store.claim("1:key", "1/2");
+      } catch (Exception exc) {
+        throw new IllegalStateException(exc);
+      }
+    });
+
+    // Act
+    Thread.sleep(50);
+    claim.complete(makeResult(7));
+
+    // Assert
+    Assertions.assertEquals(7, retry.get(5, TimeUnit.SECONDS).getReplay().getTransactionId());
+  }
+
+  @Test
+  void claim_whileOriginalRunning_expectConflictAfterWaiting() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 10, false);
+    store.claim("1:key", "1/2");
+
+    // Act & Assert
+    Assertions.assertThrows(PurchaseConflictException.class, () -> store.claim("1:key", "1/2"));
+  }
+
+  @Test
+  void claim_persistent_replaysStoredResult() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, true);
+    Transaction transaction = new Transaction();
+    transaction.setId(7L);
+    when(idempotencyRecordDao.findById("1:key")).thenReturn(Optional.of(
+        new IdempotencyRecord("1:key", "1/2", 7L, ZonedDateTime.now().plusHours(1))));
+    when(transactionDao.findById(7L)).thenReturn(Optional.of(transaction));
+
+    // Act
+    IdempotencyStore.Claim claim = store.claim("1:key", "1/2");
+
+    // Assert
+    Assertions.assertEquals(7, claim.getReplay().getTransactionId());
+  }
+
+  @Test
+  void complete_notPersistent_expectNothingSaved() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, false);
+
+    // Act
+    store.claim("1:key", "1/2").complete(makeResult(7));
+
+    // Assert
+    verify(idempotencyRecordDao, never()).save(any());
+  }
+
+  @Test
+  void record_persistent_savesRecordOnce() throws Exception {
+    // Arrange
+    IdempotencyStore store = makeStore(60000, 1000, true);
+    when(idempotencyRecordDao.findById("1:key")).thenReturn(Optional.empty());
+    IdempotencyStore.Claim claim = store.claim("1:key", "1/2");
+
+    // Act
+    claim.record(7);
+    claim.complete(makeResult(7));
+
+    // Assert
+    verify(idempotencyRecordDao).save(any(IdempotencyRecord.class));
+  }
+}
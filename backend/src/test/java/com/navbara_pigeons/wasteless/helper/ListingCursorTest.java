@@ -0,0 +1,75 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ListingCursorTest {
+
+  @Test
+  void encodeAndDecodeRoundTrip() throws InvalidPaginationInputException {
+    // Arrange
+    ZonedDateTime created = ZonedDateTime.parse("2021-05-01T10:15:30+12:00[Pacific/Auckland]");
+    Listing listing = new Listing();
+    listing.setId(42);
+    listing.setCreated(created);
+
+    // Act
+    String encoded = ListingCursor.after(listing, ListingSortByOption.CREATED, false).encode();
+    ListingCursor decoded = ListingCursor.decode(encoded, ListingSortByOption.CREATED, false);
+
+    // Assert
+    Assertions.assertFalse(decoded.isFirstPage());
+    Assertions.assertEquals(42L, decoded.getLastId());
+    Assertions.assertEquals(created, decoded.getLastSortValue());
+  }
+
+  @Test
+  void nullSortValueRoundTrip() throws InvalidPaginationInputException {
+    // Arrange
+    Listing listing = new Listing();
+    listing.setId(7);
+
+    // Act
+    String encoded = ListingCursor.after(listing, ListingSortByOption.PRICE, true).encode();
+    ListingCursor decoded = ListingCursor.decode(encoded, ListingSortByOption.PRICE, true);
+
+    // Assert
+    Assertions.assertEquals(7L, decoded.getLastId());
+    Assertions.assertNull(decoded.getLastSortValue());
+  }
+
+  @Test
+  void emptyCursorIsFirstPage() throws InvalidPaginationInputException {
+    // Act
+    ListingCursor decoded = ListingCursor.decode("", ListingSortByOption.PRICE, true);
+
+    // Assert
+    Assertions.assertTrue(decoded.isFirstPage());
+  }
+
+  @Test
+  void cursorForDifferentSortIsRejected() {
+    // Arrange
+    Listing listing = new Listing();
+    listing.setId(1);
+    listing.setPrice(2.5);
+    String encoded = ListingCursor.after(listing, ListingSortByOption.PRICE, true).encode();
+
+    // Act & Assert
+    Assertions.assertThrows(InvalidPaginationInputException.class,
+        () -> ListingCursor.decode(encoded, ListingSortByOption.PRICE, false));
+    Assertions.assertThrows(InvalidPaginationInputException.class,
+        () -> ListingCursor.decode(encoded, ListingSortByOption.QUANTITY, true));
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    // Act & Assert
+    Assertions.assertThrows(InvalidPaginationInputException.class,
+        () -> ListingCursor.decode("not a cursor!", ListingSortByOption.PRICE, true));
+  }
+}
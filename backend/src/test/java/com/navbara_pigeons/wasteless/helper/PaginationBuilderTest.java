@@ -1,13 +1,17 @@
 package com.navbara_pigeons.wasteless.helper;
 
+import com.navbara_pigeons.wasteless.dto.PaginationDto;
 import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CountMode;
 import com.navbara_pigeons.wasteless.enums.ProductSortByOption;
 import com.navbara_pigeons.wasteless.enums.SortByOption;
 import com.navbara_pigeons.wasteless.enums.UserSortByOption;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import java.util.Arrays;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
 
 class PaginationBuilderTest {
 
@@ -181,4 +185,42 @@ class PaginationBuilderTest {
     assert paginationBuilder != null;
     Assertions.assertEquals(newValidSortAscending, paginationBuilder.isSortAscending());
   }
+
+  @Test
+  void hasNextCountModeFetchesExtraRow() throws InvalidPaginationInputException {
+    // Arrange
+    PaginationBuilder paginationBuilder = new PaginationBuilder(User.class, null)
+        .withPagStartIndex(0)
+        .withPagEndIndex(1)
+        .withCountMode(CountMode.HAS_NEXT);
+
+    // Act
+    PaginationDto<String> page = paginationBuilder
+        .toPaginationDto(Pair.of(Arrays.asList(1, 2, 3), TotalCountCache.NOT_COUNTED),
+            String::valueOf);
+
+    // Assert
+    Assertions.assertEquals(3, paginationBuilder.getFetchSize());
+    Assertions.assertEquals(Arrays.asList("1", "2"), page.getResults());
+    Assertions.assertNull(page.getTotalCount());
+    Assertions.assertTrue(page.getHasNext());
+  }
+
+  @Test
+  void exactCountModeHasNextFromTotalCount() throws InvalidPaginationInputException {
+    // Arrange
+    PaginationBuilder paginationBuilder = new PaginationBuilder(User.class, null)
+        .withPagStartIndex(2)
+        .withPagEndIndex(3)
+        .withCountMode(null);
+
+    // Act
+    PaginationDto<String> page = paginationBuilder
+        .toPaginationDto(Pair.of(Arrays.asList(3, 4), 4L), String::valueOf);
+
+    // Assert
+    Assertions.assertEquals(2, paginationBuilder.getFetchSize());
+    Assertions.assertEquals(4L, page.getTotalCount());
+    Assertions.assertFalse(page.getHasNext());
+  }
 }
@@ -0,0 +1,95 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SalesPeriodsTest {
+
+  // A Wednesday
+  private static final ZonedDateTime TIME = ZonedDateTime.of(2021, 9, 15, 13, 45, 0, 0,
+      ZoneOffset.UTC);
+
+  @Test
+  void periodStart_matchesGranularity() {
+    // Act & Assert
+    Assertions.assertEquals(LocalDate.of(2021, 9, 15).atStartOfDay(ZoneOffset.UTC),
+        SalesPeriods.periodStart(TIME, TransactionGranularity.DAY));
+    Assertions.assertEquals(LocalDate.of(2021, 9, 12).atStartOfDay(ZoneOffset.UTC),
+        SalesPeriods.periodStart(TIME, TransactionGranularity.WEEK));
+    Assertions.assertEquals(LocalDate.of(2021, 9, 1).atStartOfDay(ZoneOffset.UTC),
+        SalesPeriods.periodStart(TIME, TransactionGranularity.MONTH));
+    Assertions.assertEquals(LocalDate.of(2021, 1, 1).atStartOfDay(ZoneOffset.UTC),
+        SalesPeriods.periodStart(TIME, TransactionGranularity.YEAR));
+  }
+
+  @Test
+  void periodStart_usesZoneOfTime() {
+    // Arrange
+    ZonedDateTime auckland = TIME.withZoneSameInstant(ZoneId.of("Pacific/Auckland"));
+
+    // Act & Assert
+    Assertions.assertEquals(LocalDate.of(2021, 9, 16).atStartOfDay(auckland.getZone()),
+        SalesPeriods.periodStart(auckland, TransactionGranularity.DAY));
+  }
+
+  @Test
+  void nextPeriodStart_daysAcrossDaylightSaving() {
+    // Arrange, clocks in Auckland went forward at 2am on the 26th of September 2021
+    ZoneId zone = ZoneId.of("Pacific/Auckland");
+    ZonedDateTime day = LocalDate.of(2021, 9, 26).atStartOfDay(zone);
+
+    // Act
+    ZonedDateTime next = SalesPeriods.nextPeriodStart(day, TransactionGranularity.DAY);
+
+    // Assert
+    Assertions.assertEquals(LocalDate.of(2021, 9, 27).atStartOfDay(zone), next);
+    Assertions.assertEquals(23, Duration.between(day, next).toHours());
+  }
+
+  @Test
+  void nextPeriodStart_weekSpansMonths() {
+    // Arrange
+    ZonedDateTime week = SalesPeriods.periodStart(
+        LocalDate.of(2021, 9, 2).atStartOfDay(ZoneOffset.UTC), TransactionGranularity.WEEK);
+
+    // Act & Assert
+    Assertions.assertEquals(LocalDate.of(2021, 8, 29).atStartOfDay(ZoneOffset.UTC), week);
+    Assertions.assertEquals(LocalDate.of(2021, 9, 5).atStartOfDay(ZoneOffset.UTC),
+        SalesPeriods.nextPeriodStart(week, TransactionGranularity.WEEK));
+  }
+
+  @Test
+  void countPeriods_countsPartialPeriodsAtEitherEnd() {
+    // Arrange
+    ZonedDateTime from = LocalDate.of(2021, 9, 2).atStartOfDay(ZoneOffset.UTC);
+    ZonedDateTime to = LocalDate.of(2021, 10, 1).atTime(23, 59).atZone(ZoneOffset.UTC);
+
+    // Act & Assert
+    Assertions.assertEquals(30, SalesPeriods.countPeriods(from, to, TransactionGranularity.DAY));
+    Assertions.assertEquals(5, SalesPeriods.countPeriods(from, to, TransactionGranularity.WEEK));
+    Assertions.assertEquals(2, SalesPeriods.countPeriods(from, to, TransactionGranularity.MONTH));
+    Assertions.assertEquals(1, SalesPeriods.countPeriods(from, to, TransactionGranularity.YEAR));
+    Assertions.assertEquals(0, SalesPeriods.countPeriods(to, from, TransactionGranularity.DAY));
+    Assertions.assertEquals(373187, SalesPeriods.countPeriods(
+        SalesPeriods.EARLIEST_DAY.atStartOfDay(ZoneOffset.UTC), to, TransactionGranularity.DAY));
+  }
+
+  @Test
+  void dayOf_usesServerTimeZone() {
+    // Arrange
+    LocalDate day = LocalDate.of(2021, 9, 15);
+    ZonedDateTime saleDate = day.atTime(23, 30).atZone(ZoneId.systemDefault());
+
+    // Act & Assert
+    Assertions.assertEquals(day, SalesPeriods.dayOf(saleDate));
+    Assertions.assertEquals(day,
+        SalesPeriods.dayOf(saleDate.withZoneSameInstant(ZoneId.of("Pacific/Auckland"))));
+    Assertions.assertTrue(SalesPeriods.matchesRollupDays(ZoneId.systemDefault()));
+  }
+}
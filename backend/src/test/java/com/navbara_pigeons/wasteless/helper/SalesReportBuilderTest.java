@@ -0,0 +1,118 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.dto.TransactionDataDto;
+import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
+import com.navbara_pigeons.wasteless.model.TransactionReportModel;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SalesReportBuilderTest {
+
+  private static final ZonedDateTime START = LocalDate.of(2021, 2, 21)
+      .atStartOfDay(ZoneOffset.UTC);
+  private static final ZonedDateTime END = LocalDate.of(2021, 4, 21)
+      .atStartOfDay(ZoneOffset.UTC).minusSeconds(1);
+
+  @Test
+  void build_firstPeriodStartsWithReport() {
+    // Arrange
+    SalesReportBuilder report = new SalesReportBuilder(START, END, TransactionGranularity.MONTH,
+        false);
+    report.add(START.plusDays(3), 1, 10.0);
+    report.add(START.plusDays(1), 2, 5.0);
+    report.add(START.plusDays(10), 1, 2.5);
+
+    // Act
+    TransactionDataDto data = report.build();
+
+    // Assert
+    Assertions.assertEquals(2, data.getTransactions().size());
+    Assertions.assertEquals(START, data.getTransactions().get(0).getDate());
+    Assertions.assertEquals(3, data.getTransactions().get(0).getTransactionCount());
+    Assertions.assertEquals(LocalDate.of(2021, 3, 1).atStartOfDay(ZoneOffset.UTC),
+        data.getTransactions().get(1).getDate());
+    Assertions.assertEquals(4, data.getTotalTransactionCount());
+    Assertions.assertEquals(17.5, data.getTotalAmount());
+  }
+
+  @Test
+  void build_fillsGaps() {
+    // Arrange
+    SalesReportBuilder report = new SalesReportBuilder(START, END, TransactionGranularity.MONTH,
+        true);
+    report.add(START.plusDays(1), 1, 10.0);
+
+    // Act
+    List<TransactionReportModel> periods = report.build().getTransactions();
+
+    // Assert
+    Assertions.assertEquals(3, periods.size());
+    Assertions.assertEquals(LocalDate.of(2021, 4, 1).atStartOfDay(ZoneOffset.UTC),
+        periods.get(2).getDate());
+    Assertions.assertEquals(0, periods.get(1).getTransactionCount());
+    Assertions.assertEquals(0.0, periods.get(2).getAmount());
+  }
+
+  @Test
+  void build_unboundedStartFillsFromFirstSale() {
+    // Arrange
+    ZonedDateTime start = LocalDate.MIN.atStartOfDay(ZoneOffset.UTC);
+    SalesReportBuilder report = new SalesReportBuilder(start, END, TransactionGranularity.YEAR,
+        true);
+    report.add(LocalDate.of(2019, 6, 1).atStartOfDay(ZoneOffset.UTC), 1, 10.0);
+
+    // Act
+    List<TransactionReportModel> periods = report.build().getTransactions();
+
+    // Assert
+    Assertions.assertEquals(3, periods.size());
+    Assertions.assertEquals(LocalDate.of(2019, 1, 1).atStartOfDay(ZoneOffset.UTC),
+        periods.get(0).getDate());
+    Assertions.assertTrue(new SalesReportBuilder(start, END, TransactionGranularity.YEAR, true)
+        .build().getTransactions().isEmpty());
+  }
+
+  @Test
+  void periodCount_matchesBuiltReport() {
+    // Arrange
+    ZonedDateTime unbounded = LocalDate.MIN.atStartOfDay(ZoneOffset.UTC);
+    SalesReportBuilder filled = new SalesReportBuilder(START, END, TransactionGranularity.DAY,
+        true);
+    SalesReportBuilder fromFirstSale = new SalesReportBuilder(unbounded, END,
+        TransactionGranularity.MONTH, true);
+    SalesReportBuilder unfilled = new SalesReportBuilder(START, END, TransactionGranularity.DAY,
+        false);
+
+    // Act
+    long emptyFromFirstSale = fromFirstSale.periodCount();
+    fromFirstSale.add(START.plusDays(1), 1, 10.0);
+    unfilled.add(START.plusDays(1), 1, 10.0);
+
+    // Assert
+    Assertions.assertEquals(filled.build().getTransactions().size(), filled.periodCount());
+    Assertions.assertEquals(59, filled.periodCount());
+    Assertions.assertEquals(0, emptyFromFirstSale);
+    Assertions.assertEquals(3, fromFirstSale.periodCount());
+    Assertions.assertEquals(1, unfilled.periodCount());
+  }
+
+  @Test
+  void add_bucketsInReportZone() {
+    // Arrange
+    ZoneId zone = ZoneId.of("Pacific/Auckland");
+    SalesReportBuilder report = new SalesReportBuilder(START.withZoneSameLocal(zone),
+        END.withZoneSameLocal(zone), TransactionGranularity.DAY, false);
+
+    // Act, 11pm UTC on the 22nd is the 23rd in Auckland
+    report.add(LocalDate.of(2021, 2, 22).atTime(23, 0).atZone(ZoneOffset.UTC), 1, 10.0);
+    List<TransactionReportModel> periods = report.build().getTransactions();
+
+    // Assert
+    Assertions.assertEquals(LocalDate.of(2021, 2, 23).atStartOfDay(zone), periods.get(0).getDate());
+  }
+}
@@ -0,0 +1,126 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.enums.CountMode;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TotalCountCacheTest {
+
+  private TotalCountCache totalCountCache;
+  private AtomicLong countQueries;
+
+  @BeforeEach
+  void beforeEach() {
+    totalCountCache = new TotalCountCache(60000, 10);
+    countQueries = new AtomicLong();
+  }
+
+  private Long count(CountMode countMode, String signature) {
+    return totalCountCache.getTotalCount(TotalCountCache.LISTINGS, signature, countMode,
+        () -> 40 + countQueries.incrementAndGet());
+  }
+
+  @Test
+  void exactCountAlwaysQueries() {
+    // Act
+    count(CountMode.EXACT, "a");
+    count(null, "a");
+
+    // Assert
+    Assertions.assertEquals(2, countQueries.get());
+  }
+
+  @Test
+  void hasNextNeverQueries() {
+    // Act
+    Long totalCount = count(CountMode.HAS_NEXT, "a");
+
+    // Assert
+    Assertions.assertEquals(TotalCountCache.NOT_COUNTED, totalCount);
+    Assertions.assertEquals(0, countQueries.get());
+  }
+
+  @Test
+  void cachedCountIsReusedPerSignature() {
+    // Act
+    Long first = count(CountMode.CACHED, "a");
+    Long second = count(CountMode.CACHED, "a");
+    count(CountMode.CACHED, "b");
+
+    // Assert
+    Assertions.assertEquals(41L, first);
+    Assertions.assertEquals(41L, second);
+    Assertions.assertEquals(2, countQueries.get());
+    Assertions.assertEquals(1, totalCountCache.getHits());
+    Assertions.assertEquals(2, totalCountCache.getMisses());
+  }
+
+  @Test
+  void writeInvalidatesRegion() {
+    // Arrange
+    count(CountMode.CACHED, "a");
+
+    // Act
+    totalCountCache.invalidate(TotalCountCache.LISTINGS);
+    Long totalCount = count(CountMode.CACHED, "a");
+
+    // Assert
+    Assertions.assertEquals(42L, totalCount);
+  }
+
+  @Test
+  void writeToOtherRegionKeepsCount() {
+    // Arrange
+    count(CountMode.CACHED, "a");
+
+    // Act
+    totalCountCache.invalidate(TotalCountCache.PRODUCTS);
+    Long totalCount = count(CountMode.CACHED, "a");
+
+    // Assert
+    Assertions.assertEquals(41L, totalCount);
+  }
+
+  @Test
+  void writeInvalidatesRegionOnlyOnceCommitted() {
+    // Arrange
+    count(CountMode.CACHED, "a");
+    TransactionSynchronizationManager.initSynchronization();
+
+    try {
+      // Act
+      totalCountCache.invalidate(TotalCountCache.LISTINGS);
+      Long beforeCommit = count(CountMode.CACHED, "a");
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      Long afterCommit = count(CountMode.CACHED, "a");
+
+      // Assert
+      Assertions.assertEquals(41L, beforeCommit);
+      Assertions.assertEquals(42L, afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void countTakenDuringCommitIsNotKept() {
+    // Arrange
+    AtomicLong counts = new AtomicLong();
+
+    // Act
+    totalCountCache.getTotalCount(TotalCountCache.LISTINGS, "a", CountMode.CACHED, () -> {
+      totalCountCache.invalidate(TotalCountCache.LISTINGS);
+      return 40 + counts.incrementAndGet();
+    });
+    count(CountMode.CACHED, "a");
+
+    // Assert
+    Assertions.assertEquals(1, countQueries.get());
+    Assertions.assertEquals(2, totalCountCache.getMisses());
+  }
+}
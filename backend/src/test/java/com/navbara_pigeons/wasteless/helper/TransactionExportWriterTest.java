@@ -0,0 +1,56 @@
+package com.navbara_pigeons.wasteless.helper;
+
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TransactionExportWriterTest {
+
+  private static final ZonedDateTime SALE_DATE = ZonedDateTime.of(2021, 9, 17, 15, 34, 20, 0,
+      ZoneOffset.UTC);
+
+  @Test
+  void csv_writesHeaderAndEscapedRows() throws Exception {
+    // Arrange
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    TransactionExportWriter writer = TransactionExportWriter
+        .create(TransactionExportFormat.CSV, output);
+
+    // Act
+    writer.writeRow(new Object[]{5011L, SALE_DATE, SALE_DATE, 5002L, "Milk, \"Full\" Cream", 3.5});
+    writer.writeRow(new Object[]{5012L, SALE_DATE, SALE_DATE, 5003L, "=SUM(A1)", 10.8});
+    writer.flush();
+
+    // Assert
+    Assertions.assertEquals("id,saleDate,listingDate,productId,productName,amount\r\n"
+            + "5011,2021-09-17T15:34:20Z,2021-09-17T15:34:20Z,5002,\"Milk, \"\"Full\"\" Cream\",3.5\r\n"
+            + "5012,2021-09-17T15:34:20Z,2021-09-17T15:34:20Z,5003,'=SUM(A1),10.8\r\n",
+        output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void ndjson_writesOneObjectPerLine() throws Exception {
+    // Arrange
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    TransactionExportWriter writer = TransactionExportWriter
+        .create(TransactionExportFormat.NDJSON, output);
+
+    // Act
+    writer.writeRow(new Object[]{5011L, SALE_DATE, SALE_DATE, 5002L, "Milk \"Full\"", 3.5});
+    writer.writeRow(new Object[]{5012L, SALE_DATE, SALE_DATE, 5003L, null, 10.8});
+    writer.flush();
+
+    // Assert
+    Assertions.assertEquals("{\"id\":5011,\"saleDate\":\"2021-09-17T15:34:20Z\","
+            + "\"listingDate\":\"2021-09-17T15:34:20Z\",\"productId\":5002,"
+            + "\"productName\":\"Milk \\\"Full\\\"\",\"amount\":3.5}\n"
+            + "{\"id\":5012,\"saleDate\":\"2021-09-17T15:34:20Z\","
+            + "\"listingDate\":\"2021-09-17T15:34:20Z\",\"productId\":5003,"
+            + "\"productName\":null,\"amount\":10.8}\n",
+        output.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,124 @@
+package com.navbara_pigeons.wasteless.image;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.ImageDao;
+import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.enums.ImageStatus;
+import com.navbara_pigeons.wasteless.exception.ImageProcessingQueueFullException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ImageProcessorTest {
+
+  private ImageDao imageDao;
+  private ImageProcessor imageProcessor;
+  private Path upload;
+
+  @TempDir
+  Path tempDirectory;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    imageDao = mock(ImageDao.class);
+    when(imageDao.updateImageStatus(any(Long.class), any(ImageStatus.class))).thenReturn(true);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    ImageStore imageStore = new ImageStore(imageDao, transactionManager, "/products/");
+    imageProcessor = new ImageProcessor(imageDao, imageStore, transactionManager, 1, 0, 300,
+        new int[]{64, 300});
+    upload = Files.copy(Paths.get("./src/test/resources/TestImage.jpeg"),
+        tempDirectory.resolve("upload.tmp"));
+  }
+
+  @AfterEach
+  void afterEach() throws InterruptedException {
+    imageProcessor.shutdown();
+  }
+
+  @Test
+  void submit_writesFilesAndMarksReady() throws Exception {
+    // Arrange
+    Image image = makeImage(1);
+
+    // Act
+    imageProcessor.submit(image, upload, "jpeg");
+
+    // Assert
+    verify(imageDao, timeout(5000)).updateImageStatus(1, ImageStatus.READY);
+    verify(imageDao).moveProductImageIntoPlace(upload, image.getPath());
+    verify(imageDao).saveProductImageToMachine(any(byte[].class), eq(image.getThumbnailPath()));
+    verify(imageDao).saveProductImageToMachine(any(byte[].class), eq(image.getRenditionPath(64)));
+    verify(imageDao).saveProductImageToMachine(any(byte[].class), eq(image.getRenditionPath(300)));
+    Assertions.assertEquals(1, imageProcessor.getProcessed());
+  }
+
+  @Test
+  void submit_skipsWritingStoredContent() throws Exception {
+    // Arrange
+    when(imageDao.productImageExistsOnMachine(anyString())).thenReturn(true);
+
+    // Act
+    imageProcessor.submit(makeImage(1), upload, "jpeg");
+
+    // Assert
+    verify(imageDao, timeout(5000)).updateImageStatus(1, ImageStatus.READY);
+    verify(imageDao, never()).saveProductImageToMachine(any(byte[].class), anyString());
+    verify(imageDao, never()).moveProductImageIntoPlace(any(Path.class), anyString());
+    verify(imageDao, timeout(5000)).deleteTempFile(upload);
+  }
+
+  @Test
+  void submit_marksUndecodableImageFailed() throws Exception {
+    // Arrange
+    Image image = makeImage(1);
+    Path notAnImage = Files.write(tempDirectory.resolve("text.tmp"), "not an image".getBytes());
+
+    // Act
+    imageProcessor.submit(image, notAnImage, "jpeg");
+
+    // Assert
+    verify(imageDao, timeout(5000)).updateImageStatus(1, ImageStatus.FAILED);
+    verify(imageDao, timeout(5000)).countImageReferences(image.getPath());
+    verify(imageDao).deleteTempFile(notAnImage);
+  }
+
+  @Test
+  void submit_rejectsWhenFull() throws Exception {
+    // Arrange
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(imageDao).saveProductImageToMachine(any(byte[].class), anyString());
+    imageProcessor.submit(makeImage(1), upload, "jpeg");
+
+    // Act & Assert
+    Assertions.assertThrows(ImageProcessingQueueFullException.class,
+        () -> imageProcessor.submit(makeImage(2), upload, "jpeg"));
+    release.countDown();
+    verify(imageDao, timeout(5000)).updateImageStatus(1, ImageStatus.READY);
+  }
+
+  private Image makeImage(long id) {
+    Image image = new Image("/products/", "jpeg");
+    image.setId(id);
+    image.setRenditionSizes(imageProcessor.getRenditionSizes());
+    return image;
+  }
+}
@@ -0,0 +1,137 @@
+package com.navbara_pigeons.wasteless.image;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.ImageDao;
+import com.navbara_pigeons.wasteless.entity.Image;
+import com.navbara_pigeons.wasteless.exception.ImageNotFoundException;
+import com.navbara_pigeons.wasteless.model.ImageFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ImageStoreTest {
+
+  private static final String HASH =
+      "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+  @TempDir
+  Path tempDirectory;
+
+  private ImageDao imageDao;
+  private ImageStore imageStore;
+
+  @BeforeEach
+  void beforeEach() {
+    imageDao = mock(ImageDao.class);
+    imageStore = new ImageStore(imageDao, mock(PlatformTransactionManager.class), "/products/");
+  }
+
+  @Test
+  void newImage_pathIsShardedByHash() {
+    // Arrange
+    String hash = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    // Act
+    Image image = imageStore.newImage(ImageStore.hash("hello".getBytes()), "png");
+
+    // Assert
+    Assertions.assertEquals(hash, ImageStore.hash("hello".getBytes()));
+    Assertions.assertEquals("/products/2c/f2/" + hash + ".png", image.getPath());
+    Assertions.assertEquals("/products/2c/f2/" + hash + "_thumbnail.png", image.getThumbnailPath());
+    Assertions.assertTrue(ImageStore.isStored(image.getPath()));
+    Assertions.assertFalse(ImageStore.isStored(new Image("/products/", "png").getPath()));
+  }
+
+  @Test
+  void newImage_sameContentSharesPath() {
+    // Act
+    Image first = imageStore.newImage(ImageStore.hash("hello".getBytes()), "png");
+    Image second = imageStore.newImage(ImageStore.hash("hello".getBytes()), "png");
+
+    // Assert
+    Assertions.assertEquals(first.getPath(), second.getPath());
+  }
+
+  @Test
+  void deleteIfUnreferenced_keepsFilesStillInUse() throws Exception {
+    // Arrange
+    when(imageDao.countImageReferences("a.png")).thenReturn(1L);
+
+    // Act
+    imageStore.deleteIfUnreferenced("a.png", List.of("a.png", "a_thumbnail.png"));
+
+    // Assert
+    verify(imageDao, never()).deleteProductImageFromMachine("a.png");
+  }
+
+  @Test
+  void deleteIfUnreferenced_deletesLastReference() throws Exception {
+    // Arrange
+    when(imageDao.countImageReferences("a.png")).thenReturn(0L);
+
+    // Act
+    imageStore.deleteIfUnreferenced("a.png", List.of("a.png", "a_thumbnail.png"));
+
+    // Assert
+    verify(imageDao).deleteProductImageFromMachine("a.png");
+    verify(imageDao).deleteProductImageFromMachine("a_thumbnail.png");
+  }
+
+  @Test
+  void getImageFile_rejectsFilesOutsideTheStore() {
+    // Arrange
+    when(imageDao.productImageExistsOnMachine(anyString())).thenReturn(true);
+
+    // Act & Assert
+    Assertions.assertThrows(ImageNotFoundException.class,
+        () -> imageStore.getImageFile("../../application.properties"));
+    Assertions.assertThrows(ImageNotFoundException.class,
+        () -> imageStore.getImageFile("2c/f2/../../secret.png"));
+  }
+
+  @Test
+  void getImageFile_originalIsImmutable() throws Exception {
+    // Arrange
+    Path file = Files.write(tempDirectory.resolve("original.png"), "hello".getBytes());
+    when(imageDao.productImageExistsOnMachine(anyString())).thenReturn(true);
+    when(imageDao.getPathToProduct("/products/2c/f2/" + HASH + ".png")).thenReturn(file);
+
+    // Act
+    ImageFile imageFile = imageStore.getImageFile("2c/f2/" + HASH + ".png");
+
+    // Assert
+    Assertions.assertEquals(HASH, imageFile.getEtag());
+    Assertions.assertTrue(imageFile.isImmutable());
+  }
+
+  @Test
+  void getImageFile_regeneratedRenditionGetsNewEtag() throws Exception {
+    // Arrange
+    Path file = Files.write(tempDirectory.resolve("rendition.png"), "first".getBytes());
+    when(imageDao.productImageExistsOnMachine(anyString())).thenReturn(true);
+    when(imageDao.getPathToProduct("/products/2c/f2/" + HASH + "_300.png")).thenReturn(file);
+
+    // Act
+    ImageFile first = imageStore.getImageFile("2c/f2/" + HASH + "_300.png");
+    Files.write(file, "second".getBytes());
+    Files.setLastModifiedTime(file, FileTime.fromMillis(
+        Files.getLastModifiedTime(file).toMillis() + 1000));
+    ImageFile second = imageStore.getImageFile("2c/f2/" + HASH + "_300.png");
+
+    // Assert
+    Assertions.assertFalse(first.isImmutable());
+    Assertions.assertEquals(ImageStore.hash("first".getBytes()), first.getEtag());
+    Assertions.assertEquals(ImageStore.hash("second".getBytes()), second.getEtag());
+  }
+}
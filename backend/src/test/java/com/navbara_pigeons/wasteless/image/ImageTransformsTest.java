@@ -0,0 +1,85 @@
+package com.navbara_pigeons.wasteless.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ImageTransformsTest {
+
+  @Test
+  void cropToSquare_keepsMiddleSquare() {
+    // Arrange
+    BufferedImage image = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+    image.setRGB(150, 50, 0xFFFFFF);
+
+    // Act
+    BufferedImage cropped = ImageTransforms.cropToSquare(image);
+
+    // Assert
+    Assertions.assertEquals(100, cropped.getWidth());
+    Assertions.assertEquals(100, cropped.getHeight());
+    Assertions.assertEquals(0xFFFFFF, cropped.getRGB(50, 50) & 0xFFFFFF);
+  }
+
+  @Test
+  void thumbnail_roundTripsTestImage() throws IOException {
+    // Arrange
+    byte[] upload = Files.readAllBytes(Paths.get("./src/test/resources/TestImage.jpeg"));
+
+    // Act
+    byte[] thumbnail = ImageTransforms.encode(
+        ImageTransforms.resize(ImageTransforms.cropToSquare(ImageTransforms.decode(upload)), 300),
+        "jpeg");
+
+    // Assert, the test image is smaller than a thumbnail so keeps its own size
+    BufferedImage decoded = ImageTransforms.decode(thumbnail);
+    Assertions.assertEquals(177, decoded.getWidth());
+    Assertions.assertEquals(177, decoded.getHeight());
+  }
+
+  @Test
+  void renditions_rendersEverySize() {
+    // Arrange
+    BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+
+    // Act
+    Map<Integer, BufferedImage> renditions = ImageTransforms
+        .renditions(image, List.of(300, 64, 800, 150));
+
+    // Assert
+    Assertions.assertEquals(List.of(64, 150, 300, 800), List.copyOf(renditions.keySet()));
+    for (Map.Entry<Integer, BufferedImage> rendition : renditions.entrySet()) {
+      Assertions.assertEquals(rendition.getKey(), rendition.getValue().getWidth());
+      Assertions.assertEquals(rendition.getKey(), rendition.getValue().getHeight());
+      Assertions.assertEquals(BufferedImage.TYPE_INT_RGB, rendition.getValue().getType());
+    }
+  }
+
+  @Test
+  void renditions_neverUpscales() {
+    // Arrange
+    BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+
+    // Act
+    Map<Integer, BufferedImage> renditions = ImageTransforms
+        .renditions(image, List.of(64, 150, 300, 800));
+
+    // Assert
+    Assertions.assertEquals(150, renditions.get(150).getWidth());
+    Assertions.assertEquals(200, renditions.get(300).getWidth());
+    Assertions.assertEquals(200, renditions.get(800).getHeight());
+    Assertions.assertEquals(BufferedImage.TYPE_INT_RGB, renditions.get(800).getType());
+  }
+
+  @Test
+  void decode_rejectsNonImage() {
+    // Act & Assert
+    Assertions.assertThrows(IOException.class,
+        () -> ImageTransforms.decode("not an image".getBytes()));
+  }
+}
@@ -0,0 +1,109 @@
+package com.navbara_pigeons.wasteless.image;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the CPU time of processing a 4K JPEG upload the way ImageServiceImpl used to (decode,
+ * encode the crop, decode it again and getScaledInstance a thumbnail) with ImageProcessor's single
+ * decode into every rendition. Only runs when the benchmark system property is true.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ImageUploadBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int ITERATIONS = 10;
+  private static final List<Integer> RENDITION_SIZES = List.of(64, 150, 300, 800);
+
+  @Test
+  void compareUploadCpuTime() throws IOException {
+    // Arrange
+    byte[] upload = make4kJpeg();
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    // Act
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      oldUpload(upload);
+      newUpload(upload);
+    }
+    long oldNanos = 0;
+    long newNanos = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = threads.getCurrentThreadCpuTime();
+      oldUpload(upload);
+      oldNanos += threads.getCurrentThreadCpuTime() - start;
+      start = threads.getCurrentThreadCpuTime();
+      newUpload(upload);
+      newNanos += threads.getCurrentThreadCpuTime() - start;
+    }
+
+    // Assert
+    Assertions.assertTrue(oldNanos > 0 && newNanos > 0);
+    log.info(String.format("4K JPEG upload: old %.1f ms CPU (1 thumbnail), new %.1f ms CPU (%d "
+            + "renditions)", oldNanos / 1e6 / ITERATIONS, newNanos / 1e6 / ITERATIONS,
+        RENDITION_SIZES.size()));
+  }
+
+  /**
+   * What ImageServiceImpl.uploadProductImage did before ImageProcessor
+   */
+  private static byte[] oldUpload(byte[] upload) throws IOException {
+    BufferedImage imageToCrop = ImageIO.read(new ByteArrayInputStream(upload));
+    int height = imageToCrop.getHeight();
+    int width = imageToCrop.getWidth();
+    int squareSize = Math.min(height, width);
+    imageToCrop = imageToCrop.getSubimage(width / 2 - squareSize / 2,
+        height / 2 - squareSize / 2, squareSize, squareSize);
+    ByteArrayOutputStream cropped = new ByteArrayOutputStream();
+    ImageIO.write(imageToCrop, "jpeg", cropped);
+
+    BufferedImage imageToResize = ImageIO.read(new ByteArrayInputStream(cropped.toByteArray()));
+    java.awt.Image resultingImage = imageToResize.getScaledInstance(300, 300,
+        java.awt.Image.SCALE_DEFAULT);
+    BufferedImage outputImage = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+    outputImage.getGraphics().drawImage(resultingImage, 0, 0, null);
+    ByteArrayOutputStream thumbnail = new ByteArrayOutputStream();
+    ImageIO.write(outputImage, "jpeg", thumbnail);
+    return thumbnail.toByteArray();
+  }
+
+  private static int newUpload(byte[] upload) throws IOException {
+    Map<Integer, BufferedImage> renditions = ImageTransforms.renditions(
+        ImageTransforms.cropToSquare(ImageTransforms.decode(upload)), RENDITION_SIZES);
+    int written = 0;
+    for (BufferedImage rendition : renditions.values()) {
+      written += ImageTransforms.encode(rendition, "jpeg").length;
+    }
+    return written;
+  }
+
+  private static byte[] make4kJpeg() throws IOException {
+    BufferedImage image = new BufferedImage(3840, 2160, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 3840, 2160, Color.BLUE));
+    graphics.fillRect(0, 0, 3840, 2160);
+    graphics.dispose();
+    // Noise so the JPEG is closer to a photo than a flat gradient
+    Random random = new Random(302);
+    for (int i = 0; i < 200_000; i++) {
+      image.setRGB(random.nextInt(3840), random.nextInt(2160), random.nextInt());
+    }
+    return ImageTransforms.encode(image, "jpeg");
+  }
+}
@@ -0,0 +1,73 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.dto.ListingFacetsDto;
+import com.navbara_pigeons.wasteless.entity.BusinessType;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ListingFacetCounterTest {
+
+  private ListingFacetGroup makeGroup(BusinessType businessType, NutriScore nutriScore,
+      boolean isVegan, long count) {
+    return new ListingFacetGroup(businessType, nutriScore, 1, NutritionFactsLevel.LOW,
+        NutritionFactsLevel.LOW, NutritionFactsLevel.LOW, NutritionFactsLevel.LOW, isVegan, true,
+        true, true, true, count);
+  }
+
+  private final List<ListingFacetGroup> groups = Arrays.asList(
+      makeGroup(BusinessType.RETAIL, NutriScore.A, true, 3),
+      makeGroup(BusinessType.RETAIL, NutriScore.C, false, 2),
+      makeGroup(BusinessType.CHARITY, NutriScore.A, false, 5)
+  );
+
+  @Test
+  void countsWithoutFilters() {
+    // Act
+    ListingFacetsDto facets = ListingFacetCounter.count(groups, new ListingsSearchParams());
+
+    // Assert
+    Assertions.assertEquals(5L, facets.getBusinessTypes().get(BusinessType.RETAIL));
+    Assertions.assertEquals(5L, facets.getBusinessTypes().get(BusinessType.CHARITY));
+    Assertions.assertEquals(8L, facets.getNutriScore().get(NutriScore.A));
+    Assertions.assertEquals(3L, facets.getIsVegan().get(true));
+    Assertions.assertEquals(7L, facets.getIsVegan().get(false));
+  }
+
+  @Test
+  void facetIgnoresItsOwnFilter() {
+    // Arrange
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setBusinessTypes(Collections.singletonList(BusinessType.RETAIL));
+
+    // Act
+    ListingFacetsDto facets = ListingFacetCounter.count(groups, params);
+
+    // Assert
+    Assertions.assertEquals(5L, facets.getBusinessTypes().get(BusinessType.CHARITY));
+    Assertions.assertEquals(3L, facets.getNutriScore().get(NutriScore.A));
+    Assertions.assertEquals(2L, facets.getNutriScore().get(NutriScore.C));
+  }
+
+  @Test
+  void groupFailingTwoFiltersIsNotCounted() {
+    // Arrange
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setBusinessTypes(Collections.singletonList(BusinessType.RETAIL));
+    params.setIsVegan(true);
+
+    // Act
+    ListingFacetsDto facets = ListingFacetCounter.count(groups, params);
+
+    // Assert
+    Assertions.assertNull(facets.getNutriScore().get(NutriScore.C));
+    Assertions.assertEquals(3L, facets.getNutriScore().get(NutriScore.A));
+    Assertions.assertEquals(2L, facets.getIsVegan().get(false));
+    Assertions.assertNull(facets.getBusinessTypes().get(BusinessType.CHARITY));
+  }
+}
@@ -0,0 +1,167 @@
+package com.navbara_pigeons.wasteless.search;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ListingSearchIndexTest {
+
+  private ListingSearchIndex listingSearchIndex;
+
+  @BeforeEach
+  void beforeEach() {
+    ListingDao listingDao = mock(ListingDao.class);
+    when(listingDao.getListingSearchDocuments()).thenReturn(Arrays.asList(
+        new ListingSearchDocument(1, 10L, "Watties Baked Beans", "Countdown", "Christchurch",
+            "New Zealand"),
+        new ListingSearchDocument(2, 20L, "Beans", "New World", "Auckland", "New Zealand"),
+        new ListingSearchDocument(3, 30L, "Milk", "Countdown", "Sydney", "Australia")
+    ));
+    listingSearchIndex = new ListingSearchIndex(listingDao);
+    listingSearchIndex.rebuild();
+  }
+
+  private Optional<Set<Long>> search(String searchParam, ListingSearchKeys... keys) {
+    return listingSearchIndex.findMatchingListingIds(
+        SearchPlan.parse(searchParam, Arrays.asList(keys)));
+  }
+
+  @Test
+  void rebuild_keepsChangesMadeWhileReading() {
+    // Arrange
+    ListingDao listingDao = mock(ListingDao.class);
+    ListingSearchIndex index = new ListingSearchIndex(listingDao);
+    when(listingDao.getListingSearchDocuments()).thenAnswer(invocation -> {
+      // Committed after the rebuild's read started, so the read still returns it
+      index.remove(List.of(1L));
+      return Collections.singletonList(new ListingSearchDocument(1, 10L, "Beans", "Countdown",
+          "Christchurch", "New Zealand"));
+    });
+
+    // Act
+    index.rebuild();
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of()), index.findMatchingListingIds(
+        SearchPlan.parse("beans", List.of(ListingSearchKeys.PRODUCT_NAME))));
+  }
+
+  @Test
+  void partialMatchIsCaseInsensitive() {
+    // Act
+    Optional<Set<Long>> result = search("BEAN", ListingSearchKeys.PRODUCT_NAME);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(1L, 2L)), result);
+  }
+
+  @Test
+  void partialMatchShorterThanGram() {
+    // Act
+    Optional<Set<Long>> result = search("mi", ListingSearchKeys.PRODUCT_NAME);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(3L)), result);
+  }
+
+  @Test
+  void quotedTokenMustMatchWholeValue() {
+    // Act
+    Optional<Set<Long>> result = search("\"beans\"", ListingSearchKeys.PRODUCT_NAME);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(2L)), result);
+  }
+
+  @Test
+  void orAndAndOperators() {
+    // Act
+    Optional<Set<Long>> orResult = search("milk OR \"beans\"", ListingSearchKeys.PRODUCT_NAME);
+    Optional<Set<Long>> andResult = search("beans AND countdown",
+        ListingSearchKeys.PRODUCT_NAME, ListingSearchKeys.BUSINESS_NAME);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(2L, 3L)), orResult);
+    Assertions.assertEquals(Optional.of(Set.of(1L)), andResult);
+  }
+
+  @Test
+  void addressMatchesCityOrCountry() {
+    // Act
+    Optional<Set<Long>> result = search("zeal OR sydney", ListingSearchKeys.ADDRESS);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(1L, 2L, 3L)), result);
+  }
+
+  @Test
+  void malformedTokenIsIgnored() {
+    // Act
+    Optional<Set<Long>> result = search("milk beans", ListingSearchKeys.PRODUCT_NAME);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(3L)), result);
+  }
+
+  @Test
+  void emptySearchFallsBackToDatabase() {
+    // Act
+    Optional<Set<Long>> result = search("", ListingSearchKeys.PRODUCT_NAME);
+
+    // Assert
+    Assertions.assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void removedListingIsNoLongerFound() {
+    // Act
+    List<Long> removed = Collections.singletonList(2L);
+    listingSearchIndex.remove(removed);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(1L)), search("beans",
+        ListingSearchKeys.PRODUCT_NAME));
+  }
+
+  @Test
+  void productFilterNarrowsTextMatches() {
+    // Arrange
+    BitSet products = new BitSet();
+    products.set(20);
+    products.set(30);
+
+    // Act
+    Optional<Set<Long>> result = listingSearchIndex.findMatchingListingIds(
+        SearchPlan.parse("bean", Collections.singletonList(ListingSearchKeys.PRODUCT_NAME)),
+        products);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(2L)), result);
+  }
+
+  @Test
+  void productFilterWithoutSearchString() {
+    // Arrange
+    BitSet products = new BitSet();
+    products.set(10);
+    products.set(30);
+
+    // Act
+    Optional<Set<Long>> result = listingSearchIndex.findMatchingListingIds(
+        SearchPlan.parse("", Collections.singletonList(ListingSearchKeys.PRODUCT_NAME)), products);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(Set.of(1L, 3L)), result);
+  }
+}
@@ -0,0 +1,117 @@
+package com.navbara_pigeons.wasteless.search;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.ProductDao;
+import com.navbara_pigeons.wasteless.entity.Product;
+import com.navbara_pigeons.wasteless.enums.NutriScore;
+import com.navbara_pigeons.wasteless.enums.NutritionFactsLevel;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductAttributeIndexTest {
+
+  private ProductAttributeIndex productAttributeIndex;
+
+  @BeforeEach
+  void beforeEach() {
+    ProductDao productDao = mock(ProductDao.class);
+    when(productDao.getProductAttributes()).thenReturn(Arrays.asList(
+        new ProductAttributes(1, NutriScore.A, 1, NutritionFactsLevel.LOW, null, null, null, true,
+            true, false, true, true),
+        new ProductAttributes(2, NutriScore.C, 3, NutritionFactsLevel.HIGH, null, null, null,
+            false, true, true, null, false),
+        new ProductAttributes(3, NutriScore.E, 4, null, null, null, null, false, false, true,
+            false, null)
+    ));
+    productAttributeIndex = new ProductAttributeIndex(productDao);
+    productAttributeIndex.rebuild();
+  }
+
+  private static BitSet bits(int... productIds) {
+    BitSet bitSet = new BitSet();
+    for (int productId : productIds) {
+      bitSet.set(productId);
+    }
+    return bitSet;
+  }
+
+  @Test
+  void rebuild_keepsChangesMadeWhileReading() {
+    // Arrange
+    ProductDao productDao = mock(ProductDao.class);
+    ProductAttributeIndex index = new ProductAttributeIndex(productDao);
+    when(productDao.getProductAttributes()).thenAnswer(invocation -> {
+      // Committed after the rebuild's read started, so the read still returns the old values
+      index.index(new Product().setId(1).setIsVegan(false));
+      return Collections.singletonList(new ProductAttributes(1, null, null, null, null, null,
+          null, true, null, null, null, null));
+    });
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setIsVegan(true);
+
+    // Act
+    index.rebuild();
+
+    // Assert
+    Assertions.assertEquals(Optional.of(bits()), index.findMatchingProducts(params));
+  }
+
+  @Test
+  void noProductFilters() {
+    // Act
+    Optional<BitSet> result = productAttributeIndex.findMatchingProducts(
+        new ListingsSearchParams());
+
+    // Assert
+    Assertions.assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void dietFlagsAreAnded() {
+    // Arrange
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setIsVegetarian(true);
+    params.setIsGlutenFree(true);
+
+    // Act
+    Optional<BitSet> result = productAttributeIndex.findMatchingProducts(params);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(bits(2)), result);
+  }
+
+  @Test
+  void nutritionLevelsAreOred() {
+    // Arrange
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setFat(Arrays.asList(NutritionFactsLevel.LOW, NutritionFactsLevel.HIGH));
+
+    // Act
+    Optional<BitSet> result = productAttributeIndex.findMatchingProducts(params);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(bits(1, 2)), result);
+  }
+
+  @Test
+  void scoreRanges() {
+    // Arrange
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setMinNutriScore(NutriScore.B);
+    params.setMaxNovaGroup(3);
+
+    // Act
+    Optional<BitSet> result = productAttributeIndex.findMatchingProducts(params);
+
+    // Assert
+    Assertions.assertEquals(Optional.of(bits(2)), result);
+  }
+}
@@ -0,0 +1,80 @@
+package com.navbara_pigeons.wasteless.search;
+
+import com.navbara_pigeons.wasteless.enums.ListingSearchKeys;
+import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchPlanCompilerTest {
+
+  private ListingsSearchParams makeParams(String searchParam, ListingSearchKeys... keys) {
+    ListingsSearchParams params = new ListingsSearchParams();
+    params.setSearchParam(searchParam);
+    params.setSearchKeys(Arrays.asList(keys));
+    return params;
+  }
+
+  @Test
+  void parseBuildsClausesOfTerms() {
+    // Act
+    SearchPlan plan = SearchPlan.parse("milk or \"Blue Cheese\" AND bread",
+        Collections.singletonList(ListingSearchKeys.PRODUCT_NAME));
+
+    // Assert
+    Assertions.assertEquals(2, plan.getClauses().size());
+    Assertions.assertEquals(Arrays.asList(new SearchTerm("milk", false),
+        new SearchTerm("Blue Cheese", true)), plan.getClauses().get(0));
+    Assertions.assertEquals(Collections.singletonList(new SearchTerm("bread", false)),
+        plan.getClauses().get(1));
+  }
+
+  @Test
+  void repeatedQueryIsCached() {
+    // Arrange
+    SearchPlanCompiler compiler = new SearchPlanCompiler(10);
+
+    // Act
+    SearchPlan first = compiler.compile(makeParams("milk", ListingSearchKeys.PRODUCT_NAME));
+    SearchPlan second = compiler.compile(makeParams(" milk ", ListingSearchKeys.PRODUCT_NAME));
+
+    // Assert
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(1, compiler.getHits());
+    Assertions.assertEquals(1, compiler.getMisses());
+  }
+
+  @Test
+  void searchKeysArePartOfTheKey() {
+    // Arrange
+    SearchPlanCompiler compiler = new SearchPlanCompiler(10);
+
+    // Act
+    compiler.compile(makeParams("milk", ListingSearchKeys.PRODUCT_NAME));
+    SearchPlan plan = compiler.compile(makeParams("milk", ListingSearchKeys.ADDRESS));
+
+    // Assert
+    Assertions.assertEquals(Collections.singletonList(ListingSearchKeys.ADDRESS),
+        plan.getSearchKeys());
+    Assertions.assertEquals(2, compiler.getMisses());
+  }
+
+  @Test
+  void leastRecentlyUsedPlanIsEvicted() {
+    // Arrange
+    SearchPlanCompiler compiler = new SearchPlanCompiler(2);
+
+    // Act
+    compiler.compile(makeParams("a", ListingSearchKeys.PRODUCT_NAME));
+    compiler.compile(makeParams("b", ListingSearchKeys.PRODUCT_NAME));
+    compiler.compile(makeParams("a", ListingSearchKeys.PRODUCT_NAME));
+    compiler.compile(makeParams("c", ListingSearchKeys.PRODUCT_NAME));
+    compiler.compile(makeParams("a", ListingSearchKeys.PRODUCT_NAME));
+    compiler.compile(makeParams("b", ListingSearchKeys.PRODUCT_NAME));
+
+    // Assert
+    Assertions.assertEquals(2, compiler.getHits());
+    Assertions.assertEquals(4, compiler.getMisses());
+  }
+}
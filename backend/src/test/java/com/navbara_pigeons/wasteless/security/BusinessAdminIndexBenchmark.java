@@ -0,0 +1,161 @@
+package com.navbara_pigeons.wasteless.security;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.BusinessDao;
+import com.navbara_pigeons.wasteless.dao.UserDao;
+import com.navbara_pigeons.wasteless.entity.Business;
+import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Times resolving the logged in user's principal and checking they administer a business, with
+ * PrincipalCache and BusinessAdminIndex, against the checks that iterated the User's businesses
+ * and the Business's administrators. The DAOs are only called to load the caches during warmup
+ * (this is verified), so the timed loops run the real caches and never a mock. Both sides run in
+ * memory, so the old checks are measured without the lazy loading of users, businesses and
+ * addresses they needed in production, which was their main cost. Only runs when the benchmark
+ * system property is true.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BusinessAdminIndexBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 20_000;
+  private static final int ITERATIONS = 200_000;
+  private static final String EMAIL = "admin@example.com";
+  private static final long USER_ID = 1;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 1000})
+  void compareAdministeredBusinesses(int businessCount) throws Exception {
+    // Arrange
+    User user = new User();
+    user.setId(USER_ID);
+    user.setEmail(EMAIL);
+    user.setRole("ROLE_USER");
+    List<Long> businessIds = new ArrayList<>();
+    for (long businessId = 1; businessId <= businessCount; businessId++) {
+      Business business = new Business();
+      business.setId(businessId);
+      user.getBusinesses().add(business);
+      businessIds.add(businessId);
+    }
+    UserDao userDao = mock(UserDao.class);
+    when(userDao.getUserByEmail(EMAIL)).thenReturn(user);
+    BusinessDao businessDao = mock(BusinessDao.class);
+    when(businessDao.getAdministeredBusinessIds(USER_ID)).thenReturn(businessIds);
+    PrincipalCache principalCache = new PrincipalCache(userDao, 3_600_000, 10);
+    BusinessAdminIndex businessAdminIndex = new BusinessAdminIndex(businessDao, 10);
+    // The last business is the worst case for iterating the list
+    long businessId = businessCount;
+
+    // Act
+    time(() -> iterateBusinesses(user, businessId), WARMUP_ITERATIONS);
+    long iterateNanos = time(() -> iterateBusinesses(user, businessId), ITERATIONS);
+    time(() -> resolveAndCheck(principalCache, businessAdminIndex, businessId),
+        WARMUP_ITERATIONS);
+    long indexNanos = time(() -> resolveAndCheck(principalCache, businessAdminIndex, businessId),
+        ITERATIONS);
+
+    // Assert
+    verify(userDao, times(1)).getUserByEmail(EMAIL);
+    verify(businessDao, times(1)).getAdministeredBusinessIds(USER_ID);
+    log.info(String.format("%d administered businesses: iterate %.1f ns/op, principal cache and "
+            + "index %.1f ns/op", businessCount, (double) iterateNanos / ITERATIONS,
+        (double) indexNanos / ITERATIONS));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 1000})
+  void compareAdministrators(int adminCount) throws Exception {
+    // Arrange
+    Business business = new Business();
+    business.setId(1L);
+    business.setPrimaryAdministratorId(0L);
+    List<User> administrators = new ArrayList<>();
+    for (long userId = 0; userId < adminCount; userId++) {
+      User user = new User();
+      user.setId(userId);
+      administrators.add(user);
+    }
+    business.setAdministrators(administrators);
+    BusinessDao businessDao = mock(BusinessDao.class);
+    // The last administrator is the worst case for iterating the list
+    long userId = adminCount - 1;
+    when(businessDao.getAdministeredBusinessIds(userId)).thenReturn(List.of(1L));
+    BusinessAdminIndex businessAdminIndex = new BusinessAdminIndex(businessDao, 10);
+
+    // Act
+    time(() -> iterateAdministrators(business, userId), WARMUP_ITERATIONS);
+    long iterateNanos = time(() -> iterateAdministrators(business, userId), ITERATIONS);
+    time(() -> businessAdminIndex.isBusinessAdmin(userId, 1L), WARMUP_ITERATIONS);
+    long indexNanos = time(() -> businessAdminIndex.isBusinessAdmin(userId, 1L), ITERATIONS);
+
+    // Assert
+    verify(businessDao, times(1)).getAdministeredBusinessIds(userId);
+    log.info(String.format("%d administrators: iterate %.1f ns/op, index %.1f ns/op", adminCount,
+        (double) iterateNanos / ITERATIONS, (double) indexNanos / ITERATIONS));
+  }
+
+  private static boolean resolveAndCheck(PrincipalCache principalCache,
+      BusinessAdminIndex businessAdminIndex, long businessId) throws UserNotFoundException {
+    AuthenticatedPrincipal principal = principalCache.getPrincipal(EMAIL);
+    return businessAdminIndex.isBusinessAdmin(principal.getUserId(), businessId);
+  }
+
+  /**
+   * Finding a business among the businesses of the User entity, as done before BusinessAdminIndex
+   */
+  private static boolean iterateBusinesses(User user, long businessId) {
+    for (Business business : user.getBusinesses()) {
+      if (business.getId() == businessId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The check BusinessServiceImpl.isBusinessAdmin did before BusinessAdminIndex
+   */
+  private static boolean iterateAdministrators(Business business, long userId) {
+    if (business.getPrimaryAdministratorId() == userId) {
+      return true;
+    }
+    for (User user : business.getAdministrators()) {
+      if (userId == user.getId()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long time(Check check, int iterations) throws Exception {
+    boolean result = true;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      result &= check.run();
+    }
+    long elapsed = System.nanoTime() - start;
+    // Use the result so the checks are not optimised away
+    Assertions.assertTrue(result);
+    return elapsed;
+  }
+
+  private interface Check {
+
+    boolean run() throws Exception;
+  }
+}
@@ -0,0 +1,63 @@
+package com.navbara_pigeons.wasteless.security;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.BusinessDao;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BusinessAdminIndexTest {
+
+  private BusinessDao businessDao;
+  private BusinessAdminIndex businessAdminIndex;
+
+  @BeforeEach
+  void beforeEach() {
+    businessDao = mock(BusinessDao.class);
+    // Primary businesses are also in the administrators list so are returned twice
+    when(businessDao.getAdministeredBusinessIds(1)).thenReturn(List.of(30L, 10L, 10L));
+    when(businessDao.getAdministeredBusinessIds(2)).thenReturn(List.of());
+    businessAdminIndex = new BusinessAdminIndex(businessDao, 100);
+  }
+
+  @Test
+  void isBusinessAdmin_matchesAdministeredBusinesses() {
+    // Act & Assert
+    Assertions.assertTrue(businessAdminIndex.isBusinessAdmin(1, 10));
+    Assertions.assertTrue(businessAdminIndex.isBusinessAdmin(1, 30));
+    Assertions.assertFalse(businessAdminIndex.isBusinessAdmin(1, 20));
+    Assertions.assertFalse(businessAdminIndex.isBusinessAdmin(2, 10));
+  }
+
+  @Test
+  void isBusinessAdmin_loadsEachUserOnce() {
+    // Act
+    businessAdminIndex.isBusinessAdmin(1, 10);
+    businessAdminIndex.isBusinessAdmin(1, 20);
+    businessAdminIndex.isBusinessAdmin(2, 10);
+
+    // Assert
+    verify(businessDao, times(1)).getAdministeredBusinessIds(1);
+    Assertions.assertEquals(1, businessAdminIndex.getHits());
+    Assertions.assertEquals(2, businessAdminIndex.getMisses());
+  }
+
+  @Test
+  void invalidate_reloadsUsersBusinesses() {
+    // Arrange
+    businessAdminIndex.isBusinessAdmin(1, 20);
+    when(businessDao.getAdministeredBusinessIds(1)).thenReturn(List.of(10L, 20L, 30L));
+
+    // Act
+    businessAdminIndex.invalidate(1);
+
+    // Assert
+    Assertions.assertTrue(businessAdminIndex.isBusinessAdmin(1, 20));
+    verify(businessDao, times(2)).getAdministeredBusinessIds(1);
+  }
+}
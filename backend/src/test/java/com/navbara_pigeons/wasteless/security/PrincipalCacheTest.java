@@ -0,0 +1,93 @@
+package com.navbara_pigeons.wasteless.security;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.UserDao;
+import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class PrincipalCacheTest {
+
+  private static final String EMAIL = "user@example.com";
+
+  private UserDao userDao;
+  private PrincipalCache principalCache;
+
+  @BeforeEach
+  void beforeEach() throws UserNotFoundException {
+    User user = new User();
+    user.setId(1);
+    user.setEmail(EMAIL);
+    user.setRole("ROLE_USER");
+    userDao = mock(UserDao.class);
+    when(userDao.getUserByEmail(EMAIL)).thenReturn(user);
+    principalCache = new PrincipalCache(userDao, 30000, 100);
+  }
+
+  @AfterEach
+  void afterEach() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void getPrincipal_loadsOnceWithinTtl() throws UserNotFoundException {
+    // Act
+    AuthenticatedPrincipal first = principalCache.getPrincipal(EMAIL);
+    AuthenticatedPrincipal second = principalCache.getPrincipal(EMAIL);
+
+    // Assert
+    Assertions.assertEquals(1, first.getUserId());
+    Assertions.assertFalse(first.isAdmin());
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(1, principalCache.getHits());
+    Assertions.assertEquals(1, principalCache.getMisses());
+    verify(userDao, times(1)).getUserByEmail(EMAIL);
+  }
+
+  @Test
+  void getPrincipal_reusedWithinRequestAfterTtl() throws UserNotFoundException {
+    // Arrange
+    RequestContextHolder
+        .setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    principalCache = new PrincipalCache(userDao, 0, 100);
+
+    // Act
+    principalCache.getPrincipal(EMAIL);
+    principalCache.getPrincipal(EMAIL);
+
+    // Assert
+    verify(userDao, times(1)).getUserByEmail(EMAIL);
+  }
+
+  @Test
+  void invalidate_reloadsPrincipal() throws UserNotFoundException {
+    // Arrange
+    RequestContextHolder
+        .setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    principalCache.getPrincipal(EMAIL);
+    User admin = new User();
+    admin.setId(1);
+    admin.setEmail(EMAIL);
+    admin.setRole("ROLE_ADMIN");
+    when(userDao.getUserByEmail(EMAIL)).thenReturn(admin);
+
+    // Act
+    principalCache.invalidate(EMAIL);
+    AuthenticatedPrincipal principal = principalCache.getPrincipal(EMAIL);
+
+    // Assert
+    Assertions.assertTrue(principal.isAdmin());
+    verify(userDao, times(2)).getUserByEmail(EMAIL);
+  }
+}
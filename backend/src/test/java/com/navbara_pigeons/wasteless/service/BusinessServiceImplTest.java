@@ -14,6 +14,8 @@ import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.BusinessRegistrationException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.security.BusinessAdminIndex;
+import com.navbara_pigeons.wasteless.security.model.AuthenticatedPrincipal;
 import com.navbara_pigeons.wasteless.testprovider.ServiceTestProvider;
 import java.time.LocalDate;
 import org.junit.jupiter.api.Assertions;
@@ -34,6 +36,8 @@ class BusinessServiceImplTest extends ServiceTestProvider {
   AddressService addressService;
   @Mock
   UserService userService;
+  @Mock
+  BusinessAdminIndex businessAdminIndex;
   @InjectMocks
   BusinessServiceImpl businessService;
 
@@ -48,6 +52,8 @@ class BusinessServiceImplTest extends ServiceTestProvider {
     user1.setId(USERID_1);
 
     when(userService.getLoggedInUser()).thenReturn(user1);
+    when(userService.getLoggedInPrincipal())
+        .thenReturn(new AuthenticatedPrincipal(USERID_1, EMAIL_1, "ROLE_USER"));
     when(userService.getUserById(USERID_1)).thenReturn(user1);
     when(userService.getUserByEmail(EMAIL_1)).thenReturn(user1);
     doNothing().when(addressService).saveAddress(any(Address.class));
@@ -192,6 +198,8 @@ class BusinessServiceImplTest extends ServiceTestProvider {
     when(businessDao.getBusinessById(BUSINESSID_1)).thenReturn(business);
 
     when(userService.getLoggedInUser()).thenReturn(user2);
+    when(userService.getLoggedInPrincipal())
+        .thenReturn(new AuthenticatedPrincipal(USERID_2, EMAIL_2, "ROLE_USER"));
     Assertions.assertThrows(InsufficientPrivilegesException.class,
         () -> businessService.addBusinessAdmin(business.getId(), USERID_2));
   }
@@ -232,6 +240,8 @@ class BusinessServiceImplTest extends ServiceTestProvider {
     businessService.addBusinessAdmin(business.getId(), USERID_2);
 
     when(userService.getLoggedInUser()).thenReturn(user2);
+    when(userService.getLoggedInPrincipal())
+        .thenReturn(new AuthenticatedPrincipal(USERID_2, EMAIL_2, "ROLE_USER"));
     Assertions.assertThrows(InsufficientPrivilegesException.class,
         () -> businessService.removeBusinessAdmin(business.getId(), USERID_2));
   }
@@ -19,6 +19,8 @@ import com.navbara_pigeons.wasteless.exception.UserAlreadyExistsException;
 import com.navbara_pigeons.wasteless.exception.UserAuthenticationException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserRegistrationException;
+import com.navbara_pigeons.wasteless.image.ImageProcessor;
+import com.navbara_pigeons.wasteless.image.ImageStore;
 import com.navbara_pigeons.wasteless.testprovider.ServiceTestProvider;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -30,7 +32,6 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithUserDetails;
-import org.springframework.web.multipart.MultipartFile;
 
 class ImageServiceImplTest extends ServiceTestProvider {
 
@@ -52,6 +53,12 @@ class ImageServiceImplTest extends ServiceTestProvider {
   @Mock
   UserService userService;
 
+  @Mock
+  ImageProcessor imageProcessor;
+
+  @Mock
+  ImageStore imageStore;
+
   User user; // Admin user
   long USER_ID = 100;
   Business testBusiness;
@@ -100,8 +107,8 @@ class ImageServiceImplTest extends ServiceTestProvider {
     });
 
     doNothing().when(imageDao).saveProductImageToDb(any(Image.class));
-    doNothing().when(imageDao)
-        .saveProductImageToMachine(any(MultipartFile.class), any(String.class));
+    when(imageStore.newImage(any(String.class), any(String.class)))
+        .thenAnswer(invocation -> new Image("/products/", "jpeg"));
   }
 
   // User making the request must be admin in order for the primary administrator to be different from signed in user
@@ -3,10 +3,12 @@ package com.navbara_pigeons.wasteless.service;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import com.navbara_pigeons.wasteless.dao.BusinessDao;
 import com.navbara_pigeons.wasteless.dao.InventoryDao;
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
 import com.navbara_pigeons.wasteless.dao.ProductDao;
 import com.navbara_pigeons.wasteless.dao.UserDao;
 import com.navbara_pigeons.wasteless.dto.CreateInventoryItemDto;
@@ -16,6 +18,7 @@ import com.navbara_pigeons.wasteless.entity.InventoryItem;
 import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
@@ -31,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -55,6 +59,8 @@ class InventoryServiceImplTest extends ServiceTestProvider {
   InventoryDao inventoryDaoMock;
   @Mock
   ListingService listingServiceMock;
+  @Mock
+  ListingArchiveDao listingArchiveDaoMock;
   @InjectMocks
   InventoryServiceImpl inventoryService;
 
@@ -92,7 +98,7 @@ class InventoryServiceImplTest extends ServiceTestProvider {
         .thenReturn(Pair.of(inventory, 0L));
 
     List<FullInventoryItemDto> inventoryDto = inventoryService
-        .getInventory(business.getId(), null, null, null, true).getResults();
+        .getInventory(business.getId(), null, null, null, true, null).getResults();
 
     assertInventoryListEquals(inventory, inventoryDto);
   }
@@ -101,7 +107,7 @@ class InventoryServiceImplTest extends ServiceTestProvider {
   @WithMockUser(username = EMAIL_2)
   void getInventory_isNotBusinessAdmin() {
     assertThrows(InsufficientPrivilegesException.class,
-        () -> inventoryService.getInventory(1, null, null, null, true));
+        () -> inventoryService.getInventory(1, null, null, null, true, null));
   }
 
   @Test
@@ -138,7 +144,7 @@ class InventoryServiceImplTest extends ServiceTestProvider {
         .thenReturn(Pair.of(inventoryItemList, 0L));
 
     List<FullInventoryItemDto> inventory = inventoryService
-        .getInventory(business.getId(), null, null, null, true).getResults();
+        .getInventory(business.getId(), null, null, null, true, null).getResults();
 
     assertInventoryListEquals(inventoryItemList, inventory);
   }
@@ -149,7 +155,7 @@ class InventoryServiceImplTest extends ServiceTestProvider {
     when(userServiceMock.isAdmin()).thenReturn(false);
     when(businessServiceMock.isBusinessAdmin(1000)).thenThrow(BusinessNotFoundException.class);
     assertThrows(BusinessNotFoundException.class,
-        () -> inventoryService.getInventory(1000, null, null, null, true));
+        () -> inventoryService.getInventory(1000, null, null, null, true, null));
   }
 
   void makeInventoryTestWrapper(CreateInventoryItemDto item, boolean shouldFail)
@@ -252,6 +258,17 @@ class InventoryServiceImplTest extends ServiceTestProvider {
     doNothing().when(listingServiceMock).deleteListing(any(Long.class));
     doNothing().when(inventoryDaoMock).deleteInventoryItem(any(InventoryItem.class));
     doNothing().when(inventoryDaoMock).saveInventoryItem(any(InventoryItem.class));
+    // The conditional update only takes quantity that is there
+    when(inventoryDaoMock.removeQuantity(any(InventoryItem.class), anyLong()))
+        .thenAnswer(invocation -> {
+          InventoryItem item = invocation.getArgument(0);
+          long removed = invocation.getArgument(1);
+          if (item.getQuantity() < removed) {
+            return false;
+          }
+          item.removeQuantity(removed);
+          return true;
+        });
 
     if (shouldFail) {
       assertThrows(InventoryUpdateException.class, () -> inventoryService
@@ -283,6 +300,27 @@ class InventoryServiceImplTest extends ServiceTestProvider {
     updateInventoryTestWrapper(1L, false);
   }
 
+  @Test
+  void updateInventory_archivesAfterLockingItem() throws InventoryUpdateException {
+    // Arrange
+    InventoryItem item = makeInventoryItem(makeProduct("Cheese"), makeBusiness().setId(2));
+    item.setQuantity(5L);
+    item.setId(3);
+    Listing listing = makeListing(item);
+    listing.setQuantity(1L);
+    listing.setId(4L);
+    when(inventoryDaoMock.removeQuantity(item, 1L)).thenReturn(true);
+
+    // Act
+    inventoryService.updateInventoryItemFromPurchase(2L, listing);
+
+    // Assert
+    InOrder inOrder = Mockito.inOrder(inventoryDaoMock, listingArchiveDaoMock, listingServiceMock);
+    inOrder.verify(inventoryDaoMock).removeQuantity(item, 1L);
+    inOrder.verify(listingArchiveDaoMock).archiveListings(List.of(4L), ListingArchiveReason.SOLD);
+    inOrder.verify(listingServiceMock).deleteListing(4L);
+  }
+
   /**
    * Tests that the inventory item is passed to the DAO delete layer - all tests mock DAO so can't
    * really test if DAO layer works in these tests
@@ -0,0 +1,122 @@
+package com.navbara_pigeons.wasteless.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
+import com.navbara_pigeons.wasteless.dto.ListingArchiveDto;
+import com.navbara_pigeons.wasteless.dto.PaginationDto;
+import com.navbara_pigeons.wasteless.entity.ListingArchive;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
+import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidPaginationInputException;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.Pair;
+
+class ListingArchiveServiceImplTest {
+
+  private ListingArchiveDao listingArchiveDao;
+  private BusinessService businessService;
+  private UserService userService;
+  private ListingArchiveServiceImpl listingArchiveService;
+
+  @BeforeEach
+  void beforeEach() {
+    listingArchiveDao = mock(ListingArchiveDao.class);
+    businessService = mock(BusinessService.class);
+    userService = mock(UserService.class);
+    listingArchiveService = new ListingArchiveServiceImpl(listingArchiveDao, businessService,
+        userService, 20, 100);
+  }
+
+  private ListingArchive makeListingArchive(long id) {
+    ListingArchive listingArchive = new ListingArchive();
+    listingArchive.setId(id);
+    listingArchive.setBusinessId(1L);
+    listingArchive.setProductName("Cheese");
+    listingArchive.setReason(ListingArchiveReason.SOLD);
+    return listingArchive;
+  }
+
+  @Test
+  void getArchivedListings_isBusinessAdmin() throws Exception {
+    // Arrange
+    when(businessService.isBusinessAdmin(1L)).thenReturn(true);
+    when(listingArchiveDao.getArchivedListings(1L, ListingArchiveReason.SOLD, 0, 2))
+        .thenReturn(Pair.of(List.of(makeListingArchive(5), makeListingArchive(4)), 3L));
+
+    // Act
+    PaginationDto<ListingArchiveDto> result = listingArchiveService
+        .getArchivedListings(1L, ListingArchiveReason.SOLD, 0, 1);
+
+    // Assert
+    Assertions.assertEquals(2, result.getResults().size());
+    Assertions.assertEquals(5, result.getResults().get(0).getId());
+    Assertions.assertEquals("Cheese", result.getResults().get(0).getProductName());
+    Assertions.assertEquals(3, result.getTotalCount());
+    Assertions.assertTrue(result.getHasNext());
+  }
+
+  @Test
+  void getArchivedListings_noIndexes_expectDefaultPageSize() throws Exception {
+    // Arrange
+    when(userService.isAdmin()).thenReturn(true);
+    when(listingArchiveDao.getArchivedListings(1L, null, 0, 20))
+        .thenReturn(Pair.of(List.of(makeListingArchive(5)), 1L));
+
+    // Act
+    PaginationDto<ListingArchiveDto> result = listingArchiveService
+        .getArchivedListings(1L, null, null, null);
+
+    // Assert
+    Assertions.assertEquals(1, result.getResults().size());
+    Assertions.assertFalse(result.getHasNext());
+  }
+
+  @Test
+  void getArchivedListings_notBusinessAdmin_expectInsufficientPrivileges() throws Exception {
+    // Arrange
+    when(businessService.isBusinessAdmin(1L)).thenReturn(false);
+
+    // Act & Assert
+    Assertions.assertThrows(InsufficientPrivilegesException.class,
+        () -> listingArchiveService.getArchivedListings(1L, null, null, null));
+    verify(listingArchiveDao, never()).getArchivedListings(anyLong(), any(),
+        anyInt(), anyInt());
+  }
+
+  @Test
+  void getArchivedListings_pageTooBig_expectInvalidPagination() throws Exception {
+    // Arrange
+    when(userService.isAdmin()).thenReturn(true);
+
+    // Act & Assert
+    Assertions.assertThrows(InvalidPaginationInputException.class,
+        () -> listingArchiveService.getArchivedListings(1L, null, 0, 100));
+    Assertions.assertThrows(InvalidPaginationInputException.class,
+        () -> listingArchiveService.getArchivedListings(1L, null, 5, 4));
+  }
+
+  @Test
+  void getArchivedListings_negativeStartIndex_expectInvalidPagination() throws Exception {
+    // Arrange
+    when(userService.isAdmin()).thenReturn(true);
+
+    // Act & Assert
+    InvalidPaginationInputException exception = Assertions.assertThrows(
+        InvalidPaginationInputException.class,
+        () -> listingArchiveService.getArchivedListings(1L, null, -1, 4));
+    Assertions.assertEquals("The pagination start index must not be negative",
+        exception.getMessage());
+    verify(listingArchiveDao, never()).getArchivedListings(anyLong(), any(),
+        anyInt(), anyInt());
+  }
+}
@@ -0,0 +1,202 @@
+package com.navbara_pigeons.wasteless.service;
+
+import com.navbara_pigeons.wasteless.dao.BusinessDao;
+import com.navbara_pigeons.wasteless.dao.InventoryDao;
+import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.dao.ProductDao;
+import com.navbara_pigeons.wasteless.dto.TransactionDto;
+import com.navbara_pigeons.wasteless.entity.InventoryItem;
+import com.navbara_pigeons.wasteless.entity.Listing;
+import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
+import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
+import com.navbara_pigeons.wasteless.helper.SalesPeriods;
+import com.navbara_pigeons.wasteless.testprovider.MainTestProvider;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Buys the same listings from many threads at once against the database, to show a listing is
+ * only ever sold once and inventory never goes below zero. Everything a test creates is removed
+ * afterwards, including the transactions, archived listings and sales rollups of its purchases.
+ */
+class ListingPurchaseConcurrencyTest extends MainTestProvider {
+
+  private static final long BUSINESS_ID = 1001;
+  private static final long PRODUCT_ID = 5001;
+  private static final int PURCHASERS = 120;
+
+  @Autowired
+  private ListingService listingService;
+  @Autowired
+  private ListingDao listingDao;
+  @Autowired
+  private InventoryDao inventoryDao;
+  @Autowired
+  private BusinessDao businessDao;
+  @Autowired
+  private ProductDao productDao;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private EntityManager entityManager;
+
+  private final List<Long> inventoryItemIds = new ArrayList<>();
+  private final List<TransactionDto> purchases = Collections.synchronizedList(new ArrayList<>());
+
+  @AfterEach
+  void afterEach() {
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      for (TransactionDto purchase : purchases) {
+        entityManager.createNativeQuery("UPDATE sales_rollup SET TRANSACTION_COUNT = "
+                + "TRANSACTION_COUNT - 1, AMOUNT = AMOUNT - :amount "
+                + "WHERE BUSINESS_ID = :businessId AND SALE_DAY = :saleDay")
+            .setParameter("amount", purchase.getAmount())
+            .setParameter("businessId", BUSINESS_ID)
+            .setParameter("saleDay", SalesPeriods.dayOf(purchase.getSaleDate()))
+            .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM transaction WHERE ID = :id")
+            .setParameter("id", purchase.getTransactionId())
+            .executeUpdate();
+      }
+      entityManager.createNativeQuery(
+              "DELETE FROM sales_rollup WHERE BUSINESS_ID = :businessId AND TRANSACTION_COUNT = 0")
+          .setParameter("businessId", BUSINESS_ID)
+          .executeUpdate();
+      if (!inventoryItemIds.isEmpty()) {
+        entityManager.createNativeQuery(
+                "DELETE FROM listing_archive WHERE INVENTORY_ITEM_ID IN (:inventoryItemIds)")
+            .setParameter("inventoryItemIds", inventoryItemIds)
+            .executeUpdate();
+        listingDao.deleteListings(listingDao.getListingIdsOfInventoryItems(inventoryItemIds));
+        inventoryDao.deleteInventoryItems(inventoryItemIds);
+      }
+    });
+  }
+
+  @Test
+  void purchaseListing_concurrentPurchasers_expectOneSale() throws Exception {
+    // Arrange
+    long inventoryItemId = saveInventoryItem(10);
+    long listingId = saveListing(inventoryItemId, 4);
+
+    // Act
+    int sold = purchaseConcurrently(Collections.nCopies(PURCHASERS, listingId));
+
+    // Assert
+    Assertions.assertEquals(1, sold);
+    Assertions.assertEquals(6, getQuantity(inventoryItemId));
+  }
+
+  @Test
+  void purchaseListing_listingsExceedInventory_expectNoOversell() throws Exception {
+    // Arrange, only one of the listings can be sold
+    long inventoryItemId = saveInventoryItem(10);
+    long first = saveListing(inventoryItemId, 6);
+    long second = saveListing(inventoryItemId, 6);
+    List<Long> listingIds = new ArrayList<>();
+    for (int i = 0; i < PURCHASERS; i++) {
+      listingIds.add(i % 2 == 0 ? first : second);
+    }
+
+    // Act
+    int sold = purchaseConcurrently(listingIds);
+
+    // Assert
+    Assertions.assertEquals(1, sold);
+    Assertions.assertEquals(4, getQuantity(inventoryItemId));
+  }
+
+  /**
+   * Starts a purchase of each listing at the same moment on its own thread
+   *
+   * @param listingIds listing each purchaser buys
+   * @return number of successful purchases
+   */
+  private int purchaseConcurrently(List<Long> listingIds) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(listingIds.size());
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger sold = new AtomicInteger();
+    List<Exception> unexpected = Collections.synchronizedList(new ArrayList<>());
+    for (long listingId : listingIds) {
+      executor.execute(() -> {
+        try {
+          start.await();
+          purchases.add(listingService.purchaseListing(BUSINESS_ID, listingId));
+          sold.incrementAndGet();
+        } catch (PurchaseConflictException | InventoryUpdateException | ListingNotFoundException exc) {
+          // Lost the race
+        } catch (Exception exc) {
+          unexpected.add(exc);
+        }
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+    Assertions.assertEquals(Collections.emptyList(), unexpected);
+    return sold.get();
+  }
+
+  private long saveInventoryItem(long quantity) {
+    long inventoryItemId = new TransactionTemplate(transactionManager).execute(status -> {
+      InventoryItem inventoryItem = new InventoryItem();
+      try {
+        inventoryItem.setBusiness(businessDao.getBusinessById(BUSINESS_ID));
+        inventoryItem.setProduct(productDao.getProduct(PRODUCT_ID));
+      } catch (Exception exc) {
+        throw new IllegalStateException(exc);
+      }
+      inventoryItem.setQuantity(quantity);
+      inventoryItem.setPricePerItem(1.0);
+      inventoryItem.setTotalPrice(quantity * 1.0);
+      inventoryItem.setExpires(LocalDate.now().plusDays(7));
+      inventoryDao.saveInventoryItem(inventoryItem);
+      return inventoryItem.getId();
+    });
+    inventoryItemIds.add(inventoryItemId);
+    return inventoryItemId;
+  }
+
+  private long saveListing(long inventoryItemId, long quantity) {
+    return new TransactionTemplate(transactionManager).execute(status -> {
+      Listing listing = new Listing();
+      try {
+        listing.setInventoryItem(inventoryDao.getInventoryItemById(inventoryItemId));
+      } catch (Exception exc) {
+        throw new IllegalStateException(exc);
+      }
+      listing.setQuantity(quantity);
+      listing.setPrice(quantity * 2.0);
+      listing.setCreated(ZonedDateTime.now());
+      listing.setCloses(ZonedDateTime.now().plusDays(7));
+      listingDao.saveListing(listing);
+      return listing.getId();
+    });
+  }
+
+  private long getQuantity(long inventoryItemId) {
+    return new TransactionTemplate(transactionManager).execute(status -> {
+      try {
+        return inventoryDao.getInventoryItemById(inventoryItemId).getQuantity();
+      } catch (Exception exc) {
+        throw new IllegalStateException(exc);
+      }
+    });
+  }
+}
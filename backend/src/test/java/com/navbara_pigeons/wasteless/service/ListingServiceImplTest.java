@@ -2,11 +2,19 @@ package com.navbara_pigeons.wasteless.service;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import com.navbara_pigeons.wasteless.dao.ListingArchiveDao;
 import com.navbara_pigeons.wasteless.dao.ListingDao;
+import com.navbara_pigeons.wasteless.dto.CheckoutItemDto;
+import com.navbara_pigeons.wasteless.dto.CheckoutResultDto;
 import com.navbara_pigeons.wasteless.dto.FullListingDto;
 import com.navbara_pigeons.wasteless.dto.TransactionDto;
 import com.navbara_pigeons.wasteless.entity.Business;
@@ -15,17 +23,28 @@ import com.navbara_pigeons.wasteless.entity.Listing;
 import com.navbara_pigeons.wasteless.entity.Product;
 import com.navbara_pigeons.wasteless.entity.Transaction;
 import com.navbara_pigeons.wasteless.entity.User;
+import com.navbara_pigeons.wasteless.enums.CheckoutItemStatus;
+import com.navbara_pigeons.wasteless.enums.ListingArchiveReason;
 import com.navbara_pigeons.wasteless.enums.ListingSortByOption;
 import com.navbara_pigeons.wasteless.exception.BusinessAndListingMismatchException;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
+import com.navbara_pigeons.wasteless.exception.InvalidIdempotencyKeyException;
 import com.navbara_pigeons.wasteless.exception.InventoryUpdateException;
 import com.navbara_pigeons.wasteless.exception.ListingNotFoundException;
 import com.navbara_pigeons.wasteless.exception.ListingValidationException;
+import com.navbara_pigeons.wasteless.exception.PurchaseConflictException;
+import com.navbara_pigeons.wasteless.helper.IdempotencyStore;
 import com.navbara_pigeons.wasteless.helper.PaginationBuilder;
+import com.navbara_pigeons.wasteless.helper.TotalCountCache;
 import com.navbara_pigeons.wasteless.model.ListingsSearchParams;
+import com.navbara_pigeons.wasteless.search.ListingSearchIndex;
+import com.navbara_pigeons.wasteless.search.ProductAttributeIndex;
+import com.navbara_pigeons.wasteless.search.SearchPlanCompiler;
 import com.navbara_pigeons.wasteless.testprovider.ServiceTestProvider;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,7 +55,10 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Pair;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 class ListingServiceImplTest extends ServiceTestProvider {
 
@@ -52,6 +74,20 @@ class ListingServiceImplTest extends ServiceTestProvider {
   private BusinessService businessService;
   @Mock
   private TransactionService transactionService;
+  @Mock
+  private ListingSearchIndex listingSearchIndex;
+  @Mock
+  private SearchPlanCompiler searchPlanCompiler;
+  @Mock
+  private ProductAttributeIndex productAttributeIndex;
+  @Mock
+  private TotalCountCache totalCountCache;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+  @Mock
+  private IdempotencyStore idempotencyStore;
+  @Mock
+  private ListingArchiveDao listingArchiveDao;
   @InjectMocks
   private ListingServiceImpl listingService;
   private Long businessId;
@@ -66,6 +102,8 @@ class ListingServiceImplTest extends ServiceTestProvider {
     business.setPrimaryAdministratorId(userId);
 
     when(userService.isAdmin()).thenReturn(false);
+    when(transactionManager.getTransaction(any()))
+        .thenAnswer(invocation -> new SimpleTransactionStatus());
     when(businessService.isBusinessAdmin(businessId)).thenReturn(true);
   }
 
@@ -103,7 +141,7 @@ class ListingServiceImplTest extends ServiceTestProvider {
 
     Assertions.assertArrayEquals(
         Stream.of(1, 2, 3, 4, 5, 6).map(Long::valueOf).toArray(),
-        listingService.getListings(mockBusiness.getId(), null, null, null, true)
+        listingService.getListings(mockBusiness.getId(), null, null, null, true, null, null)
             .getResults()
             .stream().map(FullListingDto::getId)
             .toArray()
@@ -220,6 +258,148 @@ class ListingServiceImplTest extends ServiceTestProvider {
     );
   }
 
+  @Test
+  void purchaseListingConflict_expectRetry() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.getListing(anyLong())).thenReturn(listing);
+    doThrow(new ObjectOptimisticLockingFailureException(Listing.class, listing.getId()))
+        .doNothing()
+        .when(transactionManager).commit(any());
+
+    // Act
+    listingService.purchaseListing(business.getId(), listing.getId());
+
+    // Assert
+    verify(transactionService, times(2)).saveTransaction(any(Transaction.class));
+  }
+
+  @Test
+  void purchaseListingAlreadyPurchased_expectConflict() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.getListing(anyLong())).thenReturn(listing)
+        .thenThrow(new ListingNotFoundException(listing.getId()));
+    doThrow(new ObjectOptimisticLockingFailureException(Listing.class, listing.getId()))
+        .when(transactionManager).commit(any());
+
+    // Act & Assert
+    Assertions.assertThrows(PurchaseConflictException.class,
+        () -> listingService.purchaseListing(business.getId(), listing.getId()));
+  }
+
+  @Test
+  void purchaseListingKeepsConflicting_expectConflict() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.getListing(anyLong())).thenReturn(listing);
+    doThrow(new ObjectOptimisticLockingFailureException(Listing.class, listing.getId()))
+        .when(transactionManager).commit(any());
+
+    // Act & Assert
+    Assertions.assertThrows(PurchaseConflictException.class,
+        () -> listingService.purchaseListing(business.getId(), listing.getId()));
+    verify(transactionService, times(3)).saveTransaction(any(Transaction.class));
+  }
+
+  @Test
+  void purchaseListingWithTooLongIdempotencyKey_expectInvalidKey() throws Exception {
+    // Arrange
+    String idempotencyKey = "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1);
+
+    // Act & Assert
+    Assertions.assertThrows(InvalidIdempotencyKeyException.class,
+        () -> listingService.purchaseListing(businessId, 1, idempotencyKey));
+    verify(transactionService, never()).saveTransaction(any(Transaction.class));
+  }
+
+  @Test
+  void checkout_skipsListingsThatCannotBePurchased() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Listing tooBig = makeOtherListing(listing.getInventoryItem(), 48, 7);
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.lockListingsForPurchase(any())).thenReturn(List.of(listing, tooBig));
+
+    // Act
+    CheckoutResultDto result = listingService
+        .checkout(business.getId(), List.of(99L, 48L, 47L, 47L));
+
+    // Assert
+    Assertions.assertEquals(List.of(99L, 48L, 47L), result.getItems().stream()
+        .map(CheckoutItemDto::getListingId).collect(Collectors.toList()));
+    Assertions.assertEquals(List.of(CheckoutItemStatus.NOT_FOUND,
+        CheckoutItemStatus.INSUFFICIENT_QUANTITY, CheckoutItemStatus.PURCHASED), result.getItems()
+        .stream().map(CheckoutItemDto::getStatus).collect(Collectors.toList()));
+    Assertions.assertEquals(1, result.getPurchasedCount());
+    Assertions.assertEquals(6, listing.getInventoryItem().getQuantity());
+    verify(transactionService).saveTransactions(argThat(transactions -> transactions.size() == 1));
+    verify(listingDao).deleteListing(47L);
+  }
+
+  @Test
+  void checkout_soldOutInventoryItemIsDeleted() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Listing rest = makeOtherListing(listing.getInventoryItem(), 48, 6);
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.lockListingsForPurchase(any())).thenReturn(List.of(listing, rest));
+
+    // Act
+    CheckoutResultDto result = listingService.checkout(business.getId(), List.of(47L, 48L));
+
+    // Assert
+    Assertions.assertEquals(2, result.getPurchasedCount());
+    Assertions.assertEquals(17.99 + 5.00, result.getTotal(), 0.001);
+    verify(transactionService).saveTransactions(argThat(transactions -> transactions.size() == 2));
+    verify(listingArchiveDao).archiveListings(List.of(47L, 48L), ListingArchiveReason.SOLD);
+    verify(listingArchiveDao).archiveListingsOfInventoryItems(
+        argThat(ids -> ids.size() == 1 && ids.contains(listing.getInventoryItem().getId())),
+        eq(ListingArchiveReason.SOLD_OUT));
+    verify(inventoryService).deleteInventoryItem(listing.getInventoryItem());
+    verify(listingDao, never()).deleteListing(anyLong());
+  }
+
+  @Test
+  void checkout_fromMismatchBusiness() throws Exception {
+    // Arrange
+    Listing listing = makeListing();
+    Business business = listing.getInventoryItem().getBusiness();
+    when(listingDao.lockListingsForPurchase(any())).thenReturn(List.of(listing));
+
+    // Act
+    CheckoutResultDto result = listingService.checkout(business.getId() + 1, List.of(47L));
+
+    // Assert
+    Assertions.assertEquals(CheckoutItemStatus.BUSINESS_MISMATCH,
+        result.getItems().get(0).getStatus());
+    verify(transactionService, never()).saveTransactions(any());
+  }
+
+  @Test
+  void checkout_withTooManyListings_expectValidationError() {
+    // Arrange
+    List<Long> listingIds = LongStream.rangeClosed(1, 51).boxed().collect(Collectors.toList());
+
+    // Act & Assert
+    Assertions.assertThrows(ListingValidationException.class,
+        () -> listingService.checkout(businessId, listingIds));
+  }
+
+  // Creates another listing of an inventory item
+  private Listing makeOtherListing(InventoryItem inventoryItem, long listingId, long quantity) {
+    Listing listing = new Listing();
+    listing.setInventoryItem(inventoryItem);
+    listing.setQuantity(quantity);
+    listing.setPrice(5.00);
+    listing.setId(listingId);
+    inventoryItem.addListing(listing);
+    return listing;
+  }
+
   // Creates a business, product, inventory item and listing
   private Listing makeListing() throws Exception {
     Product product = makeProduct("Some product");
@@ -243,7 +423,7 @@ class ListingServiceImplTest extends ServiceTestProvider {
 
   @Test
   @WithMockUser(username = "ntony@tony.tony", password = "tonyTony1")
-  void getAllListings_isAuthenticated() {
+  void getAllListings_isAuthenticated() throws Exception {
 
     List<Listing> mockListings = new ArrayList<>();
 
@@ -0,0 +1,51 @@
+package com.navbara_pigeons.wasteless.service;
+
+import com.navbara_pigeons.wasteless.entity.Keyword;
+import com.navbara_pigeons.wasteless.entity.MarketListing;
+import com.navbara_pigeons.wasteless.testprovider.MainTestProvider;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+/**
+ * Creates cards with keywords against the database once the keyword cache is warm, cached
+ * keywords must never be attached to a card.
+ */
+class MarketListingKeywordsTest extends MainTestProvider {
+
+  private static final String CREATOR_EMAIL = "fdi19@uclive.ac.nz";
+  private static final long CREATOR_ID = 5001;
+  private static final List<Long> KEYWORD_IDS = List.of(101L, 102L);
+
+  @Autowired
+  private MarketListingService marketListingService;
+  @Autowired
+  private KeywordService keywordService;
+
+  @Test
+  @WithMockUser(username = CREATOR_EMAIL)
+  void saveMarketListing_twoCardsWithKeywords_expectBothSaved() throws Exception {
+    // Arrange
+    List<Keyword> cachedKeywords = keywordService.getAllKeywords();
+
+    // Act
+    Long first = marketListingService.saveMarketListing(makeCard(), KEYWORD_IDS, CREATOR_ID);
+    Long second = marketListingService.saveMarketListing(makeCard(), KEYWORD_IDS, CREATOR_ID);
+
+    // Assert
+    Assertions.assertFalse(cachedKeywords.isEmpty());
+    Assertions.assertNotNull(first);
+    Assertions.assertNotNull(second);
+    Assertions.assertNotEquals(first, second);
+  }
+
+  private MarketListing makeCard() {
+    MarketListing card = new MarketListing();
+    card.setSection("ForSale");
+    card.setTitle("Card with keywords");
+    card.setDescription("Saved after the keyword cache is warm");
+    return card;
+  }
+}
@@ -1,11 +1,19 @@
 package com.navbara_pigeons.wasteless.service;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import com.navbara_pigeons.wasteless.analytics.SalesAnalyzer;
+import com.navbara_pigeons.wasteless.dao.TransactionDao;
 import com.navbara_pigeons.wasteless.dao.TransactionDaoHibernateImpl;
+import com.navbara_pigeons.wasteless.entity.Transaction;
+import com.navbara_pigeons.wasteless.enums.TransactionExportFormat;
 import com.navbara_pigeons.wasteless.enums.TransactionGranularity;
 import com.navbara_pigeons.wasteless.exception.InsufficientPrivilegesException;
 import com.navbara_pigeons.wasteless.testprovider.ServiceTestProvider;
+import java.io.ByteArrayOutputStream;
 import java.time.ZonedDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -19,9 +27,42 @@ class TransactionServiceImplTest extends ServiceTestProvider {
   private BusinessService businessService;
   @Mock
   private TransactionDaoHibernateImpl transactionDaoHibernate;
+  @Mock
+  private TransactionDao transactionDao;
+  @Mock
+  private SalesAnalyzer salesAnalyzer;
   @InjectMocks
   private TransactionServiceImpl transactionService;
 
+  @Test
+  void saveTransaction_addsToSalesRollup() {
+    // Arrange
+    Transaction transaction = new Transaction(ZonedDateTime.now(), ZonedDateTime.now(), null,
+        5001L, 2.50);
+
+    // Act
+    transactionService.saveTransaction(transaction);
+
+    // Assert
+    verify(transactionDao).save(transaction);
+    verify(transactionDaoHibernate).addToSalesRollup(transaction);
+  }
+
+  @Test
+  void saveTransactions_batchesInsertsAndRollups() {
+    // Arrange
+    List<Transaction> transactions = List.of(
+        new Transaction(ZonedDateTime.now(), ZonedDateTime.now(), null, 5001L, 2.50),
+        new Transaction(ZonedDateTime.now(), ZonedDateTime.now(), null, 5001L, 4.00));
+
+    // Act
+    transactionService.saveTransactions(transactions);
+
+    // Assert
+    verify(transactionDaoHibernate).saveTransactions(transactions);
+    verify(transactionDaoHibernate).addToSalesRollup(transactions);
+  }
+
   @Test
   void getTransactionData_asGAA_expectOk() throws Exception {
     // Arrange
@@ -31,12 +72,12 @@ class TransactionServiceImplTest extends ServiceTestProvider {
     when(userService.isAdmin()).thenReturn(true);
     when(businessService.isBusinessAdmin(mockBusinessId)).thenReturn(false);
     when(transactionDaoHibernate.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-            mockGranularity)).thenReturn(null);
+            mockGranularity, false)).thenReturn(null);
 
     // Act & Assert
     Assertions.assertDoesNotThrow(
         () -> transactionService.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-            mockGranularity));
+            mockGranularity, false));
   }
 
   @Test
@@ -48,12 +89,12 @@ class TransactionServiceImplTest extends ServiceTestProvider {
     when(userService.isAdmin()).thenReturn(false);
     when(businessService.isBusinessAdmin(mockBusinessId)).thenReturn(true);
     when(transactionDaoHibernate.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-        mockGranularity)).thenReturn(null);
+        mockGranularity, false)).thenReturn(null);
 
     // Act & Assert
     Assertions.assertDoesNotThrow(
         () -> transactionService.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-            mockGranularity));
+            mockGranularity, false));
   }
 
   @Test
@@ -65,11 +106,70 @@ class TransactionServiceImplTest extends ServiceTestProvider {
     when(userService.isAdmin()).thenReturn(false);
     when(businessService.isBusinessAdmin(mockBusinessId)).thenReturn(false);
     when(transactionDaoHibernate.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-        mockGranularity)).thenReturn(null);
+        mockGranularity, false)).thenReturn(null);
 
     // Act & Assert
     Assertions.assertThrows(InsufficientPrivilegesException.class,
         () -> transactionService.getTransactionData(mockBusinessId, mockSaleDate, mockSaleDate,
-            mockGranularity));
+            mockGranularity, false));
+  }
+
+  @Test
+  void exportTransactions_asRandomUser_expectException() throws Exception {
+    // Arrange
+    Long mockBusinessId = 5001L;
+    ZonedDateTime mockSaleDate = ZonedDateTime.now();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    when(userService.isAdmin()).thenReturn(false);
+    when(businessService.isBusinessAdmin(mockBusinessId)).thenReturn(false);
+
+    // Act & Assert
+    Assertions.assertThrows(InsufficientPrivilegesException.class,
+        () -> transactionService.exportTransactions(mockBusinessId, mockSaleDate, mockSaleDate,
+            TransactionExportFormat.CSV, output));
+    Assertions.assertEquals(0, output.size());
+  }
+
+  @Test
+  void getSalesAnalytics_asGAA_expectWholeMarketplace() throws Exception {
+    // Arrange
+    ZonedDateTime mockSaleDate = ZonedDateTime.now();
+    when(userService.isAdmin()).thenReturn(true);
+    when(transactionDaoHibernate.getBusinessIdsWithSales()).thenReturn(List.of(1L, 2L, 3L));
+
+    // Act
+    transactionService.getSalesAnalytics(null, mockSaleDate, mockSaleDate, 10);
+
+    // Assert
+    verify(salesAnalyzer).analyze(List.of(1L, 2L, 3L), mockSaleDate, mockSaleDate, 10);
+  }
+
+  @Test
+  void getSalesAnalytics_asBusinessAdmin_expectAdministeredBusinesses() throws Exception {
+    // Arrange
+    ZonedDateTime mockSaleDate = ZonedDateTime.now();
+    when(userService.isAdmin()).thenReturn(false);
+    when(businessService.getAdministeredBusinessIds()).thenReturn(List.of(5001L));
+
+    // Act
+    transactionService.getSalesAnalytics(List.of(), mockSaleDate, mockSaleDate, 10);
+
+    // Assert
+    verify(salesAnalyzer).analyze(List.of(5001L), mockSaleDate, mockSaleDate, 10);
+  }
+
+  @Test
+  void getSalesAnalytics_notAdminOfEveryBusiness_expectException() throws Exception {
+    // Arrange
+    ZonedDateTime mockSaleDate = ZonedDateTime.now();
+    when(userService.isAdmin()).thenReturn(false);
+    when(businessService.isBusinessAdmin(5001L)).thenReturn(true);
+    when(businessService.isBusinessAdmin(5002L)).thenReturn(false);
+
+    // Act & Assert
+    Assertions.assertThrows(InsufficientPrivilegesException.class,
+        () -> transactionService.getSalesAnalytics(List.of(5001L, 5002L), mockSaleDate,
+            mockSaleDate, 10));
+    verify(salesAnalyzer, never()).analyze(List.of(5001L, 5002L), mockSaleDate, mockSaleDate, 10);
   }
 }
@@ -12,6 +12,7 @@ import com.navbara_pigeons.wasteless.entity.User;
 import com.navbara_pigeons.wasteless.exception.AddressValidationException;
 import com.navbara_pigeons.wasteless.exception.BusinessNotFoundException;
 import com.navbara_pigeons.wasteless.exception.UserNotFoundException;
+import com.navbara_pigeons.wasteless.security.PrincipalCache;
 import com.navbara_pigeons.wasteless.testprovider.ServiceTestProvider;
 import java.util.Collection;
 import org.junit.jupiter.api.Assertions;
@@ -40,6 +41,8 @@ class UserServiceImplTest extends ServiceTestProvider {
   AuthenticationManagerBuilder authenticationManagerBuilder;
   @Mock
   AddressService addressService;
+  @Mock
+  PrincipalCache principalCache;
   @InjectMocks
   UserServiceImpl userService;
 